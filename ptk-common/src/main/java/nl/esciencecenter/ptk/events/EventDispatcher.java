@@ -23,7 +23,16 @@ package nl.esciencecenter.ptk.events;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
-import java.util.ListIterator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Generic Event Dispatcher.
@@ -31,6 +40,11 @@ import java.util.ListIterator;
  * Maintains an event queue of
  * <code>EventT<code> events and dispatches them to registered listeners.
  * Listeners can register themself to many EventSource instances.
+ * <p>
+ * Events are queued in a lock free queue and dispatched in batches by a single dispatcher thread. Bursts of events
+ * can be combined by subclasses, see canMergeEvents(), getCoalesceKey(), isCoalesceBarrier() and mergeEvents().
+ * Listeners are indexed on their event source, so only the listeners of the event source and the listeners for all
+ * sources are checked for an event.
  *
  * @param <EventTypeT> Event Type.
  * @param <EventT>     Event implementation.
@@ -38,17 +52,32 @@ import java.util.ListIterator;
 @Slf4j
 public class EventDispatcher<EventTypeT, EventT extends IEvent<EventTypeT>, EventListenerT extends IEventListener<EventT>> {
 
+    /**
+     * Maximum number of queued events which are combined and dispatched as one batch.
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 10000;
+
     protected int eventIdleWaitTime = 60 * 1000;
 
-    protected Object waitMutex = new Object();
+    /**
+     * Time in milliseconds the dispatcher waits after the first event of a burst, so more events can be combined.
+     */
+    protected volatile int coalesceWindow = 0;
+
+    protected int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
 
     protected class Dispatcher implements Runnable {
 
-        protected boolean mustStop = false;
+        protected volatile boolean mustStop = false;
 
         protected boolean isStopped = false;
 
-        protected Thread thread = null;
+        protected volatile Thread thread = null;
+
+        /**
+         * Whether the dispatcher thread is parked and needs an unpark() after a new event.
+         */
+        protected volatile boolean isWaiting = false;
 
         @Override
         public void run() {
@@ -72,7 +101,7 @@ public class EventDispatcher<EventTypeT, EventT extends IEvent<EventTypeT>, Even
         }
 
         /**
-         * Actual dispatch loop which call handleEvent() to dispatch a single event.
+         * Actual dispatch loop which call handleEvents() to dispatch a batch of events.
          */
         protected void doDispatcherLoop() {
             while (!mustStop) {
@@ -82,19 +111,26 @@ public class EventDispatcher<EventTypeT, EventT extends IEvent<EventTypeT>, Even
                 }
 
                 if (hasEvents()) {
-                    handleEvent();
-                } else {
-                    try {
-                        synchronized (waitMutex) {
-                            waitMutex.wait(eventIdleWaitTime);
-                        }
-                    } catch (InterruptedException e) {
-                        log.error("Interrupted", e);
+                    if (coalesceWindow > 0) {
+                        // Let the burst come in:
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(coalesceWindow));
                     }
+                    handleEvents();
+                } else {
+                    waitForEvents();
                 }
             }
         }
 
+        protected void waitForEvents() {
+            isWaiting = true;
+            // check again after setting isWaiting, an event might have been added in between.
+            if ((hasEvents() == false) && (mustStop == false)) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(eventIdleWaitTime));
+            }
+            isWaiting = false;
+        }
+
         public void stop() {
             this.mustStop = true;
             wakeUp();
@@ -107,8 +143,9 @@ public class EventDispatcher<EventTypeT, EventT extends IEvent<EventTypeT>, Even
         }
 
         protected void wakeUp() {
-            synchronized (waitMutex) {
-                waitMutex.notifyAll();
+            Thread current = thread;
+            if (current != null) {
+                LockSupport.unpark(current);
             }
         }
 
@@ -141,9 +178,22 @@ public class EventDispatcher<EventTypeT, EventT extends IEvent<EventTypeT>, Even
     //
     // ========================================================================
 
-    protected ArrayList<EventT> events = new ArrayList<EventT>();
+    protected final ConcurrentLinkedQueue<EventT> events = new ConcurrentLinkedQueue<EventT>();
+
+    /**
+     * Listeners registered without event source, these receive all events.
+     */
+    protected final CopyOnWriteArrayList<EventListenerEntry> listeners = new CopyOnWriteArrayList<EventListenerEntry>();
+
+    /**
+     * Listeners registered for an event source.
+     */
+    protected final ConcurrentHashMap<Object, CopyOnWriteArrayList<EventListenerEntry>> sourceListeners =
+            new ConcurrentHashMap<Object, CopyOnWriteArrayList<EventListenerEntry>>();
+
+    private final AtomicLong numFired = new AtomicLong();
 
-    protected ArrayList<EventListenerEntry> listeners = new ArrayList<EventListenerEntry>();
+    private final AtomicLong numDispatched = new AtomicLong();
 
     private Dispatcher dispatcher = null;
 
@@ -179,28 +229,53 @@ public class EventDispatcher<EventTypeT, EventT extends IEvent<EventTypeT>, Even
      */
     public void fireEvent(EventT newEvent) {
         addEvent(newEvent);
-        wakeupDispatcher();
+        numFired.incrementAndGet();
+        // only wake up the dispatcher when it is waiting:
+        if (dispatcher.isWaiting) {
+            wakeupDispatcher();
+        }
     }
 
     protected void addEvent(EventT newEvent) {
-        synchronized (events) {
-            events.add(newEvent);
-        }
+        events.offer(newEvent);
     }
 
     protected void removeEvent(EventT event) {
-        synchronized (events) {
-            events.remove(event);
-        }
+        events.remove(event);
     }
 
     protected void wakeupDispatcher() {
         dispatcher.wakeUp();
     }
 
+    /**
+     * Set the time in milliseconds to wait after the first event of a burst before dispatching, so that more events
+     * can be combined.
+     */
+    public void setCoalesceWindow(int millis) {
+        this.coalesceWindow = millis;
+    }
+
+    public int getCoalesceWindow() {
+        return coalesceWindow;
+    }
+
     public void addListener(EventListenerT listener, Object eventSource) {
-        synchronized (listeners) {
-            this.listeners.add(new EventListenerEntry(listener, eventSource));
+        EventListenerEntry entry = new EventListenerEntry(listener, eventSource);
+
+        if (eventSource == null) {
+            listeners.add(entry);
+            return;
+        }
+
+        // Modifications of sourceListeners are synchronized, dispatching reads without locking.
+        synchronized (sourceListeners) {
+            CopyOnWriteArrayList<EventListenerEntry> entries = sourceListeners.get(eventSource);
+            if (entries == null) {
+                entries = new CopyOnWriteArrayList<EventListenerEntry>();
+                sourceListeners.put(eventSource, entries);
+            }
+            entries.add(entry);
         }
     }
 
@@ -210,58 +285,64 @@ public class EventDispatcher<EventTypeT, EventT extends IEvent<EventTypeT>, Even
      * @param source the EventSourceT object to unregister all the Listeners for.
      */
     public void removeListenersFor(Object source) {
-        synchronized (listeners) {
-            // first filter
-            ListIterator<EventListenerEntry> iterator = listeners.listIterator();
-            EventListenerEntry entry = null;
-            ArrayList<EventListenerEntry> filtered = new ArrayList<EventListenerEntry>();
-            while (iterator.hasNext()) {
-                entry = iterator.next();
-                if (entry.eventSource.equals(source)) {
-                    filtered.add(entry);
-                }
-            }
-            // now remove:
-            for (EventListenerEntry entryDel : filtered) {
-                listeners.remove(entryDel);
-            }
+        if (source == null) {
+            return;
+        }
+
+        synchronized (sourceListeners) {
+            sourceListeners.remove(source);
         }
     }
 
+    /**
+     * Remove the listener for all event sources it was registered for.
+     */
     public void removeListener(EventListenerT listener) {
-        synchronized (listeners) {
-            ListIterator<EventListenerEntry> iterator = listeners.listIterator();
-            EventListenerEntry theEntry = null;
-            // search
-            while (iterator.hasNext()) {
-                theEntry = iterator.next();
-                if (theEntry.equals(listener)) {
-                    break;
+        removeEntries(listeners, listener);
+
+        synchronized (sourceListeners) {
+            for (Map.Entry<Object, CopyOnWriteArrayList<EventListenerEntry>> mapEntry : sourceListeners.entrySet()) {
+                CopyOnWriteArrayList<EventListenerEntry> entries = mapEntry.getValue();
+                removeEntries(entries, listener);
+                if (entries.isEmpty()) {
+                    sourceListeners.remove(mapEntry.getKey(), entries);
                 }
             }
-            // and destroy
-            if (theEntry != null) {
-                listeners.remove(listener);
-            }
         }
     }
 
-    protected EventT popEvent() {
-        synchronized (this.events) {
-            if (events.size() <= 0) {
-                return null;
-            }
+    private void removeEntries(CopyOnWriteArrayList<EventListenerEntry> entries, EventListenerT listener) {
+        List<EventListenerEntry> filtered = new ArrayList<EventListenerEntry>();
 
-            EventT event = this.events.get(0);
-            this.events.remove(0);
-            return event;
+        for (EventListenerEntry entry : entries) {
+            if (entry.listener == listener) {
+                filtered.add(entry);
+            }
         }
+
+        entries.removeAll(filtered);
+    }
+
+    protected EventT popEvent() {
+        return events.poll();
     }
 
     public boolean hasEvents() {
-        synchronized (this.events) {
-            return (this.events.size() > 0);
-        }
+        return (events.isEmpty() == false);
+    }
+
+    /**
+     * @return Total number of fired events.
+     */
+    public long getNumFiredEvents() {
+        return numFired.get();
+    }
+
+    /**
+     * @return Total number of events dispatched to the listeners, after combining.
+     */
+    public long getNumDispatchedEvents() {
+        return numDispatched.get();
     }
 
     /**
@@ -274,20 +355,181 @@ public class EventDispatcher<EventTypeT, EventT extends IEvent<EventTypeT>, Even
             return;
         }
 
-        if (listeners.size() <= 0) {
+        dispatchEvent(event);
+    }
+
+    /**
+     * Pop a batch of events, combine them and dispatch the result to the registered listeners.
+     */
+    protected void handleEvents() {
+        List<EventT> batch = new ArrayList<EventT>();
+        EventT event;
+
+        while ((batch.size() < maxBatchSize) && ((event = popEvent()) != null)) {
+            batch.add(event);
+        }
+
+        for (EventT combined : coalesceEvents(batch)) {
+            dispatchEvent(combined);
+        }
+    }
+
+    /**
+     * Combine events of a batch:
+     * <ul>
+     * <li>Events with the same non null getCoalesceKey() are merged into the last one of these events in the batch.
+     * This is meant for events like updates, which may be delivered later, but not earlier. Events are not moved past
+     * an event for which isCoalesceBarrier() returns true for their key.
+     * <li>Subsequent events are merged if canMergeEvents() returns true for them.
+     * </ul>
+     */
+    protected List<EventT> coalesceEvents(List<EventT> batch) {
+        if (batch.size() <= 1) {
+            return batch;
+        }
+
+        // Group events on coalesce key, keep order of events within a group. A barrier event ends the current group
+        // of a key, later events with that key start a new group.
+        Object[] groupIds = new Object[batch.size()];
+        Map<Object, Integer> openGroups = new HashMap<Object, Integer>();
+        Map<Integer, List<EventT>> groups = new HashMap<Integer, List<EventT>>();
+        Map<Integer, Integer> lastIndices = new HashMap<Integer, Integer>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            EventT event = batch.get(i);
+
+            Iterator<Object> keys = openGroups.keySet().iterator();
+            while (keys.hasNext()) {
+                if (isCoalesceBarrier(event, keys.next())) {
+                    keys.remove();
+                }
+            }
+
+            Object key = getCoalesceKey(event);
+
+            if (key == null) {
+                continue;
+            }
+
+            Integer groupId = openGroups.get(key);
+            if (groupId == null) {
+                groupId = groups.size();
+                openGroups.put(key, groupId);
+                groups.put(groupId, new ArrayList<EventT>());
+            }
+            groups.get(groupId).add(event);
+            groupIds[i] = groupId;
+            lastIndices.put(groupId, i);
+        }
+
+        ArrayList<EventT> keyMerged = new ArrayList<EventT>(batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            EventT event = batch.get(i);
+            Object groupId = groupIds[i];
+
+            if (groupId == null) {
+                keyMerged.add(event);
+            } else if (lastIndices.get(groupId) == i) {
+                List<EventT> group = groups.get(groupId);
+                keyMerged.add((group.size() > 1) ? mergeEvents(group) : event);
+            }
+        }
+
+        // Merge runs of subsequent events:
+        ArrayList<EventT> result = new ArrayList<EventT>(keyMerged.size());
+        List<EventT> run = new ArrayList<EventT>();
+
+        for (EventT event : keyMerged) {
+            if ((run.isEmpty() == false) && (canMergeEvents(run.get(0), event) == false)) {
+                result.add((run.size() > 1) ? mergeEvents(run) : run.get(0));
+                run.clear();
+            }
+            run.add(event);
+        }
+
+        if (run.isEmpty() == false) {
+            result.add((run.size() > 1) ? mergeEvents(run) : run.get(0));
+        }
+
+        return result;
+    }
+
+    /**
+     * Whether the two events can be merged into one event by mergeEvents(). Default implementation returns false.
+     *
+     * @param first  - earlier event.
+     * @param second - later event.
+     */
+    protected boolean canMergeEvents(EventT first, EventT second) {
+        return false;
+    }
+
+    /**
+     * Merge the events, in order of occurrence, into one event. Only called for events which are mergeable according
+     * to canMergeEvents() or have the same coalesce key.
+     */
+    protected EventT mergeEvents(List<EventT> events) {
+        throw new UnsupportedOperationException("Merging events not supported by:" + this.getClass());
+    }
+
+    /**
+     * Events with the same non null coalesce key are merged into the last one of these in a batch. These events must
+     * be mergeable by mergeEvents(). Default implementation returns null.
+     */
+    protected Object getCoalesceKey(EventT event) {
+        return null;
+    }
+
+    /**
+     * Whether the event ends the coalescing of earlier events with the given coalesce key. Earlier and later events
+     * with this key are merged separately, so none of them is delivered after the barrier event. Default
+     * implementation returns false.
+     */
+    protected boolean isCoalesceBarrier(EventT event, Object coalesceKey) {
+        return false;
+    }
+
+    /**
+     * Dispatch a single event to the listeners for all sources and the listeners for the source of the event.
+     */
+    protected void dispatchEvent(EventT event) {
+        numDispatched.incrementAndGet();
+
+        for (EventListenerEntry entry : listeners) {
+            notifyListener(entry, event);
+        }
+
+        if (sourceListeners.isEmpty()) {
+            return;
+        }
+
+        Object source = event.getEventSource();
+
+        if (source == null) {
             return;
         }
-        // Use iterator
-        ListIterator<EventListenerEntry> iterator = listeners.listIterator();
-        // 
-        while (iterator.hasNext()) {
-            EventListenerEntry entry = iterator.next();
-            boolean notify = true;
-            if (entry.receiveAll == false) {
-                notify = matchEventSource(entry.listener, entry.eventSource, event);
+
+        CopyOnWriteArrayList<EventListenerEntry> entries = sourceListeners.get(source);
+
+        if (entries != null) {
+            for (EventListenerEntry entry : entries) {
+                notifyListener(entry, event);
             }
-            if (notify) {
+        }
+    }
+
+    private void notifyListener(EventListenerEntry entry, EventT event) {
+        boolean notify = true;
+        if (entry.receiveAll == false) {
+            notify = matchEventSource(entry.listener, entry.eventSource, event);
+        }
+        if (notify) {
+            try {
                 entry.listener.notifyEvent(event);
+            } catch (Throwable t) {
+                // Do not stop the dispatcher thread.
+                log.error("Listener " + entry.listener + " threw exception:" + t.getMessage(), t);
             }
         }
     }
@@ -299,6 +541,7 @@ public class EventDispatcher<EventTypeT, EventT extends IEvent<EventTypeT>, Even
     public void dispose() {
         stop();
         this.listeners.clear();
+        this.sourceListeners.clear();
         this.events.clear();
     }
 
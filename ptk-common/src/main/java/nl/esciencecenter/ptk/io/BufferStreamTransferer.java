@@ -28,6 +28,8 @@ import nl.esciencecenter.ptk.task.ITaskMonitor;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * BufferStreamTransferer copies data from in InputStream to an OutputStream. <br>
@@ -35,41 +37,47 @@ import java.io.OutputStream;
  * the reader in a background thread while waiting for the reader to fill the buffer and starting
  * writing the data in current thread. This parallel read/write will better use the available
  * bandwidth by both reading and writing in parallel.
+ * <p>
+ * The buffer is a single producer/single consumer ring: the reader only updates the number of bytes read and the
+ * writer only updates the number of bytes written. Both counters are volatile so no locking is needed. A thread which
+ * has to wait for the other parks itself and is unparked by the other thread after it has made progress.
  */
 @Slf4j
 public class BufferStreamTransferer {
 
+    /**
+     * Maximum time a waiting reader or writer is parked before checking for cancellation.
+     */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
     // === instance ===
 
     private final String streamCopySubTaskName = "Performing StreamCopy";
 
-    // data buffer: acces is synchronized.
-    // This object is also used as general mutex.
+    /**
+     * Ring buffer. Bytes [nrWritten,totalRead) (modulo buffer length) contain data which still has to be written.
+     */
     private byte[] buffer = null;
 
-    private long totalRead = 0;
-
-    private long nrWritten = 0;
-
     /**
-     * either unkownSize==true or nrToTransfer>0)
+     * Number of bytes read into the buffer. Only updated by the reader.
      */
-    private boolean unknownSize = true;
+    private volatile long totalRead = 0;
 
     /**
-     * either unkownSize==true or nrToTransfer>0)
+     * Number of bytes written from the buffer. Only updated by the writer.
      */
-    private long nrToTransfer = -1; // keep unknown for now
+    private volatile long nrWritten = 0;
 
     /**
-     * time in milliseconds
+     * either unkownSize==true or nrToTransfer>0)
      */
-    private long readTime = 0;
+    private volatile boolean unknownSize = true;
 
     /**
-     * time in milliseconds
+     * either unkownSize==true or nrToTransfer>0)
      */
-    private long writeTime = 0;
+    private volatile long nrToTransfer = -1; // keep unknown for now
 
     /**
      * Optional Transfer info. Class will update current transfer by updating the nr of bytes
@@ -117,15 +125,19 @@ public class BufferStreamTransferer {
         this.bufferSize = size;
     }
 
-    private final Boolean readerWait = true;
+    private volatile Thread readerThread = null;
+
+    private volatile Thread writerThread = null;
 
-    private final Boolean writerWait = true;
+    private volatile boolean readerParked = false;
+
+    private volatile boolean writerParked = false;
 
     private OutputStream outputStream = null;
 
     private InputStream inputStream = null;
 
-    private boolean cancelTransfer = false;
+    private volatile boolean cancelTransfer = false;
 
     private ActionTask readerTask = null;
 
@@ -171,6 +183,7 @@ public class BufferStreamTransferer {
      */
     protected void readLoop() throws Exception {
         int buflen = buffer.length;
+        readerThread = Thread.currentThread();
 
         try {
             // do loop while there is data left
@@ -178,101 +191,62 @@ public class BufferStreamTransferer {
                 if (mustStop())
                     throw new InterruptedException("Transfer interrupted!");
 
-                int start = 0;
-                int delta = 0;
-
-                // Do buffer calculations in MuTex'd time:
-                synchronized (buffer) {
-                    delta = buflen; // ? istr.available();
-                    // free space in buffer
-                    int free = buflen - (int) (totalRead - nrWritten);
-                    // do not read past free space in buffer
-                    if (delta > free)
-                        delta = free;
-
-                    // do not read too much at once:
-                    if (delta > readChunkSize)
-                        delta = readChunkSize;
-
-                    // do not read past end of file (if size is known)
-                    if (nrToTransfer >= 0)
-                        if (totalRead + delta > nrToTransfer)
-                            delta = (int) (nrToTransfer - totalRead);
-
-                    // start in cicular buffer
-                    start = (int) (totalRead % buflen);
-
-                    // do not read past buffer end (wrap around)
-                    if (start + delta > buflen)
-                        delta = buflen - start;
-                }
-
-                log.trace("reader: nrRead    ={}", totalRead);
-                log.trace("reader: nrWritten ={}", nrWritten);
-                log.trace("reader: nrToRead  ={}", nrToTransfer);
-                log.trace("reader: start     ={}", start);
-                log.trace("reader: delta     ={}", delta);
-
-                // new data to tranfer ?
-                if (delta > 0) {
-                    long startTime = System.currentTimeMillis();
-
-                    int n = inputStream.read(buffer, start, delta);
-
-                    if (n < 0) {
-                        if (unknownSize == true) {
-                            // EOF when reading from unknown InputStream:
-                            // We know the size now, update nrToTransfer to
-                            // current
-                            // number bytes read. This will stop the read and
-                            // the write.
-                            // Set unknownSize to false to trigger updating the
-                            // stats.
-
-                            unknownSize = false;
-                            nrToTransfer = totalRead;
-                        } else {
-                            throw new IOException("Failed to read expected number of bytes: read=" + totalRead
-                                    + " while expected=" + nrToTransfer);
-                        }
-                    } else if (n > 0) {
-                        // MUTEX save: field is only updated by reader:
-                        totalRead += n; // update totalRead;
-                    } else if (n == 0) {
-                        log.trace("read(): Got 0 bytes ...");
-                        // ok, try again could be time out.
-                    }
+                // only the reader updates totalRead
+                long numRead = totalRead;
+                // free space in buffer
+                int delta = buflen - (int) (numRead - nrWritten);
 
-                    readTime += System.currentTimeMillis() - startTime;
-                    log.trace("reader: after read, nrRead={}", totalRead);
+                if (delta <= 0) {
+                    awaitFreeSpace(numRead);
+                    continue;
+                }
 
-                    // notify writer there is data (if writer is waiting)
-                    synchronized (writerWait) {
-                        writerWait.notify();
-                    }
-                } else if ((unknownSize == true) || (totalRead < nrToTransfer)) {
-                    // Wait for writer to free space.
-                    // Wait for .1 second max. or until writer notifies reader.
-                    synchronized (readerWait) {
-                        readerWait.wait(100);
+                // do not read too much at once:
+                if (delta > readChunkSize)
+                    delta = readChunkSize;
+
+                // do not read past end of file (if size is known)
+                if ((unknownSize == false) && (numRead + delta > nrToTransfer))
+                    delta = (int) (nrToTransfer - numRead);
+
+                // start in cicular buffer
+                int start = (int) (numRead % buflen);
+
+                // do not read past buffer end (wrap around)
+                if (start + delta > buflen)
+                    delta = buflen - start;
+
+                int n = inputStream.read(buffer, start, delta);
+
+                if (n < 0) {
+                    if (unknownSize == true) {
+                        // EOF when reading from unknown InputStream:
+                        // We know the size now, update nrToTransfer to current number bytes read.
+                        // This will stop the read and the write. Set nrToTransfer before unknownSize
+                        // so the writer sees the final size.
+                        nrToTransfer = numRead;
+                        unknownSize = false;
+                    } else {
+                        throw new IOException("Failed to read expected number of bytes: read=" + numRead
+                                + " while expected=" + nrToTransfer);
                     }
+                } else if (n > 0) {
+                    // publish data to writer:
+                    totalRead = numRead + n;
                 }
+                // n==0: ok, try again could be time out.
+
+                signalWriter();
             }
 
-            log.trace("--- Reader done ---");
-            log.trace("reader total nrRead    ={}", totalRead);
-            log.trace("reader total nrWritten ={}", nrWritten);
-            log.trace("reader nrToTransfer    ={}", nrToTransfer);
+            log.trace("--- Reader done: totalRead={} ---", totalRead);
 
         } catch (Throwable err) {
             log.error("Reader Exception:" + err.getMessage(), err);
             // Signal Strop:
             this.cancelTransfer = true;
             // notify writer since there is a read error !
-
-            synchronized (writerWait) {
-                writerWait.notify();
-            }
+            signalWriter();
 
             throw new IOException("Exception while reading", err);
         }
@@ -281,6 +255,9 @@ public class BufferStreamTransferer {
 
     public void setStop(boolean val) {
         cancelTransfer = val;
+        // wake up waiting threads so they can check the stop flag.
+        signalReader();
+        signalWriter();
     }
 
     protected boolean mustStop() {
@@ -301,83 +278,95 @@ public class BufferStreamTransferer {
                 if (mustStop())
                     throw new InterruptedException("Transfer interrupted!");
 
-                int delta = 0;
-                int start = 0;
-
-                // Do buffer calculations in MuTex'd time:
-                synchronized (buffer) {
-                    // nr bytes to be written
-                    delta = (int) (totalRead - nrWritten);
-                    // start in cicular buffer
-                    start = (int) (nrWritten % buflen);
-
-                    if (start + delta > buflen)
-                        delta = buflen - start; // wrap around buffer;
+                // only the writer updates nrWritten
+                long numWritten = nrWritten;
+                // nr bytes to be written
+                int delta = (int) (totalRead - numWritten);
 
-                    if (delta > writeChunkSize)
-                        delta = writeChunkSize;
+                if (delta <= 0) {
+                    awaitData(numWritten);
+                    continue;
                 }
 
-                log.trace("writer: nrRead    ={}", totalRead);
-                log.trace("writer: nrWritten ={}", nrWritten);
-                log.trace("writer: nrToRead  ={}", nrToTransfer);
-                log.trace("writer: start     ={}", start);
-                log.trace("writer: delta     ={}", delta);
+                // start in cicular buffer
+                int start = (int) (numWritten % buflen);
 
+                if (start + delta > buflen)
+                    delta = buflen - start; // wrap around buffer;
 
-                // data to write ?
-                if (delta > 0) {
-                    long startTime = System.currentTimeMillis();
+                if (delta > writeChunkSize)
+                    delta = writeChunkSize;
 
-                    outputStream.write(buffer, start, delta);
+                outputStream.write(buffer, start, delta);
 
-                    writeTime += System.currentTimeMillis() - startTime;
+                // release buffer space to reader:
+                nrWritten = numWritten + delta;
+                signalReader();
 
-                    // MUTEX safe: field is only updated by writer:
-                    nrWritten += delta;
-
-                    if (transferInfo != null) {
-                        // update current transfer:
-                        transferInfo.updateSubTaskDone(streamCopySubTaskName, nrWritten);
-                    }
-                    // notify reader that buffer is empty
-                    synchronized (readerWait) {
-                        readerWait.notify();
-                    }
-                } else if ((unknownSize == true) || (nrWritten < nrToTransfer)) {
-                    // Wait for reader to fill buffer.
-                    // wait for .1 second or until reader notifies writer.
-                    synchronized (writerWait) {
-                        writerWait.wait(100);
-                    }
+                if (transferInfo != null) {
+                    // update current transfer:
+                    transferInfo.updateSubTaskDone(streamCopySubTaskName, numWritten + delta);
                 }
             }
 
-            log.trace("--- Writer done ---");
-            log.trace("writer total nrRead    ={}", totalRead);
-            log.trace("writer total nrWritten ={}", nrWritten);
-            log.trace("writer nrToTransfer    ={}", nrToTransfer);
+            log.trace("--- Writer done: nrWritten={} ---", nrWritten);
 
-            // in the case the reader still is waiting for the writer
-            // to finish :
-
-            synchronized (readerWait) {
-                readerWait.notify();
-            }
         } catch (Throwable err) {
             log.error("Writer Exception:" + err.getMessage(), err);
             // Signal Strop:
             this.cancelTransfer = true;
-            // notify reader since there is a read error !
-            synchronized (readerWait) {
-                readerWait.notify();
-            }
+            // notify reader since there is a write error !
+            signalReader();
             // rethrow
             throw new IOException("Exception while writing", err);
         }
 
     }
 
+    /**
+     * Park reader until the writer has freed buffer space. The parked flag is set before the counters are checked
+     * again, so a writer which frees space after the check will see the flag and unpark the reader.
+     */
+    private void awaitFreeSpace(long numRead) {
+        readerParked = true;
+        try {
+            if ((numRead - nrWritten >= buffer.length) && (mustStop() == false)) {
+                LockSupport.parkNanos(this, MAX_PARK_NANOS);
+            }
+        } finally {
+            readerParked = false;
+        }
+    }
+
+    /**
+     * Park writer until the reader has read more data or has reached the end of the InputStream.
+     */
+    private void awaitData(long numWritten) {
+        writerParked = true;
+        try {
+            if ((totalRead - numWritten <= 0) && ((unknownSize == true) || (numWritten < nrToTransfer))
+                    && (mustStop() == false)) {
+                LockSupport.parkNanos(this, MAX_PARK_NANOS);
+            }
+        } finally {
+            writerParked = false;
+        }
+    }
+
+    private void signalReader() {
+        Thread thread = readerThread;
+        if ((readerParked == true) && (thread != null)) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void signalWriter() {
+        Thread thread = writerThread;
+        if ((writerParked == true) && (thread != null)) {
+            LockSupport.unpark(thread);
+        }
+    }
+
     /**
      * Transfer upto numTranfer bytes, or -1 for all.
      */
@@ -407,6 +396,9 @@ public class BufferStreamTransferer {
                 transferInfo.updateSubTaskDone(streamCopySubTaskName, 0);
         }
 
+        // writer runs in the current thread.
+        writerThread = Thread.currentThread();
+
         // start reader in background:
         readerTask = new ActionTask(nl.esciencecenter.ptk.task.TaskWatcher.getTaskWatcher(), "RingBuffer.readerTask") {
 
@@ -443,31 +435,15 @@ public class BufferStreamTransferer {
         }
         // after transfer make sure all streams are flushes and closed !
 
-        long totalTime = System.currentTimeMillis() - start;
-
-        // do not divide by zero:
-
-        if (readTime <= 0)
-            readTime = 1;
-        if (writeTime <= 0)
-            writeTime = 1;
-        if (totalTime <= 0)
-            totalTime = 1;
-
-        // unit B/ms= kB/s
-        log.trace("read speed={} kB/s", (nrToTransfer / readTime));
-        log.trace("write speed={} kB/s", (nrToTransfer / writeTime));
-
-        // bytes per second:
-        long totalSpeed = 1000L * nrToTransfer / totalTime;
-
-        String totalSpeedStr = Presentation.createDefault().speedString(totalSpeed, "bytes/s");
-
-        log.trace("total speed={}", totalSpeedStr);
-
-        // Ugly:
-        // if (this.transferInfo!=null)
-        // transferInfo.addLogText("Total stream transfer speed="+totalSpeedStr+"\n");
+        if (log.isTraceEnabled()) {
+            long totalTime = System.currentTimeMillis() - start;
+            // do not divide by zero:
+            if (totalTime <= 0)
+                totalTime = 1;
+            // bytes per second:
+            long totalSpeed = 1000L * nrToTransfer / totalTime;
+            log.trace("total speed={}", Presentation.createDefault().speedString(totalSpeed, "bytes/s"));
+        }
 
         if (readerTask.hasException()) {
             Throwable e = readerTask.getException();
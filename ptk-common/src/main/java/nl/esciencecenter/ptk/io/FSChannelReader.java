@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012-2014 Netherlands eScience Center.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the following location:
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For the full license, see: LICENSE.txt (located in the root folder of this distribution).
+ * ---
+ */
+// source:
+
+package nl.esciencecenter.ptk.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File reader which keeps one FileChannel open until close() is called. Random reads use positional reads which do
+ * not change the channel position, so concurrent readBytes() calls are thread safe.
+ */
+public class FSChannelReader implements Readable, RandomReadable, AutoCloseable {
+
+    protected Path _path;
+
+    protected FileChannel channel;
+
+    public FSChannelReader(Path path) throws IOException {
+        this._path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    /**
+     * Positional read which reads until nrBytes have been read or the end of the file has been reached.
+     *
+     * @return number of bytes read or -1 if fileOffset is at or beyond the end of the file.
+     */
+    @Override
+    public int readBytes(long fileOffset, byte[] buffer, int bufferOffset, int nrBytes) throws IOException {
+        try {
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, bufferOffset, nrBytes);
+            int total = 0;
+            while (byteBuffer.hasRemaining()) {
+                int nrRead = channel.read(byteBuffer, fileOffset + total);
+                if (nrRead < 0) {
+                    return (total > 0) ? total : -1;
+                }
+                total += nrRead;
+            }
+            return total;
+        } catch (IOException e) {
+            throw new IOException("Failed to readBytes from:" + _path, e);
+        }
+    }
+
+    @Override
+    public long getLength() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Sequential read starting from the current channel position.
+     */
+    @Override
+    public int read(byte[] buffer, int bufferOffset, int numBytes) throws IOException {
+        return channel.read(ByteBuffer.wrap(buffer, bufferOffset, numBytes));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012-2014 Netherlands eScience Center.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the following location:
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For the full license, see: LICENSE.txt (located in the root folder of this distribution).
+ * ---
+ */
+// source:
+
+package nl.esciencecenter.ptk.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File writer which keeps one FileChannel open until close() is called. Random writes use positional writes which do
+ * not change the channel position, so concurrent writeBytes() calls are thread safe. The file is created if it does
+ * not exist.
+ */
+public class FSChannelWriter implements Writable, RandomWritable, AutoCloseable {
+
+    protected Path _path;
+
+    protected FileChannel channel;
+
+    public FSChannelWriter(Path path) throws IOException {
+        this._path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+    }
+
+    /**
+     * Positional write which writes all nrBytes starting at fileOffset.
+     */
+    @Override
+    public void writeBytes(long fileOffset, byte[] buffer, int bufferOffset, int nrBytes) throws IOException {
+        try {
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, bufferOffset, nrBytes);
+            while (byteBuffer.hasRemaining()) {
+                channel.write(byteBuffer, fileOffset + byteBuffer.position() - bufferOffset);
+            }
+        } catch (IOException e) {
+            throw new IOException("Failed to writeBytes to:" + _path, e);
+        }
+    }
+
+    /**
+     * Sequential write starting at the current channel position.
+     */
+    @Override
+    public void write(byte[] buffer, int bufferOffset, int numBytes) throws IOException {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, bufferOffset, numBytes);
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
+        }
+    }
+
+    @Override
+    public long getLength() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
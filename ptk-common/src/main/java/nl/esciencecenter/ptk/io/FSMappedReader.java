@@ -0,0 +1,188 @@
+/*
+ * Copyright 2012-2014 Netherlands eScience Center.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the following location:
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For the full license, see: LICENSE.txt (located in the root folder of this distribution).
+ * ---
+ */
+// source:
+
+package nl.esciencecenter.ptk.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memory mapped file reader for (very) large local files. A MappedByteBuffer can map at most 2GB, so the file is
+ * mapped as a sliding set of fixed size regions. Only the most recently used regions stay mapped. <br>
+ * Use {@link #readBuffer(long, int)} to access the file contents without copying them into the heap.
+ */
+public class FSMappedReader implements Readable, RandomReadable, AutoCloseable {
+
+    /**
+     * Default size of a mapped region: 256MB.
+     */
+    public static final int DEFAULT_REGION_SIZE = 256 * 1024 * 1024;
+
+    /**
+     * Default number of regions which stay mapped.
+     */
+    public static final int DEFAULT_MAX_REGIONS = 4;
+
+    protected Path _path;
+
+    protected FileChannel channel;
+
+    protected final int regionSize;
+
+    protected final int maxRegions;
+
+    /**
+     * Mapped regions by region index, in least recently used order.
+     */
+    private final LinkedHashMap<Long, MappedByteBuffer> regions;
+
+    /**
+     * Current position of sequential read().
+     */
+    private long readPosition = 0;
+
+    public FSMappedReader(Path path) throws IOException {
+        this(path, DEFAULT_REGION_SIZE, DEFAULT_MAX_REGIONS);
+    }
+
+    /**
+     * @param path       - local file to map.
+     * @param regionSize - size of a mapped region in bytes.
+     * @param maxRegions - maximum number of regions which stay mapped.
+     */
+    public FSMappedReader(Path path, int regionSize, int maxRegions) throws IOException {
+        if ((regionSize <= 0) || (maxRegions <= 0)) {
+            throw new IllegalArgumentException("Region size and number of regions must be > 0.");
+        }
+        this._path = path;
+        this.regionSize = regionSize;
+        this.maxRegions = maxRegions;
+        this.regions = new LinkedHashMap<Long, MappedByteBuffer>(maxRegions + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, MappedByteBuffer> eldest) {
+                // unmapped when garbage collected.
+                return size() > FSMappedReader.this.maxRegions;
+            }
+        };
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    /**
+     * Returns read-only view on the file contents starting at fileOffset. The returned buffer contains at most nrBytes
+     * but never crosses a region boundary, so it might contain less. Call again with the next offset to continue.
+     *
+     * @return ByteBuffer with position 0 and the available bytes as remaining bytes, or null if fileOffset is at or
+     * beyond the end of the file.
+     */
+    public ByteBuffer readBuffer(long fileOffset, int nrBytes) throws IOException {
+        long regionIndex = fileOffset / regionSize;
+        int regionOffset = (int) (fileOffset % regionSize);
+
+        MappedByteBuffer region = getRegion(regionIndex);
+        if ((region == null) || (regionOffset >= region.capacity())) {
+            return null;
+        }
+
+        // duplicate() so concurrent readers do not share position and limit.
+        ByteBuffer view = region.duplicate();
+        view.position(regionOffset);
+        view.limit(regionOffset + Math.min(nrBytes, region.capacity() - regionOffset));
+        return view.slice();
+    }
+
+    @Override
+    public int readBytes(long fileOffset, byte[] buffer, int bufferOffset, int nrBytes) throws IOException {
+        int total = 0;
+        while (total < nrBytes) {
+            ByteBuffer view = readBuffer(fileOffset + total, nrBytes - total);
+            if ((view == null) || (view.remaining() == 0)) {
+                break;
+            }
+            int num = view.remaining();
+            view.get(buffer, bufferOffset + total, num);
+            total += num;
+        }
+        return ((total == 0) && (nrBytes > 0)) ? -1 : total;
+    }
+
+    /**
+     * Sequential read starting after the previous sequential read.
+     */
+    @Override
+    public synchronized int read(byte[] buffer, int bufferOffset, int numBytes) throws IOException {
+        int num = readBytes(readPosition, buffer, bufferOffset, numBytes);
+        if (num > 0) {
+            readPosition += num;
+        }
+        return num;
+    }
+
+    protected MappedByteBuffer getRegion(long regionIndex) throws IOException {
+        synchronized (regions) {
+            MappedByteBuffer region = regions.get(regionIndex);
+            if ((region != null) && (region.capacity() == regionSize)) {
+                return region;
+            }
+
+            long regionStart = regionIndex * regionSize;
+            long size = channel.size();
+            if (regionStart >= size) {
+                return null;
+            }
+            // last region is partially mapped: only remap if the file has grown.
+            if ((region != null) && (regionStart + region.capacity() >= size)) {
+                return region;
+            }
+
+            try {
+                region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart,
+                        Math.min(regionSize, size - regionStart));
+            } catch (IOException e) {
+                throw new IOException("Failed to map region #" + regionIndex + " of:" + _path, e);
+            }
+            regions.put(regionIndex, region);
+            return region;
+        }
+    }
+
+    @Override
+    public long getLength() throws IOException {
+        return channel.size();
+    }
+
+    public int getRegionSize() {
+        return regionSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (regions) {
+            regions.clear();
+        }
+        channel.close();
+    }
+
+}
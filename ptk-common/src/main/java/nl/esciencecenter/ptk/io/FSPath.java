@@ -360,6 +360,39 @@ public class FSPath {
         }
     }
 
+    /**
+     * Open directory stream which returns the entries while the directory is being read, without materializing the
+     * full listing. The stream must be closed after use.
+     */
+    public DirectoryStream<FSPath> newDirectoryStream() throws IOException {
+        final DirectoryStream<Path> dirStream = Files.newDirectoryStream(_path);
+
+        return new DirectoryStream<FSPath>() {
+
+            @Override
+            public Iterator<FSPath> iterator() {
+                final Iterator<Path> dirIterator = dirStream.iterator();
+
+                return new Iterator<FSPath>() {
+                    @Override
+                    public boolean hasNext() {
+                        return dirIterator.hasNext();
+                    }
+
+                    @Override
+                    public FSPath next() {
+                        return new FSPath(fsHandler, dirIterator.next());
+                    }
+                };
+            }
+
+            @Override
+            public void close() throws IOException {
+                dirStream.close();
+            }
+        };
+    }
+
     public FSPath[] listNodes() throws IOException {
         List<FSPath> entries = list();
         if (entries == null)
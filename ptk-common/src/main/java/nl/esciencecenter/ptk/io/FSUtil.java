@@ -24,6 +24,7 @@ import lombok.extern.slf4j.Slf4j;
 import nl.esciencecenter.ptk.GlobalProperties;
 import nl.esciencecenter.ptk.exceptions.FileURISyntaxException;
 import nl.esciencecenter.ptk.net.URIFactory;
+import nl.esciencecenter.ptk.task.ITaskMonitor;
 import nl.esciencecenter.ptk.util.ContentReader;
 import nl.esciencecenter.ptk.util.ContentWriter;
 import nl.esciencecenter.ptk.util.ResourceLoader;
@@ -31,10 +32,12 @@ import nl.esciencecenter.ptk.util.ResourceLoader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.PosixFileAttributes;
@@ -50,6 +53,12 @@ import java.util.*;
 @Slf4j
 public class FSUtil implements ResourceProvider, FSInterface {
 
+    /**
+     * Maximum number of bytes transferred per FileChannel transfer during a local file copy. Between transfers the
+     * progress is updated and cancellation is checked.
+     */
+    public static final long CHANNEL_COPY_CHUNK_SIZE = 64 * 1024 * 1024;
+
     private static FSUtil instance = null;
 
     public static FSUtil fsutil() {
@@ -255,15 +264,57 @@ public class FSUtil implements ResourceProvider, FSInterface {
      * Simple Copy File uses URIs to ensure absolute and normalized Paths.
      */
     public long copyFile(URI source, URI destination) throws IOException {
-        long num;
-        // Create
-        try (InputStream finput = createInputStream(resolvePath(source))) {
-            try (OutputStream foutput = createOutputStream(resolvePath(destination), false)) {
-                // Copy
-                num = IOUtil.copyStreams(finput, foutput, false);
+        return copyFile(resolvePath(source), resolvePath(destination), null);
+    }
+
+    /**
+     * Copy local file using FileChannel transfers. The data is transferred by the operating system and not copied
+     * through a heap buffer. The target file is created or truncated if it already exists. File attributes are not
+     * copied.
+     *
+     * @param source  - existing local file.
+     * @param target  - local target file.
+     * @param monitor - optional TaskMonitor, cancellation is checked between transfers.
+     * @return number of bytes copied.
+     * @throws IOException if the copy failed or has been cancelled.
+     */
+    public long copyFile(FSPath source, FSPath target, ITaskMonitor monitor) throws IOException {
+        String subTaskName = "Performing channel copy";
+
+        try (FileChannel inChannel = FileChannel.open(source.path(), StandardOpenOption.READ);
+             FileChannel outChannel = FileChannel.open(target.path(), StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = inChannel.size();
+            long position = 0;
+
+            if (monitor != null) {
+                monitor.startSubTask(subTaskName, size);
             }
+
+            while (position < size) {
+                if (((monitor != null) && monitor.isCancelled()) || Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Copy interrupted after " + position + " bytes:" + source);
+                }
+
+                long num = inChannel.transferTo(position, Math.min(CHANNEL_COPY_CHUNK_SIZE, size - position),
+                        outChannel);
+                if (num <= 0) {
+                    throw new IOException("Failed to read expected number of bytes: read=" + position
+                            + " while expected=" + size);
+                }
+                position += num;
+
+                if (monitor != null) {
+                    monitor.updateSubTaskDone(subTaskName, position);
+                }
+            }
+
+            if (monitor != null) {
+                monitor.endSubTask(subTaskName);
+            }
+
+            return position;
         }
-        return num;
     }
 
     /**
@@ -550,22 +601,30 @@ public class FSUtil implements ResourceProvider, FSInterface {
 
     @Override
     public RandomReadable createRandomReader(URI uri) throws IOException {
-        return new FSReader(resolvePath(uri).path());
+        return new FSChannelReader(resolvePath(uri).path());
     }
 
     @Override
     public RandomReadable createRandomReader(FSPath node) throws IOException {
-        return new FSReader(node._path);
+        return new FSChannelReader(node._path);
+    }
+
+    /**
+     * Create memory mapped reader. Use this for large files which are scanned without copying the contents into the
+     * heap.
+     */
+    public FSMappedReader createMappedReader(FSPath node) throws IOException {
+        return new FSMappedReader(node._path);
     }
 
     @Override
     public RandomWritable createRandomWriter(FSPath node) throws IOException {
-        return new FSWriter(node._path);
+        return new FSChannelWriter(node._path);
     }
 
     @Override
     public RandomWritable createRandomWriter(URI uri) throws IOException {
-        return new FSWriter((resolvePath(uri)._path));
+        return new FSChannelWriter(resolvePath(uri)._path);
     }
 
     // ============
@@ -587,7 +646,7 @@ public class FSUtil implements ResourceProvider, FSInterface {
 
     public PosixFileAttributes getPosixAttributes(FSPath path, LinkOption... linkOptions) throws IOException {
         try {
-            return Files.readAttributes(path.path(), PosixFileAttributes.class);
+            return Files.readAttributes(path.path(), PosixFileAttributes.class, linkOptions);
         } catch (IOException e) {
             // auto dereference in the case of a borken link:
             if (path.isBrokenLink()) {
@@ -36,6 +36,18 @@ public class IOUtil {
 
     private static final int defaultBufferSize = 1 * 1024 * 1024;
 
+    /**
+     * Default maximum number of bytes read per read() during a circular stream copy.
+     */
+    public static final int DEFAULT_READ_CHUNK_SIZE = 1024 * 1024;
+
+    /**
+     * Default maximum number of bytes written per write() during a circular stream copy.<br>
+     * SFTP-WRITE-OUTPUTSTREAM-32000: The SFTP OutputStream has problems when writing chunks > 32000, so this is the
+     * safe default for unknown OutputStreams.
+     */
+    public static final int DEFAULT_WRITE_CHUNK_SIZE = 32000;
+
     public static class ReadFunctor implements Readable {
 
         protected InputStream inps;
@@ -109,6 +121,21 @@ public class IOUtil {
      */
     public static long circularStreamCopy(InputStream inputs, OutputStream outputs, long nrToTransfer, int bufferSize,
                                           boolean autoClose, ITaskMonitor monitor) throws IOException {
+        return circularStreamCopy(inputs, outputs, nrToTransfer, bufferSize, DEFAULT_READ_CHUNK_SIZE,
+                DEFAULT_WRITE_CHUNK_SIZE, autoClose, monitor);
+    }
+
+    /**
+     * Dual threaded stream copy with explicit read and write chunk sizes. Use this method when the optimal chunk sizes
+     * for the InputStream or OutputStream are known, for example a local file can be written in big chunks.
+     *
+     * @param readChunkSize  - maximum number of bytes per read(). Set to -1 for the default.
+     * @param writeChunkSize - maximum number of bytes per write(). Set to -1 for the default.
+     * @see #circularStreamCopy(InputStream, OutputStream, long, int, boolean, ITaskMonitor)
+     */
+    public static long circularStreamCopy(InputStream inputs, OutputStream outputs, long nrToTransfer, int bufferSize,
+                                          int readChunkSize, int writeChunkSize, boolean autoClose,
+                                          ITaskMonitor monitor) throws IOException {
         log.debug("circularStreamCopy():START: bufSize={}, totalToTransfer={}", bufferSize, nrToTransfer);
 
         // Setup & Initiate Stream Copy:
@@ -134,20 +161,8 @@ public class IOUtil {
             //
             // nrToTransfer=-1 -> then UNKNOWN !
 
-            // ***
-            // SFTP-WRITE-OUTPUTSTREAM-32000
-            // Bug in SFTP. The OutputStream has problems when writing
-            // chunks > 32000.
-            // ***
-            cbuffer.setMaxWriteChunkSize(32000);
-
-            cbuffer.setMaxReadChunkSize(1024 * 1014);
-            // check optimal read buffer size.
-            int optimalReadChunkSize = 1024 * 1024;
-
-            if (optimalReadChunkSize > 0) {
-                cbuffer.setMaxReadChunkSize(optimalReadChunkSize);
-            }
+            cbuffer.setMaxReadChunkSize((readChunkSize > 0) ? readChunkSize : DEFAULT_READ_CHUNK_SIZE);
+            cbuffer.setMaxWriteChunkSize((writeChunkSize > 0) ? writeChunkSize : DEFAULT_WRITE_CHUNK_SIZE);
 
             log.trace("- streamCopy transferSize   ={}", nrToTransfer);
             log.trace("- streamCopy readChunkSize  ={}", cbuffer.getReadChunkSize());
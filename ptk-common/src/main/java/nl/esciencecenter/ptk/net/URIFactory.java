@@ -901,7 +901,31 @@ public final class URIFactory implements Serializable, Cloneable, Duplicatable<U
 
     public URIFactory getParent() {
         URIFactory fac = duplicate();
-        fac.pathOrReference = dirname(this.pathOrReference);
+        String parentPath = dirname(this.pathOrReference);
+        // Keep DOS drive root normalized as in uripath(): "/C:" => "/C:/"
+        if ((parentPath != null) && (parentPath.length() == 3) && (parentPath.charAt(0) == URI_SEP_CHAR)
+                && (parentPath.charAt(2) == ':')) {
+            parentPath = parentPath + URI_SEP_CHAR;
+        }
+        fac.pathOrReference = parentPath;
+        return fac;
+    }
+
+    /**
+     * Returns new URIFactory with the child name appended to the path. The child name must be a single path element
+     * without separators and the path of this URIFactory must be empty or absolute. Since the path is already
+     * normalized, the new path isn't normalized again.
+     */
+    public URIFactory getChild(String childName) {
+        URIFactory fac = duplicate();
+        String path = (pathOrReference == null) ? "" : pathOrReference;
+
+        if (path.endsWith(URI_SEP_CHAR_STR)) {
+            fac.pathOrReference = path + childName;
+        } else {
+            fac.pathOrReference = path + URI_SEP_CHAR + childName;
+        }
+
         return fac;
     }
 
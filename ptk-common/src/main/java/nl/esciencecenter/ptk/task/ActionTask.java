@@ -22,7 +22,10 @@ package nl.esciencecenter.ptk.task;
 
 /**
  * Abstract Action Task.<br>
- * Manages a runnable task.
+ * Manages a runnable task. Tasks started with startTask() are executed by the default TaskExecutor and might be
+ * queued before they run. The thread of the task is known while the task is running.
+ *
+ * @see TaskExecutor
  */
 public abstract class ActionTask implements Runnable {
 
@@ -42,6 +45,11 @@ public abstract class ActionTask implements Runnable {
 
     private final Object threadMutex = new Object();
 
+    /**
+     * Whether task has been started and hasn't finished yet. Guarded by threadMutex.
+     */
+    private boolean isScheduled = false;
+
     private ITaskMonitor taskMonitor = null;
 
     private boolean isCancelled = false;
@@ -147,95 +155,72 @@ public abstract class ActionTask implements Runnable {
     }
 
     /**
-     * Returns true if at least one thread is alive.
+     * Returns true if the task has been started and hasn't finished yet, this includes a queued task.
      */
     final public boolean isAlive() {
         // are you alive? 
         synchronized (threadMutex) {
-            if (threads == null) {
-                return false;
-            }
-            // all threads.
-            for (Thread thread : threads) {
-                if ((thread != null) && (thread.isAlive())) {
-                    return true;
-                }
-            }
+            return isScheduled;
         }
-        return false;
     }
 
     /**
-     * Start a single thread and run this task.
+     * Start this task using the default TaskExecutor.
      */
     final public void startTask() {
-        this.threads = new Thread[1];
-        this.threads[0] = new Thread(this);
-        this.threads[0].start(); // goto run()
+        synchronized (threadMutex) {
+            this.isScheduled = true;
+        }
+
+        try {
+            TaskExecutor.getDefault().execute(this);
+        } catch (RuntimeException e) {
+            setFinished();
+            throw e;
+        }
     }
 
     /**
-     * Start a daemon thread for this task which keeps running.
+     * Start a daemon thread for this task which keeps running. Long running tasks don't use the TaskExecutor.
      */
     final public void startDaemonTask() {
-        this.threads = new Thread[1];
-        this.threads[0] = new Thread(this);
-        this.threads[0].setDaemon(true);
-        this.threads[0].start(); // goto run()
+        synchronized (threadMutex) {
+            this.isScheduled = true;
+            this.threads = new Thread[1];
+            this.threads[0] = new Thread(this);
+            this.threads[0].setDaemon(true);
+            this.threads[0].start(); // goto run()
+        }
     }
 
     /**
-     * Tries to join with all active threads.
+     * Waits until the task has finished.
      *
-     * @return true of all active thread could be joint. False if one of the threads wasn't active
-     * or the join failed.
+     * @return true if the task was active and has finished. False if the task wasn't active.
      */
     final public boolean join() throws InterruptedException {
-        // join all threads:
-        Thread[] _threadz;
-        // Join is time expensive, can copy out thread array. 
         synchronized (threadMutex) {
-            if ((threads == null) || (threads.length <= 0)) {
+            if (isScheduled == false) {
                 return false;
             }
 
-            _threadz = threads.clone();
-        }
-
-        boolean joined = true;
-
-        for (Thread thread : _threadz) {
-            if ((thread != null) && (thread.isAlive())) {
-                thread.join();
-            } else {
-                joined = false;
+            while (isScheduled) {
+                threadMutex.wait();
             }
         }
 
-        return joined;
+        return true;
     }
 
     /**
-     * Tries to join with active thread.
+     * Tries to join with active thread. A task has one thread, index 0.
      */
     final public boolean join(int index) throws InterruptedException {
-        Thread thread;
-
-        synchronized (threadMutex) {
-            if ((threads == null) || (threads.length <= 0) || (index >= threads.length)) {
-                return false;
-            }
-
-            thread = threads[index];
-        }
-
-        if (thread.isAlive() == false) {
+        if (index != 0) {
             return false;
         }
 
-        thread.join();
-
-        return true;
+        return join();
     }
 
     /**
@@ -255,24 +240,23 @@ public abstract class ActionTask implements Runnable {
     }
 
     /**
-     * Use the Thread.join() method to join with the running task thread. Will immediately return if
-     * thread already finished.
+     * Waits until the task has finished or the time out has been reached. A time out of 0 waits forever. Will
+     * immediately return if task already finished.
      */
     final public void joinAll(long timeOutMillis) throws InterruptedException {
-        Thread[] _threadz;
+        long endTime = System.currentTimeMillis() + timeOutMillis;
 
-        // Join is time expensive, can copy out thread array. 
         synchronized (threadMutex) {
-            if ((threads == null) || (threads.length <= 0)) {
-                return;
-            }
-
-            _threadz = threads.clone();
-        }
-
-        for (Thread thread : _threadz) {
-            if (thread != null) {
-                thread.join(timeOutMillis);
+            while (isScheduled) {
+                if (timeOutMillis <= 0) {
+                    threadMutex.wait();
+                } else {
+                    long waitTime = endTime - System.currentTimeMillis();
+                    if (waitTime <= 0) {
+                        return;
+                    }
+                    threadMutex.wait(waitTime);
+                }
             }
         }
     }
@@ -280,24 +264,22 @@ public abstract class ActionTask implements Runnable {
     /**
      * Invoke interrupt() to all threads. The default behavior for a thread is that if the
      * interrupted() state is set, the thread should stop executing and perform a graceful shutdown.
+     * A queued task has no thread yet.
      *
      * @see {@link Thread#isInterrupted()}
      * @see {@link Thread#interrupt()}
      */
     final public void interruptAll() {
-        Thread[] _threadz;
-
+        // Interrupt inside mutex: once the threads are cleared a pooled thread may run another task.
         synchronized (threadMutex) {
             if ((threads == null) || (threads.length <= 0)) {
                 return;
             }
 
-            _threadz = threads.clone();
-        }
-
-        for (Thread thread : _threadz) {
-            if (thread != null) {
-                thread.interrupt();
+            for (Thread thread : threads) {
+                if (thread != null) {
+                    thread.interrupt();
+                }
             }
         }
     }
@@ -323,7 +305,7 @@ public abstract class ActionTask implements Runnable {
 
     final protected void setException(int index, Throwable t) {
         if (this.exceptions == null) {
-            this.exceptions = new Throwable[getNumThreads()];
+            this.exceptions = new Throwable[Math.max(1, getNumThreads())];
         }
         exceptions[index] = t;
     }
@@ -331,6 +313,20 @@ public abstract class ActionTask implements Runnable {
     @Override
     final public void run() {
         // === PRE ===
+        synchronized (threadMutex) {
+            this.isScheduled = true;
+            this.threads = new Thread[]{Thread.currentThread()};
+        }
+
+        try {
+            runTask();
+        } finally {
+            // do not wait for dispose but cleanup directly after execution
+            setFinished();
+        }
+    }
+
+    private void runTask() {
         if (this.taskSource != null) {
             this.taskSource.notifyTaskStarted(this);
         }
@@ -338,7 +334,10 @@ public abstract class ActionTask implements Runnable {
         Throwable taskError = null;
 
         try {
-            this.doTask();
+            // Cancelled while queued: 
+            if (isCancelled == false) {
+                this.doTask();
+            }
         } catch (Throwable t) {
             // unhandled exception by doTask() !
             taskError = t;
@@ -363,8 +362,14 @@ public abstract class ActionTask implements Runnable {
         if (this.taskSource != null) {
             this.taskSource.notifyTaskTerminated(this);
         }
-        // do not wait for dispose but cleanup directly after execution
-        clearThreads();
+    }
+
+    private void setFinished() {
+        synchronized (threadMutex) {
+            clearThreads();
+            this.isScheduled = false;
+            threadMutex.notifyAll();
+        }
     }
 
     private void clearThreads() {
@@ -424,24 +429,17 @@ public abstract class ActionTask implements Runnable {
      * @return true if the one of the current active thread is in interrupted state.
      */
     final public boolean isInterrupted() {
-        // unroll:
-        synchronized (threads) {
+        synchronized (threadMutex) {
             // unroll for null/zero
             if ((this.threads == null) || (threads.length <= 0)) {
                 return false;
             }
-            // unroll for length==1:
-            if (threads.length == 1) {
-                return threads[0].isInterrupted();
-            }
-        }
-        // This method might be called al lot during loops, perform outside mutex, do no copy thread array.
-        int index = 0;
-        while ((threads != null) && (index < threads.length)) {
-            if (threads[index].isInterrupted()) {
-                return true;
+
+            for (Thread thread : threads) {
+                if ((thread != null) && (thread.isInterrupted())) {
+                    return true;
+                }
             }
-            index++;
         }
         return false;
     }
@@ -460,10 +458,9 @@ public abstract class ActionTask implements Runnable {
     @Override
     public String toString() {
         String threadInfo = "";
-        if (threads != null) {
-            for (int i = 0; i < threads.length; i++) {
-                threadInfo += "[" + threads[i].getId() + "]";
-            }
+        Thread thread = getThread();
+        if (thread != null) {
+            threadInfo = "[" + thread.getId() + "]";
         }
         return "ActionTask:[" + threadInfo + "]" + this.taskName;
     }
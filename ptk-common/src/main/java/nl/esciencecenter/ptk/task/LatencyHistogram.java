@@ -0,0 +1,159 @@
+/*
+ * Copyright 2012-2014 Netherlands eScience Center.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the following location:
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For the full license, see: LICENSE.txt (located in the root folder of this distribution).
+ * ---
+ */
+// source:
+
+package nl.esciencecenter.ptk.task;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free latency histogram with power of two millisecond buckets.<br>
+ * Bucket 0 counts latencies below 1ms, bucket i counts latencies in [2^(i-1),2^i) milliseconds. The last bucket
+ * counts everything above.
+ */
+public class LatencyHistogram {
+
+    public static final int NUM_BUCKETS = 32;
+
+    private final String name;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong totalMillis = new AtomicLong();
+
+    private final AtomicLong maxMillis = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long millis) {
+        if (millis < 0) {
+            millis = 0;
+        }
+
+        buckets.incrementAndGet(getBucket(millis));
+        count.incrementAndGet();
+        totalMillis.addAndGet(millis);
+
+        long max = maxMillis.get();
+        while ((millis > max) && (maxMillis.compareAndSet(max, millis) == false)) {
+            max = maxMillis.get();
+        }
+    }
+
+    /**
+     * @return bucket index of the specified latency.
+     */
+    public static int getBucket(long millis) {
+        if (millis <= 0) {
+            return 0;
+        }
+        // number of significant bits: 1->1, 2..3->2, 4..7->3, etc.
+        return Math.min(64 - Long.numberOfLeadingZeros(millis), NUM_BUCKETS - 1);
+    }
+
+    /**
+     * @return exclusive upper bound of the bucket in milliseconds or Long.MAX_VALUE for the last bucket.
+     */
+    public static long getBucketLimit(int bucket) {
+        if (bucket >= NUM_BUCKETS - 1) {
+            return Long.MAX_VALUE;
+        }
+        return 1L << bucket;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotalMillis() {
+        return totalMillis.get();
+    }
+
+    public long getMaxMillis() {
+        return maxMillis.get();
+    }
+
+    public double getMeanMillis() {
+        long num = count.get();
+        if (num == 0) {
+            return 0;
+        }
+        return (double) totalMillis.get() / num;
+    }
+
+    /**
+     * @return copy of the bucket counts.
+     */
+    public long[] getBucketCounts() {
+        long[] counts = new long[NUM_BUCKETS];
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the upper bound of the bucket which contains the specified percentile, limited by the maximum recorded
+     * latency.
+     *
+     * @param percentile - value between 0 and 100.
+     * @return latency in milliseconds or -1 if nothing has been recorded.
+     */
+    public long getPercentileMillis(double percentile) {
+        long[] counts = getBucketCounts();
+        long total = 0;
+
+        for (long num : counts) {
+            total += num;
+        }
+
+        if (total == 0) {
+            return -1;
+        }
+
+        long target = (long) Math.ceil(total * Math.min(Math.max(percentile, 0), 100) / 100.0);
+        long sum = 0;
+
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            sum += counts[i];
+            if ((sum >= target) && (sum > 0)) {
+                return Math.min(getBucketLimit(i), getMaxMillis());
+            }
+        }
+
+        return getMaxMillis();
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram:[name='" + name + "', count=" + getCount() + ", mean=" + (long) getMeanMillis()
+                + "ms, p50<=" + getPercentileMillis(50) + "ms, p99<=" + getPercentileMillis(99) + "ms, max="
+                + getMaxMillis() + "ms]";
+    }
+
+}
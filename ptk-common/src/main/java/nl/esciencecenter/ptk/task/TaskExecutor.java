@@ -0,0 +1,311 @@
+/*
+ * Copyright 2012-2014 Netherlands eScience Center.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the following location:
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For the full license, see: LICENSE.txt (located in the root folder of this distribution).
+ * ---
+ */
+// source:
+
+package nl.esciencecenter.ptk.task;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes ActionTasks started with ActionTask.startTask().
+ * <ul>
+ * <li>By default tasks run on a pool of platform threads which are reused. If all pooled threads are busy the task
+ * runs in a new thread, since tasks might wait for each other (for example a stream writer waiting for its reader
+ * task).
+ * <li>With system property {@value #EXECUTOR_PROPERTY}={@value #EXECUTOR_VIRTUAL} each task runs in a virtual thread
+ * if the JVM supports them (Java 21+).
+ * <li>The number of concurrently running tasks of an ITaskSource can be limited, further tasks of that source are
+ * queued and started in order when a running task has finished.
+ * </ul>
+ * The default TaskExecutor can be replaced with setDefault().
+ */
+@Slf4j
+public class TaskExecutor {
+
+    public static final String EXECUTOR_PROPERTY = "ptk.task.executor";
+
+    public static final String EXECUTOR_VIRTUAL = "virtual";
+
+    public static final int DEFAULT_CORE_THREADS = 8;
+
+    public static final int DEFAULT_MAX_THREADS = 128;
+
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 10;
+
+    private static TaskExecutor instance = null;
+
+    public static synchronized TaskExecutor getDefault() {
+        if (instance == null) {
+            instance = new TaskExecutor();
+        }
+        return instance;
+    }
+
+    public static synchronized void setDefault(TaskExecutor executor) {
+        instance = executor;
+    }
+
+    /**
+     * Pool of platform threads. Threads are created until maxThreads is reached, after which tasks run in their own
+     * thread. All threads are daemon threads, so idle pooled threads don't keep the JVM alive. Use
+     * ActionTask.join() or joinAll() to wait for tasks which must finish before the application exits.
+     */
+    public static Executor createPlatformPool(int coreThreads, int maxThreads) {
+        final AtomicInteger threadNr = new AtomicInteger();
+
+        ThreadFactory threadFactory = new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ActionTask-" + threadNr.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+
+        RejectedExecutionHandler overflowHandler = new RejectedExecutionHandler() {
+            @Override
+            public void rejectedExecution(Runnable runnable, ThreadPoolExecutor pool) {
+                if (pool.isShutdown()) {
+                    throw new RejectedExecutionException("TaskExecutor has been shut down");
+                }
+                log.warn("All {} pooled task threads are busy, starting extra thread.", pool.getMaximumPoolSize());
+                Thread thread = new Thread(runnable, "ActionTask-overflow");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        };
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(coreThreads, maxThreads, THREAD_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), threadFactory, overflowHandler);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Returns executor which starts a virtual thread per task, or null if the JVM doesn't support virtual threads.
+     */
+    public static Executor createVirtualThreadExecutor() {
+        try {
+            Method method = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (Executor) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static Executor createDefaultExecutor() {
+        if (EXECUTOR_VIRTUAL.equals(System.getProperty(EXECUTOR_PROPERTY))) {
+            Executor executor = createVirtualThreadExecutor();
+            if (executor != null) {
+                return executor;
+            }
+            log.warn("Virtual threads are not supported by this JVM, using thread pool.");
+        }
+        return createPlatformPool(DEFAULT_CORE_THREADS, DEFAULT_MAX_THREADS);
+    }
+
+    /**
+     * Running and queued tasks of a limited task source.
+     */
+    private static class SourceQueue {
+
+        private int numRunning = 0;
+
+        private final ArrayDeque<ActionTask> queued = new ArrayDeque<ActionTask>();
+    }
+
+    // ========================================================================
+    // Instance
+    // ========================================================================
+
+    private final Executor executor;
+
+    private final Map<ITaskSource, Integer> sourceLimits = new WeakHashMap<ITaskSource, Integer>();
+
+    private final Map<ITaskSource, SourceQueue> sourceQueues = new IdentityHashMap<ITaskSource, SourceQueue>();
+
+    public TaskExecutor() {
+        this(createDefaultExecutor());
+    }
+
+    public TaskExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Limit number of concurrently running tasks of the task source. A value &lt;= 0 removes the limit.
+     */
+    public void setMaxConcurrentTasks(ITaskSource source, int maxTasks) {
+        synchronized (sourceQueues) {
+            if (maxTasks > 0) {
+                sourceLimits.put(source, maxTasks);
+            } else {
+                sourceLimits.remove(source);
+            }
+        }
+        // start queued tasks which are now allowed to run.
+        startQueued(source);
+    }
+
+    public int getMaxConcurrentTasks(ITaskSource source) {
+        synchronized (sourceQueues) {
+            Integer limit = sourceLimits.get(source);
+            return (limit != null) ? limit : -1;
+        }
+    }
+
+    /**
+     * Returns number of tasks of the task source which are waiting to be started.
+     */
+    public int getNumQueued(ITaskSource source) {
+        synchronized (sourceQueues) {
+            SourceQueue queue = sourceQueues.get(source);
+            return (queue != null) ? queue.queued.size() : 0;
+        }
+    }
+
+    /**
+     * Start task or queue it if its task source has reached its maximum number of running tasks.
+     */
+    public void execute(ActionTask task) {
+        ITaskSource source = task.getTaskSource();
+
+        if (source != null) {
+            synchronized (sourceQueues) {
+                Integer limit = sourceLimits.get(source);
+
+                if (limit != null) {
+                    SourceQueue queue = sourceQueues.get(source);
+
+                    if (queue == null) {
+                        queue = new SourceQueue();
+                        sourceQueues.put(source, queue);
+                    }
+
+                    if (queue.numRunning >= limit) {
+                        log.debug("Queueing task, {} tasks running for:{}", queue.numRunning,
+                                source.getTaskSourceName());
+                        queue.queued.add(task);
+                        return;
+                    }
+                    queue.numRunning++;
+                }
+            }
+        }
+
+        submit(task);
+    }
+
+    private void submit(final ActionTask task) {
+        Runnable runner = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } finally {
+                    // Clear interrupt meant for the task before the thread is reused.
+                    Thread.interrupted();
+                    taskDone(task);
+                }
+            }
+        };
+
+        try {
+            executor.execute(runner);
+        } catch (RejectedExecutionException e) {
+            taskDone(task);
+            throw e;
+        }
+    }
+
+    private void taskDone(ActionTask task) {
+        ITaskSource source = task.getTaskSource();
+
+        if (source == null) {
+            return;
+        }
+
+        ActionTask next = null;
+
+        synchronized (sourceQueues) {
+            SourceQueue queue = sourceQueues.get(source);
+
+            if (queue == null) {
+                return;
+            }
+
+            next = queue.queued.poll();
+
+            if (next == null) {
+                queue.numRunning--;
+                if (queue.numRunning <= 0) {
+                    sourceQueues.remove(source);
+                }
+            }
+        }
+
+        if (next != null) {
+            submit(next);
+        }
+    }
+
+    private void startQueued(ITaskSource source) {
+        while (true) {
+            ActionTask next;
+
+            synchronized (sourceQueues) {
+                SourceQueue queue = sourceQueues.get(source);
+
+                if ((queue == null) || (queue.queued.isEmpty())) {
+                    return;
+                }
+
+                Integer limit = sourceLimits.get(source);
+
+                if ((limit != null) && (queue.numRunning >= limit)) {
+                    return;
+                }
+
+                next = queue.queued.poll();
+                queue.numRunning++;
+            }
+
+            submit(next);
+        }
+    }
+
+}
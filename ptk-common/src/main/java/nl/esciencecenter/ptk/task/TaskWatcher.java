@@ -22,25 +22,33 @@ package nl.esciencecenter.ptk.task;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Vector;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * ActionTask Watcher/Manager for ActionTasks.
+ * <p>
+ * Running tasks are bound to their execution thread, so the ActionTask of the current thread is found without
+ * scanning the active tasks. Terminated tasks are kept in a ring buffer of configurable size. Started, failed and
+ * cancelled tasks are counted and the execution times are recorded per task name in a LatencyHistogram.
  */
 @Slf4j
 public class TaskWatcher implements ITaskSource {
 
-    private static TaskWatcher instance = null;
-
-    // === //
-
-    private final String name;
+    public static final int DEFAULT_MAX_TERMINATED_TASKS = 100;
 
-    private final int maxTerminatedTasks = 100;
+    /**
+     * Maximum number of task names with their own LatencyHistogram, other tasks are recorded under
+     * {@value #OTHER_TASKS_NAME}.
+     */
+    public static final int MAX_LATENCY_HISTOGRAMS = 256;
 
-    protected Vector<ActionTask> activeTasks = new Vector<ActionTask>();
+    public static final String OTHER_TASKS_NAME = "<other>";
 
-    protected Vector<ActionTask> terminatedTasks = new Vector<ActionTask>();
+    private static TaskWatcher instance = null;
 
     public static ITaskSource getTaskWatcher() {
         if (instance == null) {
@@ -50,6 +58,62 @@ public class TaskWatcher implements ITaskSource {
         return instance;
     }
 
+    /**
+     * Execution state of a started task.
+     */
+    private static class RunningTask {
+
+        private final Thread thread;
+
+        /**
+         * Task which was bound to the same thread, in the case a task is run directly inside another task.
+         */
+        private final ActionTask outerTask;
+
+        private final long startTimeNanos;
+
+        private RunningTask(Thread thread, ActionTask outerTask) {
+            this.thread = thread;
+            this.outerTask = outerTask;
+            this.startTimeNanos = System.nanoTime();
+        }
+    }
+
+    // === //
+
+    private final String name;
+
+    private final Set<ActionTask> activeTasks = ConcurrentHashMap.newKeySet();
+
+    private final ConcurrentHashMap<ActionTask, RunningTask> runningTasks = new ConcurrentHashMap<ActionTask, RunningTask>();
+
+    private final ConcurrentHashMap<Thread, ActionTask> threadTasks = new ConcurrentHashMap<Thread, ActionTask>();
+
+    private final ConcurrentHashMap<String, LatencyHistogram> latencyHistograms = new ConcurrentHashMap<String, LatencyHistogram>();
+
+    private final AtomicLong numStarted = new AtomicLong();
+
+    private final AtomicLong numTerminated = new AtomicLong();
+
+    private final AtomicLong numFailed = new AtomicLong();
+
+    private final AtomicLong numCancelled = new AtomicLong();
+
+    /**
+     * Ring buffer with the latest terminated tasks, guarded by terminatedMutex since setMaxTerminatedTasks() replaces
+     * the array.
+     */
+    private ActionTask[] terminatedTasks = new ActionTask[DEFAULT_MAX_TERMINATED_TASKS];
+
+    /**
+     * Index of next free slot in terminatedTasks.
+     */
+    private int terminatedIndex = 0;
+
+    private int terminatedSize = 0;
+
+    private final Object terminatedMutex = new Object();
+
     public TaskWatcher(String name) {
         this.name = name;
     }
@@ -62,89 +126,80 @@ public class TaskWatcher implements ITaskSource {
     @Override
     public void registerTask(ActionTask actionTask) {
         log.debug("(+)registerTask:{}", actionTask);
-        synchronized (activeTasks) {
-            this.activeTasks.add(actionTask);
-        }
+        this.activeTasks.add(actionTask);
     }
 
     @Override
     public void unregisterTask(ActionTask actionTask) {
         log.debug("[-]unregisterTask:{}", actionTask);
-
-        synchronized (activeTasks) {
-            this.activeTasks.remove(actionTask);
-        }
-
-        synchronized (terminatedTasks) {
-            this.activeTasks.remove(actionTask);
-        }
+        this.activeTasks.remove(actionTask);
     }
 
     @Override
     public void notifyTaskStarted(ActionTask actionTask) {
         log.debug("[>]notifyTaskStarted:{}", actionTask);
+        // called by the execution thread of the task:
+        Thread thread = Thread.currentThread();
+        ActionTask outerTask = threadTasks.put(thread, actionTask);
+        runningTasks.put(actionTask, new RunningTask(thread, (outerTask != actionTask) ? outerTask : null));
+        numStarted.incrementAndGet();
         this.setHasActiveTasks(true);
     }
 
     @Override
     public void notifyTaskTerminated(ActionTask actionTask) {
         log.debug("[*]notifyTaskTerminated:{}", actionTask);
+        RunningTask running = runningTasks.remove(actionTask);
+
+        if (running != null) {
+            // restore binding of outer task if any.
+            if (running.outerTask != null) {
+                threadTasks.replace(running.thread, actionTask, running.outerTask);
+            } else {
+                threadTasks.remove(running.thread, actionTask);
+            }
+            long millis = (System.nanoTime() - running.startTimeNanos) / 1000000;
+            getCreateLatencyHistogram(getStatsName(actionTask)).record(millis);
+        }
+
+        numTerminated.incrementAndGet();
+
+        if (actionTask.isCancelled()) {
+            numCancelled.incrementAndGet();
+        }
+
         deschedule(actionTask);
         this.setHasActiveTasks(checkHasActiveTasks());
     }
 
     protected void deschedule(ActionTask actionTask) {
-        synchronized (activeTasks) {
-            boolean removed = this.activeTasks.remove(actionTask);
-            if (removed == false) {
-                // already in terminatedTasks ?
-            }
-        }
+        this.activeTasks.remove(actionTask);
 
-        synchronized (terminatedTasks) {
-            this.terminatedTasks.add(actionTask);
-        }
-
-        synchronized (this.terminatedTasks) {
-            if (this.terminatedTasks.size() > maxTerminatedTasks) {
-                for (int i = 0; (i < maxTerminatedTasks) && (terminatedTasks.size() > 0); i++) {
-                    terminatedTasks.remove(0); // not efficient array remove.
-                }
+        synchronized (terminatedMutex) {
+            if (terminatedTasks.length > 0) {
+                terminatedTasks[terminatedIndex] = actionTask;
+                terminatedIndex = (terminatedIndex + 1) % terminatedTasks.length;
+                terminatedSize = Math.min(terminatedSize + 1, terminatedTasks.length);
             }
         }
 
-        log.debug("deschedule(): Number active/terminated tasks: {}/{}", activeTasks.size(), terminatedTasks.size());
+        log.debug("deschedule(): Number active/terminated tasks: {}/{}", activeTasks.size(), terminatedSize);
     }
 
     public boolean checkHasActiveTasks() {
-        int size = activeTasks.size();
-
-        if (size > 0) {
-            int index = size - 1;
-
-            while (index >= 0) {
-                // synchronize per element check inside while loop.
-                // Do no claim whole array during scan.
-
-                synchronized (activeTasks) {
-                    // concurrent manipulation: size has already changed!
-                    if (index >= activeTasks.size()) {
-
-                    } else if (activeTasks.get(index).isAlive() == false) {
-                        deschedule(activeTasks.get(index));
-                    }
-                }// exit sync!
-
-                index--;
-            }
+        // Fast path: tasks are executing.
+        if (runningTasks.isEmpty() == false) {
+            return true;
         }
 
-        synchronized (this.activeTasks) {
-            if (this.activeTasks.size() > 0)
-                return true;
+        // Scheduled but not started tasks are active as well. Deschedule tasks which have died or never started.
+        for (ActionTask task : activeTasks) {
+            if (task.isAlive() == false) {
+                deschedule(task);
+            }
         }
 
-        return false;
+        return (activeTasks.isEmpty() == false);
     }
 
     /**
@@ -153,13 +208,12 @@ public class TaskWatcher implements ITaskSource {
      * @return - actual ActionTask linked to the current execution thread.
      */
     public ActionTask getCurrentThreadActionTask() {
-        return findActionTaskForThread(Thread.currentThread());
+        return threadTasks.get(Thread.currentThread());
     }
 
     /**
-     * Find ActionTask with specified thread id. Since all ActionTasks are currently started in
-     * their own thread, this method will find the actionTask currently executed in the specified
-     * thread.
+     * Find ActionTask which is executed in the specified thread. If an ActionTask has been run directly within
+     * another ActionTask, the inner task is returned.
      *
      * @param thread Thread which started an ActionTask
      * @return ActionTaks or null which is started within to the specified Thread.
@@ -168,57 +222,169 @@ public class TaskWatcher implements ITaskSource {
         if (thread == null)
             return null;
 
-        ActionTask[] tasks = getActiveTaskArray();
-
-        for (ActionTask task : tasks) {
-            if ((task != null) && (task.hasThread(thread)))
-                return task;
-        }
-
-        return null;
+        return threadTasks.get(thread);
     }
 
     /**
      * Return a private copy of the task list, for thread safe operations.
      */
     protected final ActionTask[] getActiveTaskArray() {
-        synchronized (activeTasks) {
-            ActionTask[] tasks = new ActionTask[activeTasks.size()];
-            tasks = activeTasks.toArray(tasks);
+        return activeTasks.toArray(new ActionTask[0]);
+    }
+
+    /**
+     * @return Terminated tasks, oldest first.
+     */
+    public ActionTask[] getTerminatedTasks() {
+        synchronized (terminatedMutex) {
+            ActionTask[] tasks = new ActionTask[terminatedSize];
+            int len = terminatedTasks.length;
+            for (int i = 0; i < terminatedSize; i++) {
+                tasks[i] = terminatedTasks[(terminatedIndex - terminatedSize + i + len) % len];
+            }
             return tasks;
         }
     }
 
+    public int getMaxTerminatedTasks() {
+        synchronized (terminatedMutex) {
+            return terminatedTasks.length;
+        }
+    }
+
+    /**
+     * Set the size of the terminated tasks history. The latest terminated tasks are kept.
+     */
+    public void setMaxTerminatedTasks(int max) {
+        if (max < 0) {
+            throw new IllegalArgumentException("Maximum number of terminated tasks can't be negative:" + max);
+        }
+
+        synchronized (terminatedMutex) {
+            ActionTask[] tasks = getTerminatedTasks();
+            int size = Math.min(tasks.length, max);
+            terminatedTasks = new ActionTask[max];
+            System.arraycopy(tasks, tasks.length - size, terminatedTasks, 0, size);
+            terminatedSize = size;
+            terminatedIndex = (max > 0) ? (size % max) : 0;
+        }
+    }
+
     @Override
     public void notifyTaskException(ActionTask task, Throwable ex) {
         // Optional handling of an exception throw by an ActionTask.
         // Ignore here. Subclasses might do something here.
+        numFailed.incrementAndGet();
         log.error("Task Exception for task:{}", task);
         log.error("Exception:" + ex.getMessage(), ex);
     }
 
+    // ========================================================================
+    // Statistics
+    // ========================================================================
+
     /**
-     * Check whether there are active tasks running for the TaskSource
+     * @return Total number of started tasks.
      */
-    public boolean hasActiveTasks(ITaskSource source) {
-        log.debug("[?]hasActiveTasks() for:{}", source.getTaskSourceName());
+    public long getNumStartedTasks() {
+        return numStarted.get();
+    }
 
-        ActionTask[] tasks = getActiveTaskArray();
+    /**
+     * @return Total number of terminated tasks, including failed and cancelled tasks.
+     */
+    public long getNumTerminatedTasks() {
+        return numTerminated.get();
+    }
+
+    /**
+     * @return Total number of tasks which threw an exception.
+     */
+    public long getNumFailedTasks() {
+        return numFailed.get();
+    }
 
-        if ((tasks == null) || (tasks.length <= 0))
-            return false;
+    /**
+     * @return Total number of tasks which were cancelled before they terminated.
+     */
+    public long getNumCancelledTasks() {
+        return numCancelled.get();
+    }
 
-        boolean active = false;
+    /**
+     * @return Current number of registered tasks which haven't terminated yet, including queued tasks.
+     */
+    public int getNumActiveTasks() {
+        return activeTasks.size();
+    }
 
-        for (ActionTask task : tasks) {
-            log.debug("Checking action task:{}", task);
+    /**
+     * @return Current number of executing tasks.
+     */
+    public int getNumRunningTasks() {
+        return runningTasks.size();
+    }
+
+    /**
+     * Name under which the execution time of the task is recorded. Task names often contain the resource the
+     * task works on, for example "Deleting resource:&lt;location&gt;", therefore only the part before the first ':'
+     * is used.
+     */
+    protected String getStatsName(ActionTask task) {
+        String taskName = task.getTaskName();
+
+        if (taskName == null) {
+            return OTHER_TASKS_NAME;
+        }
+
+        int index = taskName.indexOf(':');
+        return (index > 0) ? taskName.substring(0, index) : taskName;
+    }
+
+    protected LatencyHistogram getCreateLatencyHistogram(String statsName) {
+        LatencyHistogram histogram = latencyHistograms.get(statsName);
+
+        if (histogram != null) {
+            return histogram;
+        }
+
+        if (latencyHistograms.size() >= MAX_LATENCY_HISTOGRAMS) {
+            statsName = OTHER_TASKS_NAME;
+        }
+
+        histogram = new LatencyHistogram(statsName);
+        LatencyHistogram prev = latencyHistograms.putIfAbsent(statsName, histogram);
+        return (prev != null) ? prev : histogram;
+    }
+
+    /**
+     * @return LatencyHistogram of the tasks with the specified statistics name or null.
+     */
+    public LatencyHistogram getLatencyHistogram(String statsName) {
+        return latencyHistograms.get(statsName);
+    }
+
+    /**
+     * @return LatencyHistograms sorted on statistics name.
+     */
+    public Map<String, LatencyHistogram> getLatencyHistograms() {
+        return new TreeMap<String, LatencyHistogram>(latencyHistograms);
+    }
+
+    /**
+     * Check whether there are active tasks running for the TaskSource
+     */
+    public boolean hasActiveTasks(ITaskSource source) {
+        log.debug("[?]hasActiveTasks() for:{}", source.getTaskSourceName());
+
+        for (ActionTask task : activeTasks) {
             if ((task.getTaskSource() != null) && (task.getTaskSource() == source)) {
                 if (task.isAlive())
-                    active = true;
+                    return true;
             }
         }
 
-        return active;
+        return false;
     }
 
     public void setHasActiveTasks(boolean active) {
@@ -0,0 +1,176 @@
+package nl.esciencecenter.ptk.events;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Test_EventDispatcher {
+
+    private static class TestEvent implements IEvent<String> {
+
+        private final String type;
+
+        private final Object source;
+
+        private final List<Integer> values;
+
+        TestEvent(String type, Object source, List<Integer> values) {
+            this.type = type;
+            this.source = source;
+            this.values = values;
+        }
+
+        @Override
+        public String getEventType() {
+            return type;
+        }
+
+        @Override
+        public Object getEventSource() {
+            return source;
+        }
+    }
+
+    private static class TestListener implements IEventListener<TestEvent> {
+
+        private final List<TestEvent> received = new ArrayList<TestEvent>();
+
+        @Override
+        public synchronized void notifyEvent(TestEvent event) {
+            received.add(event);
+        }
+
+        synchronized List<TestEvent> getReceived() {
+            return new ArrayList<TestEvent>(received);
+        }
+    }
+
+    /**
+     * Merges subsequent "delete" events of the same source, coalesces "update" events on source up to a "delete" of
+     * that source.
+     */
+    private static class TestDispatcher extends EventDispatcher<String, TestEvent, TestListener> {
+
+        TestDispatcher() {
+            super(false);
+        }
+
+        @Override
+        protected boolean canMergeEvents(TestEvent first, TestEvent second) {
+            return first.type.equals("delete") && second.type.equals("delete") && first.source.equals(second.source);
+        }
+
+        @Override
+        protected TestEvent mergeEvents(List<TestEvent> events) {
+            List<Integer> values = new ArrayList<Integer>();
+            for (TestEvent event : events) {
+                values.addAll(event.values);
+            }
+            return new TestEvent(events.get(0).type, events.get(0).source, values);
+        }
+
+        @Override
+        protected Object getCoalesceKey(TestEvent event) {
+            return event.type.equals("update") ? event.source : null;
+        }
+
+        @Override
+        protected boolean isCoalesceBarrier(TestEvent event, Object coalesceKey) {
+            return event.type.equals("delete") && event.source.equals(coalesceKey);
+        }
+    }
+
+    private static TestEvent event(String type, Object source, Integer... values) {
+        return new TestEvent(type, source, Arrays.asList(values));
+    }
+
+    @Test
+    public void testCoalesceEvents() {
+        TestDispatcher dispatcher = new TestDispatcher();
+
+        List<TestEvent> batch = Arrays.asList(event("update", "a", 1), event("delete", "a", 2),
+                event("delete", "a", 3), event("update", "b", 4), event("update", "a", 5), event("delete", "a", 6),
+                event("create", "a", 7));
+
+        List<TestEvent> result = dispatcher.coalesceEvents(batch);
+
+        Assert.assertEquals(6, result.size());
+        // update of "a" isn't moved past the delete of "a":
+        Assert.assertEquals("update", result.get(0).type);
+        Assert.assertEquals(Arrays.asList(1), result.get(0).values);
+        Assert.assertEquals(Arrays.asList(2, 3), result.get(1).values);
+        Assert.assertEquals(Arrays.asList(4), result.get(2).values);
+        Assert.assertEquals(Arrays.asList(5), result.get(3).values);
+        Assert.assertEquals(Arrays.asList(6), result.get(4).values);
+        Assert.assertEquals("create", result.get(5).type);
+    }
+
+    @Test
+    public void testCoalesceUpdatesBeforeDelete() {
+        TestDispatcher dispatcher = new TestDispatcher();
+
+        List<TestEvent> batch = Arrays.asList(event("update", "a", 1), event("update", "b", 2),
+                event("update", "a", 3), event("delete", "a", 4), event("update", "a", 5), event("update", "b", 6));
+
+        List<TestEvent> result = dispatcher.coalesceEvents(batch);
+
+        Assert.assertEquals(4, result.size());
+        // updates of "a" before the delete are merged, but stay before the delete:
+        Assert.assertEquals("update", result.get(0).type);
+        Assert.assertEquals(Arrays.asList(1, 3), result.get(0).values);
+        Assert.assertEquals("delete", result.get(1).type);
+        Assert.assertEquals(Arrays.asList(4), result.get(1).values);
+        Assert.assertEquals(Arrays.asList(5), result.get(2).values);
+        // updates of "b" may move past the delete of "a":
+        Assert.assertEquals("b", result.get(3).source);
+        Assert.assertEquals(Arrays.asList(2, 6), result.get(3).values);
+    }
+
+    @Test
+    public void testDispatchBurst() throws Exception {
+        TestDispatcher dispatcher = new TestDispatcher();
+        TestListener all = new TestListener();
+        TestListener listenerA = new TestListener();
+        TestListener listenerB = new TestListener();
+        dispatcher.addListener(all, null);
+        dispatcher.addListener(listenerA, "a");
+        dispatcher.addListener(listenerB, "b");
+
+        int num = 100000;
+
+        // queue burst before starting dispatcher:
+        for (int i = 0; i < num; i++) {
+            dispatcher.fireEvent(event("delete", "a", i));
+        }
+        dispatcher.fireEvent(event("delete", "b", -1));
+        dispatcher.start();
+
+        long end = System.currentTimeMillis() + 10000;
+        while ((dispatcher.hasEvents() || (listenerB.getReceived().size() == 0)) && (System.currentTimeMillis() < end)) {
+            Thread.sleep(10);
+        }
+
+        int numValues = 0;
+        for (TestEvent event : listenerA.getReceived()) {
+            Assert.assertEquals("a", event.source);
+            numValues += event.values.size();
+        }
+
+        Assert.assertEquals("All deletes must be delivered", num, numValues);
+        Assert.assertTrue("Deletes must be merged", listenerA.getReceived().size() <= num / EventDispatcher.DEFAULT_MAX_BATCH_SIZE + 1);
+        Assert.assertEquals(1, listenerB.getReceived().size());
+        Assert.assertEquals(listenerA.getReceived().size() + 1, all.getReceived().size());
+        Assert.assertEquals(num + 1, dispatcher.getNumFiredEvents());
+
+        dispatcher.removeListener(listenerB);
+        dispatcher.fireEvent(event("delete", "b", -2));
+        Thread.sleep(200);
+        Assert.assertEquals("Removed listener must not receive events", 1, listenerB.getReceived().size());
+
+        dispatcher.dispose();
+    }
+
+}
@@ -29,6 +29,8 @@ import settings.Settings;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 
 public class Test_FSUtil {
     // =============
@@ -172,6 +174,108 @@ public class Test_FSUtil {
         testCreateReadWriteFile(getTestDir(), "test RWFile1");
     }
 
+    @Test
+    public void testCopyFile() throws Exception {
+        FSPath tDir = getTestDir();
+        FSPath source = tDir.resolve("testCopySource");
+        FSPath target = tDir.resolve("testCopyTarget");
+
+        byte[] buffer = new byte[1024 * 1024 + 13];
+        for (int i = 0; i < buffer.length; i++) {
+            buffer[i] = (byte) (i % 251);
+        }
+
+        try (OutputStream outps = getFSUtil().createOutputStream(source, false)) {
+            outps.write(buffer);
+        }
+
+        // existing target must be truncated.
+        try (OutputStream outps = getFSUtil().createOutputStream(target, false)) {
+            outps.write(new byte[buffer.length * 2]);
+        }
+
+        long num = getFSUtil().copyFile(source, target, null);
+        Assert.assertEquals("Number of bytes copied mismatch", buffer.length, num);
+        Assert.assertEquals("Target file size mismatch", buffer.length, target.getFileSize());
+
+        byte[] buffer2 = Files.readAllBytes(target.path());
+        Assert.assertArrayEquals("Copied file contents differs", buffer, buffer2);
+
+        source.delete();
+        target.delete();
+    }
+
+    @Test
+    public void testRandomReadWrite() throws Exception {
+        FSPath file = getTestDir().resolve("testRandomRW");
+
+        byte[] buffer = new byte[64 * 1024 + 5];
+        for (int i = 0; i < buffer.length; i++) {
+            buffer[i] = (byte) (i % 239);
+        }
+
+        // write in reverse order of chunks, using one writer.
+        int chunk = 1000;
+        try (RandomWritable writer = getFSUtil().createRandomWriter(file)) {
+            for (int offset = (buffer.length / chunk) * chunk; offset >= 0; offset -= chunk) {
+                writer.writeBytes(offset, buffer, offset, Math.min(chunk, buffer.length - offset));
+            }
+            Assert.assertEquals("Length of written file mismatch", buffer.length, writer.getLength());
+        }
+
+        try (RandomReadable reader = getFSUtil().createRandomReader(file)) {
+            Assert.assertEquals("Length of file mismatch", buffer.length, reader.getLength());
+            byte[] buffer2 = new byte[buffer.length];
+            for (int offset = 0; offset < buffer.length; offset += chunk) {
+                int num = reader.readBytes(offset, buffer2, offset, Math.min(chunk, buffer.length - offset));
+                Assert.assertEquals("Number of bytes read mismatch", Math.min(chunk, buffer.length - offset), num);
+            }
+            Assert.assertArrayEquals("Read data differs from written data", buffer, buffer2);
+
+            // read beyond end of file
+            Assert.assertEquals("Read past end of file must return -1", -1,
+                    reader.readBytes(buffer.length, buffer2, 0, 10));
+            Assert.assertEquals("Read at end of file must return remaining bytes", 5,
+                    reader.readBytes(buffer.length - 5, buffer2, 0, 10));
+        }
+
+        file.delete();
+    }
+
+    @Test
+    public void testMappedReader() throws Exception {
+        FSPath file = getTestDir().resolve("testMappedRead");
+
+        byte[] buffer = new byte[10 * 1000 + 7];
+        for (int i = 0; i < buffer.length; i++) {
+            buffer[i] = (byte) (i % 241);
+        }
+
+        try (OutputStream outps = getFSUtil().createOutputStream(file, false)) {
+            outps.write(buffer);
+        }
+
+        // small regions: force reads across region boundaries and remapping of evicted regions.
+        try (FSMappedReader reader = new FSMappedReader(file.path(), 1000, 2)) {
+            Assert.assertEquals("Length of file mismatch", buffer.length, reader.getLength());
+
+            byte[] buffer2 = new byte[buffer.length];
+            int num = reader.readBytes(0, buffer2, 0, buffer2.length);
+            Assert.assertEquals("Number of bytes read mismatch", buffer.length, num);
+            Assert.assertArrayEquals("Mapped data differs", buffer, buffer2);
+
+            ByteBuffer view = reader.readBuffer(1500, 1000);
+            Assert.assertEquals("ByteBuffer may not cross region boundary", 500, view.remaining());
+            Assert.assertEquals("ByteBuffer contents mismatch", buffer[1500], view.get(0));
+
+            Assert.assertNull("Read at end of file must return null", reader.readBuffer(buffer.length, 10));
+            Assert.assertEquals("Read past end of file must return -1", -1,
+                    reader.readBytes(buffer.length, buffer2, 0, 10));
+        }
+
+        file.delete();
+    }
+
     // ========================================================================
     // Finalize Test Suite: cleanup test dir!
     // ========================================================================
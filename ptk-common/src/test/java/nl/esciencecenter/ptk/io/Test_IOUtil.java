@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012-2014 Netherlands eScience Center.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the following location:
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For the full license, see: LICENSE.txt (located in the root folder of this distribution).
+ * ---
+ */
+// source:
+
+package nl.esciencecenter.ptk.io;
+
+import nl.esciencecenter.ptk.task.TaskMonitorAdaptor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class Test_IOUtil {
+
+    protected static byte[] createData(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i % 253);
+        }
+        return data;
+    }
+
+    /**
+     * InputStream which returns at most maxRead bytes per read to test partial reads.
+     */
+    protected static class ChunkedInputStream extends ByteArrayInputStream {
+
+        private final int maxRead;
+
+        public ChunkedInputStream(byte[] data, int maxRead) {
+            super(data);
+            this.maxRead = maxRead;
+        }
+
+        @Override
+        public synchronized int read(byte[] buffer, int offset, int len) {
+            return super.read(buffer, offset, Math.min(len, maxRead));
+        }
+    }
+
+    protected void testCircularStreamCopy(byte[] data, InputStream inps, long nrToTransfer, int bufferSize,
+                                          int writeChunkSize) throws IOException {
+        ByteArrayOutputStream outps = new ByteArrayOutputStream();
+        TaskMonitorAdaptor monitor = new TaskMonitorAdaptor("testCircularStreamCopy", data.length);
+
+        long num = IOUtil.circularStreamCopy(inps, outps, nrToTransfer, bufferSize, -1, writeChunkSize, false,
+                monitor);
+
+        Assert.assertEquals("Number of transferred bytes mismatch", data.length, num);
+        Assert.assertArrayEquals("Copied data differs", data, outps.toByteArray());
+    }
+
+    @Test
+    public void testCircularStreamCopyKnownSize() throws Exception {
+        byte[] data = createData(3 * 1024 * 1024 + 7);
+        testCircularStreamCopy(data, new ByteArrayInputStream(data), data.length, 1024 * 1024, -1);
+    }
+
+    @Test
+    public void testCircularStreamCopyUnknownSize() throws Exception {
+        byte[] data = createData(3 * 1024 * 1024 + 7);
+        testCircularStreamCopy(data, new ByteArrayInputStream(data), -1, 1024 * 1024, -1);
+    }
+
+    @Test
+    public void testCircularStreamCopyWrapAround() throws Exception {
+        // small buffer, odd chunk sizes: forces many wrap arounds and full/empty waits.
+        byte[] data = createData(1024 * 1024 + 3);
+        testCircularStreamCopy(data, new ChunkedInputStream(data, 1000), data.length, 4099, 333);
+        testCircularStreamCopy(data, new ChunkedInputStream(data, 1000), -1, 4099, 333);
+    }
+
+    @Test
+    public void testCircularStreamCopyEmpty() throws Exception {
+        byte[] data = new byte[0];
+        testCircularStreamCopy(data, new ByteArrayInputStream(data), -1, 1024, -1);
+        testCircularStreamCopy(data, new ByteArrayInputStream(data), 0, 1024, -1);
+    }
+
+    @Test
+    public void testCircularStreamCopyUnexpectedEOF() throws Exception {
+        byte[] data = createData(1000);
+        try {
+            IOUtil.circularStreamCopy(new ByteArrayInputStream(data), new ByteArrayOutputStream(), 2000, 1024,
+                    false, null);
+            Assert.fail("Transfer must fail if the InputStream has less data then the expected size");
+        } catch (IOException e) {
+            // ok
+        }
+    }
+
+}
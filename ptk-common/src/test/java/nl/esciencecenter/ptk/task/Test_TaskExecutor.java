@@ -0,0 +1,159 @@
+package nl.esciencecenter.ptk.task;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Test_TaskExecutor {
+
+    private static class CountingTask extends ActionTask {
+
+        private final AtomicInteger running;
+
+        private final AtomicInteger maxRunning;
+
+        private final CountDownLatch release;
+
+        private boolean done = false;
+
+        CountingTask(ITaskSource source, AtomicInteger running, AtomicInteger maxRunning, CountDownLatch release) {
+            super(source, "CountingTask");
+            this.running = running;
+            this.maxRunning = maxRunning;
+            this.release = release;
+        }
+
+        @Override
+        protected void doTask() throws Exception {
+            int current = running.incrementAndGet();
+            synchronized (maxRunning) {
+                maxRunning.set(Math.max(maxRunning.get(), current));
+            }
+            release.await(10, TimeUnit.SECONDS);
+            running.decrementAndGet();
+            done = true;
+        }
+
+        @Override
+        protected void stopTask() {
+        }
+    }
+
+    @Test
+    public void testSourceLimit() throws Exception {
+        TaskWatcher source = new TaskWatcher("testSourceLimit");
+        TaskExecutor.getDefault().setMaxConcurrentTasks(source, 2);
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<CountingTask> tasks = new ArrayList<CountingTask>();
+
+        for (int i = 0; i < 6; i++) {
+            CountingTask task = new CountingTask(source, running, maxRunning, release);
+            tasks.add(task);
+            task.startTask();
+        }
+
+        Thread.sleep(200);
+        Assert.assertEquals("Number of queued tasks", 4, TaskExecutor.getDefault().getNumQueued(source));
+        // queued tasks are alive:
+        for (CountingTask task : tasks) {
+            Assert.assertTrue("Started task must be alive:" + task, task.isAlive());
+        }
+
+        release.countDown();
+
+        for (CountingTask task : tasks) {
+            task.joinAll(10000);
+            Assert.assertFalse("Task should have finished:" + task, task.isAlive());
+            Assert.assertTrue("Task should have run:" + task, task.done);
+        }
+
+        Assert.assertEquals("Maximum number of concurrently running tasks", 2, maxRunning.get());
+        Assert.assertEquals(0, TaskExecutor.getDefault().getNumQueued(source));
+    }
+
+    @Test
+    public void testCancelQueuedTask() throws Exception {
+        TaskWatcher source = new TaskWatcher("testCancelQueuedTask");
+        TaskExecutor.getDefault().setMaxConcurrentTasks(source, 1);
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        CountingTask first = new CountingTask(source, running, maxRunning, release);
+        CountingTask second = new CountingTask(source, running, maxRunning, release);
+        first.startTask();
+        second.startTask();
+        second.signalTerminate();
+        release.countDown();
+
+        Assert.assertTrue("Joined with running task", first.join());
+        second.joinAll(10000);
+
+        Assert.assertTrue("First task should have run", first.done);
+        Assert.assertFalse("Cancelled task should not run", second.done);
+        Assert.assertFalse("Join with finished task", second.join());
+    }
+
+    @Test
+    public void testInterruptRunningTask() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+
+        ActionTask task = new ActionTask(null, "testInterruptRunningTask") {
+            @Override
+            protected void doTask() throws Exception {
+                started.countDown();
+                Thread.sleep(10000);
+            }
+
+            @Override
+            protected void stopTask() {
+            }
+        };
+
+        task.startTask();
+        Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+        Assert.assertNotNull("Running task must have a thread", task.getThread());
+
+        task.signalTerminate();
+        task.joinAll(10000);
+
+        Assert.assertFalse(task.isAlive());
+        Assert.assertTrue("Task must be interrupted", task.getException() instanceof InterruptedException);
+        Assert.assertNull("Finished task has no thread", task.getThread());
+    }
+
+    @Test
+    public void testDaemonThreads() throws Exception {
+        // one pooled thread, the second task runs in an overflow thread.
+        TaskExecutor executor = new TaskExecutor(TaskExecutor.createPlatformPool(1, 1));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        CountingTask first = new CountingTask(null, running, maxRunning, release);
+        CountingTask second = new CountingTask(null, running, maxRunning, release);
+        executor.execute(first);
+        executor.execute(second);
+
+        for (int i = 0; (i < 100) && (running.get() < 2); i++) {
+            Thread.sleep(10);
+        }
+
+        Assert.assertTrue("Pooled task thread must be a daemon thread", first.getThread().isDaemon());
+        Assert.assertTrue("Overflow task thread must be a daemon thread", second.getThread().isDaemon());
+
+        release.countDown();
+        first.joinAll(10000);
+        second.joinAll(10000);
+    }
+
+}
@@ -0,0 +1,138 @@
+package nl.esciencecenter.ptk.task;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class Test_TaskWatcher {
+
+    private static ActionTask createTask(final TaskWatcher watcher, String name, final boolean fail,
+            final AtomicReference<ActionTask> currentTask) {
+        return new ActionTask(watcher, name) {
+            @Override
+            protected void doTask() throws Exception {
+                if (currentTask != null) {
+                    currentTask.set(watcher.getCurrentThreadActionTask());
+                }
+                if (fail) {
+                    throw new Exception("Failing task:" + getTaskName());
+                }
+            }
+
+            @Override
+            protected void stopTask() {
+            }
+        };
+    }
+
+    @Test
+    public void testCurrentThreadActionTask() throws Exception {
+        TaskWatcher watcher = new TaskWatcher("testCurrentThreadActionTask");
+        AtomicReference<ActionTask> currentTask = new AtomicReference<ActionTask>();
+
+        ActionTask task = createTask(watcher, "testCurrentThreadActionTask", false, currentTask);
+        task.startTask();
+        task.joinAll(10000);
+
+        Assert.assertSame("Task must be bound to its execution thread", task, currentTask.get());
+        Assert.assertNull("Current thread has no ActionTask", watcher.getCurrentThreadActionTask());
+        Assert.assertEquals(0, watcher.getNumRunningTasks());
+        Assert.assertEquals(0, watcher.getNumActiveTasks());
+    }
+
+    @Test
+    public void testNestedTask() throws Exception {
+        final TaskWatcher watcher = new TaskWatcher("testNestedTask");
+        final AtomicReference<ActionTask> innerTask = new AtomicReference<ActionTask>();
+        final AtomicReference<ActionTask> afterInner = new AtomicReference<ActionTask>();
+
+        ActionTask outer = new ActionTask(watcher, "outer") {
+            @Override
+            protected void doTask() throws Exception {
+                // run inner task in current thread:
+                createTask(watcher, "inner", false, innerTask).run();
+                afterInner.set(watcher.getCurrentThreadActionTask());
+            }
+
+            @Override
+            protected void stopTask() {
+            }
+        };
+
+        outer.startTask();
+        outer.joinAll(10000);
+
+        Assert.assertEquals("inner", innerTask.get().getTaskName());
+        Assert.assertSame("Outer task must be restored after inner task", outer, afterInner.get());
+    }
+
+    @Test
+    public void testCounters() throws Exception {
+        TaskWatcher watcher = new TaskWatcher("testCounters");
+
+        for (int i = 0; i < 10; i++) {
+            ActionTask task = createTask(watcher, "task:" + i, (i % 5) == 0, null);
+            if (i == 9) {
+                task.signalTerminate();
+            }
+            task.startTask();
+            task.joinAll(10000);
+        }
+
+        Assert.assertEquals(10, watcher.getNumStartedTasks());
+        Assert.assertEquals(10, watcher.getNumTerminatedTasks());
+        Assert.assertEquals(2, watcher.getNumFailedTasks());
+        Assert.assertEquals(1, watcher.getNumCancelledTasks());
+
+        LatencyHistogram histogram = watcher.getLatencyHistogram("task");
+        Assert.assertNotNull("Latencies must be recorded under name before ':'", histogram);
+        Assert.assertEquals(10, histogram.getCount());
+        Assert.assertEquals(1, watcher.getLatencyHistograms().size());
+    }
+
+    @Test
+    public void testTerminatedHistory() throws Exception {
+        TaskWatcher watcher = new TaskWatcher("testTerminatedHistory");
+        watcher.setMaxTerminatedTasks(3);
+        ActionTask[] tasks = new ActionTask[5];
+
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = createTask(watcher, "task" + i, false, null);
+            tasks[i].startTask();
+            tasks[i].joinAll(10000);
+        }
+
+        ActionTask[] terminated = watcher.getTerminatedTasks();
+        Assert.assertEquals(3, terminated.length);
+        Assert.assertSame(tasks[2], terminated[0]);
+        Assert.assertSame(tasks[4], terminated[2]);
+
+        watcher.setMaxTerminatedTasks(2);
+        terminated = watcher.getTerminatedTasks();
+        Assert.assertEquals(2, terminated.length);
+        Assert.assertSame(tasks[3], terminated[0]);
+        Assert.assertSame(tasks[4], terminated[1]);
+    }
+
+    @Test
+    public void testLatencyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        Assert.assertEquals(-1, histogram.getPercentileMillis(50));
+
+        for (int i = 0; i < 99; i++) {
+            histogram.record(3);
+        }
+        histogram.record(1000);
+
+        Assert.assertEquals(100, histogram.getCount());
+        Assert.assertEquals(1000, histogram.getMaxMillis());
+        Assert.assertEquals(4, histogram.getPercentileMillis(50));
+        Assert.assertEquals(1000, histogram.getPercentileMillis(100));
+        Assert.assertEquals(0, LatencyHistogram.getBucket(0));
+        Assert.assertEquals(1, LatencyHistogram.getBucket(1));
+        Assert.assertEquals(2, LatencyHistogram.getBucket(3));
+        Assert.assertEquals(3, LatencyHistogram.getBucket(4));
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2012-2014 Netherlands eScience Center.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the following location:
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For the full license, see: LICENSE.txt (located in the root folder of this distribution).
+ * ---
+ */
+// source:
+
+package nl.esciencecenter.ptk.ui.icons;
+
+import javax.swing.*;
+import java.awt.*;
+import java.lang.ref.WeakReference;
+
+/**
+ * Icon which paints a placeholder icon until the actual icon has been loaded by the IconLoader. The size of the
+ * icon doesn't change when the actual icon is swapped in, the actual icon is centered.
+ * <p>
+ * Painting a DeferredIcon which hasn't been loaded yet tells the IconLoader it is visible, so that visible icons
+ * are loaded first.
+ *
+ * @see IconLoader
+ */
+public class DeferredIcon implements Icon {
+
+    private final int width;
+
+    private final int height;
+
+    private volatile Icon icon;
+
+    private volatile IconLoader.LoadTask loadTask;
+
+    private volatile WeakReference<Component> paintTarget;
+
+    protected DeferredIcon(int width, int height, Icon placeholder, IconLoader.LoadTask loadTask) {
+        this.width = width;
+        this.height = height;
+        this.icon = placeholder;
+        this.loadTask = loadTask;
+    }
+
+    @Override
+    public int getIconWidth() {
+        return width;
+    }
+
+    @Override
+    public int getIconHeight() {
+        return height;
+    }
+
+    public boolean isLoaded() {
+        return (loadTask == null);
+    }
+
+    /**
+     * Returns the actual icon if loaded, or the placeholder icon. Might be null.
+     */
+    public Icon getIcon() {
+        return icon;
+    }
+
+    @Override
+    public void paintIcon(Component c, Graphics g, int x, int y) {
+        IconLoader.LoadTask task = this.loadTask;
+
+        if (task != null) {
+            paintTarget = new WeakReference<Component>(getRepaintTarget(c));
+            task.setVisible();
+        }
+
+        Icon current = this.icon;
+
+        if (current != null) {
+            current.paintIcon(c, g, x + (width - current.getIconWidth()) / 2,
+                    y + (height - current.getIconHeight()) / 2);
+        }
+    }
+
+    /**
+     * Renderer components of JTable, JTree and JList are not part of the component tree, repaint the component which
+     * uses the renderer.
+     */
+    private Component getRepaintTarget(Component c) {
+        if ((c != null) && (c.getParent() instanceof CellRendererPane)) {
+            Component owner = c.getParent().getParent();
+            if (owner != null) {
+                return owner;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Swap in loaded icon. Keeps the placeholder if the icon couldn't be loaded.
+     *
+     * @return component which last painted this icon and needs a repaint, or null.
+     */
+    protected Component setLoadedIcon(Icon loadedIcon) {
+        if (loadedIcon != null) {
+            this.icon = loadedIcon;
+        }
+        this.loadTask = null;
+
+        WeakReference<Component> target = paintTarget;
+        paintTarget = null;
+        return (target != null) ? target.get() : null;
+    }
+
+}
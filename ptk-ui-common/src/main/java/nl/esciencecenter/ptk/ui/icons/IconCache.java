@@ -0,0 +1,316 @@
+/*
+ * Copyright 2012-2014 Netherlands eScience Center.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the following location:
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For the full license, see: LICENSE.txt (located in the root folder of this distribution).
+ * ---
+ */
+// source:
+
+package nl.esciencecenter.ptk.ui.icons;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Image cache of the IconProvider, bounded by the total number of bytes of the decoded images. Images are keyed on
+ * the full render tuple (url, size, link, greyOut, focus).
+ * <p>
+ * The cache is split into segments which each have their own lock and a part of the maximum size. Each segment keeps
+ * its images in least recently used order and evicts the least recently used images when it exceeds its size.
+ */
+public class IconCache {
+
+    public static final long DEFAULT_MAX_BYTES = 32 * 1024 * 1024;
+
+    public static final int DEFAULT_NUM_SEGMENTS = 8;
+
+    /**
+     * Size used for images which dimensions are not known yet.
+     */
+    private static final int UNKNOWN_IMAGE_BYTES = 64 * 64 * 4;
+
+    /**
+     * Cache key of a (rendered) image. Width and height are -1 for unscaled images.
+     */
+    public static class RenderKey {
+
+        private final String iconUrl;
+        private final int width;
+        private final int height;
+        private final boolean showAsLink;
+        private final boolean greyOut;
+        private final boolean focus;
+        private final int hash;
+
+        public RenderKey(String iconUrl, Dimension size, boolean showAsLink, boolean greyOut, boolean focus) {
+            this.iconUrl = iconUrl;
+            this.width = (size != null) ? size.width : -1;
+            this.height = (size != null) ? size.height : -1;
+            this.showAsLink = showAsLink;
+            this.greyOut = greyOut;
+            this.focus = focus;
+            this.hash = computeHash();
+        }
+
+        private int computeHash() {
+            int result = (iconUrl != null) ? iconUrl.hashCode() : 0;
+            result = 31 * result + width;
+            result = 31 * result + height;
+            result = 31 * result + (showAsLink ? 1 : 0);
+            result = 31 * result + (greyOut ? 2 : 0);
+            result = 31 * result + (focus ? 4 : 0);
+            return result;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof RenderKey)) {
+                return false;
+            }
+            RenderKey other = (RenderKey) obj;
+            return (hash == other.hash) && (width == other.width) && (height == other.height)
+                    && (showAsLink == other.showAsLink) && (greyOut == other.greyOut) && (focus == other.focus)
+                    && ((iconUrl != null) ? iconUrl.equals(other.iconUrl) : (other.iconUrl == null));
+        }
+
+        @Override
+        public String toString() {
+            return iconUrl + "-" + showAsLink + "-" + ((width < 0) ? "-" : (height + "-" + width)) + "-" + greyOut
+                    + "-" + focus;
+        }
+    }
+
+    private static class CacheEntry {
+
+        private final Image image;
+
+        private final long bytes;
+
+        private CacheEntry(Image image, long bytes) {
+            this.image = image;
+            this.bytes = bytes;
+        }
+    }
+
+    private class Segment {
+
+        private final LinkedHashMap<RenderKey, CacheEntry> entries = new LinkedHashMap<RenderKey, CacheEntry>(16,
+                0.75f, true);
+
+        private long bytes = 0;
+
+        private synchronized Image get(RenderKey key) {
+            CacheEntry entry = entries.get(key);
+            return (entry != null) ? entry.image : null;
+        }
+
+        private synchronized void put(RenderKey key, CacheEntry entry, long maxBytes) {
+            CacheEntry prev = entries.put(key, entry);
+            bytes += entry.bytes;
+            if (prev != null) {
+                bytes -= prev.bytes;
+            }
+            evict(maxBytes);
+        }
+
+        private synchronized void evict(long maxBytes) {
+            Iterator<CacheEntry> iterator = entries.values().iterator();
+            while ((bytes > maxBytes) && iterator.hasNext()) {
+                bytes -= iterator.next().bytes;
+                iterator.remove();
+                evictions.incrementAndGet();
+            }
+        }
+
+        private synchronized void clear() {
+            entries.clear();
+            bytes = 0;
+        }
+
+        private synchronized int size() {
+            return entries.size();
+        }
+
+        private synchronized long getBytes() {
+            return bytes;
+        }
+    }
+
+    /**
+     * Returns the number of bytes of the decoded image.
+     */
+    public static long sizeOf(Image image) {
+        if (image instanceof BufferedImage) {
+            DataBuffer buffer = ((BufferedImage) image).getRaster().getDataBuffer();
+            return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType())
+                    / 8;
+        }
+
+        int width = image.getWidth(null);
+        int height = image.getHeight(null);
+
+        if ((width < 0) || (height < 0)) {
+            return UNKNOWN_IMAGE_BYTES;
+        }
+        return (long) width * height * 4;
+    }
+
+    // ========================================================================
+    // Instance
+    // ========================================================================
+
+    private final Segment[] segments;
+
+    private volatile long maxBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public IconCache() {
+        this(DEFAULT_MAX_BYTES, DEFAULT_NUM_SEGMENTS);
+    }
+
+    /**
+     * @param maxBytes    Maximum total size of the decoded images.
+     * @param numSegments Number of segments, is rounded up to a power of 2.
+     */
+    public IconCache(long maxBytes, int numSegments) {
+        int size = 1;
+        while (size < numSegments) {
+            size <<= 1;
+        }
+
+        this.segments = new Segment[size];
+        for (int i = 0; i < size; i++) {
+            segments[i] = new Segment();
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    private Segment getSegment(RenderKey key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[hash & (segments.length - 1)];
+    }
+
+    private long getMaxSegmentBytes() {
+        return maxBytes / segments.length;
+    }
+
+    /**
+     * Returns cached image and counts a cache hit or miss.
+     */
+    public Image get(RenderKey key) {
+        Image image = getSegment(key).get(key);
+
+        if (image != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return image;
+    }
+
+    /**
+     * Add image to the cache. Images which are bigger than a segment are not cached.
+     */
+    public void put(RenderKey key, Image image) {
+        if (image == null) {
+            return;
+        }
+
+        long bytes = sizeOf(image);
+        long maxSegmentBytes = getMaxSegmentBytes();
+
+        if (bytes > maxSegmentBytes) {
+            return;
+        }
+
+        getSegment(key).put(key, new CacheEntry(image, bytes), maxSegmentBytes);
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        long maxSegmentBytes = getMaxSegmentBytes();
+
+        for (Segment segment : segments) {
+            segment.evict(maxSegmentBytes);
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Returns total size of the cached images in bytes.
+     */
+    public long getBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.getBytes();
+        }
+        return bytes;
+    }
+
+    public int getNumEntries() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "IconCache:[entries=" + getNumEntries() + ", bytes=" + getBytes() + ", maxBytes=" + maxBytes
+                + ", hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions() + "]";
+    }
+
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2012-2014 Netherlands eScience Center.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the following location:
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For the full license, see: LICENSE.txt (located in the root folder of this distribution).
+ * ---
+ */
+// source:
+
+package nl.esciencecenter.ptk.ui.icons;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads and renders icons on a small pool of worker threads. Requests return a DeferredIcon immediately, which
+ * paints a placeholder until the actual icon has been loaded.
+ * <ul>
+ * <li>Requests with the same key are loaded only once, all DeferredIcons of that key get the same result.
+ * <li>Icons which have been painted (are visible) are loaded before icons which haven't been painted yet.
+ * <li>Components showing loaded icons are repainted once per batch of loaded icons on the Swing Event Thread.
+ * </ul>
+ */
+@Slf4j
+public class IconLoader {
+
+    public static final int DEFAULT_NUM_THREADS = 2;
+
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * Load task for one icon key, shared by all DeferredIcons requested for the key.
+     */
+    protected class LoadTask implements Runnable, Comparable<LoadTask> {
+
+        private final String key;
+
+        private final Callable<Icon> loader;
+
+        private final List<DeferredIcon> icons = new ArrayList<DeferredIcon>();
+
+        private final long sequenceNr;
+
+        private volatile boolean visible = false;
+
+        private LoadTask(String key, Callable<Icon> loader) {
+            this.key = key;
+            this.loader = loader;
+            this.sequenceNr = taskCounter.incrementAndGet();
+        }
+
+        /**
+         * Move task to the front of the queue.
+         */
+        protected void setVisible() {
+            if (visible) {
+                return;
+            }
+
+            // update priority outside the queue, the queue doesn't re-sort its elements.
+            synchronized (this) {
+                if (visible) {
+                    return;
+                }
+                if (executor.getQueue().remove(this)) {
+                    visible = true;
+                    executor.execute(this);
+                } else {
+                    // already running or done.
+                    visible = true;
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(LoadTask other) {
+            if (this.visible != other.visible) {
+                return this.visible ? -1 : 1;
+            }
+            return Long.compare(this.sequenceNr, other.sequenceNr);
+        }
+
+        @Override
+        public void run() {
+            Icon icon = null;
+
+            try {
+                icon = loader.call();
+            } catch (Throwable t) {
+                log.warn("Failed to load icon:'{}':{}", key, t.getMessage());
+            }
+
+            DeferredIcon[] waiting;
+
+            synchronized (pendingTasks) {
+                pendingTasks.remove(key);
+                waiting = icons.toArray(new DeferredIcon[0]);
+                icons.clear();
+            }
+
+            for (DeferredIcon deferredIcon : waiting) {
+                Component target = deferredIcon.setLoadedIcon(icon);
+                if (target != null) {
+                    scheduleRepaint(target);
+                }
+            }
+        }
+    }
+
+    // ========================================================================
+    // Instance
+    // ========================================================================
+
+    private final Map<String, LoadTask> pendingTasks = new HashMap<String, LoadTask>();
+
+    private final AtomicLong taskCounter = new AtomicLong();
+
+    private final ThreadPoolExecutor executor;
+
+    private final Set<Component> repaintComponents = new LinkedHashSet<Component>();
+
+    private boolean repaintScheduled = false;
+
+    public IconLoader() {
+        this(Math.min(DEFAULT_NUM_THREADS, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public IconLoader(int numThreads) {
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private int threadNr = 0;
+
+            @Override
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "IconLoader-" + (threadNr++));
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+
+        this.executor = new ThreadPoolExecutor(numThreads, numThreads, THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), threadFactory);
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Request icon. Returns a DeferredIcon of the specified size which shows the placeholder icon until the icon has
+     * been loaded. If a request with the same key is already pending the loader is not called again.
+     *
+     * @param key         Unique key of the icon, including all render options.
+     * @param width       Width of the DeferredIcon.
+     * @param height      Height of the DeferredIcon.
+     * @param placeholder Optional icon to show while loading.
+     * @param loader      Loads and renders the actual icon. Called on a worker thread.
+     */
+    public DeferredIcon load(String key, int width, int height, Icon placeholder, Callable<Icon> loader) {
+        LoadTask task;
+        DeferredIcon icon;
+        boolean newTask = false;
+
+        synchronized (pendingTasks) {
+            task = pendingTasks.get(key);
+
+            if (task == null) {
+                task = new LoadTask(key, loader);
+                pendingTasks.put(key, task);
+                newTask = true;
+            }
+
+            icon = new DeferredIcon(width, height, placeholder, task);
+            task.icons.add(icon);
+        }
+
+        if (newTask) {
+            executor.execute(task);
+        }
+
+        return icon;
+    }
+
+    public int getNumPending() {
+        synchronized (pendingTasks) {
+            return pendingTasks.size();
+        }
+    }
+
+    protected void scheduleRepaint(Component component) {
+        synchronized (repaintComponents) {
+            repaintComponents.add(component);
+
+            if (repaintScheduled) {
+                return;
+            }
+            repaintScheduled = true;
+        }
+
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                doRepaint();
+            }
+        });
+    }
+
+    private void doRepaint() {
+        Component[] components;
+
+        synchronized (repaintComponents) {
+            components = repaintComponents.toArray(new Component[0]);
+            repaintComponents.clear();
+            repaintScheduled = false;
+        }
+
+        for (Component component : components) {
+            component.repaint();
+        }
+    }
+
+    public void dispose() {
+        this.executor.shutdownNow();
+    }
+
+}
@@ -35,9 +35,9 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.util.HashMap;
-import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 /**
  * Simple Icon provider class which searched for icons in both user and installation directories.
@@ -67,9 +67,9 @@ public class IconProvider {
     // === Instance === //
 
     /**
-     * Use image render cache for pre-rendered icons.
+     * Bounded cache for loaded and pre-rendered icons.
      */
-    private final Hashtable<String, Image> iconHash = new Hashtable<String, Image>();
+    private final IconCache iconCache = new IconCache();
 
     /**
      * path prefix for the mimetype icons: <theme>/<size>/<type>
@@ -103,6 +103,8 @@ public class IconProvider {
 
     private Image miniLinkImage;
 
+    private IconLoader iconLoader;
+
     // ==========================================================================
     // Constructor/Initializers
     // ==========================================================================
@@ -234,6 +236,55 @@ public class IconProvider {
         return createIcon(classLoader, file_icon_url, isLink, new Dimension(size, size), greyOut, focus);
     }
 
+    /**
+     * Asynchronous version of createDefaultIcon(). Returns the icon directly if it already has been rendered,
+     * otherwise a DeferredIcon is returned which shows a placeholder until the icon has been rendered by the
+     * IconLoader. Identical requests which are still pending are rendered only once.
+     *
+     * @see #createDefaultIcon(String, boolean, boolean, String, int, boolean, boolean)
+     */
+    public Icon createDefaultIconDeferred(final String iconUrl, final boolean isComposite, final boolean isLink,
+                                          final String mimetype, final int size, final boolean greyOut,
+                                          final boolean focus) {
+        final String key = "default-" + iconUrl + "-" + isComposite + "-" + mimetype;
+        final Dimension prefSize = new Dimension(size, size);
+
+        Image image = getImageFromHash(key, isLink, prefSize, greyOut, focus);
+
+        if (image != null) {
+            return createImageIcon(image);
+        }
+
+        Callable<Icon> loader = new Callable<Icon>() {
+            @Override
+            public Icon call() {
+                Icon icon = createDefaultIcon(iconUrl, isComposite, isLink, mimetype, size, greyOut, focus);
+                if (icon instanceof ImageIcon) {
+                    putImageToHash(((ImageIcon) icon).getImage(), key, isLink, prefSize, greyOut, focus);
+                }
+                return icon;
+            }
+        };
+
+        return getIconLoader().load(createHashID(key, isLink, prefSize, greyOut, focus).toString(), size, size,
+                getPlaceholderIcon(isComposite, size), loader);
+    }
+
+    /**
+     * Returns already rendered default file or folder icon, or null.
+     */
+    private Icon getPlaceholderIcon(boolean isComposite, int size) {
+        String iconUrl = isComposite ? folder_icon_url : file_icon_url;
+        return createImageIcon(getImageFromHash(iconUrl, false, new Dimension(size, size), false, false));
+    }
+
+    public synchronized IconLoader getIconLoader() {
+        if (iconLoader == null) {
+            iconLoader = new IconLoader();
+        }
+        return iconLoader;
+    }
+
     /**
      * Returns Icon or broken image icon. Creates ImageIcon directly from URL, works with animated
      * GIFs as the icon is not changed
@@ -428,34 +479,33 @@ public class IconProvider {
         if (image == null)
             return;
 
-        synchronized (this.iconHash) {
-            String id = createHashID(iconURL, showAsLink, size, greyOut, focus);
-            this.iconHash.put(id, image);
-        }
+        this.iconCache.put(createHashID(iconURL, showAsLink, size, greyOut, focus), image);
     }
 
-    private String createHashID(String iconURL, boolean showAsLink, Dimension size, boolean greyOut, boolean focus) {
-        String sizeStr = "-";
-        if (size != null)
-            sizeStr = size.height + "-" + size.width;
-
-        return iconURL + "-" + showAsLink + "-" + sizeStr + "-" + greyOut + "-" + focus;
+    private IconCache.RenderKey createHashID(String iconURL, boolean showAsLink, Dimension size, boolean greyOut,
+                                             boolean focus) {
+        return new IconCache.RenderKey(iconURL, size, showAsLink, greyOut, focus);
     }
 
     private Image getImageFromHash(String iconURL, boolean showAsLink, Dimension size, boolean greyOut, boolean focus) {
-        synchronized (this.iconHash) {
-            String id = createHashID(iconURL, showAsLink, size, greyOut, focus);
-            Image image = this.iconHash.get(id);
-            log.debug("> getIconFromHash:{} for '{}'", ((image != null) ? "HIT" : "MISS"), id);
-            return image;
-        }
+        IconCache.RenderKey id = createHashID(iconURL, showAsLink, size, greyOut, focus);
+        Image image = this.iconCache.get(id);
+        log.debug("> getIconFromHash:{} for '{}'", ((image != null) ? "HIT" : "MISS"), id);
+        return image;
     }
 
     /**
      * Clear Icon Cache.
      */
     public void clearCache() {
-        this.iconHash.clear();
+        this.iconCache.clear();
+    }
+
+    /**
+     * Returns icon cache for statistics and to set the maximum cache size.
+     */
+    public IconCache getIconCache() {
+        return this.iconCache;
     }
 
     public Icon getFileIcon(int size) {
@@ -28,6 +28,9 @@ import java.util.Map;
 
 /**
  * Simple (Icon) Image Renderer class. Performs scaling, merging and greying out of (icon) images.
+ * <p>
+ * Pixel operations read and write all pixels of an image at once as packed ARGB ints and don't create objects per
+ * pixel.
  */
 @Slf4j
 public class ImageRenderer {
@@ -333,32 +336,18 @@ public class ImageRenderer {
     public BufferedImage applyMesh(BufferedImage baseImage, Color greycolor) {
         int width = baseImage.getWidth();
         int height = baseImage.getHeight();
+        int[] pixels = getARGBPixels(baseImage);
+        int rgb = greycolor.getRGB() & 0x00ffffff;
 
-        // ColorModel model = newimage.getColorModel();
-        // Raster raster=newimage.getRaster();
-
-        // reduce in color strenght;
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                // TYPE INT ARGB
-                ARGBPixel argbPixel = getPixel(baseImage, x, y);
-
-                int a = argbPixel.a;
-
-                if ((x + y) % 2 == 1) {
-                    // keep pixel;
-                } else {
-                    int r = greycolor.getRed();
-                    int g = greycolor.getGreen();
-                    int b = greycolor.getBlue();
-
-                    // Keep alpha level!
-                    // a=255;
-                    paintPixel(baseImage, x, y, a, r, g, b);
-                }
+        // Replace every other pixel, keep alpha level!
+        for (int y = 0; y < height; y++) {
+            int offset = y * width;
+            for (int x = (y % 2 == 0) ? 0 : 1; x < width; x += 2) {
+                pixels[offset + x] = (pixels[offset + x] & 0xff000000) | rgb;
             }
         }
 
+        setARGBPixels(baseImage, pixels);
         return baseImage;
     }
 
@@ -372,40 +361,27 @@ public class ImageRenderer {
      * Create mesh like pattern over the image
      */
     public BufferedImage applyFocusGlow(BufferedImage baseImage, Color glowColor, double perc) {
-        int width = baseImage.getWidth();
-        int height = baseImage.getHeight();
-
-        // BufferedImage shadowImage=applyShadow(baseImage);
+        // color value lookup tables: 
+        int[] redTable = new int[256];
+        int[] greenTable = new int[256];
+        int[] blueTable = new int[256];
+
+        for (int value = 0; value < 256; value++) {
+            redTable[value] = Math.min(255, (int) (value + (glowColor.getRed() - value) * perc));
+            greenTable[value] = Math.min(255, (int) (value + (glowColor.getGreen() - value) * perc));
+            blueTable[value] = Math.min(255, (int) (value + (glowColor.getBlue() - value) * perc));
+        }
 
-        // ColorModel model = newimage.getColorModel();
-        // Raster raster=newimage.getRaster();
+        int[] pixels = getARGBPixels(baseImage);
 
-        // reduce in color strength;
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                ARGBPixel argbPixel = getPixel(baseImage, x, y);
-
-                double rf = glowColor.getRed();
-                double gf = glowColor.getGreen();
-                double bf = glowColor.getBlue();
-
-                argbPixel.r += (rf - argbPixel.r) * perc;
-                argbPixel.g += (gf - argbPixel.g) * perc;
-                argbPixel.b += (bf - argbPixel.b) * perc;
-
-                if (argbPixel.r > 255)
-                    argbPixel.r = 255;
-                if (argbPixel.g > 255)
-                    argbPixel.g = 255;
-                if (argbPixel.b > 255)
-                    argbPixel.b = 255;
-
-                // Keep alpha level!
-                // argbPixel.a=255;
-                paintPixel(baseImage, x, y, argbPixel);
-            }
+        for (int i = 0; i < pixels.length; i++) {
+            int pixel = pixels[i];
+            // Keep alpha level!
+            pixels[i] = (pixel & 0xff000000) | (redTable[(pixel >> 16) & 0xff] << 16)
+                    | (greenTable[(pixel >> 8) & 0xff] << 8) | blueTable[pixel & 0xff];
         }
 
+        setARGBPixels(baseImage, pixels);
         return baseImage;
     }
 
@@ -413,19 +389,54 @@ public class ImageRenderer {
      * Convert RGB color image to monochrome image.
      */
     public void toMonochromeImage(BufferedImage baseImage, Color monoColor) {
-        int width = baseImage.getWidth();
-        int height = baseImage.getHeight();
+        // lookup tables for the sum of the r,g and b values:
+        int[] redTable = new int[3 * 255 + 1];
+        int[] greenTable = new int[3 * 255 + 1];
+        int[] blueTable = new int[3 * 255 + 1];
+
+        for (int sum = 0; sum < redTable.length; sum++) {
+            double monoValue = sum / (3.0 * 255.0);
+            redTable[sum] = (int) Math.floor(monoValue * monoColor.getRed());
+            greenTable[sum] = (int) Math.floor(monoValue * monoColor.getGreen());
+            blueTable[sum] = (int) Math.floor(monoValue * monoColor.getBlue());
+        }
 
-        // ColorModel model = newimage.getColorModel();
-        // Raster raster=newimage.getRaster();
+        int[] pixels = getARGBPixels(baseImage);
 
-        // reduce in color strenght;
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                ARGBPixel pix = this.getPixel(baseImage, x, y);
-                pix.toMonochrome(monoColor);
-                paintPixel(baseImage, x, y, pix);
-            }
+        for (int i = 0; i < pixels.length; i++) {
+            int pixel = pixels[i];
+            int sum = ((pixel >> 16) & 0xff) + ((pixel >> 8) & 0xff) + (pixel & 0xff);
+            pixels[i] = (pixel & 0xff000000) | (redTable[sum] << 16) | (greenTable[sum] << 8) | blueTable[sum];
+        }
+
+        setARGBPixels(baseImage, pixels);
+    }
+
+    /**
+     * Returns all pixels as (non premultiplied) ARGB ints, row by row.
+     */
+    protected int[] getARGBPixels(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB) {
+            // data elements are ARGB ints already, copy them without color conversion.
+            return (int[]) image.getRaster().getDataElements(0, 0, width, height, null);
+        }
+        return image.getRGB(0, 0, width, height, null, 0, width);
+    }
+
+    /**
+     * Set all pixels from ARGB ints as returned by getARGBPixels().
+     */
+    protected void setARGBPixels(BufferedImage image, int[] pixels) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB) {
+            image.getRaster().setDataElements(0, 0, width, height, pixels);
+        } else {
+            image.setRGB(0, 0, width, height, pixels, 0, width);
         }
     }
 
@@ -434,11 +445,6 @@ public class ImageRenderer {
                 + b);
     }
 
-    private void paintPixel(BufferedImage image, int x, int y, ARGBPixel pixel) {
-        image.setRGB(x, y, pixel.a * 256 * 256 * 256 + pixel.r * 65536
-                + pixel.g * 256 + pixel.b);
-    }
-
     public Image getLinkImage() {
         return miniLinkImage;
     }
@@ -22,6 +22,7 @@ package nl.esciencecenter.ptk.ui.image;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.awt.image.ImageObserver;
 import java.io.IOException;
 
@@ -29,6 +30,10 @@ import java.io.IOException;
  * ImagePane which handles asynchronous imageUpdates. After an image is loaded the component size is
  * updated to match the new size. This because when updating an image from a remote resource, the
  * size might not be known yet as long as the AWT toolkit is 'decoding; the image bytes.
+ * <p>
+ * Alternatively an ImagePyramid can be shown at a zoom factor. Then only the visible part is drawn, scaled from the
+ * pyramid level which best matches the zoom factor, optionally overlaid with a more detailed image of a part of the
+ * pane.
  */
 public class ImagePane extends JComponent {
 
@@ -166,6 +171,14 @@ public class ImagePane extends JComponent {
      */
     private int imageHeight = -1;
 
+    private ImagePyramid pyramid = null;
+
+    private double zoomFactor = 1.0;
+
+    private BufferedImage detailImage = null;
+
+    private Rectangle detailArea = null;
+
     public ImagePane(Image source) throws IOException {
         init();
         this.setImage(source, false);
@@ -216,6 +229,9 @@ public class ImagePane extends JComponent {
         // swap 
         // swap 
 
+        this.pyramid = null;
+        this.detailImage = null;
+
         if (this.image != null) {
             image.flush();
             image = null;
@@ -242,6 +258,50 @@ public class ImagePane extends JComponent {
         }
     }
 
+    /**
+     * Show image pyramid at the specified zoom factor, replaces the current image. The size of this pane becomes the
+     * size of the original image times the zoom factor.
+     */
+    public void setImagePyramid(ImagePyramid newPyramid, double zoom) {
+        if (this.image != null) {
+            image.flush();
+            image = null;
+        }
+
+        this.pyramid = newPyramid;
+        this.zoomFactor = zoom;
+        this.detailImage = null;
+        this.detailArea = null;
+
+        if (newPyramid != null) {
+            updateSize(Math.max(1, (int) Math.round(newPyramid.getWidth() * zoom)),
+                    Math.max(1, (int) Math.round(newPyramid.getHeight() * zoom)));
+        } else {
+            repaint();
+        }
+    }
+
+    public ImagePyramid getImagePyramid() {
+        return this.pyramid;
+    }
+
+    public double getZoomFactor() {
+        return this.zoomFactor;
+    }
+
+    /**
+     * Set more detailed image of a part of the pane, which is drawn over the pyramid level. Is cleared when the zoom
+     * factor changes.
+     *
+     * @param detail Image which is drawn scaled to the area.
+     * @param area   Area in pane coordinates.
+     */
+    public void setDetailImage(BufferedImage detail, Rectangle area) {
+        this.detailImage = detail;
+        this.detailArea = area;
+        repaint(area);
+    }
+
     @Override
     public void setSize(int w, int h) {
         // setSize is callend by parent container to set 
@@ -350,6 +410,11 @@ public class ImagePane extends JComponent {
     }*/
 
     public void paint(Graphics g) {
+        if (this.pyramid != null) {
+            paintPyramid(g, this.pyramid, this.zoomFactor);
+            return;
+        }
+
         Image targetImage = this.image;
 
         // viewed imaged not ready ? 
@@ -371,7 +436,61 @@ public class ImagePane extends JComponent {
         //g.drawImage(image,x,y,dim.width,dim.height,bgcolor,this);
     }
 
+    /**
+     * Draw visible part of the image from the pyramid level closest to the zoom factor.
+     */
+    protected void paintPyramid(Graphics g, ImagePyramid currentPyramid, double zoom) {
+        Rectangle clip = g.getClipBounds();
+
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+
+        g.setColor(bgcolor);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        Rectangle area = clip.intersection(new Rectangle(0, 0, imageWidth, imageHeight));
+
+        if ((area.isEmpty()) || (currentPyramid.getNumLevels() == 0)) {
+            return;
+        }
+
+        int level = currentPyramid.getLevelFor(zoom);
+        BufferedImage levelImage = currentPyramid.getLevel(level);
+        // level pixels per pane pixel:
+        double scale = currentPyramid.getLevelScale(level) / zoom;
+
+        int sx1 = (int) Math.floor(area.x * scale);
+        int sy1 = (int) Math.floor(area.y * scale);
+        int sx2 = Math.min(levelImage.getWidth(), (int) Math.ceil((area.x + area.width) * scale));
+        int sy2 = Math.min(levelImage.getHeight(), (int) Math.ceil((area.y + area.height) * scale));
+
+        Graphics2D g2 = (Graphics2D) g.create();
+
+        try {
+            // enlarged pixels stay sharp, downscaling is smoothed.
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, (scale < 1.0)
+                    ? RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR
+                    : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+            g2.drawImage(levelImage, (int) Math.round(sx1 / scale), (int) Math.round(sy1 / scale),
+                    (int) Math.round(sx2 / scale), (int) Math.round(sy2 / scale), sx1, sy1, sx2, sy2, null);
+
+            BufferedImage detail = this.detailImage;
+            Rectangle detailRect = this.detailArea;
+
+            if ((detail != null) && (detailRect != null) && (detailRect.intersects(area))) {
+                g2.drawImage(detail, detailRect.x, detailRect.y, detailRect.width, detailRect.height, null);
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+
     public void dispose() {
+        this.pyramid = null;
+        this.detailImage = null;
+
         if (this.image != null) {
             this.image.flush();
             this.image = null;
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2012-2014 Netherlands eScience Center.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the following location:
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For the full license, see: LICENSE.txt (located in the root folder of this distribution).
+ * ---
+ */
+// source:
+
+package nl.esciencecenter.ptk.ui.image;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Mip-map pyramid of an image. Level 0 is the base image, every next level is half the size of the previous one.
+ * <p>
+ * The base image might be a subsampled version of the original image, all scales are relative to the size of the
+ * original image. Levels are created in the background with createLevels(), until then the finest level available
+ * is used.
+ */
+public class ImagePyramid {
+
+    /**
+     * No levels are created smaller than this.
+     */
+    public static final int MIN_LEVEL_SIZE = 64;
+
+    private final int width;
+
+    private final int height;
+
+    private final List<BufferedImage> levels = new CopyOnWriteArrayList<BufferedImage>();
+
+    /**
+     * @param baseImage      Decoded, optionally subsampled image.
+     * @param originalWidth  Width of the original image.
+     * @param originalHeight Height of the original image.
+     */
+    public ImagePyramid(BufferedImage baseImage, int originalWidth, int originalHeight) {
+        this.width = originalWidth;
+        this.height = originalHeight;
+        this.levels.add(baseImage);
+    }
+
+    public ImagePyramid(BufferedImage image) {
+        this(image, image.getWidth(), image.getHeight());
+    }
+
+    /**
+     * Width of the original image.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Height of the original image.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    public int getNumLevels() {
+        return levels.size();
+    }
+
+    public BufferedImage getLevel(int level) {
+        return levels.get(level);
+    }
+
+    /**
+     * Scale of the level image relative to the original image.
+     */
+    public double getLevelScale(int level) {
+        return levels.get(level).getWidth() / (double) width;
+    }
+
+    /**
+     * Scale of the base image relative to the original image. Is less than 1 if the base image is subsampled.
+     */
+    public double getBaseScale() {
+        return getLevelScale(0);
+    }
+
+    /**
+     * Returns the coarsest level which has at least the resolution needed to draw the image at the specified zoom
+     * factor. Returns level 0 if no level has enough resolution.
+     */
+    public int getLevelFor(double zoom) {
+        int level = 0;
+
+        while ((level + 1 < levels.size()) && (getLevelScale(level + 1) >= zoom)) {
+            level++;
+        }
+
+        return level;
+    }
+
+    /**
+     * Create all levels by halving the previous level until the level is smaller than MIN_LEVEL_SIZE. Stops when the
+     * current thread is interrupted.
+     */
+    public void createLevels() {
+        BufferedImage prev = levels.get(levels.size() - 1);
+
+        while ((prev.getWidth() / 2 >= MIN_LEVEL_SIZE) && (prev.getHeight() / 2 >= MIN_LEVEL_SIZE)) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            prev = halve(prev);
+            levels.add(prev);
+        }
+    }
+
+    private BufferedImage halve(BufferedImage image) {
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage half = new BufferedImage(image.getWidth() / 2, image.getHeight() / 2, type);
+
+        Graphics2D graphics = half.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, half.getWidth(), half.getHeight(), null);
+        } finally {
+            graphics.dispose();
+        }
+
+        return half;
+    }
+
+}
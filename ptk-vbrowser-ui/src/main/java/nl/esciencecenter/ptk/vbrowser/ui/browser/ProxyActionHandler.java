@@ -22,6 +22,7 @@ package nl.esciencecenter.ptk.vbrowser.ui.browser;
 
 import lombok.extern.slf4j.Slf4j;
 import nl.esciencecenter.ptk.task.ITaskMonitor;
+import nl.esciencecenter.ptk.task.ITaskSource;
 import nl.esciencecenter.ptk.ui.panels.monitoring.TaskMonitorDialog;
 import nl.esciencecenter.ptk.util.CollectionUtil;
 import nl.esciencecenter.ptk.util.StringUtil;
@@ -54,6 +55,13 @@ final public class ProxyActionHandler {
         this.proxyBrowser = proxyBrowser;
     }
 
+    /**
+     * Transfers and deletes don't count against the limit for the browser's interactive tasks.
+     */
+    private ITaskSource getLongTaskSource() {
+        return proxyBrowser.getTaskSource().getLongTaskSource();
+    }
+
     public void handlePaste(ActionCmd action, ViewNode viewNode) {
         log.debug("Paste onto: {}", viewNode);
         if (!proxyBrowser.getCopyBuffer().hasBuffer()) {
@@ -85,7 +93,7 @@ final public class ProxyActionHandler {
 
         final VRL[] vrls = ViewNode.toVRLs(selections);
 
-        BrowserTask task = new BrowserTask(proxyBrowser, "Deleting resources") {
+        BrowserTask task = new BrowserTask(getLongTaskSource(), "Deleting resources") {
             @Override
             protected void doTask() {
                 try {
@@ -140,7 +148,7 @@ final public class ProxyActionHandler {
         }
         final VRL locator = node.getVRL();
 
-        BrowserTask task = new BrowserTask(proxyBrowser, "Deleting resource:" + locator) {
+        BrowserTask task = new BrowserTask(getLongTaskSource(), "Deleting resource:" + locator) {
             @Override
             protected void doTask() {
                 try {
@@ -192,7 +200,7 @@ final public class ProxyActionHandler {
 
         // UIGlobal.assertGuiThread("Interface drop most be called during Swings Event thread!");
 
-        BrowserTask task = new BrowserTask(proxyBrowser, "Performing drop '" + dropAction
+        BrowserTask task = new BrowserTask(getLongTaskSource(), "Performing drop '" + dropAction
                 + "' on resource:" + viewNode) {
             @Override
             protected void doTask() {
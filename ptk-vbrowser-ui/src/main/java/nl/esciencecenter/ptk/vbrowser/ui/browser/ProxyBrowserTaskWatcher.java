@@ -20,15 +20,78 @@
 
 package nl.esciencecenter.ptk.vbrowser.ui.browser;
 
+import nl.esciencecenter.ptk.task.ActionTask;
+import nl.esciencecenter.ptk.task.ITaskSource;
+import nl.esciencecenter.ptk.task.TaskExecutor;
 import nl.esciencecenter.ptk.task.TaskWatcher;
 
 public class ProxyBrowserTaskWatcher extends TaskWatcher {
 
+    /**
+     * Maximum number of concurrently running BrowserTasks of one browser, further tasks are queued.
+     */
+    public static final int MAX_CONCURRENT_TASKS = 8;
+
+    /**
+     * Maximum number of concurrently running long running tasks of one browser, like transfers and deletes. These
+     * are limited separately, so they don't occupy the slots of short interactive tasks.
+     */
+    public static final int MAX_CONCURRENT_LONG_TASKS = 4;
+
+    /**
+     * Separate task source for the TaskExecutor limit. All calls are forwarded to the browser's task watcher.
+     */
+    private class LongTaskSource implements ITaskSource {
+
+        @Override
+        public String getTaskSourceName() {
+            return ProxyBrowserTaskWatcher.this.getTaskSourceName() + "-long";
+        }
+
+        @Override
+        public void registerTask(ActionTask actionTask) {
+            ProxyBrowserTaskWatcher.this.registerTask(actionTask);
+        }
+
+        @Override
+        public void unregisterTask(ActionTask actionTask) {
+            ProxyBrowserTaskWatcher.this.unregisterTask(actionTask);
+        }
+
+        @Override
+        public void notifyTaskStarted(ActionTask actionTask) {
+            ProxyBrowserTaskWatcher.this.notifyTaskStarted(actionTask);
+        }
+
+        @Override
+        public void notifyTaskTerminated(ActionTask actionTask) {
+            ProxyBrowserTaskWatcher.this.notifyTaskTerminated(actionTask);
+        }
+
+        @Override
+        public void notifyTaskException(ActionTask actionTask, Throwable t) {
+            ProxyBrowserTaskWatcher.this.notifyTaskException(actionTask, t);
+        }
+    }
+
     private final ProxyBrowserController browserController;
 
+    private final ITaskSource longTaskSource;
+
     public ProxyBrowserTaskWatcher(ProxyBrowserController browser) {
         super("ProxyBrowserTaskWatcher" + browser.getBrowserId());
         browserController = browser;
+        longTaskSource = new LongTaskSource();
+        TaskExecutor.getDefault().setMaxConcurrentTasks(this, MAX_CONCURRENT_TASKS);
+        TaskExecutor.getDefault().setMaxConcurrentTasks(longTaskSource, MAX_CONCURRENT_LONG_TASKS);
+    }
+
+    /**
+     * Task source for long running tasks of this browser, like transfers, deletes and the population of large
+     * directories. These tasks are watched by this task watcher but have their own concurrency limit.
+     */
+    public ITaskSource getLongTaskSource() {
+        return longTaskSource;
     }
 
     @Override
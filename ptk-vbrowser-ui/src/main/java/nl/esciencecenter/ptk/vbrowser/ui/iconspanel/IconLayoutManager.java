@@ -31,20 +31,29 @@ import java.awt.*;
  * Starts icons in upper left and adds icons to the right, fitting window width, and expand
  * downwards. List View Flow: Vertical Flow:<br>
  * Start Upper Left, adding icons downwards, fitting window height, and expand to the left.
+ * <p>
+ * Icons are placed in a grid of equal sized cells. The position of an icon only depends on its index in the
+ * IconListModel, so the layout size and the cells in view can be calculated without creating a component for
+ * every icon. The cell size is the maximum (preferred) size of the icons seen so far.
  */
 @Slf4j
 public class IconLayoutManager implements LayoutManager {
 
     private UIViewModel uiModel;
-    private Dimension prefSize = null;
-    private boolean changed = true;
+    private final IconListModel iconModel;
 
-    public IconLayoutManager(UIViewModel model) {
+    // grow only cell size, measured from the icon components.
+    private int cellWidth = 0;
+    private int cellHeight = 0;
+
+    public IconLayoutManager(UIViewModel model, IconListModel iconModel) {
         this.uiModel = model;
+        this.iconModel = iconModel;
     }
 
     public void setUIModel(UIViewModel model) {
         this.uiModel = model;
+        resetCellSize();
     }
 
     public UIViewModel getUIModel() {
@@ -52,181 +61,231 @@ public class IconLayoutManager implements LayoutManager {
     }
 
     public void addLayoutComponent(String name, Component comp) {
-        log.debug("addLayoutComponent():'{}' => {}\n", name, comp);
-        this.changed = true;
+        log.trace("addLayoutComponent():'{}' => {}\n", name, comp);
     }
 
-    public void layoutContainer(Container parent) {
-        log.debug(">>> layoutContainer()");
-        checkAlignIcons(parent, true);
+    public void removeLayoutComponent(Component comp) {
+        log.trace("removeLayoutComponent():{}", comp);
     }
 
-    private Dimension checkAlignIcons(Container parent, boolean doLayout) {
-        Dimension newSize = alignIcons(parent, doLayout);
-        this.changed = (newSize != prefSize);
-        prefSize = newSize;
-        return this.prefSize;
+    public void layoutContainer(Container parent) {
+        log.debug(">>> layoutContainer()");
+        alignIcons(parent);
     }
 
     public Dimension minimumLayoutSize(Container parent) {
         log.trace(">>> minimumLayoutSize()");
-        return checkAlignIcons(parent, false);
+        return preferredLayoutSize(parent);
     }
 
     public Dimension preferredLayoutSize(Container parent) {
         log.trace(">>> preferredLayoutSize()");
-        // TBI: check bug: align icons now during preferesLayoutSize calculations.
-        return alignIcons(parent, true);
+        int numIcons = iconModel.getSize();
+
+        if ((numIcons == 0) || (hasCellSize() == false)) {
+            return new Dimension(0, 0);
+        }
+
+        Dimension grid = getGridSize(getTargetSize(parent), numIcons);
+        int width = grid.width * (cellWidth + uiModel.getIconHGap()) + uiModel.getIconHGap();
+        int height = grid.height * (cellHeight + uiModel.getIconVGap()) + uiModel.getIconVGap();
+        return new Dimension(width, height);
     }
 
-    public void removeLayoutComponent(Component comp) {
-        this.changed = true;
-        log.trace("removeLayoutComponent():{}", comp);
+    // ========================================================================
+    // Grid
+    // ========================================================================
+
+    public void resetCellSize() {
+        this.cellWidth = 0;
+        this.cellHeight = 0;
+    }
+
+    public boolean hasCellSize() {
+        return (cellWidth > 0) && (cellHeight > 0);
     }
 
     /**
-     * Custom Layout method.
-     * <p>
-     * Important: Is executed during (SWing) object lock. Do not trigger new resize events to
-     * prevent an endless aligniIcons loop !
+     * Grow cell size to fit the component.
+     *
+     * @return true if the cell size has changed.
      */
+    public boolean updateCellSize(Component comp) {
+        Dimension prefSize = comp.getPreferredSize();
+        int width = Math.min(prefSize.width, uiModel.getMaxIconLabelWidth());
+        boolean changed = false;
+
+        if (width > cellWidth) {
+            cellWidth = width;
+            changed = true;
+        }
 
-    protected Dimension alignIcons(Container container, boolean doLayout) {
-        log.trace("alignIcons(): doLayout={}", doLayout);
+        if (prefSize.height > cellHeight) {
+            cellHeight = prefSize.height;
+            changed = true;
+        }
 
-        int row = 0;
-        int column = 0;
+        return changed;
+    }
 
-        int maxy = 0;
-        int maxx = 0;
+    /**
+     * @return number of columns (width) and rows (height) of the grid.
+     */
+    protected Dimension getGridSize(Dimension targetSize, int numIcons) {
+        if (uiModel.getIconLayoutDirection() == UIViewModel.UIDirection.HORIZONTAL) {
+            int columns = getNumColumns(targetSize);
+            return new Dimension(columns, (numIcons + columns - 1) / columns);
+        } else {
+            int rows = getNumRows(targetSize);
+            return new Dimension((numIcons + rows - 1) / rows, rows);
+        }
+    }
 
-        // Layout wihtin boundaries of current container.  
-        Dimension targetSize = getTargetSize(container);
+    /**
+     * Columns which fit in the target width for horizontal icon flow.
+     */
+    private int getNumColumns(Dimension targetSize) {
+        int columns = (targetSize.width - uiModel.getIconHGap()) / (cellWidth + uiModel.getIconHGap());
+        return Math.max(1, columns);
+    }
 
-        // get max width and max height 
-        Dimension cellMaxPrefSize = new Dimension(0, 0);
-        Dimension cellMaxMinSize = new Dimension(0, 0);
+    /**
+     * Rows which fit in the target height for vertical icon flow.
+     */
+    private int getNumRows(Dimension targetSize) {
+        int rows = (targetSize.height - uiModel.getIconVGap()) / (cellHeight + uiModel.getIconVGap());
+        return Math.max(1, rows);
+    }
 
-        Component[] childs = container.getComponents();
+    /**
+     * @return {row,column} of icon index.
+     */
+    public int[] getRowColumn(Container container, int index) {
+        Dimension targetSize = getTargetSize(container);
 
-        // BODY 
-        if ((childs == null) || (childs.length == 0)) {
-            return new Dimension(0, 0);
+        if (uiModel.getIconLayoutDirection() == UIViewModel.UIDirection.HORIZONTAL) {
+            int columns = getNumColumns(targetSize);
+            return new int[]{index / columns, index % columns};
+        } else {
+            int rows = getNumRows(targetSize);
+            return new int[]{index % rows, index / rows};
         }
+    }
 
-        // PASS I) Scan buttons for preferred and minimum sizes 
-        for (Component comp : childs) {
-            if (comp == null)
-                continue;
+    /**
+     * @return icon index at grid position or -1 if there is no icon at that position.
+     */
+    public int getIndex(Container container, int row, int column) {
+        Dimension targetSize = getTargetSize(container);
+        int index;
 
-            updateMax(cellMaxPrefSize, comp.getPreferredSize());
-            updateMax(cellMaxMinSize, comp.getMinimumSize());
+        if (uiModel.getIconLayoutDirection() == UIViewModel.UIDirection.HORIZONTAL) {
+            int columns = getNumColumns(targetSize);
+            if ((column < 0) || (column >= columns) || (row < 0)) {
+                return -1;
+            }
+            index = row * columns + column;
+        } else {
+            int rows = getNumRows(targetSize);
+            if ((row < 0) || (row >= rows) || (column < 0)) {
+                return -1;
+            }
+            index = column * rows + row;
         }
 
-        int cellMaxWidth = cellMaxPrefSize.width;
-        int cellMaxHeight = cellMaxPrefSize.height;
+        return (index < iconModel.getSize()) ? index : -1;
+    }
 
-        if (cellMaxWidth > uiModel.getMaxIconLabelWidth())
-            cellMaxWidth = uiModel.getMaxIconLabelWidth();
+    /**
+     * Bounds of the grid cell of the icon index.
+     */
+    public Rectangle getCellBounds(Container container, int index) {
+        int[] rowCol = getRowColumn(container, index);
+        int x = uiModel.getIconHGap() + rowCol[1] * (cellWidth + uiModel.getIconHGap());
+        int y = uiModel.getIconVGap() + rowCol[0] * (cellHeight + uiModel.getIconVGap());
+        return new Rectangle(x, y, cellWidth, cellHeight);
+    }
 
-        // scan button for grid width and height 
+    /**
+     * Range of icon indices [first,last] of the cells which intersect with the area, or null if there are none.
+     */
+    public int[] getIndexRange(Container container, Rectangle area) {
+        int numIcons = iconModel.getSize();
 
-        int currentXpos = uiModel.getIconHGap(); // start with offset 
-        int currentYpos = uiModel.getIconVGap(); // start with offset 
+        if ((numIcons == 0) || (hasCellSize() == false)) {
+            return null;
+        }
 
-        for (Component comp : childs) {
-            log.trace("evaluating Component:{}", comp);
+        int first;
+        int last;
+        Dimension targetSize = getTargetSize(container);
 
-            if ((comp == null) || (comp.isVisible() == false)) {
-                continue;
-            }
+        if (uiModel.getIconLayoutDirection() == UIViewModel.UIDirection.HORIZONTAL) {
+            int columns = getNumColumns(targetSize);
+            int rowHeight = cellHeight + uiModel.getIconVGap();
+            int firstRow = Math.max(0, area.y / rowHeight);
+            int lastRow = (area.y + area.height) / rowHeight;
+            first = firstRow * columns;
+            last = (lastRow + 1) * columns - 1;
+        } else {
+            int rows = getNumRows(targetSize);
+            int columnWidth = cellWidth + uiModel.getIconHGap();
+            int firstColumn = Math.max(0, area.x / columnWidth);
+            int lastColumn = (area.x + area.width) / columnWidth;
+            first = firstColumn * rows;
+            last = (lastColumn + 1) * rows - 1;
+        }
 
-            // Ia) place IconLabel
-            Point currentPos = null;
+        last = Math.min(last, numIcons - 1);
 
-            if (uiModel.getIconLabelPlacement() == UIViewModel.UIDirection.VERTICAL) {
-                currentPos = new Point(currentXpos + cellMaxWidth / 2 - comp.getSize().width / 2,
-                        currentYpos);
-            } else {
-                currentPos = new Point(currentXpos, currentYpos); // align to left
-            }
+        if (first > last) {
+            return null;
+        }
 
-            // Ib) Update Current Component:
-            if (doLayout) {
-                // actual update of Component: 
-                comp.setLocation(currentPos);
-                prefSize = comp.getPreferredSize();
-                if (prefSize.width > cellMaxWidth)
-                    prefSize.width = cellMaxWidth;
-                comp.setSize(prefSize);
-                //comp.validate(); // now
-                if (comp instanceof IconItem) {
-                    ((IconItem) comp).setRowColumn(row, column);
-                }
-            }
+        return new int[]{first, last};
+    }
 
-            // II) Current Icon Flow Layout stats  
-            int bottom = currentPos.y + comp.getSize().height;
+    /**
+     * Custom Layout method. Places the icon components in the grid cell of their index.
+     * <p>
+     * Important: Is executed during (SWing) object lock. Do not trigger new resize events to
+     * prevent an endless aligniIcons loop !
+     */
+    protected void alignIcons(Container container) {
+        log.trace("alignIcons()");
 
-            if (bottom > maxy) {
-                maxy = bottom; // lowest y coordinate of this row
+        for (Component comp : container.getComponents()) {
+            if (!(comp instanceof IconItem) || (comp.isVisible() == false)) {
+                continue;
             }
 
-            int right = currentPos.x + comp.getSize().width;
+            IconItem item = (IconItem) comp;
+            int index = iconModel.itemIndex(item.getViewNode().getVRL());
 
-            if (right > maxx) {
-                maxx = right; // rightmost x coordinate of this column
+            if (index < 0) {
+                continue;
             }
 
-            //III) Calculate Next Position 
-            if (this.uiModel.getIconLayoutDirection() == UIViewModel.UIDirection.HORIZONTAL) {
-                currentXpos += cellMaxWidth + uiModel.getIconHGap();
-                column++; //next column
-
-                // check next position
-                if (currentXpos + cellMaxWidth >= targetSize.width) {
-                    // reset to xpos to left margin, increase new ypos. 
-                    currentXpos = uiModel.getIconHGap();// reset to default offset
-                    currentYpos = maxy + uiModel.getIconVGap(); // next row
-                    //ypos += celly + browser_icon_gap_width; // next row
-                    column = 0;
-                    row++;
-                }
-            } else {
-                currentYpos += cellMaxHeight + uiModel.getIconVGap();
-                row++;
-                //  check next position
-                if (currentYpos + cellMaxHeight > targetSize.height) {
-                    // reset to ypos to top margin, increase new xpos. 
-                    currentYpos = uiModel.getIconVGap();
-                    // reset to defaul offset
-                    currentXpos = maxx + uiModel.getIconHGap(); // next row
-                    //ypos += celly + browser_icon_gap_width; // next row
-                    row = 0;
-                    column++;
-                }
-            }
-        } // END for (node:nodeLocations)
+            Rectangle cell = getCellBounds(container, index);
 
-        // IV) update sizes 
-        // Important: alignIcons() is called during doLayout(), so 
-        // NO setSize may be called, since this re-triggers a doLayout ! 
-        // JScrollPane Update: 
-        //   when setting the preferredSize, the ParentScrollPane 
-        //   will be informed about the new size and update the croll bars. 
+            Dimension prefSize = comp.getPreferredSize();
+            if (prefSize.width > cellWidth)
+                prefSize.width = cellWidth;
 
-        //update with real size
-        Dimension size = new Dimension(maxx, maxy);
-        // check:
-        return size;
-    }
+            Point currentPos;
 
-    private void updateMax(Dimension maxDimension, Dimension dim) {
-        if (maxDimension.height < dim.height)
-            maxDimension.height = dim.height;
+            if (uiModel.getIconLabelPlacement() == UIViewModel.UIDirection.VERTICAL) {
+                currentPos = new Point(cell.x + cellWidth / 2 - prefSize.width / 2, cell.y);
+            } else {
+                currentPos = new Point(cell.x, cell.y); // align to left
+            }
 
-        if (maxDimension.width < dim.width)
-            maxDimension.width = dim.width;
+            comp.setLocation(currentPos);
+            comp.setSize(prefSize);
+
+            int[] rowCol = getRowColumn(container, index);
+            item.setRowColumn(rowCol[0], rowCol[1]);
+        }
     }
 
     private Dimension getTargetSize(Container container) {
@@ -238,8 +297,6 @@ public class IconLayoutManager implements LayoutManager {
         // Panel is embedded in a ScrollPane or similar widget. 
         if (parent instanceof JViewport) {
             // Get VISIBLE part of ViewPort as target size. 
-            // Container gran = container.getParent(); 
-            // if (gran instanceof JScrollPane)
             JViewport vport = (JViewport) parent;
             targetSize = vport.getExtentSize();
         } else {
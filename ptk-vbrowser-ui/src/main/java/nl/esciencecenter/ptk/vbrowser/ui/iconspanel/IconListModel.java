@@ -21,16 +21,26 @@
 package nl.esciencecenter.ptk.vbrowser.ui.iconspanel;
 
 import nl.esciencecenter.ptk.vbrowser.ui.UIGlobal;
+import nl.esciencecenter.ptk.vbrowser.ui.model.ViewNode;
 import nl.esciencecenter.vbrowser.vrs.vrl.VRL;
 
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Model of the IconsPanel. Contains the ViewNodes only, the IconItem components are created by the IconsPanel for
+ * the visible part of the panel. Keeps a VRL to index mapping for fast lookups and the node selection as bitset.
+ */
 public class IconListModel {
 
-    final private List<IconItem> icons = new ArrayList<>();
+    final private List<ViewNode> nodes = new ArrayList<>();
+    final private Map<VRL, Integer> nodeIndex = new HashMap<>();
+    final private BitSet selection = new BitSet();
     final private List<ListDataListener> listeners = new ArrayList<>();
 
     public IconListModel() {
@@ -38,22 +48,33 @@ public class IconListModel {
 
     // @Override
     public int getSize() {
-        return icons.size();
+        synchronized (nodes) {
+            return nodes.size();
+        }
     }
 
     // @Override
-    public IconItem getElementAt(int index) {
-        return icons.get(index);
+    public ViewNode getElementAt(int index) {
+        synchronized (nodes) {
+            if ((index < 0) || (index >= nodes.size())) {
+                return null;
+            }
+            return nodes.get(index);
+        }
     }
 
     // @Override
     public void addListDataListener(ListDataListener l) {
-        listeners.add(l);
+        synchronized (this.listeners) {
+            listeners.add(l);
+        }
     }
 
     // @Override
     public void removeListDataListener(ListDataListener l) {
-        listeners.remove(l);
+        synchronized (this.listeners) {
+            listeners.remove(l);
+        }
     }
 
     public ListDataListener[] getListeners() {
@@ -64,13 +85,14 @@ public class IconListModel {
         }
     }
 
-    public void setItems(IconItem[] items) {
+    public void setItems(ViewNode[] items) {
 
-        synchronized (this.icons) {
-            icons.clear();
+        synchronized (this.nodes) {
+            nodes.clear();
+            nodeIndex.clear();
+            selection.clear();
             if (items != null) {
-                // Add item and fire event per item if this is an incremental update;
-                for (IconItem item : items) {
+                for (ViewNode item : items) {
                     addItem(item, false);
                 }
             }
@@ -79,12 +101,13 @@ public class IconListModel {
         this.uiFireContentsChanged();
     }
 
-    public void addItem(IconItem item, boolean fireEvent) {
+    public void addItem(ViewNode item, boolean fireEvent) {
         int pos;
 
-        synchronized (icons) {
-            pos = this.icons.size();
-            this.icons.add(item);
+        synchronized (nodes) {
+            pos = this.nodes.size();
+            this.nodes.add(item);
+            this.nodeIndex.put(item.getVRL(), pos);
         }
 
         if (fireEvent) {
@@ -92,10 +115,32 @@ public class IconListModel {
         }
     }
 
-    public void setItem(int index, IconItem item, boolean fireEvent) {
+    /**
+     * Append items and fire one INTERVAL_ADDED event for the whole range.
+     */
+    public void addItems(ViewNode[] items) {
+        if ((items == null) || (items.length == 0)) {
+            return;
+        }
+
+        int pos;
+
+        synchronized (nodes) {
+            pos = this.nodes.size();
+            for (ViewNode item : items) {
+                addItem(item, false);
+            }
+        }
+
+        uiFireRangeAdded(pos, pos + items.length - 1);
+    }
+
+    public void setItem(int index, ViewNode item, boolean fireEvent) {
 
-        synchronized (icons) {
-            icons.set(index, item);
+        synchronized (nodes) {
+            nodeIndex.remove(nodes.get(index).getVRL());
+            nodes.set(index, item);
+            nodeIndex.put(item.getVRL(), index);
         }
 
         if (fireEvent) {
@@ -104,39 +149,44 @@ public class IconListModel {
     }
 
     public int itemIndex(VRL vrl) {
-        synchronized (icons) {
-            for (int i = 0; i < icons.size(); i++) {
-                IconItem item = icons.get(i);
-
-                if (item.getViewNode().matches(vrl)) {
-                    return i;
-                }
-            }
+        synchronized (nodes) {
+            Integer index = nodeIndex.get(vrl);
+            return (index != null) ? index : -1;
         }
-        return -1;
     }
 
-    public IconItem findItem(VRL vrl) {
-        int index = this.itemIndex(vrl);
+    public ViewNode findItem(VRL vrl) {
+        synchronized (nodes) {
+            int index = this.itemIndex(vrl);
 
-        if (index < 0) {
-            return null;
-        } else {
-            return icons.get(index);
+            if (index < 0) {
+                return null;
+            } else {
+                return nodes.get(index);
+            }
         }
     }
 
-    public IconItem deleteItem(VRL vrl, boolean fireEvent) {
-        IconItem delItem = null;
+    public ViewNode deleteItem(VRL vrl, boolean fireEvent) {
+        ViewNode delItem = null;
         int index = -1;
 
-        synchronized (icons) {
+        synchronized (nodes) {
             index = this.itemIndex(vrl);
             if (index < 0) {
                 return null;
             }
 
-            delItem = icons.remove(index);
+            delItem = nodes.remove(index);
+            nodeIndex.remove(vrl);
+
+            // shift selection and update indices of moved nodes:
+            int size = nodes.size();
+            for (int i = index; i < size; i++) {
+                selection.set(i, selection.get(i + 1));
+                nodeIndex.put(nodes.get(i).getVRL(), i);
+            }
+            selection.clear(size);
         }
 
         if (fireEvent) {
@@ -146,6 +196,57 @@ public class IconListModel {
         return delItem;
     }
 
+    // ========================================================================
+    // Selection
+    // ========================================================================
+
+    public boolean isSelected(int index) {
+        synchronized (nodes) {
+            return selection.get(index);
+        }
+    }
+
+    public void setSelected(int index, boolean selected) {
+        synchronized (nodes) {
+            if ((index >= 0) && (index < nodes.size())) {
+                selection.set(index, selected);
+            }
+        }
+    }
+
+    /**
+     * Set selection of range [fromIndex,toIndex] (inclusive).
+     */
+    public void setSelectedRange(int fromIndex, int toIndex, boolean selected) {
+        synchronized (nodes) {
+            int from = Math.max(0, Math.min(fromIndex, toIndex));
+            int to = Math.min(nodes.size() - 1, Math.max(fromIndex, toIndex));
+            if (from <= to) {
+                selection.set(from, to + 1, selected);
+            }
+        }
+    }
+
+    public void clearSelection() {
+        synchronized (nodes) {
+            selection.clear();
+        }
+    }
+
+    public List<ViewNode> getSelectedItems() {
+        synchronized (nodes) {
+            List<ViewNode> items = new ArrayList<>(selection.cardinality());
+            for (int i = selection.nextSetBit(0); i >= 0; i = selection.nextSetBit(i + 1)) {
+                items.add(nodes.get(i));
+            }
+            return items;
+        }
+    }
+
+    // ========================================================================
+    // Events
+    // ========================================================================
+
     public void uiFireRangeRemoved(final int pos) {
         uiFireRangeRemoved(pos, pos);
     }
@@ -174,11 +275,15 @@ public class IconListModel {
     }
 
     public void uiFireChildAdded(final int pos) {
+        uiFireRangeAdded(pos, pos);
+    }
+
+    public void uiFireRangeAdded(final int pos, final int inclusiveEndPos) {
         if (UIGlobal.isGuiThread() == false) {
             Runnable updater = new Runnable() {
                 @Override
                 public void run() {
-                    uiFireChildAdded(pos);
+                    uiFireRangeAdded(pos, inclusiveEndPos);
                 }
             };
 
@@ -186,15 +291,16 @@ public class IconListModel {
             return;
         }
 
-        // range is inclusive: [pos,pos]
-        ListDataEvent event = new ListDataEvent(this, ListDataEvent.INTERVAL_ADDED, pos, pos);
+        // range is inclusive: [pos,inclusiveEndPos]
+        ListDataEvent event = new ListDataEvent(this, ListDataEvent.INTERVAL_ADDED, pos,
+                inclusiveEndPos);
 
         for (ListDataListener l : getListeners())
             l.intervalAdded(event);
     }
 
     public void uiFireContentsChanged() {
-        uiFireContentsChanged(0, icons.size() - 1);
+        uiFireContentsChanged(0, getSize() - 1);
     }
 
     public void uiFireContentsChanged(int starPos, int inclusiveEndPos) {
@@ -219,8 +325,8 @@ public class IconListModel {
         }
     }
 
-    protected List<IconItem> getIcons() {
-        return this.icons;
+    protected List<ViewNode> getItems() {
+        return this.nodes;
     }
 
 }
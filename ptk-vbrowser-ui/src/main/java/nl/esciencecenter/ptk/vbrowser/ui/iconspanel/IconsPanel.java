@@ -36,6 +36,8 @@ import nl.esciencecenter.ptk.vbrowser.ui.proxy.ProxyNodeDataSourceProvider;
 import nl.esciencecenter.vbrowser.vrs.vrl.VRL;
 
 import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
 import java.awt.*;
@@ -44,8 +46,17 @@ import java.awt.dnd.DragGestureListener;
 import java.awt.dnd.DragSource;
 import java.awt.event.ActionEvent;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Icons view of the childs of a ViewNode. The IconItem components are only created for the icons in (or near) the
+ * visible part of the panel, the IconListModel contains the ViewNodes and selection of all icons.
+ */
 @Slf4j
 public class IconsPanel extends JPanel implements ListDataListener, ViewNodeContainer, Disposable, UIActionListener {
 
@@ -63,6 +74,21 @@ public class IconsPanel extends JPanel implements ListDataListener, ViewNodeCont
     private ViewContainerEventAdapter viewComponentHandler;
     private ViewNodeContainerDragListener dragListener;
 
+    /**
+     * IconItems in view, the other icons have no component.
+     */
+    private final Map<VRL, IconItem> iconItems = new HashMap<VRL, IconItem>();
+
+    private boolean updatingItems = false;
+
+    private final ChangeListener viewportListener = new ChangeListener() {
+        @Override
+        public void stateChanged(ChangeEvent e) {
+            // scrolled or resized:
+            updateVisibleItems();
+        }
+    };
+
     public IconsPanel(BrowserInterface browser, ProxyDataSource viewNodeSource) {
         init(browser, viewNodeSource);
     }
@@ -70,9 +96,9 @@ public class IconsPanel extends JPanel implements ListDataListener, ViewNodeCont
     private void init(BrowserInterface browser, ProxyDataSource dataSource) {
         this.masterBrowser = browser;
         this.uiModel = UIViewModel.createIconsModel(48);
-        this.iconsPanelUpdater = new IconsPanelUpdater(this, dataSource);
         this.iconModel = new IconListModel();
         this.iconModel.addListDataListener(this);
+        this.iconsPanelUpdater = new IconsPanelUpdater(this, dataSource);
 
         initGui();
 
@@ -133,7 +159,7 @@ public class IconsPanel extends JPanel implements ListDataListener, ViewNodeCont
 
 
         // layoutmanager:
-        this.layoutManager = new IconLayoutManager(this.uiModel);
+        this.layoutManager = new IconLayoutManager(this.uiModel, this.iconModel);
         this.setLayout(layoutManager);
         // this.setLayout(new FlowLayout());
         this.setBackground(uiModel.getCanvasBGColor());
@@ -179,13 +205,26 @@ public class IconsPanel extends JPanel implements ListDataListener, ViewNodeCont
         this.iconsPanelUpdater.setDataSource(dataSource, update);
     }
 
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (getParent() instanceof JViewport) {
+            ((JViewport) getParent()).addChangeListener(viewportListener);
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        if (getParent() instanceof JViewport) {
+            ((JViewport) getParent()).removeChangeListener(viewportListener);
+        }
+        super.removeNotify();
+    }
+
     @Override
     public void intervalAdded(ListDataEvent e) {
         log.debug("intervalAdded():[{},{}]", e.getIndex0(), e.getIndex1());
-        int start = e.getIndex0();
-        int end = e.getIndex1();
-
-        uiUpdate(false, start, end);
+        uiUpdate(false);
     }
 
     @Override
@@ -195,37 +234,32 @@ public class IconsPanel extends JPanel implements ListDataListener, ViewNodeCont
     }
 
     protected void updateAll() {
-        uiUpdate(true, 0, -1);
+        uiUpdate(true);
     }
 
     @Override
     public void intervalRemoved(ListDataEvent e) {
         log.debug("intervalRemoved():[{},{}]", e.getIndex0(), e.getIndex1());
 
-        int start = e.getIndex0(); // inclusive start
-        int end = e.getIndex1(); // inclusive end
-
-        for (int i = start; i <= end; i++) {
-            delete(i);
+        // remove items which are not in the model anymore:
+        Iterator<Map.Entry<VRL, IconItem>> iterator = iconItems.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<VRL, IconItem> entry = iterator.next();
+            if (iconModel.itemIndex(entry.getKey()) < 0) {
+                removeIconItem(entry.getValue());
+                iterator.remove();
+            }
         }
-    }
 
-    protected void delete(int index) {
-        log.debug("delete #{}", index);
-        // remove and leave empty spot:
-        Component comp = this.getComponent(index);
-        this.remove(comp);
-        comp.setEnabled(false);
-        comp.setVisible(false);
-        this.repaint();
+        uiUpdate(false);
     }
 
-    private void uiUpdate(final boolean clear, final int start, final int _end) {
+    private void uiUpdate(final boolean clear) {
         if (UIGlobal.isGuiThread() == false) {
             Runnable updater = new Runnable() {
                 @Override
                 public void run() {
-                    uiUpdate(clear, start, _end);
+                    uiUpdate(clear);
                 }
 
             };
@@ -234,31 +268,136 @@ public class IconsPanel extends JPanel implements ListDataListener, ViewNodeCont
             return;
         }
 
-        if (clear)
+        if (clear) {
             this.removeAll();
-
-        // -1 -> update all
-        int end = _end;
-
-        if (end < 0)
-            end = getModel().getSize() - 1; // end is inclusive
-        else
-            end = _end;
-
-        // Appends range at END of component list !
-        // Assumes the range [start,end] has NOT been added yet
-        for (int i = start; i <= end; i++) {
-            IconItem comp = getModel().getElementAt(i);
-            // check anyway
-            if (this.hasComponent(comp) == false)
-                this.addIconItem(comp);
+            this.iconItems.clear();
+            this.layoutManager.resetCellSize();
         }
 
+        updateVisibleItems();
+
         // already UI here !
         this.revalidate();
         this.repaint();
     }
 
+    /**
+     * Create the IconItems for the icons in view and remove the ones which are scrolled out of view.
+     */
+    protected void updateVisibleItems() {
+        if (updatingItems) {
+            return;
+        }
+
+        try {
+            updatingItems = true;
+            if (doUpdateVisibleItems()) {
+                this.revalidate();
+                this.repaint();
+            }
+        } finally {
+            updatingItems = false;
+        }
+    }
+
+    private boolean doUpdateVisibleItems() {
+        boolean changed = false;
+
+        if ((layoutManager.hasCellSize() == false) && (iconModel.getSize() > 0)) {
+            // measure first icon.
+            IconItem first = getCreateIconItem(0);
+            if (first != null) {
+                layoutManager.updateCellSize(first);
+                changed = true;
+            }
+        }
+
+        // second pass if the new icons have increased the cell size.
+        for (int pass = 0; pass < 2; pass++) {
+            int[] range = layoutManager.getIndexRange(this, getViewArea());
+            Set<VRL> inView = new HashSet<VRL>();
+            boolean cellSizeChanged = false;
+
+            if (range != null) {
+                for (int index = range[0]; index <= range[1]; index++) {
+                    ViewNode node = iconModel.getElementAt(index);
+                    if (node == null) {
+                        continue;
+                    }
+                    inView.add(node.getVRL());
+                    if (iconItems.containsKey(node.getVRL()) == false) {
+                        IconItem item = getCreateIconItem(index);
+                        cellSizeChanged |= layoutManager.updateCellSize(item);
+                        changed = true;
+                    }
+                }
+            }
+
+            Iterator<Map.Entry<VRL, IconItem>> iterator = iconItems.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<VRL, IconItem> entry = iterator.next();
+                IconItem item = entry.getValue();
+                // keep focused item for keyboard navigation.
+                if ((inView.contains(entry.getKey()) == false) && (item.hasFocus() == false)) {
+                    removeIconItem(item);
+                    iterator.remove();
+                    changed = true;
+                }
+            }
+
+            if (cellSizeChanged == false) {
+                break;
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Visible part of this panel plus a margin of half the visible size, so that icons already exist when scrolling.
+     */
+    private Rectangle getViewArea() {
+        Rectangle rect = getVisibleRect();
+
+        if (rect.isEmpty() && (getParent() instanceof JViewport)) {
+            Dimension extent = ((JViewport) getParent()).getExtentSize();
+            rect = new Rectangle(0, 0, extent.width, extent.height);
+        }
+
+        return new Rectangle(rect.x - rect.width / 2, rect.y - rect.height / 2, rect.width * 2,
+                rect.height * 2);
+    }
+
+    private IconItem getCreateIconItem(int index) {
+        ViewNode node = iconModel.getElementAt(index);
+        if (node == null) {
+            return null;
+        }
+
+        IconItem item = iconItems.get(node.getVRL());
+
+        if (item == null) {
+            item = createIconItem(node);
+            item.setSelected(iconModel.isSelected(index));
+            iconItems.put(node.getVRL(), item);
+            addIconItem(item);
+        }
+
+        return item;
+    }
+
+    protected IconItem createIconItem(ViewNode node) {
+        IconItem item = new IconItem(this, getUIViewModel(), node);
+        item.initDND(getPlatform().getTransferHandler(), getDragGestureListener());
+        return item;
+    }
+
+    private void removeIconItem(IconItem item) {
+        this.remove(item);
+        item.setEnabled(false);
+        item.setVisible(false);
+    }
+
     public void uiRepaint() {
         if (UIGlobal.isGuiThread() == false) {
             Runnable updater = new Runnable() {
@@ -277,12 +416,7 @@ public class IconsPanel extends JPanel implements ListDataListener, ViewNodeCont
     }
 
     public boolean hasComponent(IconItem theComp) {
-        for (Component comp : this.getComponents()) {
-            if (comp.equals(theComp))
-                return true;
-        }
-
-        return false;
+        return (theComp != null) && (theComp.getParent() == this);
     }
 
     @Override
@@ -308,20 +442,16 @@ public class IconsPanel extends JPanel implements ListDataListener, ViewNodeCont
 
     @Override
     public void clearNodeSelection() {
-        for (IconItem item : this.getIconItems()) {
+        iconModel.clearSelection();
+
+        for (IconItem item : iconItems.values()) {
             item.setSelected(false);
         }
     }
 
     @Override
     public List<ViewNode> getNodeSelection() {
-        ArrayList<ViewNode> items = new ArrayList();
-
-        for (IconItem item : this.getIconItems()) {
-            if (item.isSelected())
-                items.add(item.getViewNode());
-        }
-        return items;
+        return iconModel.getSelectedItems();
     }
 
     @Override
@@ -330,72 +460,66 @@ public class IconsPanel extends JPanel implements ListDataListener, ViewNodeCont
         if (node == null)
             return; // canvas click;
 
+        int index = iconModel.itemIndex(node.getVRL());
+        if (index < 0) {
+            return;
+        }
+
+        iconModel.setSelected(index, isSelected);
+
         IconItem item = getIconItem(node.getVRL());
         if (item != null)
             item.setSelected(isSelected);
     }
 
+    /**
+     * Returns IconItem if the icon is in view, otherwise null.
+     */
     public IconItem getIconItem(VRL locator) {
-        for (IconItem item : this.getIconItems()) {
-            if (item.hasLocator(locator))
-                return item;
-        }
-        return null;
+        return iconItems.get(locator);
     }
 
     public IconItem getIconItem(ViewNode node) {
-        for (IconItem item : this.getIconItems()) {
-            if (item.hasViewNode(node))
-                return item;
+        if (node == null) {
+            return null;
         }
-        return null;
+        return iconItems.get(node.getVRL());
     }
 
+    /**
+     * Returns the IconItems in view.
+     */
     public List<IconItem> getIconItems() {
-        ArrayList<IconItem> itemList = new ArrayList<IconItem>();
-        // filter out icon items;
-        Component[] comps = this.getComponents();
-
-        for (Component comp : comps)
-            if (comp instanceof IconItem)
-                itemList.add((IconItem) comp);
-
-        return itemList;
+        return new ArrayList<IconItem>(iconItems.values());
     }
 
     @Override
     public void setNodeSelectionRange(ViewNode node1, ViewNode node2, boolean selected) {
         log.debug("setSelectionRange:[{},{}]={}", node1, node2, selected);
 
-        boolean mark = false;
-
-        // mark range [node1,node2] (inclusive)
-        // mark range [node2,node1] (inclusive)
-        for (IconItem item : this.getIconItems()) {
-            boolean last = false;
+        if ((node1 == null) || (node2 == null)) {
+            return;
+        }
 
-            // check both directions !
-            if (mark == false) {
-                if (item.hasViewNode(node1))
-                    mark = true;
+        // mark range [node1,node2] or [node2,node1] (inclusive)
+        int index1 = iconModel.itemIndex(node1.getVRL());
+        int index2 = iconModel.itemIndex(node2.getVRL());
 
-                if (item.hasViewNode(node2))
-                    mark = true;
-            } else {
-                if (item.hasViewNode(node1))
-                    mark = false;
+        if ((index1 < 0) || (index2 < 0)) {
+            return;
+        }
 
-                if (item.hasViewNode(node2))
-                    mark = false;
+        iconModel.setSelectedRange(index1, index2, selected);
 
-                last = true;
-            }
+        int first = Math.min(index1, index2);
+        int last = Math.max(index1, index2);
 
-            if (mark || last)
+        for (IconItem item : iconItems.values()) {
+            int index = iconModel.itemIndex(item.getViewNode().getVRL());
+            if ((index >= first) && (index <= last)) {
                 item.setSelected(selected);
-
+            }
         }
-
     }
 
     @Override
@@ -445,10 +569,16 @@ public class IconsPanel extends JPanel implements ListDataListener, ViewNodeCont
     @Override
     public Rectangle findBoundsOfSelectionNode(ViewNode node) {
         IconItem item = this.getIconItem(node);
-        if (item == null) {
+        if (item != null) {
+            return item.getBounds();
+        }
+
+        // not in view:
+        int index = (node != null) ? iconModel.itemIndex(node.getVRL()) : -1;
+        if (index < 0) {
             return null;
         }
-        return item.getBounds();
+        return layoutManager.getCellBounds(this, index);
     }
 
     @Override
@@ -488,36 +618,36 @@ public class IconsPanel extends JPanel implements ListDataListener, ViewNodeCont
         // unselect
         log.debug("has focus={}", item);
 
-        int row = item.getRow();
-        int col = item.getColumn();
-        int newRow = row + dy;
-        int newCol = col + dx;
-        IconItem nextItem = findIconByRowCol(newRow, newCol);
+        if (item == null) {
+            return;
+        }
+
+        int index = iconModel.itemIndex(item.getViewNode().getVRL());
+        int[] rowCol = layoutManager.getRowColumn(this, index);
+        int newIndex = layoutManager.getIndex(this, rowCol[0] + dy, rowCol[1] + dx);
+
+        if (newIndex < 0) {
+            log.debug("Row/Col out of bounds.");
+            return;
+        }
+
+        // make sure the next icon is in view:
+        scrollRectToVisible(layoutManager.getCellBounds(this, newIndex));
+        updateVisibleItems();
+        IconItem nextItem = getCreateIconItem(newIndex);
 
         if (nextItem != null) {
             nextItem.requestFocusInWindow();
             this.clearNodeSelection();
             this.setNodeSelection(nextItem.getViewNode(), true);
-        } else {
-            log.debug("Row/Col out of bounds.");
         }
     }
 
-    private IconItem findIconByRowCol(int newRow, int newCol) {
-        for (IconItem item : this.getIconItems()) {
-            if (item.hasRowCol(newRow, newCol)) {
-                return item;
-            }
-        }
-        return null;
-    }
-
-
     private IconItem findIconWithFocus() {
-        for (IconItem icon : this.getIconItems()) {
-            if (icon.hasFocus()) {
-                return icon;
-            }
+        Component owner = KeyboardFocusManager.getCurrentKeyboardFocusManager().getFocusOwner();
+
+        if ((owner instanceof IconItem) && (owner.getParent() == this)) {
+            return (IconItem) owner;
         }
         return null;
     }
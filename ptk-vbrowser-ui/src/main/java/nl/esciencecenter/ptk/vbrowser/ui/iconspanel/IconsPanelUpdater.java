@@ -21,10 +21,12 @@
 package nl.esciencecenter.ptk.vbrowser.ui.iconspanel;
 
 import lombok.extern.slf4j.Slf4j;
+import nl.esciencecenter.ptk.data.LongHolder;
 import nl.esciencecenter.ptk.task.ITaskSource;
 import nl.esciencecenter.ptk.vbrowser.ui.browser.BrowserInterface;
 import nl.esciencecenter.ptk.vbrowser.ui.browser.BrowserTask;
 import nl.esciencecenter.ptk.vbrowser.ui.browser.ProxyBrowserController;
+import nl.esciencecenter.ptk.vbrowser.ui.browser.ProxyBrowserTaskWatcher;
 import nl.esciencecenter.ptk.vbrowser.ui.model.ProxyDataSource;
 import nl.esciencecenter.ptk.vbrowser.ui.model.ProxyDataSourceUpdater;
 import nl.esciencecenter.ptk.vbrowser.ui.model.UIViewModel;
@@ -37,9 +39,18 @@ import nl.esciencecenter.vbrowser.vrs.vrl.VRL;
 @Slf4j
 public class IconsPanelUpdater implements VRSEventListener, ProxyDataSourceUpdater {
 
+    /**
+     * Number of childs fetched per getChilds() call when populating the panel.
+     */
+    public static final int CHILDS_PAGE_SIZE = 1000;
+
     private ProxyDataSource dataSource;
     private final IconsPanel iconsPanel;
     private ViewNode rootNode;
+    /**
+     * Last populate task, a new populate or data source makes it stale.
+     */
+    private BrowserTask populateTask;
 
     public IconsPanelUpdater(IconsPanel panel, ProxyDataSource dataSource) {
         this.iconsPanel = panel;
@@ -69,7 +80,22 @@ public class IconsPanelUpdater implements VRSEventListener, ProxyDataSourceUpdat
         return null;
     }
 
+    /**
+     * Populating a large directory can take long, it doesn't count against the limit for interactive tasks.
+     */
+    protected ITaskSource getLongTaskSource() {
+        ITaskSource source = getTaskSource();
+
+        if (source instanceof ProxyBrowserTaskWatcher) {
+            return ((ProxyBrowserTaskWatcher) source).getLongTaskSource();
+        }
+
+        return source;
+    }
+
     public void setDataSource(ProxyDataSource dataSource, boolean update) {
+        cancelPopulate();
+
         // unregister
         if (this.dataSource != null) {
             this.dataSource.removeDataSourceEventListener(this);
@@ -152,30 +178,6 @@ public class IconsPanelUpdater implements VRSEventListener, ProxyDataSourceUpdat
         update();
     }
 
-    private IconItem[] createIconItems(ViewNode[] nodes) {
-        if (nodes == null) {
-            return null;
-        }
-
-        int len = nodes.length;
-
-        IconItem[] items = new IconItem[len];
-
-        for (int i = 0; i < len; i++) {
-            items[i] = createIconItem(nodes[i]);
-        }
-
-        return items;
-    }
-
-    protected IconItem createIconItem(ViewNode node) {
-        IconItem item = new IconItem(iconsPanel, getUIModel(), node);
-        item.initDND(iconsPanel.getPlatform().getTransferHandler(),
-                iconsPanel.getDragGestureListener());
-
-        return item;
-    }
-
     private void handle(String actionText, ProxyException e) {
         this.iconsPanel.getMasterBrowser().handleException(actionText, e);
     }
@@ -198,7 +200,7 @@ public class IconsPanelUpdater implements VRSEventListener, ProxyDataSourceUpdat
     // ======================
 
     private void doPopulate(final boolean fetchRoot, final boolean fetchChilds) {
-        BrowserTask task = new BrowserTask(this.getTaskSource(), "Populating IconsPanel.") {
+        BrowserTask task = new BrowserTask(this.getLongTaskSource(), "Populating IconsPanel.") {
 
             @Override
             protected void doTask() throws Exception {
@@ -208,9 +210,7 @@ public class IconsPanelUpdater implements VRSEventListener, ProxyDataSourceUpdat
                     }
 
                     if (fetchChilds) {
-                        ViewNode[] childs = dataSource.getChilds(getUIModel(), rootNode.getVRL(),
-                                0, -1, null);
-                        updateChilds(childs);
+                        populateChilds(this);
                     }
                 } catch (ProxyException e) {
                     handle("Couldn't populate  root location.", e);
@@ -218,12 +218,79 @@ public class IconsPanelUpdater implements VRSEventListener, ProxyDataSourceUpdat
             }
         };
 
+        synchronized (this) {
+            cancelPopulate();
+            populateTask = task;
+        }
+
         task.startTask();
+    }
+
+    /**
+     * Stop the previous populate task, a task still in the queue won't be started at all.
+     */
+    private synchronized void cancelPopulate() {
+        if (populateTask != null) {
+            populateTask.signalTerminate();
+            populateTask = null;
+        }
+    }
+
+    /**
+     * Fetch childs page by page so the first icons are shown while the rest of a large directory
+     * is still being listed.
+     */
+    private void populateChilds(BrowserTask task) throws ProxyException {
+        int offset = 0;
+        LongHolder numChildsLeft = new LongHolder();
+        VRL locator = rootNode.getVRL();
+        boolean complete = false;
+
+        try {
+            while (task.isCancelled() == false) {
+                numChildsLeft.value = -1L;
+                ViewNode[] childs = dataSource.getChilds(getUIModel(), locator, offset,
+                        CHILDS_PAGE_SIZE, numChildsLeft);
+
+                if (task.isCancelled()) {
+                    break;
+                }
+
+                if (offset == 0) {
+                    updateChilds(childs);
+                } else {
+                    this.iconsPanel.getModel().addItems(childs);
+                }
+
+                // data source without paging support returns everything at once.
+                if ((childs == null) || (childs.length != CHILDS_PAGE_SIZE)
+                        || (numChildsLeft.value != null && numChildsLeft.value == 0)) {
+                    complete = true;
+                    break;
+                }
 
+                offset += childs.length;
+            }
+        } finally {
+            if (complete == false) {
+                closeChilds(locator);
+            }
+        }
+    }
+
+    /**
+     * Release the paged listing when populating stopped before the last page.
+     */
+    private void closeChilds(VRL locator) {
+        try {
+            dataSource.closeChilds(locator);
+        } catch (ProxyException e) {
+            log.warn("Couldn't close child listing of:{}:{}", locator, e.getMessage());
+        }
     }
 
     private void updateChilds(ViewNode[] childs) {
-        this.iconsPanel.getModel().setItems(createIconItems(childs));
+        this.iconsPanel.getModel().setItems(childs);
     }
 
 }
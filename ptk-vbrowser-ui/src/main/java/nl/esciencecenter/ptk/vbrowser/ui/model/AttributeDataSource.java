@@ -26,6 +26,7 @@ import nl.esciencecenter.vbrowser.vrs.event.VRSEventListener;
 import nl.esciencecenter.vbrowser.vrs.vrl.VRL;
 
 import java.util.List;
+import java.util.Map;
 
 public interface AttributeDataSource {
     /**
@@ -42,4 +43,11 @@ public interface AttributeDataSource {
     List<String> getAttributeNames(VRL locator) throws ProxyException;
 
     List<Attribute> getAttributes(VRL locator, String[] attrNames) throws ProxyException;
+
+    /**
+     * Bulk attribute query.
+     *
+     * @return Attribute lists per locator, in the same order as the given locators.
+     */
+    Map<VRL, List<Attribute>> getAttributes(List<VRL> locators, String[] attrNames) throws ProxyException;
 }
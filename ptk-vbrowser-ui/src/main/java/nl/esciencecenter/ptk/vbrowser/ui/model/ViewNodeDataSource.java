@@ -56,6 +56,15 @@ public interface ViewNodeDataSource {
     ViewNode[] getChilds(UIViewModel uiModel, VRL locator, int offset, int range,
                          LongHolder numChildsLeft) throws ProxyException;
 
+    /**
+     * Stop a paged child listing of the specified resource which hasn't been read completely. Must be called when a
+     * task which fetches childs page by page is cancelled or stops before the last page, so open listings are
+     * released.
+     *
+     * @param locator - location of resource
+     */
+    void closeChilds(VRL locator) throws ProxyException;
+
     /**
      * Open locations and create ViewNodes.
      *
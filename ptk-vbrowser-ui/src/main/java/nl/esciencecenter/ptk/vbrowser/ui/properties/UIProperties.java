@@ -16,6 +16,8 @@ public class UIProperties extends VRSProperties {
     private static final int default_mouse_action_button = MouseEvent.BUTTON1;
     private static final int default_mouse_alt_button = MouseEvent.BUTTON3;
     private static final int default_mouse_popup_button = default_mouse_alt_button;
+    private static final int default_proxy_cache_max_entries = 10000;
+    private static final int default_proxy_cache_ttl = 10 * 60;
 
     // ========
     // Instance
@@ -184,6 +186,27 @@ public class UIProperties extends VRSProperties {
         return getBooleanProperty(UIPropertyNames.UI_LOOK_AND_FEEL_ENABLED, false);
     }
 
+    /**
+     * @return maximum number of cached ProxyNodes.
+     */
+    public int getProxyCacheMaxEntries() {
+        return getIntegerProperty(UIPropertyNames.UI_PROXY_CACHE_MAX_ENTRIES, default_proxy_cache_max_entries);
+    }
+
+    /**
+     * @return maximum idle time in seconds of a cached ProxyNode. A value &lt;= 0 means no maximum.
+     */
+    public int getProxyCacheTTL() {
+        return getIntegerProperty(UIPropertyNames.UI_PROXY_CACHE_TTL, default_proxy_cache_ttl);
+    }
+
+    /**
+     * @return whether cached child lists of ProxyNodes may be reclaimed by the garbage collector.
+     */
+    public boolean getProxyCacheSoftChildLists() {
+        return getBooleanProperty(UIPropertyNames.UI_PROXY_CACHE_SOFT_CHILD_LISTS, false);
+    }
+
     public Color getFocusBorderColor() {
         return getColor(UIPropertyNames.FOCUS_BORDER_COLOR_ENABLED, Color.LIGHT_GRAY);
     }
@@ -24,4 +24,9 @@ public class UIPropertyNames {
     public static final String UI_LOOK_AND_FEEL_ENABLED = "ui.laf.enabled";
     public static final String UI_LOOK_AND_FEEL_TYPE = "ui.laf.type";
 
+    // ProxyNode cache
+    public static final String UI_PROXY_CACHE_MAX_ENTRIES = "ui.proxycache.maxEntries";
+    public static final String UI_PROXY_CACHE_TTL = "ui.proxycache.ttl";
+    public static final String UI_PROXY_CACHE_SOFT_CHILD_LISTS = "ui.proxycache.softChildLists";
+
 }
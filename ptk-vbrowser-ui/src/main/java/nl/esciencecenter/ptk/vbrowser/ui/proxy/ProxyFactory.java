@@ -25,12 +25,16 @@ import nl.esciencecenter.ptk.data.StringHolder;
 import nl.esciencecenter.ptk.vbrowser.ui.browser.BrowserPlatform;
 import nl.esciencecenter.ptk.vbrowser.ui.model.ProxyNodeDnDHandler;
 import nl.esciencecenter.ptk.vbrowser.ui.model.ViewNode;
+import nl.esciencecenter.ptk.vbrowser.ui.properties.UIProperties;
 import nl.esciencecenter.vbrowser.vrs.event.VRSEventNotifier;
 import nl.esciencecenter.vbrowser.vrs.exceptions.VRLSyntaxException;
 import nl.esciencecenter.vbrowser.vrs.vrl.VRL;
 
-import java.util.Hashtable;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * ProxyNodeFactory
@@ -50,7 +54,7 @@ public abstract class ProxyFactory {
 
         private ProxyNode node;
 
-        private long time;
+        private volatile long time;
 
         protected ProxyCacheElement(VRL locator) {
             this.locator = locator;
@@ -92,35 +96,147 @@ public abstract class ProxyFactory {
         }
     }
 
+    /**
+     * Bounded ProxyNode cache. Elements are kept in least recently used order. The least recently used elements are
+     * evicted when the maximum number of entries is exceeded. The time to live is an idle time: every cache hit
+     * renews it, so nodes which are still in use, like the directory being paged on screen, are not evicted, only
+     * elements which haven't been accessed for longer than the time to live are evicted when accessed. Evicted nodes
+     * are disposed, explicitly removed nodes are not.
+     */
     protected class ProxyCache {
-        protected Map<VRL, ProxyCacheElement> _nodes = new Hashtable<VRL, ProxyCacheElement>();
 
+        protected final LinkedHashMap<VRL, ProxyCacheElement> _nodes = new LinkedHashMap<VRL, ProxyCacheElement>(
+                16, 0.75f, true);
+
+        protected int maxEntries = DEFAULT_CACHE_MAX_ENTRIES;
+
+        /**
+         * Time to live in milliseconds, <=0 is no maximum.
+         */
+        protected long ttl = -1;
+
+        protected final AtomicLong hits = new AtomicLong();
+
+        protected final AtomicLong misses = new AtomicLong();
+
+        protected final AtomicLong evictions = new AtomicLong();
+
+        protected void setMaxEntries(int maxEntries) {
+            List<ProxyCacheElement> evicted;
+            synchronized (_nodes) {
+                this.maxEntries = maxEntries;
+                evicted = evictEldest();
+            }
+            dispose(evicted);
+        }
+
+        protected void setTTL(long ttlMillis) {
+            this.ttl = ttlMillis;
+        }
+
+        /**
+         * Returns cached element, counting a cache hit or miss. An expired element is evicted and null is returned.
+         */
         protected ProxyCacheElement get(VRL locator) {
-            return _nodes.get(locator);
+            ProxyCacheElement el;
+            synchronized (_nodes) {
+                el = _nodes.get(locator);
+                if ((el == null) || (isExpired(el) == false)) {
+                    countAccess(el);
+                    if ((el != null) && (el.hasNode())) {
+                        el.mark();
+                    }
+                    return el;
+                }
+                _nodes.remove(locator);
+            }
+            evictions.incrementAndGet();
+            misses.incrementAndGet();
+            el.dispose();
+            return null;
+        }
+
+        private void countAccess(ProxyCacheElement el) {
+            if ((el != null) && (el.hasNode())) {
+                hits.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+            }
+        }
+
+        protected boolean isExpired(ProxyCacheElement el) {
+            // elements without node are being opened, their time is set when the node is set.
+            return (ttl > 0) && (el.hasNode()) && (System.currentTimeMillis() - el.getTime() > ttl);
         }
 
         protected ProxyCacheElement put(VRL locator, ProxyCacheElement proxyCacheElement) {
-            return _nodes.put(locator, proxyCacheElement);
+            ProxyCacheElement prev;
+            List<ProxyCacheElement> evicted;
+            synchronized (_nodes) {
+                prev = _nodes.put(locator, proxyCacheElement);
+                evicted = evictEldest();
+            }
+            dispose(evicted);
+            return prev;
+        }
+
+        /**
+         * Remove least recently used elements until the cache is within bounds. Must be called while holding the
+         * _nodes lock, the returned elements must be disposed after the lock has been released.
+         */
+        private List<ProxyCacheElement> evictEldest() {
+            List<ProxyCacheElement> evicted = null;
+            Iterator<ProxyCacheElement> iterator = _nodes.values().iterator();
+            while ((_nodes.size() > maxEntries) && (iterator.hasNext())) {
+                ProxyCacheElement el = iterator.next();
+                iterator.remove();
+                if (evicted == null) {
+                    evicted = new ArrayList<ProxyCacheElement>();
+                }
+                evicted.add(el);
+            }
+            return evicted;
+        }
+
+        private void dispose(List<ProxyCacheElement> evicted) {
+            if (evicted == null) {
+                return;
+            }
+            for (ProxyCacheElement el : evicted) {
+                log.debug("--- Cache: evicting:{}", el.locator);
+                evictions.incrementAndGet();
+                el.dispose();
+            }
         }
 
         protected void clear() {
-            _nodes.clear();
+            synchronized (_nodes) {
+                _nodes.clear();
+            }
         }
 
         protected boolean exists(VRL locator) {
-            return (_nodes.get(locator) != null);
+            synchronized (_nodes) {
+                return (_nodes.get(locator) != null);
+            }
+        }
+
+        protected int size() {
+            synchronized (_nodes) {
+                return _nodes.size();
+            }
         }
 
         protected ProxyCacheElement createEntry(VRL locator) {
             ProxyCacheElement cacheEl = new ProxyCacheElement(locator);
-            proxyCache.put(locator, cacheEl);
+            put(locator, cacheEl);
             return cacheEl;
         }
 
-        protected synchronized ProxyCacheElement put(ProxyNode node) {
+        protected ProxyCacheElement put(ProxyNode node) {
             VRL vrl = node.getVRL();
             ProxyCacheElement cacheEl = new ProxyCacheElement(vrl, node);
-            proxyCache.put(vrl, cacheEl);
+            put(vrl, cacheEl);
             return cacheEl;
         }
 
@@ -130,13 +246,8 @@ public abstract class ProxyFactory {
 
         protected ProxyCacheElement remove(VRL locator) {
             synchronized (_nodes) {
-                ProxyCacheElement el = _nodes.remove(locator);
-                if (el != null) {
-                    el.dispose();
-                    return el;
-                }
+                return _nodes.remove(locator);
             }
-            return null;
         }
 
     }
@@ -145,19 +256,35 @@ public abstract class ProxyFactory {
     //
     // ========================================================================
 
+    /**
+     * Default maximum number of cached ProxyNodes if not configured in the UIProperties.
+     */
+    public static final int DEFAULT_CACHE_MAX_ENTRIES = 10000;
+
     protected boolean enableCache = true;
 
-    protected ProxyCache proxyCache = new ProxyCache();
+    protected boolean useSoftChildLists = false;
 
-    protected ProxyCache cacheRemoved = new ProxyCache();
+    protected ProxyCache proxyCache = new ProxyCache();
 
     protected BrowserPlatform platform;
 
     protected ProxyFactory(BrowserPlatform browserPlatform) {
         this.platform = browserPlatform;
+        initCache();
         initProxyEventCacheUpdater();
     }
 
+    protected void initCache() {
+        UIProperties uiProperties = (platform != null) ? platform.getGuiSettings() : null;
+        if (uiProperties == null) {
+            return;
+        }
+        proxyCache.setMaxEntries(uiProperties.getProxyCacheMaxEntries());
+        proxyCache.setTTL(uiProperties.getProxyCacheTTL() * 1000L);
+        this.useSoftChildLists = uiProperties.getProxyCacheSoftChildLists();
+    }
+
     public BrowserPlatform getPlatform() {
         return platform;
     }
@@ -194,9 +321,9 @@ public abstract class ProxyFactory {
                 if (cacheEl == null) {
                     cacheEl = this.proxyCache.createEntry(locator);
                     log.debug("+++ Cache: new element for:{}", locator);
+                } else {
+                    log.debug("--- Cache: cached element for:{}", locator);
                 }
-
-                log.debug("--- Cache: cached element for:{}", locator);
             }
 
             ProxyNode node;
@@ -239,16 +366,39 @@ public abstract class ProxyFactory {
         }
     }
 
+    /**
+     * @return whether ProxyNodes keep their child lists as soft references.
+     */
+    public boolean getUseSoftChildLists() {
+        return this.useSoftChildLists;
+    }
+
+    public int getCacheSize() {
+        return proxyCache.size();
+    }
+
+    public long getCacheHits() {
+        return proxyCache.hits.get();
+    }
+
+    public long getCacheMisses() {
+        return proxyCache.misses.get();
+    }
+
+    public long getCacheEvictions() {
+        return proxyCache.evictions.get();
+    }
+
     public void refreshChilds(VRL parentVrl) {
         ProxyCacheElement cacheEl = this.proxyCache.get(parentVrl);
-        if (cacheEl != null) {
+        if ((cacheEl != null) && (cacheEl.hasNode())) {
             cacheEl.getNode().clearCache();
         }
     }
 
     public void clearCache(VRL vrl) {
         ProxyCacheElement cacheEl = this.proxyCache.get(vrl);
-        if (cacheEl != null) {
+        if ((cacheEl != null) && (cacheEl.hasNode())) {
             cacheEl.getNode().clearCache();
         }
     }
@@ -263,7 +413,7 @@ public abstract class ProxyFactory {
             if (el == null) {
                 return null;
             }
-            return el.node;
+            return el.getNode();
         }
     }
 
@@ -282,7 +432,7 @@ public abstract class ProxyFactory {
         ProxyNode cacheNode = cacheFetch(proxyNode.getVRL());
         this.proxyCache.remove(proxyNode);
 
-        if (cacheNode.equals(proxyNode)) {
+        if ((cacheNode != null) && (cacheNode.equals(proxyNode) == false)) {
             log.error("cacheRemove(): Warning: given ProxyNode does not match cached node: {} != {}",
                     proxyNode, cacheNode);
             this.proxyCache.remove(cacheNode);
@@ -292,7 +442,7 @@ public abstract class ProxyFactory {
             ProxyNode parent = cacheNode.cache.parent;
             if (parent != null) {
                 // clear parent; 
-                parent.cache.childNodes = null;
+                parent.cache.clearChildNodes();
             }
         }
     }
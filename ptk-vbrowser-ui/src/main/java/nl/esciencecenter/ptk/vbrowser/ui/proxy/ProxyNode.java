@@ -36,7 +36,10 @@ import nl.esciencecenter.vbrowser.vrs.registry.ResourceConfigInfo;
 import nl.esciencecenter.vbrowser.vrs.vrl.VRL;
 
 import javax.swing.*;
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -139,9 +142,14 @@ public abstract class ProxyNode {
         // Hierarchy: Parent, Childs:
         protected ProxyNode parent = null;
         protected List<? extends ProxyNode> childNodes = null;
+        protected SoftReference<List<? extends ProxyNode>> softChildNodes = null;
         protected List<String> childTypes = null;
         protected long getChildsTime = -1;
 
+        // Streaming child listing, while the child list is not complete:
+        protected ChildStream childStream = null;
+        protected List<ProxyNode> streamedChildNodes = null;
+
         // resource links
         protected Boolean isResourceLink = null;
         protected VRL resourceLinkTargetVrl;
@@ -173,10 +181,62 @@ public abstract class ProxyNode {
         public boolean getIsComposite() {
             return this.is_composite;
         }
+
+        protected List<? extends ProxyNode> getChildNodes() {
+            if (childNodes != null) {
+                return childNodes;
+            }
+            return (softChildNodes != null) ? softChildNodes.get() : null;
+        }
+
+        /**
+         * @param soft - keep a soft reference only, so the list can be reclaimed when memory is low.
+         */
+        protected void setChildNodes(List<? extends ProxyNode> childs, boolean soft) {
+            if (soft && (childs != null)) {
+                this.childNodes = null;
+                this.softChildNodes = new SoftReference<List<? extends ProxyNode>>(childs);
+            } else {
+                this.childNodes = childs;
+                this.softChildNodes = null;
+            }
+        }
+
+        protected void clearChildNodes() {
+            this.childNodes = null;
+            this.softChildNodes = null;
+            closeChildStream();
+        }
+
+        protected void closeChildStream() {
+            if (childStream != null) {
+                childStream.close();
+                childStream = null;
+            }
+            streamedChildNodes = null;
+        }
+    }
+
+    /**
+     * Streaming child listing, see {@link ProxyNode#doOpenChildStream(int)}.
+     */
+    public interface ChildStream {
+
+        /**
+         * @return next page of child nodes, or null if there are no more childs.
+         */
+        List<? extends ProxyNode> nextPage() throws ProxyException;
+
+        void close();
     }
 
     public void clearCache() {
+        Cache oldCache = this.cache;
         this.cache = new Cache();
+
+        synchronized (oldCache) {
+            oldCache.closeChildStream();
+        }
     }
 
     // ========================================================================
@@ -281,6 +341,21 @@ public abstract class ProxyNode {
                 greyOut, focus);
     }
 
+    /**
+     * Returns icon which is loaded and rendered in the background if it hasn't been rendered before.
+     *
+     * @see IconProvider#createDefaultIconDeferred(String, boolean, boolean, String, int, boolean, boolean)
+     */
+    public Icon getDeferredIcon(UIViewModel model, boolean greyOut, boolean focus) throws ProxyException {
+        IconProvider provider = this.getProxyFactory().getPlatform().getIconProvider();
+        int size = model.getIconSize();
+        String mimeType = this.getMimeType();
+        String iconUrl = this.getIconURL(getResourceStatus(), size);
+        boolean isLink = this.isResourceLink();
+        return provider.createDefaultIconDeferred(iconUrl, this.isComposite(), isLink, mimeType, size,
+                greyOut, focus);
+    }
+
     public String getName() // no throw: name should already be fetched
     {
         if (this.cache.name == null) {
@@ -329,15 +404,15 @@ public abstract class ProxyNode {
 
     public ViewNode createViewItem(UIViewModel model) throws ProxyException {
         // default
-        Icon defaultIcon = getIcon(model, false, false);
+        Icon defaultIcon = getDeferredIcon(model, false, false);
         ViewNode viewNode = new ViewNode(locator, defaultIcon, getName(), isComposite());
         viewNode.setResourceType(this.getResourceType());
         viewNode.setMimeType(this.getMimeType());
         viewNode.setResourceStatus(this.getResourceStatus());
         // other
-        viewNode.setIcon(ViewNode.FOCUS_ICON, getIcon(model, false, true));
-        viewNode.setIcon(ViewNode.SELECTED_ICON, getIcon(model, true, false));
-        viewNode.setIcon(ViewNode.SELECTED_FOCUS_ICON, getIcon(model, true, true));
+        viewNode.setIcon(ViewNode.FOCUS_ICON, getDeferredIcon(model, false, true));
+        viewNode.setIcon(ViewNode.SELECTED_ICON, getDeferredIcon(model, true, false));
+        viewNode.setIcon(ViewNode.SELECTED_FOCUS_ICON, getDeferredIcon(model, true, true));
         viewNode.setChildTypes(this.getChildTypes());
         return viewNode;
     }
@@ -354,6 +429,15 @@ public abstract class ProxyNode {
     // Cached methods
     // ========================================================================
 
+    /**
+     * Returns childs in the range [offset,offset+range). A range &lt; 0 means all childs.
+     * <p>
+     * Ranged requests are served from a streaming child listing if the implementation supports it, so the first
+     * pages of a large directory are available before the directory has been read completely. Once the listing
+     * is complete, the child list is cached.
+     *
+     * @param numChildsLeft - optional holder for the number of childs after the range, or -1 if still unknown.
+     */
     public List<? extends ProxyNode> getChilds(int offset, int range, LongHolder numChildsLeft)
             throws ProxyException {
         boolean autoResolve = false;
@@ -365,31 +449,95 @@ public abstract class ProxyNode {
         }
 
         synchronized (this.cache) {
-            if (cache.childNodes == null) {
-                List<? extends ProxyNode> childs = targetNode.doGetChilds(offset, range,
-                        numChildsLeft);
-
-                if ((offset > 0) || (range > 0)) {
-                    // todo: update ranged childs into cache, but typically
-                    // ranged results
-                    // are used in the case the actual child list is to big or
-                    // the invoker
-                    // caches the data itself.
-                    return childs; // do not cache ranged results!
+            List<? extends ProxyNode> childNodes = cache.getChildNodes();
+
+            if ((childNodes == null) && (range > 0)) {
+                if (readChildStream(targetNode, offset + range, range)) {
+                    // listing not complete yet.
+                    setNumChildsLeft(numChildsLeft, -1);
+                    return subrange(cache.streamedChildNodes, offset, range);
+                }
+                childNodes = cache.getChildNodes();
+            }
+
+            if (childNodes == null) {
+                if (cache.childStream != null) {
+                    // complete already started listing:
+                    readChildStream(targetNode, -1, range);
+                    childNodes = cache.getChildNodes();
+                } else {
+                    childNodes = targetNode.doGetChilds(0, -1, null);
+                    updateChildNodes(childNodes);
+                    prefetchAttributes(childNodes);
                 }
+            }
 
-                // only cache complete results!
-                cache.childNodes = childs;
-                cache.getChildsTime = System.currentTimeMillis();
+            if (childNodes == null) {
+                setNumChildsLeft(numChildsLeft, 0);
+                return null;
+            }
 
-                if (cache.childNodes != null) {
-                    for (ProxyNode child : cache.childNodes) {
-                        child.doPrefetchAttributes();
-                    }
+            int end = (range < 0) ? childNodes.size() : offset + range;
+            setNumChildsLeft(numChildsLeft, Math.max(0, childNodes.size() - end));
+            return subrange(childNodes, offset, range);
+        }
+    }
+
+    /**
+     * Read pages from the child stream until at least minCount childs are available, or until the end of the listing
+     * if minCount &lt; 0. Must be called while holding the cache lock.
+     *
+     * @return true if the listing isn't complete yet. false if the listing is complete and the child list has been
+     * cached, or if streaming is not supported.
+     */
+    private boolean readChildStream(ProxyNode targetNode, int minCount, int pageSize) throws ProxyException {
+        if (cache.childStream == null) {
+            ChildStream stream = targetNode.doOpenChildStream(pageSize);
+            if (stream == null) {
+                return false;
+            }
+            cache.childStream = stream;
+            cache.streamedChildNodes = new ArrayList<ProxyNode>();
+        }
+
+        try {
+            while ((minCount < 0) || (cache.streamedChildNodes.size() < minCount)) {
+                List<? extends ProxyNode> page = cache.childStream.nextPage();
+
+                if (page == null) {
+                    List<ProxyNode> childs = cache.streamedChildNodes;
+                    cache.closeChildStream();
+                    updateChildNodes(childs);
+                    return false;
                 }
+
+                prefetchAttributes(page);
+                cache.streamedChildNodes.addAll(page);
             }
+        } catch (ProxyException e) {
+            cache.closeChildStream();
+            throw e;
+        }
+
+        return true;
+    }
 
-            return cache.childNodes;
+    private void updateChildNodes(List<? extends ProxyNode> childs) {
+        cache.setChildNodes(childs, proxyFactory.getUseSoftChildLists());
+        cache.getChildsTime = System.currentTimeMillis();
+    }
+
+    private void prefetchAttributes(List<? extends ProxyNode> childs) throws ProxyException {
+        if (childs != null) {
+            for (ProxyNode child : childs) {
+                child.doPrefetchAttributes();
+            }
+        }
+    }
+
+    private void setNumChildsLeft(LongHolder numChildsLeft, long value) {
+        if (numChildsLeft != null) {
+            numChildsLeft.value = value;
         }
     }
 
@@ -506,6 +654,69 @@ public abstract class ProxyNode {
         return getDefaultProxyAttributes(names);
     }
 
+    /**
+     * Bulk attribute query for (child) resources of this node. Childs which are already in the (partial) child list
+     * are queried directly, since their attributes have been pre-fetched by the listing. The other locations are
+     * passed to the bulk query of the implementation, or opened and queried separately if bulk queries are not
+     * supported.
+     *
+     * @return Attribute lists per location, in the same order as the given locations.
+     */
+    public Map<VRL, List<Attribute>> getAttributes(List<VRL> vrls, String[] names) throws ProxyException {
+        Map<VRL, ProxyNode> listedChilds = getListedChildNodes();
+        Map<VRL, List<Attribute>> knownAttrs = new HashMap<VRL, List<Attribute>>();
+        List<VRL> misses = new ArrayList<VRL>();
+
+        for (VRL vrl : vrls) {
+            ProxyNode child = listedChilds.get(vrl);
+            if (child != null) {
+                knownAttrs.put(vrl, child.getAttributes(names));
+            } else {
+                misses.add(vrl);
+            }
+        }
+
+        if (misses.size() > 0) {
+            Map<VRL, List<Attribute>> bulkAttrs = doGetAttributes(misses, names);
+
+            if (bulkAttrs != null) {
+                knownAttrs.putAll(bulkAttrs);
+            } else {
+                for (VRL vrl : misses) {
+                    ProxyNode node = hasLocator(vrl) ? this : proxyFactory.openLocation(vrl);
+                    knownAttrs.put(vrl, node.getAttributes(names));
+                }
+            }
+        }
+
+        // keep order of locations:
+        Map<VRL, List<Attribute>> attrsMap = new LinkedHashMap<VRL, List<Attribute>>();
+        for (VRL vrl : vrls) {
+            attrsMap.put(vrl, knownAttrs.get(vrl));
+        }
+        return attrsMap;
+    }
+
+    /**
+     * @return childs from the cached child list, or from the streamed pages if the listing isn't complete yet.
+     */
+    private Map<VRL, ProxyNode> getListedChildNodes() {
+        Map<VRL, ProxyNode> childs = new HashMap<VRL, ProxyNode>();
+
+        synchronized (this.cache) {
+            List<? extends ProxyNode> nodes = cache.getChildNodes();
+            if (nodes == null) {
+                nodes = cache.streamedChildNodes;
+            }
+            if (nodes != null) {
+                for (ProxyNode node : nodes) {
+                    childs.put(node.getVRL(), node);
+                }
+            }
+        }
+        return childs;
+    }
+
     // ============
     // Presentation
     // ============
@@ -612,8 +823,21 @@ public abstract class ProxyNode {
         return proxyFactory.getProxyNodeEventNotifier();
     }
 
+    /**
+     * Stop an incomplete paged child listing started by {@link #getChilds(int, int, LongHolder)} and release the
+     * underlying stream. A next ranged request starts a new listing.
+     */
+    public void closeChildStream() {
+        Cache current = this.cache;
+
+        synchronized (current) {
+            current.closeChildStream();
+        }
+    }
+
     public void dispose() {
         log.debug("@{}: dispose() for: <{}>:{}", this.id, this.getResourceType(), this.getVRL());
+        closeChildStream();
     }
 
     // ========================================================================
@@ -647,6 +871,16 @@ public abstract class ProxyNode {
 
     abstract protected boolean doGetIsComposite() throws ProxyException;
 
+    /**
+     * Optional streaming child listing. Returns null if not supported, in which case
+     * {@link #doGetChilds(int, int, LongHolder)} is used.
+     *
+     * @param pageSize - page size hint.
+     */
+    protected ChildStream doOpenChildStream(int pageSize) throws ProxyException {
+        return null;
+    }
+
     /**
      * Uncached doGetChilds, using optional range
      */
@@ -671,6 +905,13 @@ public abstract class ProxyNode {
 
     abstract protected List<Attribute> doGetAttributes(String[] names) throws ProxyException;
 
+    /**
+     * Optional bulk attribute query, return null if not supported.
+     */
+    protected Map<VRL, List<Attribute>> doGetAttributes(List<VRL> vrls, String[] names) throws ProxyException {
+        return null;
+    }
+
     abstract protected void doUpdateAttributes(Attribute[] attrs) throws ProxyException;
 
     abstract protected Map<String, AttributeDescription> doGetAttributeDescriptions(String[] names) throws ProxyException;
@@ -30,7 +30,11 @@ import nl.esciencecenter.vbrowser.vrs.event.VRSEventListener;
 import nl.esciencecenter.vbrowser.vrs.event.VRSEventNotifier;
 import nl.esciencecenter.vbrowser.vrs.vrl.VRL;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * DataSource which produces ViewItems from ProxyItems. Is DataSource Adaptor. Bridging class
@@ -102,6 +106,15 @@ public class ProxyNodeDataSourceProvider implements ProxyDataSource {
         return createViewItems(uiModel, getChildProxyItems(locator, offset, range, numChildsLeft));
     }
 
+    @Override
+    public void closeChilds(VRL locator) throws ProxyException {
+        if (rootNode.hasLocator(locator)) {
+            rootNode.closeChildStream();
+        } else {
+            proxyFactory.openLocation(locator).closeChildStream();
+        }
+    }
+
     @Override
     public ViewNode[] createViewNodes(UIViewModel uiModel, VRL[] locations) throws ProxyException {
         //
@@ -126,6 +139,42 @@ public class ProxyNodeDataSourceProvider implements ProxyDataSource {
         return node.getAttributes(attrNames);
     }
 
+    /**
+     * Groups the locators by parent and performs one bulk query per parent node.
+     */
+    @Override
+    public Map<VRL, List<Attribute>> getAttributes(List<VRL> locators, String[] attrNames)
+            throws ProxyException {
+        Map<VRL, List<VRL>> groups = new LinkedHashMap<VRL, List<VRL>>();
+        for (VRL locator : locators) {
+            VRL parent = locator.getParent();
+            List<VRL> group = groups.get(parent);
+            if (group == null) {
+                group = new ArrayList<VRL>();
+                groups.put(parent, group);
+            }
+            group.add(locator);
+        }
+
+        Map<VRL, List<Attribute>> groupAttrs = new HashMap<VRL, List<Attribute>>();
+        for (Map.Entry<VRL, List<VRL>> entry : groups.entrySet()) {
+            ProxyNode parent;
+            if (rootNode.hasLocator(entry.getKey())) {
+                parent = rootNode;
+            } else {
+                parent = proxyFactory.openLocation(entry.getKey());
+            }
+            groupAttrs.putAll(parent.getAttributes(entry.getValue(), attrNames));
+        }
+
+        // keep order of locators:
+        Map<VRL, List<Attribute>> attrsMap = new LinkedHashMap<VRL, List<Attribute>>();
+        for (VRL locator : locators) {
+            attrsMap.put(locator, groupAttrs.get(locator));
+        }
+        return attrsMap;
+    }
+
     @Override
     public Presentation getPresentation() throws ProxyException {
         return rootNode.getPresentation();
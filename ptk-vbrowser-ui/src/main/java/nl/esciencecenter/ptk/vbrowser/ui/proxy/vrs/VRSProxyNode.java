@@ -37,6 +37,7 @@ import nl.esciencecenter.vbrowser.vrs.exceptions.VrsException;
 import nl.esciencecenter.vbrowser.vrs.infors.VInfoResource;
 import nl.esciencecenter.vbrowser.vrs.infors.VResourceConfigurable;
 import nl.esciencecenter.vbrowser.vrs.io.VDeletable;
+import nl.esciencecenter.vbrowser.vrs.io.VFSDirectoryStream;
 import nl.esciencecenter.vbrowser.vrs.io.VFSDeletable;
 import nl.esciencecenter.vbrowser.vrs.io.VRenamable;
 import nl.esciencecenter.vbrowser.vrs.presentation.VRSPresentation;
@@ -110,13 +111,7 @@ public class VRSProxyNode extends ProxyNode {
         log.debug("@{}: doGetChilds:{}", this.id, this);
 
         try {
-            VPath targetPath = vnode;
-
-            // check links first: 
-            if (isResourceLink()) {
-                VRSProxyNode targetNode = (VRSProxyNode) this.resolveResourceLink();
-                targetPath = targetNode.vnode;
-            }
+            VPath targetPath = getTargetPath();
 
             if (targetPath.isComposite() == false) {
                 return null;
@@ -130,6 +125,54 @@ public class VRSProxyNode extends ProxyNode {
         }
     }
 
+    /**
+     * Streaming child listing for VFSPaths.
+     */
+    @Override
+    protected ChildStream doOpenChildStream(int pageSize) throws ProxyException {
+        log.debug("@{}: doOpenChildStream:{}", this.id, this);
+
+        try {
+            VPath targetPath = getTargetPath();
+
+            if ((targetPath instanceof VFSPath == false) || (targetPath.isComposite() == false)) {
+                return null;
+            }
+
+            final VFSDirectoryStream dirStream = ((VFSPath) targetPath).openDirectoryStream(pageSize);
+
+            return new ChildStream() {
+                @Override
+                public List<? extends ProxyNode> nextPage() throws ProxyException {
+                    try {
+                        return createNodes(dirStream.nextPage());
+                    } catch (VrsException e) {
+                        throw createProxyException("Couldn't get childs of:" + locator, e);
+                    }
+                }
+
+                @Override
+                public void close() {
+                    dirStream.close();
+                }
+            };
+        } catch (Exception e) {
+            throw createProxyException("Couldn't get childs of:" + locator, e);
+        }
+    }
+
+    /**
+     * @return resolved link target or this path.
+     */
+    protected VPath getTargetPath() throws ProxyException {
+        // check links first:
+        if (isResourceLink()) {
+            VRSProxyNode targetNode = (VRSProxyNode) this.resolveResourceLink();
+            return targetNode.vnode;
+        }
+        return vnode;
+    }
+
     protected List<VRSProxyNode> createNodes(List<? extends VPath> nodes) throws ProxyException {
         if (nodes == null) {
             return null;
@@ -265,6 +308,15 @@ public class VRSProxyNode extends ProxyNode {
         }
     }
 
+    @Override
+    protected Map<VRL, List<Attribute>> doGetAttributes(List<VRL> vrls, String[] names) throws ProxyException {
+        try {
+            return vnode.getAttributes(vrls, names);
+        } catch (Exception e) {
+            throw new ProxyException("Couldn't get attributes\n" + e.getMessage(), e);
+        }
+    }
+
     @Override
     protected void doUpdateAttributes(Attribute[] attrs) throws ProxyException {
         if (this.vnode instanceof VEditable) {
@@ -22,8 +22,9 @@ package nl.esciencecenter.ptk.vbrowser.ui.resourcetable;
 
 import lombok.extern.slf4j.Slf4j;
 import nl.esciencecenter.ptk.data.StringList;
-import nl.esciencecenter.ptk.util.QSort;
+import nl.esciencecenter.ptk.vbrowser.ui.UIGlobal;
 import nl.esciencecenter.ptk.vbrowser.ui.model.ViewNode;
+import nl.esciencecenter.ptk.vbrowser.ui.resourcetable.ResourceTableSorter.SortKey;
 import nl.esciencecenter.vbrowser.vrs.data.Attribute;
 import nl.esciencecenter.vbrowser.vrs.data.AttributeSet;
 import nl.esciencecenter.vbrowser.vrs.vrl.VRL;
@@ -54,6 +55,8 @@ public class ResourceTableModel extends AbstractTableModel implements
         // cached attribute names index for fast searching.
         private String[] _rowAttributeNames;
         private ViewNode viewNode;
+        // sort key for the current sort column, if the table is sorted.
+        private SortKey sortKey;
 
         public RowData(ViewNode viewNode, String rowKey, AttributeSet attrs) {
             this.viewNode = viewNode;
@@ -80,6 +83,7 @@ public class ResourceTableModel extends AbstractTableModel implements
 
         public void setValue(String attrName, String value) {
             this.rowAttributes.set(attrName, value);
+            updateSortPosition(this, attrName);
             uiFireCellChanged(this, attrName);
         }
 
@@ -96,6 +100,7 @@ public class ResourceTableModel extends AbstractTableModel implements
 
         public void setObjectValue(String attrName, Object obj) {
             this.rowAttributes.setAny(attrName, obj);
+            updateSortPosition(this, attrName);
             uiFireCellChanged(this, attrName);
         }
 
@@ -106,6 +111,7 @@ public class ResourceTableModel extends AbstractTableModel implements
                     newData.put(attr);
             }
             init(rowKey, newData);
+            updateSortPosition(this, null);
             uiFireRowChanged(this);
         }
 
@@ -116,7 +122,11 @@ public class ResourceTableModel extends AbstractTableModel implements
         public int getIndex() {
             // check entry inside Table Rows !
             synchronized (ResourceTableModel.this.rows) {
-                return ResourceTableModel.this.rows.indexOf(this);
+                int index = getRowIndex(rowKey);
+                if ((index < 0) || (rows.get(index) != this)) {
+                    return -1;
+                }
+                return index;
             }
         }
 
@@ -148,6 +158,180 @@ public class ResourceTableModel extends AbstractTableModel implements
 
     }
 
+    /**
+     * Batch of row inserts, updates and deletes. Apply with {@link ResourceTableModel#applyBatch(RowBatch)}, which
+     * performs all mutations under one lock and fires coalesced table events.
+     */
+    public class RowBatch {
+
+        private final List<RowData> inserts = new ArrayList<RowData>();
+        private final List<RowData> updates = new ArrayList<RowData>();
+        private final Set<String> deletes = new LinkedHashSet<String>();
+
+        /**
+         * Add new row, or replace the existing row with the same key.
+         */
+        public RowBatch addRow(ViewNode viewNode, String key, AttributeSet attrs) {
+            inserts.add(new RowData(viewNode, key, attrs));
+            return this;
+        }
+
+        public RowBatch addRow(ViewNode viewNode, AttributeSet attrs) {
+            return addRow(viewNode, createRowKey(viewNode), attrs);
+        }
+
+        /**
+         * Replace the values of an existing row. Unknown keys are ignored.
+         *
+         * @param optViewNode - optional new ViewNode of the row.
+         */
+        public RowBatch setValues(String key, ViewNode optViewNode, List<Attribute> attrs) {
+            AttributeSet newData = new AttributeSet();
+            if (attrs != null) {
+                for (Attribute attr : attrs) {
+                    newData.put(attr);
+                }
+            }
+            updates.add(new RowData(optViewNode, key, newData));
+            return this;
+        }
+
+        public RowBatch delRow(String key) {
+            deletes.add(key);
+            return this;
+        }
+
+        public int size() {
+            return inserts.size() + updates.size() + deletes.size();
+        }
+
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+    }
+
+    /**
+     * Table events posted from any thread and fired during the Swing Event thread. Consecutive compatible events are
+     * merged, so many row mutations during one EDT frame result in a few range events.
+     */
+    private class TableEventQueue implements Runnable {
+
+        private static final int ROWS_INSERTED = 1;
+        private static final int ROWS_UPDATED = 2;
+        private static final int ROWS_DELETED = 3;
+        private static final int DATA_CHANGED = 4;
+
+        /**
+         * If more (unmergeable) events are pending, they are replaced by one DATA_CHANGED event.
+         */
+        private static final int MAX_PENDING_EVENTS = 64;
+
+        // pending events as {type,firstRow,lastRow}, in order.
+        private final List<int[]> pending = new ArrayList<int[]>();
+
+        private boolean scheduled = false;
+
+        public void post(int type, int first, int last) {
+            if (first < 0) {
+                return;
+            }
+
+            synchronized (pending) {
+                if (!merge(type, first, last)) {
+                    if ((type == DATA_CHANGED) || (pending.size() >= MAX_PENDING_EVENTS)) {
+                        pending.clear();
+                        type = DATA_CHANGED;
+                    }
+                    pending.add(new int[]{type, first, last});
+                }
+
+                if (UIGlobal.isGuiThread() == false) {
+                    if (scheduled == false) {
+                        scheduled = true;
+                        UIGlobal.swingInvokeLater(this);
+                    }
+                    return;
+                }
+            }
+
+            // keep event order: fire pending events first.
+            run();
+        }
+
+        private boolean merge(int type, int first, int last) {
+            if (pending.isEmpty()) {
+                return false;
+            }
+
+            int[] prev = pending.get(pending.size() - 1);
+
+            if (prev[0] == DATA_CHANGED) {
+                // already covers everything.
+                return true;
+            }
+
+            if (prev[0] != type) {
+                return false;
+            }
+
+            switch (type) {
+                case ROWS_INSERTED: {
+                    if (first == prev[2] + 1) {
+                        prev[2] = last;
+                        return true;
+                    }
+                    return false;
+                }
+                case ROWS_UPDATED: {
+                    prev[1] = Math.min(prev[1], first);
+                    prev[2] = Math.max(prev[2], last);
+                    return true;
+                }
+                case ROWS_DELETED: {
+                    if (first == prev[1]) {
+                        // rows after previous range shifted into place.
+                        prev[2] += (last - first + 1);
+                        return true;
+                    } else if (last == prev[1] - 1) {
+                        prev[1] = first;
+                        return true;
+                    }
+                    return false;
+                }
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        public void run() {
+            int[][] events;
+
+            synchronized (pending) {
+                scheduled = false;
+                events = pending.toArray(new int[pending.size()][]);
+                pending.clear();
+            }
+
+            for (int[] event : events) {
+                switch (event[0]) {
+                    case ROWS_INSERTED:
+                        fireTableRowsInserted(event[1], event[2]);
+                        break;
+                    case ROWS_UPDATED:
+                        fireTableRowsUpdated(event[1], event[2]);
+                        break;
+                    case ROWS_DELETED:
+                        fireTableRowsDeleted(event[1], event[2]);
+                        break;
+                    default:
+                        fireTableDataChanged();
+                        break;
+                }
+            }
+        }
+    }
+
     // ========================================================================
     // Instance
     // ========================================================================
@@ -172,6 +356,13 @@ public class ResourceTableModel extends AbstractTableModel implements
 
     private StringList allAttributeNames = null;
 
+    private final TableEventQueue eventQueue = new TableEventQueue();
+
+    /**
+     * Sorter of the last sorted column. While set, new and updated rows are kept in sort order.
+     */
+    private ResourceTableSorter sorter = null;
+
     // For Testing
     public ResourceTableModel(String[] headers) {
         super();
@@ -214,7 +405,7 @@ public class ResourceTableModel extends AbstractTableModel implements
             this.rowKeyIndex.clear();
         }
 
-        this.fireTableDataChanged();
+        this.uiFireDataChanged();
     }
 
     @Override
@@ -230,6 +421,12 @@ public class ResourceTableModel extends AbstractTableModel implements
         return rootViewNode;
     }
 
+    /**
+     * Sort rows on the specified column. New rows and rows with updated values are kept in sort order until the
+     * next sort.
+     *
+     * @return mapping of the new order: mapping[new-index]=old-index.
+     */
     public int[] doSortColumn(String name, boolean reverse) {
         log.debug("sortBy:{} , reverse={}", name,
                 reverse);
@@ -241,23 +438,157 @@ public class ResourceTableModel extends AbstractTableModel implements
 
         log.debug("sortBy column number={}", colnr);
 
-        TableRowComparer comparer = new TableRowComparer(name, reverse);
-        QSort<RowData> sorter = new QSort<RowData>(comparer);
-
+        ResourceTableSorter newSorter = new ResourceTableSorter(name, reverse, true);
         int[] mapping;
 
         synchronized (rows) {
+            int n = rows.size();
+            RowData[] oldRows = rows.toArray(new RowData[n]);
+            SortKey[] keys = new SortKey[n];
+            // keys are kept up to date while sorted, reuse them if only the direction changes.
+            boolean reuseKeys = newSorter.hasSameKeys(this.sorter);
+
+            for (int i = 0; i < n; i++) {
+                SortKey key = reuseKeys ? oldRows[i].sortKey : null;
+                keys[i] = (key != null) ? key : newSorter.createKey(oldRows[i]);
+            }
+
             // in memory sort !
-            mapping = sorter.sort(rows);
+            mapping = newSorter.sort(keys);
+
+            for (int i = 0; i < n; i++) {
+                RowData row = oldRows[mapping[i]];
+                row.sortKey = keys[mapping[i]];
+                rows.set(i, row);
+            }
 
+            this.sorter = newSorter;
             // reINdex key vecto:
             reindexKeyVector();
         }
 
-        this.fireTableDataChanged();
+        this.uiFireDataChanged();
         return mapping;
     }
 
+    /**
+     * Insert rows at their sort position. Must be called while holding the rows lock and with an active sorter.
+     *
+     * @return new positions of the inserted rows, in ascending order.
+     */
+    private int[] insertSorted(Collection<RowData> newRows) {
+        int numNew = newRows.size();
+        int[] positions = new int[numNew];
+
+        if (numNew == 0) {
+            return positions;
+        }
+
+        RowData[] added = newRows.toArray(new RowData[numNew]);
+        for (RowData row : added) {
+            row.sortKey = sorter.createKey(row);
+        }
+
+        if (numNew == 1) {
+            int pos = findSortPosition(added[0].sortKey);
+            rows.add(pos, added[0]);
+            reindexKeyVector(pos);
+            positions[0] = pos;
+            return positions;
+        }
+
+        // stable sort of new rows, then merge with current rows in one pass.
+        Arrays.sort(added, new Comparator<RowData>() {
+            @Override
+            public int compare(RowData r1, RowData r2) {
+                return sorter.compare(r1.sortKey, r2.sortKey);
+            }
+        });
+
+        int n = rows.size();
+        RowData[] merged = new RowData[n + numNew];
+        int i = 0;
+        int j = 0;
+        int out = 0;
+
+        while ((i < n) || (j < numNew)) {
+            // equal rows: existing rows first.
+            if ((j < numNew) && ((i >= n) || (sorter.compare(added[j].sortKey, getSortKey(rows.get(i))) < 0))) {
+                positions[j] = out;
+                merged[out++] = added[j++];
+            } else {
+                merged[out++] = rows.get(i++);
+            }
+        }
+
+        rows.clear();
+        rows.addAll(Arrays.asList(merged));
+        reindexKeyVector(positions[0]);
+        return positions;
+    }
+
+    /**
+     * Binary search for the index of the first row which sorts after the key.
+     */
+    private int findSortPosition(SortKey key) {
+        int low = 0;
+        int high = rows.size();
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorter.compare(getSortKey(rows.get(mid)), key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    private SortKey getSortKey(RowData row) {
+        if (row.sortKey == null) {
+            row.sortKey = sorter.createKey(row);
+        }
+        return row.sortKey;
+    }
+
+    /**
+     * Move row to its new sort position after its values have been updated.
+     *
+     * @param optAttrName - name of updated attribute or null if all attributes may have changed.
+     */
+    protected void updateSortPosition(RowData row, String optAttrName) {
+        int oldIndex;
+        int newIndex;
+
+        synchronized (rows) {
+            if ((sorter == null) || ((optAttrName != null) && (!optAttrName.equals(sorter.getColumnName())))) {
+                return;
+            }
+
+            oldIndex = row.getIndex();
+            if (oldIndex < 0) {
+                // not (yet) in table.
+                return;
+            }
+
+            SortKey newKey = sorter.createKey(row);
+            if ((row.sortKey != null) && (sorter.compare(row.sortKey, newKey) == 0)) {
+                row.sortKey = newKey;
+                return;
+            }
+
+            removeRows(new int[]{oldIndex}, new int[1]);
+            newIndex = insertSorted(Collections.singletonList(row))[0];
+        }
+
+        if (oldIndex != newIndex) {
+            uiFireRowsDeleted(oldIndex, oldIndex);
+            uiFireRowsInserted(newIndex, newIndex);
+        }
+    }
+
     /**
      * Reindex key to index mapping.
      */
@@ -266,13 +597,20 @@ public class ResourceTableModel extends AbstractTableModel implements
         synchronized (rows) {
             synchronized (rowKeyIndex) {
                 this.rowKeyIndex.clear();
+                reindexKeyVector(0);
+            }
+        }
+    }
 
-                int n = rows.size();
+    /**
+     * Update key to index mapping for rows starting at 'fromIndex'. Rows before fromIndex didn't move.
+     */
+    protected void reindexKeyVector(int fromIndex) {
+        synchronized (rows) {
+            int n = rows.size();
 
-                for (int i = 0; i < n; i++) {
-                    RowData row = this.rows.get(i);
-                    this.rowKeyIndex.put(row.getKey(), new Integer(i));
-                }
+            for (int i = fromIndex; i < n; i++) {
+                this.rowKeyIndex.put(rows.get(i).getKey(), i);
             }
         }
     }
@@ -439,7 +777,7 @@ public class ResourceTableModel extends AbstractTableModel implements
             }
         }
 
-        this.fireTableDataChanged();
+        this.uiFireDataChanged();
     }
 
     /**
@@ -469,6 +807,8 @@ public class ResourceTableModel extends AbstractTableModel implements
                 // row exist, replace!
                 rows.set(index, rowData);
                 rowExists = true;
+            } else if (sorter != null) {
+                index = insertSorted(Collections.singletonList(rowData))[0];
             } else {
                 index = rows.size();
                 this.rows.add(rowData);
@@ -476,11 +816,20 @@ public class ResourceTableModel extends AbstractTableModel implements
             }
         }
 
+        if (rowExists) {
+            updateSortPosition(rowData, null);
+            index = rowData.getIndex();
+        }
+
         log.debug("addRow(): {} new row at index {}", (rowExists ? "replaced"
                 : "created"), index);
 
         if (fireEvent) {
-            this.fireTableRowsInserted(index, index);
+            if (rowExists) {
+                this.uiFireRowsUpdated(index, index);
+            } else {
+                this.uiFireRowsInserted(index, index);
+            }
         }
 
         return index;
@@ -518,21 +867,16 @@ public class ResourceTableModel extends AbstractTableModel implements
     }
 
     /**
-     * Deletes Row. Performance note: Since a delete triggers an update for the used Key->Index
-     * mapping. This method takes O(N) time. (Where N= nr of rows in table)
+     * Deletes Rows. Performance note: All rows are removed in one pass and the Key->Index mapping
+     * is only updated for the rows after the first deleted row. This method takes O(N) time. (Where
+     * N= nr of rows in table)
      *
      * @param indices
      * @return
      */
     public boolean delRows(int[] indices) {
         // multi delete to avoid O(N*N) rekeying of key mapping !
-        boolean result = this._delRows(indices, false);
-
-        for (int i = 0; i < indices.length; i++) {
-            this.fireTableRowsDeleted(indices[i], indices[i]);
-        }
-
-        return result;
+        return this._delRows(indices, true);
     }
 
     // delete row from internal data structure
@@ -579,42 +923,244 @@ public class ResourceTableModel extends AbstractTableModel implements
         }
 
         if (fireEvent) {
-            this.fireTableRowsDeleted(rowIndex, rowIndex);
+            this.uiFireRowsDeleted(rowIndex, rowIndex);
         }
         return rowObj;
     }
 
     /**
-     * Multi delete rows from internal data structure. Performance note: here the internal key
-     * mapping is regenerated. This take O(N) time.
+     * Multi delete rows from internal data structure. Performance note: the rows are compacted in
+     * one pass and the internal key mapping is only updated from the lowest deleted index. This
+     * take O(N) time.
      *
      * @param indices
      * @return
      */
     private boolean _delRows(int[] indices, boolean fireEvent) {
-        boolean allDeleted = true;
+        int[] sorted = indices.clone();
+        Arrays.sort(sorted);
+        int[] deleted = new int[sorted.length];
+        int numDeleted;
+
         synchronized (rows)// sync for both rows and rowKeyIndex!
         {
-            for (int index : indices) {
-                if ((index < 0) || (index >= rows.size())) {
-                    allDeleted = false;
+            numDeleted = removeRows(sorted, deleted);
+        }
+
+        if (fireEvent) {
+            for (int i = 0; i < numDeleted; i++) {
+                this.uiFireRowsDeleted(deleted[i], deleted[i]);
+            }
+        }
+
+        // invalid indices are skipped.
+        return (numDeleted == indices.length);
+    }
+
+    /**
+     * Remove rows in one pass. Must be called while holding the rows lock.
+     *
+     * @param sortedIndices - row indices in ascending order. Duplicate or invalid indices are skipped.
+     * @param deleted       - returns the index of each deleted row at the time of its removal, as
+     *                      needed for sequential delete events.
+     * @return number of deleted rows.
+     */
+    private int removeRows(int[] sortedIndices, int[] deleted) {
+        int n = rows.size();
+        int numDeleted = 0;
+        int firstDeleted = -1;
+        int writeIndex = -1;
+        int prev = -1;
+
+        for (int index : sortedIndices) {
+            if ((index < 0) || (index >= n) || (index == prev)) {
+                continue;
+            }
+
+            if (firstDeleted < 0) {
+                firstDeleted = index;
+                writeIndex = index;
+            } else {
+                // shift rows between previous and current deleted index.
+                for (int j = prev + 1; j < index; j++) {
+                    rows.set(writeIndex++, rows.get(j));
+                }
+            }
+
+            this.rowKeyIndex.remove(rows.get(index).getKey());
+            deleted[numDeleted] = index - numDeleted;
+            numDeleted++;
+            prev = index;
+        }
+
+        if (numDeleted > 0) {
+            for (int j = prev + 1; j < n; j++) {
+                rows.set(writeIndex++, rows.get(j));
+            }
+            rows.setSize(n - numDeleted);
+            reindexKeyVector(firstDeleted);
+        }
+
+        return numDeleted;
+    }
+
+    /**
+     * Create new empty batch for {@link #applyBatch(RowBatch)}.
+     */
+    public RowBatch createBatch() {
+        return new RowBatch();
+    }
+
+    /**
+     * Apply all row mutations of the batch under one lock: first the deletes, then the inserts and
+     * at last the updates. The table events are coalesced into at most one event per type and
+     * contiguous range. If the table is sorted, new and updated rows are merged into their sort
+     * position.
+     */
+    public void applyBatch(RowBatch batch) {
+        if ((batch == null) || (batch.isEmpty())) {
+            return;
+        }
+
+        // events as {type,first,last} in order of the mutations.
+        List<int[]> events = new ArrayList<int[]>();
+
+        synchronized (rows) {
+            if (batch.deletes.size() > 0) {
+                int[] indices = new int[batch.deletes.size()];
+                int numIndices = 0;
+                for (String key : batch.deletes) {
+                    Integer index = rowKeyIndex.get(key);
+                    if (index != null) {
+                        indices[numIndices++] = index;
+                    }
                 }
+                removeRows(Arrays.copyOf(indices, numIndices), events);
+            }
 
-                RowData rowObj = rows.get(index);
-                String key = rowObj.getKey();
-                rows.remove(index);
-                this.rowKeyIndex.remove(key);
+            if (sorter != null) {
+                applySortedInserts(batch.inserts, events);
+            } else {
+                applyInserts(batch.inserts, events);
+            }
 
-                if (fireEvent) {
-                    // Concurrency note: Within Synchronized(!): Fire event per row
-                    this.fireTableRowsDeleted(index, index);
+            applyUpdates(batch.updates, events);
+        }
+
+        for (int[] event : events) {
+            eventQueue.post(event[0], event[1], event[2]);
+        }
+    }
+
+    private void applyInserts(List<RowData> inserts, List<int[]> events) {
+        int insertFirst = -1;
+        int insertLast = -1;
+        int updateFirst = Integer.MAX_VALUE;
+        int updateLast = -1;
+
+        for (RowData rowData : inserts) {
+            Integer index = rowKeyIndex.get(rowData.rowKey);
+            if (index != null) {
+                rows.set(index, rowData);
+                updateFirst = Math.min(updateFirst, index);
+                updateLast = Math.max(updateLast, index);
+            } else {
+                index = rows.size();
+                rows.add(rowData);
+                rowKeyIndex.put(rowData.rowKey, index);
+                if (insertFirst < 0) {
+                    insertFirst = index;
                 }
+                insertLast = index;
+            }
+        }
+
+        if (insertFirst >= 0) {
+            events.add(new int[]{TableEventQueue.ROWS_INSERTED, insertFirst, insertLast});
+        }
+        if (updateLast >= 0) {
+            events.add(new int[]{TableEventQueue.ROWS_UPDATED, updateFirst, updateLast});
+        }
+    }
+
+    private void applySortedInserts(List<RowData> inserts, List<int[]> events) {
+        // last one wins for duplicate keys.
+        Map<String, RowData> newRows = new LinkedHashMap<String, RowData>();
+        for (RowData rowData : inserts) {
+            newRows.put(rowData.rowKey, rowData);
+        }
+
+        // replaced rows are removed and merged with the new rows.
+        int[] indices = new int[newRows.size()];
+        int numIndices = 0;
+        for (String key : newRows.keySet()) {
+            Integer index = rowKeyIndex.get(key);
+            if (index != null) {
+                indices[numIndices++] = index;
             }
-            // within sync(rows)
-            this.reindexKeyVector();
         }
+        removeRows(Arrays.copyOf(indices, numIndices), events);
 
-        return allDeleted;
+        addInsertEvents(insertSorted(newRows.values()), events);
+    }
+
+    private void applyUpdates(List<RowData> updates, List<int[]> events) {
+        int updateFirst = Integer.MAX_VALUE;
+        int updateLast = -1;
+        List<RowData> moved = new ArrayList<RowData>();
+        int[] movedIndices = new int[updates.size()];
+
+        for (RowData update : updates) {
+            Integer index = rowKeyIndex.get(update.rowKey);
+            if (index == null) {
+                continue;
+            }
+            RowData row = rows.get(index);
+            if (update.viewNode != null) {
+                row.setViewNode(update.viewNode);
+            }
+            row.init(row.rowKey, update.rowAttributes);
+            updateFirst = Math.min(updateFirst, index);
+            updateLast = Math.max(updateLast, index);
+
+            if (sorter != null) {
+                SortKey newKey = sorter.createKey(row);
+                if ((row.sortKey == null) || (sorter.compare(row.sortKey, newKey) != 0)) {
+                    movedIndices[moved.size()] = index;
+                    moved.add(row);
+                }
+                row.sortKey = newKey;
+            }
+        }
+
+        if (updateLast >= 0) {
+            events.add(new int[]{TableEventQueue.ROWS_UPDATED, updateFirst, updateLast});
+        }
+
+        if (moved.size() > 0) {
+            removeRows(Arrays.copyOf(movedIndices, moved.size()), events);
+            addInsertEvents(insertSorted(moved), events);
+        }
+    }
+
+    private void removeRows(int[] indices, List<int[]> events) {
+        if (indices.length == 0) {
+            return;
+        }
+        Arrays.sort(indices);
+        int[] deleted = new int[indices.length];
+        int numDeleted = removeRows(indices, deleted);
+
+        for (int i = 0; i < numDeleted; i++) {
+            events.add(new int[]{TableEventQueue.ROWS_DELETED, deleted[i], deleted[i]});
+        }
+    }
+
+    private void addInsertEvents(int[] positions, List<int[]> events) {
+        // positions are ascending: each insert is valid after the previous ones.
+        for (int pos : positions) {
+            events.add(new int[]{TableEventQueue.ROWS_INSERTED, pos, pos});
+        }
     }
 
     /**
@@ -724,6 +1270,7 @@ public class ResourceTableModel extends AbstractTableModel implements
             }
         }
 
+        updateSortPosition(newRow, null);
         return oldRow;
 
     }
@@ -827,7 +1374,7 @@ public class ResourceTableModel extends AbstractTableModel implements
                 return false;
             }
             row.setValue(attrName, value);
-            this.fireTableRowsUpdated(rowIndex, rowIndex);
+            this.uiFireRowsUpdated(rowIndex, rowIndex);
             return true;
         }
     }
@@ -850,7 +1397,7 @@ public class ResourceTableModel extends AbstractTableModel implements
                 return false;
             }
             row.setValues(attrs);
-            this.fireTableRowsUpdated(rowIndex, rowIndex);
+            this.uiFireRowsUpdated(rowIndex, rowIndex);
             return true;
         }
     }
@@ -906,7 +1453,7 @@ public class ResourceTableModel extends AbstractTableModel implements
 
     public void uiFireRowChanged(RowData row) {
         int index = this.getRowIndex(row.getKey());
-        this.fireTableRowsUpdated(index, index);
+        this.uiFireRowsUpdated(index, index);
     }
 
     public void uiFireCellChanged(RowData row, String name) {
@@ -917,7 +1464,28 @@ public class ResourceTableModel extends AbstractTableModel implements
             log.warn("Error, couldn't find {row,attr}={},{}", row.getKey(), name);
             return;
         }
-        this.fireTableCellUpdated(rownr, colnr);
+        // coalesced with other row updates:
+        this.uiFireRowsUpdated(rownr, rownr);
+    }
+
+    /**
+     * Post rows inserted event. Events posted outside the Swing Event thread are fired later,
+     * merged with other events posted before the next Swing Event cycle.
+     */
+    public void uiFireRowsInserted(int firstRow, int lastRow) {
+        eventQueue.post(TableEventQueue.ROWS_INSERTED, firstRow, lastRow);
+    }
+
+    public void uiFireRowsUpdated(int firstRow, int lastRow) {
+        eventQueue.post(TableEventQueue.ROWS_UPDATED, firstRow, lastRow);
+    }
+
+    public void uiFireRowsDeleted(int firstRow, int lastRow) {
+        eventQueue.post(TableEventQueue.ROWS_DELETED, firstRow, lastRow);
+    }
+
+    public void uiFireDataChanged() {
+        eventQueue.post(TableEventQueue.DATA_CHANGED, 0, 0);
     }
 
 }
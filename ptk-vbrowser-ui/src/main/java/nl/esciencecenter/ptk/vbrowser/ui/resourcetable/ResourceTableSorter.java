@@ -0,0 +1,385 @@
+/*
+ * Copyright 2012-2014 Netherlands eScience Center.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the following location:
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For the full license, see: LICENSE.txt (located in the root folder of this distribution).
+ * ---
+ */
+// source:
+
+package nl.esciencecenter.ptk.vbrowser.ui.resourcetable;
+
+import nl.esciencecenter.ptk.vbrowser.ui.resourcetable.ResourceTableModel.RowData;
+import nl.esciencecenter.vbrowser.vrs.data.Attribute;
+
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+
+/**
+ * Sorts table rows on one column. The sort key of a row is extracted once from its Attribute: a long for integer
+ * and date-time values, a double for floating point values and the bytes of a CollationKey for all other values.
+ * Rows are compared on these keys only.
+ * <p>
+ * Null values sort before all other values. Numbers sort before strings.
+ */
+public class ResourceTableSorter implements Comparator<ResourceTableSorter.SortKey> {
+
+    private static final int NULL_KEY = 0;
+    private static final int LONG_KEY = 1;
+    private static final int DOUBLE_KEY = 2;
+    private static final int STRING_KEY = 3;
+
+    /**
+     * Below this size merge sort uses insertion sort.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    /**
+     * Extracted sort key of one row.
+     */
+    public static class SortKey {
+
+        private final int kind;
+        private final long longValue;
+        private final double doubleValue;
+        private final byte[] stringValue;
+
+        private SortKey(int kind, long longValue, double doubleValue, byte[] stringValue) {
+            this.kind = kind;
+            this.longValue = longValue;
+            this.doubleValue = doubleValue;
+            this.stringValue = stringValue;
+        }
+
+        private boolean isNumber() {
+            return (kind == LONG_KEY) || (kind == DOUBLE_KEY);
+        }
+
+        private double toDouble() {
+            return (kind == LONG_KEY) ? longValue : doubleValue;
+        }
+    }
+
+    private static final SortKey NULL_SORT_KEY = new SortKey(NULL_KEY, 0, 0, null);
+
+    // ========================================================================
+    // Instance
+    // ========================================================================
+
+    private final String columnName;
+
+    private final boolean reverse;
+
+    private final boolean ignoreCase;
+
+    private final Collator collator;
+
+    public ResourceTableSorter(String columnName, boolean reverse, boolean ignoreCase) {
+        this.columnName = columnName;
+        this.reverse = reverse;
+        this.ignoreCase = ignoreCase;
+        this.collator = Collator.getInstance();
+        // secondary strength ignores case differences, but not accents.
+        this.collator.setStrength(ignoreCase ? Collator.SECONDARY : Collator.TERTIARY);
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public boolean isReversed() {
+        return reverse;
+    }
+
+    /**
+     * Whether the other sorter creates the same sort keys, so keys can be reused if only the sort direction changes.
+     */
+    public boolean hasSameKeys(ResourceTableSorter other) {
+        return (other != null) && columnName.equals(other.columnName) && (ignoreCase == other.ignoreCase);
+    }
+
+    /**
+     * Extract sort key from the column attribute of the row.
+     */
+    public SortKey createKey(RowData row) {
+        if (row == null) {
+            return NULL_SORT_KEY;
+        }
+
+        Attribute attr = row.getAttribute(columnName);
+
+        if ((attr == null) || (attr.getValue() == null)) {
+            return NULL_SORT_KEY;
+        }
+
+        switch (attr.getType()) {
+            case INT:
+            case LONG: {
+                return new SortKey(LONG_KEY, attr.getLongValue(), 0, null);
+            }
+            case DATETIME: {
+                Date date = attr.getDateValue();
+                if (date == null) {
+                    return NULL_SORT_KEY;
+                }
+                return new SortKey(LONG_KEY, date.getTime(), 0, null);
+            }
+            case FLOAT:
+            case DOUBLE: {
+                return new SortKey(DOUBLE_KEY, 0, attr.getDoubleValue(), null);
+            }
+            default: {
+                String str = attr.getStringValue();
+                if (str == null) {
+                    return NULL_SORT_KEY;
+                }
+                // CollationKey bytes compare (unsigned) in the same order as the CollationKeys.
+                return new SortKey(STRING_KEY, 0, 0, collator.getCollationKey(str).toByteArray());
+            }
+        }
+    }
+
+    @Override
+    public int compare(SortKey k1, SortKey k2) {
+        int result = compareAscending(k1, k2);
+        return reverse ? -result : result;
+    }
+
+    private int compareAscending(SortKey k1, SortKey k2) {
+        if (k1.isNumber() && k2.isNumber()) {
+            if ((k1.kind == LONG_KEY) && (k2.kind == LONG_KEY)) {
+                return Long.compare(k1.longValue, k2.longValue);
+            }
+            return Double.compare(k1.toDouble(), k2.toDouble());
+        }
+
+        if (k1.kind != k2.kind) {
+            return (k1.kind < k2.kind) ? -1 : 1;
+        }
+
+        if (k1.kind == STRING_KEY) {
+            return Arrays.compareUnsigned(k1.stringValue, k2.stringValue);
+        }
+
+        // both null
+        return 0;
+    }
+
+    /**
+     * Stable sort of the keys, in the same order as compare(). Null keys, numbers and strings are sorted
+     * separately: numbers as primitive values and strings on their collation bytes, so no Comparator is called per
+     * comparison.
+     *
+     * @return mapping of the new order as returned by QSort: mapping[index-after-sort]=index-before-sort.
+     */
+    public int[] sort(SortKey[] keys) {
+        int n = keys.length;
+        int[] nulls = new int[n];
+        int[] numbers = new int[n];
+        int[] strings = new int[n];
+        int numNulls = 0;
+        int numNumbers = 0;
+        int numStrings = 0;
+        boolean allLongs = true;
+
+        for (int i = 0; i < n; i++) {
+            SortKey key = keys[i];
+            if (key.kind == STRING_KEY) {
+                strings[numStrings++] = i;
+            } else if (key.isNumber()) {
+                numbers[numNumbers++] = i;
+                allLongs &= (key.kind == LONG_KEY);
+            } else {
+                nulls[numNulls++] = i;
+            }
+        }
+
+        sortNumbers(keys, numbers, numNumbers, allLongs);
+        sortStrings(keys, strings, numStrings);
+
+        int[] mapping = new int[n];
+        if (reverse) {
+            System.arraycopy(strings, 0, mapping, 0, numStrings);
+            System.arraycopy(numbers, 0, mapping, numStrings, numNumbers);
+            System.arraycopy(nulls, 0, mapping, numStrings + numNumbers, numNulls);
+        } else {
+            System.arraycopy(nulls, 0, mapping, 0, numNulls);
+            System.arraycopy(numbers, 0, mapping, numNulls, numNumbers);
+            System.arraycopy(strings, 0, mapping, numNulls + numNumbers, numStrings);
+        }
+        return mapping;
+    }
+
+    /**
+     * Sort the first num indices on their numeric key. The value, or its rank among the distinct values if the value
+     * range is too big, is packed with the index in a long, so one primitive sort orders on value and then on index.
+     */
+    private void sortNumbers(SortKey[] keys, int[] indices, int num, boolean allLongs) {
+        if (num <= 1) {
+            return;
+        }
+
+        if (allLongs && sortLongsPacked(keys, indices, num)) {
+            return;
+        }
+
+        long[] longs = null;
+        double[] doubles = null;
+        int numDistinct;
+
+        if (allLongs) {
+            longs = new long[num];
+            for (int i = 0; i < num; i++) {
+                longs[i] = keys[indices[i]].longValue;
+            }
+            Arrays.sort(longs);
+            numDistinct = 1;
+            for (int i = 1; i < num; i++) {
+                if (longs[i] != longs[numDistinct - 1]) {
+                    longs[numDistinct++] = longs[i];
+                }
+            }
+        } else {
+            doubles = new double[num];
+            for (int i = 0; i < num; i++) {
+                doubles[i] = keys[indices[i]].toDouble();
+            }
+            Arrays.sort(doubles);
+            numDistinct = 1;
+            for (int i = 1; i < num; i++) {
+                if (Double.compare(doubles[i], doubles[numDistinct - 1]) != 0) {
+                    doubles[numDistinct++] = doubles[i];
+                }
+            }
+        }
+
+        long[] packed = new long[num];
+        for (int i = 0; i < num; i++) {
+            SortKey key = keys[indices[i]];
+            int rank;
+            if (allLongs) {
+                rank = Arrays.binarySearch(longs, 0, numDistinct, key.longValue);
+            } else {
+                rank = Arrays.binarySearch(doubles, 0, numDistinct, key.toDouble());
+            }
+            if (reverse) {
+                rank = numDistinct - 1 - rank;
+            }
+            packed[i] = ((long) rank << 32) | indices[i];
+        }
+
+        Arrays.sort(packed);
+
+        for (int i = 0; i < num; i++) {
+            indices[i] = (int) packed[i];
+        }
+    }
+
+    /**
+     * Pack the offset of the value from the minimum value directly with the index, which only needs one sort. Date
+     * values of a directory usually fit.
+     *
+     * @return false if the value range doesn't fit next to the index.
+     */
+    private boolean sortLongsPacked(SortKey[] keys, int[] indices, int num) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < num; i++) {
+            long value = keys[indices[i]].longValue;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        int indexBits = 32 - Integer.numberOfLeadingZeros(keys.length);
+        long range = max - min;
+        if ((range < 0) || ((range >>> (63 - indexBits)) != 0)) {
+            return false;
+        }
+
+        long[] packed = new long[num];
+        for (int i = 0; i < num; i++) {
+            long offset = keys[indices[i]].longValue - min;
+            if (reverse) {
+                offset = range - offset;
+            }
+            packed[i] = (offset << indexBits) | indices[i];
+        }
+
+        Arrays.sort(packed);
+
+        long indexMask = (1L << indexBits) - 1;
+        for (int i = 0; i < num; i++) {
+            indices[i] = (int) (packed[i] & indexMask);
+        }
+        return true;
+    }
+
+    /**
+     * Stable merge sort of the first num indices on the collation bytes of their key.
+     */
+    private void sortStrings(SortKey[] keys, int[] indices, int num) {
+        if (num <= 1) {
+            return;
+        }
+
+        byte[][] values = new byte[keys.length][];
+        for (int i = 0; i < num; i++) {
+            values[indices[i]] = keys[indices[i]].stringValue;
+        }
+
+        int[] src = Arrays.copyOf(indices, num);
+        mergeSort(src, indices, 0, num, values);
+    }
+
+    /**
+     * Sorts src[from,to) into dest[from,to). Both ranges must contain the same indices when called.
+     */
+    private void mergeSort(int[] src, int[] dest, int from, int to, byte[][] values) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int index = dest[i];
+                int j = i - 1;
+                while ((j >= from) && (compareBytes(values[dest[j]], values[index]) > 0)) {
+                    dest[j + 1] = dest[j];
+                    j--;
+                }
+                dest[j + 1] = index;
+            }
+            return;
+        }
+
+        int mid = (from + to) >>> 1;
+        // sort halves of dest into src, then merge src into dest:
+        mergeSort(dest, src, from, mid, values);
+        mergeSort(dest, src, mid, to, values);
+
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if ((right >= to) || ((left < mid) && (compareBytes(values[src[left]], values[src[right]]) <= 0))) {
+                dest[i] = src[left++];
+            } else {
+                dest[i] = src[right++];
+            }
+        }
+    }
+
+    private int compareBytes(byte[] b1, byte[] b2) {
+        int result = Arrays.compareUnsigned(b1, b2);
+        return reverse ? -result : result;
+    }
+
+}
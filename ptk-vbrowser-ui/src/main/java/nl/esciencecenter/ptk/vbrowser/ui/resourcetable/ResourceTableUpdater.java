@@ -21,16 +21,19 @@
 package nl.esciencecenter.ptk.vbrowser.ui.resourcetable;
 
 import lombok.extern.slf4j.Slf4j;
+import nl.esciencecenter.ptk.data.LongHolder;
 import nl.esciencecenter.ptk.data.StringList;
 import nl.esciencecenter.ptk.presentation.Presentation;
 import nl.esciencecenter.ptk.task.ITaskSource;
 import nl.esciencecenter.ptk.vbrowser.ui.browser.BrowserInterface;
 import nl.esciencecenter.ptk.vbrowser.ui.browser.BrowserTask;
 import nl.esciencecenter.ptk.vbrowser.ui.browser.ProxyBrowserController;
+import nl.esciencecenter.ptk.vbrowser.ui.browser.ProxyBrowserTaskWatcher;
 import nl.esciencecenter.ptk.vbrowser.ui.model.*;
 import nl.esciencecenter.ptk.vbrowser.ui.proxy.ProxyException;
 import nl.esciencecenter.ptk.vbrowser.ui.proxy.ProxyNode;
 import nl.esciencecenter.ptk.vbrowser.ui.proxy.ProxyNodeDataSourceProvider;
+import nl.esciencecenter.ptk.vbrowser.ui.resourcetable.ResourceTableModel.RowBatch;
 import nl.esciencecenter.ptk.vbrowser.ui.resourcetable.ResourceTableModel.RowData;
 import nl.esciencecenter.vbrowser.vrs.data.Attribute;
 import nl.esciencecenter.vbrowser.vrs.data.AttributeSet;
@@ -39,15 +42,34 @@ import nl.esciencecenter.vbrowser.vrs.event.VRSEventListener;
 import nl.esciencecenter.vbrowser.vrs.event.VRSEventType;
 import nl.esciencecenter.vbrowser.vrs.vrl.VRL;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 public class ResourceTableUpdater implements VRSEventListener, ProxyDataSourceUpdater {
 
+    /**
+     * Number of rows for which the attributes are fetched in one bulk query.
+     */
+    public static final int ATTRIBUTE_BATCH_SIZE = 1000;
+
+    /**
+     * Number of childs fetched per getChilds() call when populating the table.
+     */
+    public static final int CHILDS_PAGE_SIZE = 1000;
+
     private ProxyDataSource dataSource;
     private ResourceTableModel tableModel;
     private UIViewModel uiModel;
     private ViewNode rootNode;
+    /**
+     * Last populate task, a new populate or data source makes it stale.
+     */
+    private BrowserTask populateTask;
     private final ViewNodeContainer tableContainer;
 
     /**
@@ -90,6 +112,19 @@ public class ResourceTableUpdater implements VRSEventListener, ProxyDataSourceUp
         return null;
     }
 
+    /**
+     * Task source for filling the table, which for large directories takes long.
+     */
+    protected ITaskSource getLongTaskSource() {
+        ITaskSource source = getTaskSource();
+
+        if (source instanceof ProxyBrowserTaskWatcher) {
+            return ((ProxyBrowserTaskWatcher) source).getLongTaskSource();
+        }
+
+        return source;
+    }
+
     protected void init(ProxyDataSource nodeDataSource, ResourceTableModel resourceTableModel) {
         this.tableModel = resourceTableModel;
         this.uiModel = UIViewModel.createTableModel();
@@ -102,6 +137,8 @@ public class ResourceTableUpdater implements VRSEventListener, ProxyDataSourceUp
      * @param nodeDataSource
      */
     protected void setDataSource(ProxyDataSource nodeDataSource) {
+        cancelPopulate();
+
         if (dataSource != null) {
             dataSource.removeDataSourceEventListener(this);
         }
@@ -258,6 +295,25 @@ public class ResourceTableUpdater implements VRSEventListener, ProxyDataSourceUp
         this.updateAttribute(newName);
     }
 
+    /**
+     * Get range of childs. Set range to -1 to get all childs.
+     */
+    public ViewNode[] getChilds(int offset, int range, LongHolder numChildsLeft)
+            throws ProxyException {
+        return dataSource.getChilds(uiModel, getRootVRI(), offset, range, numChildsLeft);
+    }
+
+    /**
+     * Release the paged listing when populating stopped before the last page.
+     */
+    private void closeChilds() {
+        try {
+            dataSource.closeChilds(getRootVRI());
+        } catch (ProxyException e) {
+            log.warn("Couldn't close child listing of:{}:{}", getRootVRI(), e.getMessage());
+        }
+    }
+
     public ViewNode[] getChilds() {
         try {
             return dataSource.getChilds(uiModel, getRootVRI(), 0, -1, null);
@@ -279,7 +335,33 @@ public class ResourceTableUpdater implements VRSEventListener, ProxyDataSourceUp
     protected void updateNodeAttributes(ViewNode viewNode, String[] attrNames)
             throws ProxyException {
         List<Attribute> attrs = dataSource.getAttributes(viewNode.getVRL(), attrNames);
+        updateRowValues(viewNode, attrs);
+    }
+
+    /**
+     * Fetch attributes of multiple nodes with one bulk query.
+     */
+    protected void updateNodeAttributes(List<ViewNode> viewNodes, String[] attrNames)
+            throws ProxyException {
+        List<VRL> vrls = new ArrayList<VRL>(viewNodes.size());
+        for (ViewNode viewNode : viewNodes) {
+            vrls.add(viewNode.getVRL());
+        }
+
+        Map<VRL, List<Attribute>> attrsMap = dataSource.getAttributes(vrls, attrNames);
+        RowBatch batch = tableModel.createBatch();
 
+        for (ViewNode viewNode : viewNodes) {
+            List<Attribute> attrs = attrsMap.get(viewNode.getVRL());
+            if (attrs != null) {
+                batch.setValues(tableModel.createRowKey(viewNode), viewNode, attrs);
+            }
+        }
+
+        tableModel.applyBatch(batch);
+    }
+
+    protected void updateRowValues(ViewNode viewNode, List<Attribute> attrs) {
         RowData row = tableModel.getRow(viewNode.getVRL().toString());
 
         if (row == null) {
@@ -290,11 +372,53 @@ public class ResourceTableUpdater implements VRSEventListener, ProxyDataSourceUp
         row.setValues(attrs);
     }
 
+    /**
+     * Update attributes in batches of {@link #ATTRIBUTE_BATCH_SIZE} nodes. If a bulk query fails, the nodes of that
+     * batch are updated one by one so that a single failing node doesn't leave the whole batch empty.
+     */
+    protected void updateNodeAttributesInBatches(BrowserTask task, List<ViewNode> viewNodes, String[] attrNames) {
+        for (int offset = 0; offset < viewNodes.size(); offset += ATTRIBUTE_BATCH_SIZE) {
+            if (task.isCancelled()) {
+                return;
+            }
+            List<ViewNode> batch = viewNodes.subList(offset,
+                    Math.min(offset + ATTRIBUTE_BATCH_SIZE, viewNodes.size()));
+            try {
+                updateNodeAttributes(batch, attrNames);
+            } catch (ProxyException e) {
+                log.warn("Bulk attribute query failed, updating nodes separately:{}", e.getMessage());
+                for (ViewNode node : batch) {
+                    if (task.isCancelled()) {
+                        return;
+                    }
+                    try {
+                        updateNodeAttributes(node, attrNames);
+                    } catch (ProxyException e2) {
+                        handle("Couldn't update node attributes of:" + node, e2);
+                    }
+                }
+            }
+        }
+    }
+
     protected int createRow(ViewNode viewNode) throws ProxyException {
         AttributeSet set = new AttributeSet();
         return tableModel.addRow(viewNode, set);
     }
 
+    /**
+     * Create empty rows for all nodes in one batch.
+     */
+    protected void createRows(ViewNode[] viewNodes) {
+        RowBatch batch = tableModel.createBatch();
+
+        for (ViewNode viewNode : viewNodes) {
+            batch.addRow(viewNode, new AttributeSet());
+        }
+
+        tableModel.applyBatch(batch);
+    }
+
     public ProxyNode getRootProxyNode() {
         return this.dataSource.getRootNode();
     }
@@ -346,9 +470,13 @@ public class ResourceTableUpdater implements VRSEventListener, ProxyDataSourceUp
     }
 
     protected void removeRows(VRL[] vrls) {
+        RowBatch batch = tableModel.createBatch();
+
         for (VRL vrl : vrls) {
-            this.tableModel.delRow(vrl);
+            batch.delRow(tableModel.createRowKey(vrl));
         }
+
+        this.tableModel.applyBatch(batch);
     }
 
     protected void renameRows(VRL[] oldVrls, VRL[] newVrls) {
@@ -408,6 +536,8 @@ public class ResourceTableUpdater implements VRSEventListener, ProxyDataSourceUp
     // ========================================================================
 
     private void doUpdataData() {
+        // stale rows of a previous populate must not end up in the cleared table.
+        cancelPopulate();
         tableModel.clearData();
 
         // allowed at init time!
@@ -416,45 +546,75 @@ public class ResourceTableUpdater implements VRSEventListener, ProxyDataSourceUp
             return;
         }
 
-        BrowserTask task = new BrowserTask(this.getTaskSource(), "Test get ProxyNode data") {
+        BrowserTask task = new BrowserTask(this.getLongTaskSource(), "Test get ProxyNode data") {
             public void doTask() {
                 try {
-                    ViewNode[] nodes;
+                    // Attribute names are the same for resources of the same type:
+                    StringList allAttributes = new StringList();
+                    Set<String> resourceTypes = new HashSet<String>();
+                    LongHolder numChildsLeft = new LongHolder();
+                    int offset = 0;
+                    boolean complete = false;
 
+                    // Fetch childs page by page so the first rows are shown while the rest of a
+                    // large directory is still being listed.
                     try {
-                        nodes = getChilds();
-                    } catch (Exception e) {
-                        handle("Couldn't fetch childs\n", e);
-                        return;
-                    }
-
-                    // no data:
-                    if (nodes == null) {
-                        log.debug("No Nodes for:" + this);
-                        return;
-                    }
-
-                    for (ViewNode node : nodes) {
-                        if (isCancelled() == true) {
-                            return;
+                        while (isCancelled() == false) {
+                            ViewNode[] nodes;
+
+                            try {
+                                numChildsLeft.value = -1L;
+                                nodes = getChilds(offset, CHILDS_PAGE_SIZE, numChildsLeft);
+                            } catch (Exception e) {
+                                handle("Couldn't fetch childs\n", e);
+                                return;
+                            }
+
+                            // no (more) data:
+                            if (nodes == null) {
+                                log.debug("No Nodes for:" + this);
+                                break;
+                            }
+
+                            if (isCancelled() == true) {
+                                return;
+                            }
+
+                            createRows(nodes);
+
+                            updateNodeAttributesInBatches(this, Arrays.asList(nodes), tableModel.getHeaders());
+
+                            for (ViewNode node : nodes) {
+                                if (isCancelled() == true) {
+                                    return;
+                                }
+                                if (resourceTypes.add(String.valueOf(node.getResourceType())) == false) {
+                                    continue;
+                                }
+                                try {
+                                    allAttributes.add(dataSource.getAttributeNames(node.getVRL()), true);
+                                } catch (ProxyException e) {
+                                    handle("Couldn't get attribute names of:" + node, e);
+                                }
+                            }
+
+                            // data source without paging support returns everything at once.
+                            if ((nodes.length != CHILDS_PAGE_SIZE)
+                                    || ((numChildsLeft.value != null) && (numChildsLeft.value == 0))) {
+                                complete = true;
+                                break;
+                            }
+
+                            offset += nodes.length;
+                        }
+                    } finally {
+                        if (complete == false) {
+                            closeChilds();
                         }
-
-                        createRow(node);
                     }
 
-                    StringList allAttributes = new StringList();
-
-                    for (ViewNode node : nodes) {
-                        if (isCancelled() == true) {
-                            return;
-                        }
-                        try {
-                            String[] hdrs = tableModel.getHeaders();
-                            updateNodeAttributes(node, hdrs);
-                            allAttributes.add(dataSource.getAttributeNames(node.getVRL()), true);
-                        } catch (ProxyException e) {
-                            handle("Couldn't update node attributes of:" + node, e);
-                        }
+                    if (isCancelled() == true) {
+                        return;
                     }
 
                     // Keep all attribute names which are actually availabl from the nodes.
@@ -468,9 +628,24 @@ public class ResourceTableUpdater implements VRSEventListener, ProxyDataSourceUp
             }
         };
 
+        synchronized (this) {
+            cancelPopulate();
+            populateTask = task;
+        }
+
         task.startTask();
     }
 
+    /**
+     * Stop the previous populate task, a task still in the queue won't be started at all.
+     */
+    private synchronized void cancelPopulate() {
+        if (populateTask != null) {
+            populateTask.signalTerminate();
+            populateTask = null;
+        }
+    }
+
     private void doUpdateAttributes(final String[] rowKeys, String[] attrNames) {
         final ResourceTableModel model = tableModel;
         // update current shown attributes: 
@@ -484,22 +659,16 @@ public class ResourceTableUpdater implements VRSEventListener, ProxyDataSourceUp
                 + rowKeys.length + ",#attrNames="
                 + ((attrNames != null) ? "" + attrNames.length : "?")) {
             public void doTask() {
+                List<ViewNode> nodes = new ArrayList<ViewNode>(rowKeys.length);
 
                 for (String rowKey : rowKeys) {
-                    if (this.isCancelled()) {
-                        return;
-                    }
-
                     ViewNode node = model.getViewNode(rowKey);
-
-                    try {
-                        if (node != null) {
-                            updateNodeAttributes(node, finalAttrs);
-                        }
-                    } catch (ProxyException e) {
-                        handle("Couldn't update node attributes of:" + node, e);
+                    if (node != null) {
+                        nodes.add(node);
                     }
                 }
+
+                updateNodeAttributesInBatches(this, nodes, finalAttrs);
             }
         };
 
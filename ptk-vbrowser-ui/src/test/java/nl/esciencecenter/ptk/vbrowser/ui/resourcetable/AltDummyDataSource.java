@@ -16,7 +16,9 @@ import nl.esciencecenter.vbrowser.vrs.vrl.VRL;
 
 import javax.swing.*;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class AltDummyDataSource implements ProxyDataSource {
 
@@ -70,6 +72,10 @@ public class AltDummyDataSource implements ProxyDataSource {
         return nodes;
     }
 
+    @Override
+    public void closeChilds(VRL locator) {
+    }
+
     @Override
     public ViewNode[] createViewNodes(UIViewModel uiModel, VRL[] locations) throws ProxyException {
         ViewNode[] nodes = new ViewNode[locations.length];
@@ -94,6 +100,15 @@ public class AltDummyDataSource implements ProxyDataSource {
         return attrs;
     }
 
+    @Override
+    public Map<VRL, List<Attribute>> getAttributes(List<VRL> locators, String[] attrNames) throws ProxyException {
+        Map<VRL, List<Attribute>> attrsMap = new LinkedHashMap<VRL, List<Attribute>>();
+        for (VRL locator : locators) {
+            attrsMap.put(locator, getAttributes(locator, attrNames));
+        }
+        return attrsMap;
+    }
+
     @Override
     public ProxyNode getRootNode() {
         return null;
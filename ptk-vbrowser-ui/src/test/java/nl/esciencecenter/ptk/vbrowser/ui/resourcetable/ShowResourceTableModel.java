@@ -1,9 +1,14 @@
 package nl.esciencecenter.ptk.vbrowser.ui.resourcetable;
 
 import nl.esciencecenter.ptk.vbrowser.ui.resourcetable.ResourceTableModel.RowData;
+import nl.esciencecenter.vbrowser.vrs.data.Attribute;
+import nl.esciencecenter.vbrowser.vrs.data.AttributeSet;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class ShowResourceTableModel {
 
     // ================
@@ -151,4 +156,119 @@ public class ShowResourceTableModel {
 
     }
 
+    @Test
+    public void test_RowBatch() {
+        String[] headers = new String[]{"headerA"};
+        ResourceTableModel model = new ResourceTableModel(headers);
+        int numRows = 10;
+
+        ResourceTableModel.RowBatch batch = model.createBatch();
+        for (int i = 0; i < numRows; i++) {
+            batch.addRow(null, createRowKey(i), new AttributeSet());
+        }
+        model.applyBatch(batch);
+        Assert.assertEquals("All rows from batch must be added", numRows, model.getRowCount());
+
+        // delete even rows and update odd rows in one batch:
+        batch = model.createBatch();
+        for (int i = 0; i < numRows; i += 2) {
+            batch.delRow(createRowKey(i));
+        }
+        for (int i = 1; i < numRows; i += 2) {
+            List<Attribute> attrs = new ArrayList<Attribute>();
+            attrs.add(new Attribute("headerA", "value" + i));
+            batch.setValues(createRowKey(i), null, attrs);
+        }
+        model.applyBatch(batch);
+
+        Assert.assertEquals("Deleted rows must be removed", numRows / 2, model.getRowCount());
+
+        for (int i = 0; i < numRows; i++) {
+            String key = createRowKey(i);
+            if ((i % 2) == 0) {
+                Assert.assertEquals("Deleted key must return -1 as index number", -1, model.getRowIndex(key));
+            } else {
+                int index = model.getRowIndex(key);
+                Assert.assertEquals("Key index must be updated after delete:" + key, i / 2, index);
+                Assert.assertEquals("Row at index must have key:" + key, key, model.getRowKey(index));
+                Assert.assertEquals("Row index must match key index:" + key, index, model.getRow(key).getIndex());
+                Assert.assertEquals("Updated value doesn't match for:" + key, "value" + i,
+                        model.getAttrStringValue(key, "headerA"));
+            }
+        }
+    }
+
+    @Test
+    public void test_DelRows() {
+        String[] headers = new String[]{"headerA"};
+        ResourceTableModel model = new ResourceTableModel(headers);
+
+        for (int i = 0; i < 6; i++) {
+            model.createRow(createRowKey(i));
+        }
+
+        Assert.assertTrue("All rows must be deleted", model.delRows(new int[]{4, 1, 2}));
+        Assert.assertEquals("Number of remaining rows doesn't match", 3, model.getRowCount());
+
+        String[] expected = new String[]{createRowKey(0), createRowKey(3), createRowKey(5)};
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals("Remaining row #" + i + " doesn't match", expected[i], model.getRowKey(i));
+            Assert.assertEquals("Key index of remaining row #" + i + " doesn't match", i, model.getRowIndex(expected[i]));
+        }
+    }
+
+    @Test
+    public void test_SortColumn() {
+        String[] headers = new String[]{"size"};
+        ResourceTableModel model = new ResourceTableModel(headers);
+        long[] sizes = new long[]{30, 10, 50, 20, 40};
+
+        for (int i = 0; i < sizes.length; i++) {
+            AttributeSet attrs = new AttributeSet();
+            attrs.put(new Attribute("size", sizes[i]));
+            model.addRow(null, createRowKey(i), attrs, false);
+        }
+
+        model.doSortColumn("size", false);
+        assertSorted(model, "size", false);
+
+        model.doSortColumn("size", true);
+        assertSorted(model, "size", true);
+
+        // new rows must be inserted at their sort position:
+        AttributeSet attrs = new AttributeSet();
+        attrs.put(new Attribute("size", 35L));
+        model.addRow(null, createRowKey(5), attrs, false);
+
+        ResourceTableModel.RowBatch batch = model.createBatch();
+        for (int i = 6; i < 10; i++) {
+            attrs = new AttributeSet();
+            attrs.put(new Attribute("size", (long) i * 7));
+            batch.addRow(null, createRowKey(i), attrs);
+        }
+        // updated row must move:
+        List<Attribute> values = new ArrayList<Attribute>();
+        values.add(new Attribute("size", 5L));
+        batch.setValues(createRowKey(2), null, values);
+        model.applyBatch(batch);
+
+        Assert.assertEquals("Number of rows doesn't match", 10, model.getRowCount());
+        assertSorted(model, "size", true);
+        Assert.assertEquals("Updated row must be moved to the end", createRowKey(2), model.getRowKey(9));
+    }
+
+    static protected void assertSorted(ResourceTableModel model, String name, boolean reverse) {
+        for (int i = 0; i < model.getRowCount(); i++) {
+            String key = model.getRowKey(i);
+            Assert.assertEquals("Key index doesn't match row index for:" + key, i, model.getRowIndex(key));
+
+            if (i > 0) {
+                long prev = model.getAttribute(i - 1, name).getLongValue();
+                long value = model.getAttribute(i, name).getLongValue();
+                Assert.assertTrue("Rows not sorted at row #" + i + ":" + prev + "," + value,
+                        reverse ? (prev >= value) : (prev <= value));
+            }
+        }
+    }
+
 }
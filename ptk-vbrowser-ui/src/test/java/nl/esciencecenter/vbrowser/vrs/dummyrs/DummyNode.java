@@ -82,6 +82,11 @@ public class DummyNode implements VPath {
         return null;
     }
 
+    @Override
+    public Map<VRL, List<Attribute>> getAttributes(List<VRL> vrls, String[] names) {
+        return null;
+    }
+
     @Override
     public List<String> getAttributeNames() {
         return null;
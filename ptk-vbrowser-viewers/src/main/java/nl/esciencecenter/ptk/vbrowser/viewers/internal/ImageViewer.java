@@ -20,25 +20,42 @@
 
 package nl.esciencecenter.ptk.vbrowser.viewers.internal;
 
+import lombok.extern.slf4j.Slf4j;
 import nl.esciencecenter.ptk.data.HashMapList;
 import nl.esciencecenter.ptk.data.StringList;
 import nl.esciencecenter.ptk.ui.image.ImagePane;
-import nl.esciencecenter.ptk.ui.image.ImagePane.ImageWaiter;
+import nl.esciencecenter.ptk.ui.image.ImagePyramid;
 import nl.esciencecenter.ptk.vbrowser.viewers.ViewerJPanel;
 import nl.esciencecenter.vbrowser.vrs.exceptions.VrsException;
 import nl.esciencecenter.vbrowser.vrs.vrl.VRL;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Implementation of an Image Viewer.<br>
+ * Images bigger than MAX_DECODED_PIXELS are decoded subsampled. The decoded image is kept as an ImagePyramid, zooming
+ * only changes which part of which pyramid level is drawn. When zoomed in further than the resolution of the
+ * subsampled image, the visible part is decoded again at the needed resolution and drawn over the low resolution
+ * image. Background work is done by a single executor, a new refine task cancels the previous one.
  */
+@Slf4j
 public class ImageViewer extends ViewerJPanel {
     /**
      * The mimetypes I can view
@@ -51,6 +68,24 @@ public class ImageViewer extends ViewerJPanel {
             // 100,125,150,200,300,400,500,600,800,1000%
             1.25, 1.5, 1.75, 2, 2.25, 2.5, 2.75, 3, 4, 5, 6, 7, 8, 9, 10};
 
+    /**
+     * Maximum number of pixels of the decoded image. Bigger images are decoded subsampled.
+     */
+    public static final long MAX_DECODED_PIXELS = 16 * 1024 * 1024;
+
+    /**
+     * Returns the smallest subsampling for which the decoded image has no more than MAX_DECODED_PIXELS.
+     */
+    public static int getSubsampling(int width, int height) {
+        int subsampling = 1;
+
+        while (((long) (width / subsampling) * (long) (height / subsampling)) > MAX_DECODED_PIXELS) {
+            subsampling++;
+        }
+
+        return subsampling;
+    }
+
     // ====================================================================
     //
     // ====================================================================
@@ -68,7 +103,29 @@ public class ImageViewer extends ViewerJPanel {
 
     boolean fitToScreen = false;
 
-    private Image orgImage;
+    private volatile ImagePyramid pyramid;
+
+    /**
+     * Reader and streams of a subsampled image are kept open to decode regions of it.
+     */
+    private final Object readerMutex = new Object();
+
+    private volatile ImageReader imageReader;
+
+    private ImageInputStream imageInputStream;
+
+    private InputStream imageSource;
+
+    private final ExecutorService zoomExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "ImageViewer-zoom");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private Future<?> refineTask;
 
     // private JLabel imageLabel; // store image in Label Component
 
@@ -108,6 +165,13 @@ public class ImageViewer extends ViewerJPanel {
         // listeners:
         {
             new ImageViewerController(this);
+
+            this.scrollPane.getViewport().addChangeListener(new ChangeListener() {
+                @Override
+                public void stateChanged(ChangeEvent e) {
+                    refineView();
+                }
+            });
         }
     }
 
@@ -118,12 +182,15 @@ public class ImageViewer extends ViewerJPanel {
 
     @Override
     public void doStopViewer() {
-        // this.muststop=true;
-        // this.imagePane.signalStop();
+        cancelRefine();
     }
 
     @Override
     public void doDisposeViewer() {
+        zoomExecutor.shutdownNow();
+        closeImageReader();
+        this.pyramid = null;
+
         // Help the garbage collector, images can be big:
         if (imagePane != null) {
             this.imagePane.dispose();
@@ -161,17 +228,7 @@ public class ImageViewer extends ViewerJPanel {
         notifyBusy(true);
 
         try {
-
-            // load image and wait:
-            // this.imagePane.loadImage(location,true);
             loadImage(vrl, false);
-
-            // keep original image for zoom purposes;
-            this.orgImage = imagePane.getImage();
-
-            this.fitToScreen = false;
-
-            this.zoomIndex = 0;
         } catch (Exception e) {
             throw new VrsException(e);
         } finally {
@@ -179,23 +236,109 @@ public class ImageViewer extends ViewerJPanel {
         }
     }
 
+    /**
+     * Decode image, subsampled if it has more than MAX_DECODED_PIXELS. The image is always loaded completely, the wait
+     * parameter is kept for compatibility.
+     */
     public void loadImage(VRL vrl, boolean wait) throws Exception {
-        InputStream inps = getResourceHandler().openInputStream(vrl);
+        closeImageReader();
 
-        Image image;
-        image = ImageIO.read(inps);
+        InputStream inps = getResourceHandler().openInputStream(vrl);
+        ImageInputStream iis = null;
+        ImageReader reader = null;
+        boolean keepOpen = false;
 
         try {
-            inps.close();
-        } catch (Exception e) {
+            iis = ImageIO.createImageInputStream(inps);
+            Iterator<ImageReader> readers = (iis != null) ? ImageIO.getImageReaders(iis) : null;
+
+            if ((readers == null) || (readers.hasNext() == false)) {
+                throw new IOException("Failed to load image: No image reader for:" + vrl.toURI());
+            }
+
+            reader = readers.next();
+            reader.setInput(iis);
+
+            int width = reader.getWidth(0);
+            int height = reader.getHeight(0);
+            int subsampling = getSubsampling(width, height);
+
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            BufferedImage image = reader.read(0, param);
+
+            if (image == null) {
+                throw new IOException("Failed to load image: Image loader returned NULL for:"
+                        + vrl.toURI());
+            }
+
+            log.debug("Loaded image {}x{} with subsampling {}", width, height, subsampling);
+
+            if (subsampling > 1) {
+                synchronized (readerMutex) {
+                    this.imageReader = reader;
+                    this.imageInputStream = iis;
+                    this.imageSource = inps;
+                }
+                keepOpen = true;
+            }
+
+            setImagePyramid(new ImagePyramid(image, width, height));
+        } finally {
+            if (keepOpen == false) {
+                close(reader, iis, inps);
+            }
+        }
+    }
+
+    private void setImagePyramid(final ImagePyramid newPyramid) {
+        this.pyramid = newPyramid;
+        this.fitToScreen = false;
+        this.zoomIndex = 0;
+
+        imagePane.setImagePyramid(newPyramid, 1.0);
+
+        zoomExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                newPyramid.createLevels();
+            }
+        });
+
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                refineView();
+            }
+        });
+    }
+
+    private void closeImageReader() {
+        cancelRefine();
+
+        synchronized (readerMutex) {
+            close(imageReader, imageInputStream, imageSource);
+            this.imageReader = null;
+            this.imageInputStream = null;
+            this.imageSource = null;
         }
+    }
 
-        if (image == null) {
-            throw new IOException("Failed to load image: Image loader returned NULL for:"
-                    + vrl.toURI());
+    private void close(ImageReader reader, ImageInputStream iis, InputStream inps) {
+        if (reader != null) {
+            reader.dispose();
         }
 
-        imagePane.setImage(image, wait);
+        try {
+            if (iis != null) {
+                iis.close();
+            }
+            if (inps != null) {
+                inps.close();
+            }
+        } catch (IOException e) {
+            log.debug("Failed to close image stream:{}", e.getMessage());
+        }
     }
 
     /**
@@ -243,12 +386,6 @@ public class ImageViewer extends ViewerJPanel {
     // Zoom
     // ====
 
-    private final Object zoomTaskMutex = new Object();
-
-    private Runnable zoomTask = null;
-
-    private Thread zoomThread = null;
-
     public void zoomIn() {
         this.fitToScreen = false;
         if (zoomIndex < zoomInFactors.length) {
@@ -266,132 +403,138 @@ public class ImageViewer extends ViewerJPanel {
         }
     }
 
-    private boolean doMoreZoom = false;
-
     /**
-     * Perform Zoom: Schedule background task to do the zooming
+     * Perform Zoom: only changes the zoom factor of the ImagePane, the pyramid levels are already there.
      */
     protected void doZoom() {
-        double zoomFactor = 1.0;
+        ImagePyramid current = this.pyramid;
 
-        final Image sourceImage = this.orgImage;
-        if (sourceImage == null) {
-//            log.error("doZoom(): NULL source image!");
+        if (current == null) {
             return;
         }
 
-        int h = sourceImage.getHeight(null);
-        int w = sourceImage.getWidth(null);
+        double zoomFactor = getZoomFactor(current);
 
-        if (fitToScreen == true) {
-            double aspect = (double) w / (double) h;
+        // check bogus update ! (Current zoom already done)
+        if ((imagePane.getImagePyramid() == current) && (imagePane.getZoomFactor() == zoomFactor)) {
+            return;
+        }
 
+        imagePane.setImagePyramid(current, zoomFactor);
+        refineView();
+    }
+
+    private double getZoomFactor(ImagePyramid current) {
+        if (fitToScreen == true) {
             Dimension targetSize = this.scrollPane.getSize();
-            double targetAspect = ((double) targetSize.width) / (double) targetSize.height;
-
-            if (aspect > targetAspect) {
-                // fit width
-                w = targetSize.width;
-                h = (int) (targetSize.width / aspect);
-            } else {
-                // fit height
-                h = targetSize.height;
-                w = (int) (targetSize.height * aspect);
-            }
-        } else {
-            if (zoomIndex > 0)
-                zoomFactor = zoomInFactors[zoomIndex - 1];
+            return Math.min(targetSize.width / (double) current.getWidth(),
+                    targetSize.height / (double) current.getHeight());
+        }
 
-            if (zoomIndex < 0)
-                zoomFactor = zoomOutFactors[-zoomIndex - 1];
+        if (zoomIndex > 0)
+            return zoomInFactors[zoomIndex - 1];
 
-            h = (int) (h * zoomFactor);
-            w = (int) (w * zoomFactor);
-        }
+        if (zoomIndex < 0)
+            return zoomOutFactors[-zoomIndex - 1];
 
-        final int newHeight = h;
-        final int newWidth = w;
+        return 1.0;
+    }
 
-        Dimension currentSize = imagePane.getImageSize();
+    /**
+     * Decode the visible part of a subsampled image at the resolution needed for the current zoom factor. Cancels the
+     * previous refine task if it hasn't finished yet.
+     */
+    protected void refineView() {
+        final ImagePyramid current = this.pyramid;
 
-        // check bogus update ! (Current size already done)
-        if ((currentSize.width == newWidth) && (currentSize.height == newHeight))
+        if ((current == null) || (imageReader == null) || (imagePane == null)) {
             return;
+        }
 
-        synchronized (zoomTaskMutex) {
-            if (zoomTask != null) {
-                // check if previous zoom thread is stil active:
-                if ((zoomThread != null) && (zoomThread.isAlive() == true)) {
-                    // flag zoom not done !
-                    this.doMoreZoom = true;
-                    // IGlobal.infoPrintln(this,"Warning: Previous zoom task still running");
-                    return;
-                }
+        final double zoom = imagePane.getZoomFactor();
 
-                // cleanup:
+        if (zoom <= current.getBaseScale()) {
+            // pyramid has enough resolution.
+            return;
+        }
 
-                this.zoomTask = null;
-                this.zoomThread = null;
-            }
+        Rectangle view = scrollPane.getViewport().getViewRect();
 
-            zoomTask = new Runnable() {
-                public void run() {
-                    if ((newHeight <= 0) || (newWidth <= 0)) {
-                        // UIGlobal.infoPrintln(this,"*** Warning: zoomIn cancelled: image not ready");
-                        return;
-                    }
+        // visible part in original image coordinates:
+        int x = (int) Math.floor(view.x / zoom);
+        int y = (int) Math.floor(view.y / zoom);
+        final Rectangle region = new Rectangle(x, y, (int) Math.ceil((view.x + view.width) / zoom) - x + 1,
+                (int) Math.ceil((view.y + view.height) / zoom) - y + 1).intersection(new Rectangle(0, 0,
+                current.getWidth(), current.getHeight()));
 
-                    notifyBusy(true);
+        if (region.isEmpty()) {
+            return;
+        }
 
-                    Image tempImage = sourceImage.getScaledInstance(newWidth, newHeight,
-                            Image.SCALE_FAST);
+        final int subsampling = Math.max(1, (int) Math.floor(1.0 / zoom));
 
-                    notifyBusy(false);
+        cancelRefine();
 
-                    ImageWaiter w = new ImageWaiter(tempImage);
+        refineTask = zoomExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                BufferedImage detail;
 
-                    try {
-                        // Wait for ALL bits doesn't work anymore ???
-                        w.waitForCompletion(false);
-                        updateNewZoomImage(tempImage);
-                    } catch (Exception e) {
-                        notifyException("Failed to zoom", e);
-                    }
+                try {
+                    detail = readRegion(region, subsampling);
+                } catch (IOException e) {
+                    log.warn("Failed to decode image region:{}:{}", region, e.getMessage());
+                    return;
+                }
 
-                    //
-                    // check more zoom, but only AFTER this current thread
-                    // has fininshed !!!
-                    //
-                    checkMoreZoom();
+                // superseded:
+                if ((detail == null) || (Thread.currentThread().isInterrupted())) {
+                    return;
                 }
-            };
 
-            zoomThread = new Thread(zoomTask);
-            zoomThread.start();
-        }// synchronized(zoomTaskMutex);
+                final BufferedImage detailImage = detail;
+                final Rectangle area = new Rectangle((int) Math.round(region.x * zoom),
+                        (int) Math.round(region.y * zoom), (int) Math.round(region.width * zoom),
+                        (int) Math.round(region.height * zoom));
+
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        // zoom might have changed in the mean time:
+                        if ((imagePane != null) && (imagePane.getImagePyramid() == current)
+                                && (imagePane.getZoomFactor() == zoom)) {
+                            imagePane.setDetailImage(detailImage, area);
+                        }
+                    }
+                });
+            }
+        });
     }
 
-    private void checkMoreZoom() {
-        Runnable checkZoomTask = new Runnable() {
-            public void run() {
-
-                synchronized (zoomTaskMutex) {
-                    if (doMoreZoom == true) {
-                        doMoreZoom = false;
-                        doZoom();
-                    }
-                }
+    private BufferedImage readRegion(Rectangle region, int subsampling) throws IOException {
+        synchronized (readerMutex) {
+            if (imageReader == null) {
+                return null;
             }
-        };
 
-        SwingUtilities.invokeLater(checkZoomTask);
+            ImageReadParam param = imageReader.getDefaultReadParam();
+            param.setSourceRegion(region);
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            return imageReader.read(0, param);
+        }
     }
 
-    protected void updateNewZoomImage(Image img) throws Exception {
-        // new image, image should already be done !
-        // no checking needed
+    private void cancelRefine() {
+        Future<?> task = this.refineTask;
 
-        this.imagePane.setImage(img, false);
+        if ((task != null) && (task.isDone() == false)) {
+            task.cancel(true);
+            ImageReader reader = imageReader;
+            if (reader != null) {
+                // stop decoding, next read() clears the abort request.
+                reader.abort();
+            }
+        }
     }
 
     public void resetZoom() {
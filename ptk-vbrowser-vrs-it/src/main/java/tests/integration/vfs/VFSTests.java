@@ -28,11 +28,14 @@ import nl.esciencecenter.ptk.io.RandomWritable;
 import nl.esciencecenter.ptk.net.URIFactory;
 import nl.esciencecenter.vbrowser.vrs.VFSPath;
 import nl.esciencecenter.vbrowser.vrs.VFileSystem;
+import nl.esciencecenter.vbrowser.vrs.VRSContextProperties;
 import nl.esciencecenter.vbrowser.vrs.data.Attribute;
 import nl.esciencecenter.vbrowser.vrs.exceptions.*;
+import nl.esciencecenter.vbrowser.vrs.io.VFSDirectoryStream;
 import nl.esciencecenter.vbrowser.vrs.io.VReplicatable;
 import nl.esciencecenter.vbrowser.vrs.io.VStreamReadable;
 import nl.esciencecenter.vbrowser.vrs.io.VStreamWritable;
+import nl.esciencecenter.vbrowser.vrs.io.copy.VRSCopyManager;
 import nl.esciencecenter.vbrowser.vrs.registry.ResourceConfigInfo;
 import nl.esciencecenter.vbrowser.vrs.vrl.VRL;
 import org.junit.After;
@@ -1022,6 +1025,19 @@ public abstract class VFSTests extends VTestCase {
 
     }
 
+    /**
+     * Transfer throughput benchmark. Upload and download speeds are printed with verbose level 1. To simulate a high
+     * latency link against a local SFTP server, add a delay to the loopback device, for example:
+     * <code>tc qdisc add dev lo root netem delay 50ms</code>.
+     */
+    @Test
+    public void testCopy64MBThroughput() throws Exception {
+        if (getTestDoBigTests() == false)
+            return;
+
+        testCopyForthAndBack(64 * 1024 * 1024, false);
+    }
+
     public void testCopyForthAndBack(int size, boolean isMove) throws Exception {
         VFSPath localFile = null;
         VFSPath remoteFile = null;
@@ -1840,6 +1856,48 @@ public abstract class VFSTests extends VTestCase {
         }
     }
 
+    @Test
+    public void testParallelCopyDirTreeToRemote() throws Exception {
+        String subdirName = "testParallelCopyDirTreeToRemote";
+
+        VFSPath localTestDir = localTempDir.resolve(nextFilename(subdirName));
+        localTestDir.mkdir(false);
+
+        int numDirs = 3;
+        int numFiles = 10;
+
+        for (int d = 0; d < numDirs; d++) {
+            VFSPath subDir = localTestDir.resolve("subDir" + d);
+            subDir.mkdir(false);
+            for (int i = 0; i < numFiles; i++) {
+                this.writeContents(subDir.resolve("testFile" + i), TEST_CONTENTS);
+            }
+        }
+
+        getVRSContext().getProperties().set(VRSContextProperties.VRS_COPY_MAX_PARALLEL_TRANSFERS_PROP, 4);
+
+        try {
+            VFSPath newRemoteDir = getVFS().copyDirToDir(localTestDir, getRemoteTestDir(), subdirName);
+            Assert.assertTrue("New remote directory doesn't exist:" + newRemoteDir, newRemoteDir.exists());
+
+            for (int d = 0; d < numDirs; d++) {
+                VFSPath subDir = newRemoteDir.resolve("subDir" + d);
+                Assert.assertTrue("Remote sub directory doesn't exist:" + subDir, subDir.isDir());
+                for (int i = 0; i < numFiles; i++) {
+                    VFSPath file = subDir.resolve("testFile" + i);
+                    Assert.assertEquals("Remote file has wrong contents:" + file, TEST_CONTENTS,
+                            readContentsAsString(file));
+                }
+            }
+
+            newRemoteDir.delete(true);
+        } finally {
+            getVRSContext().getProperties().set(VRSContextProperties.VRS_COPY_MAX_PARALLEL_TRANSFERS_PROP,
+                    VRSCopyManager.DEFAULT_MAX_PARALLEL_TRANSFERS);
+            localTestDir.delete(true);
+        }
+    }
+
     // @Test public void testSetLength() throws Exception
     // {
     // VFSPath file = createRemoteFile("testFileLength", true);
@@ -1910,6 +1968,56 @@ public abstract class VFSTests extends VTestCase {
         newFile.delete();
     }
 
+    /**
+     * File attributes are served from a snapshot. After sync() the attributes must match the new file state.
+     */
+    @Test
+    public void testFileAttributesSync() throws Exception {
+        VFSPath newFile = getRemoteFile(nextFilename("testFileAttrSync"));
+        newFile.createFile(false);
+
+        Assert.assertEquals("New file must be empty", 0, getFileAttribute(newFile, ATTR_FILE_SIZE).getLongValue());
+        Assert.assertTrue("File must be file", getFileAttribute(newFile, ATTR_ISFILE).getBooleanValue());
+        Assert.assertFalse("File can not be a directory", getFileAttribute(newFile, ATTR_ISDIR).getBooleanValue());
+
+        // write using other VFSPath instance:
+        VFSPath otherFile = getRemoteFile(newFile.getName());
+        byte[] buffer = new byte[1024];
+        streamWrite(otherFile, buffer, 0, buffer.length);
+
+        newFile.sync();
+        Assert.assertEquals("After sync() the file size attribute must match new size", buffer.length,
+                getFileAttribute(newFile, ATTR_FILE_SIZE).getLongValue());
+        Assert.assertEquals("Both getLength() and getAttribute(ATTR_LENGTH) must return same value",
+                newFile.fileLength(), getFileAttribute(newFile, ATTR_FILE_SIZE).getLongValue());
+
+        newFile.delete();
+    }
+
+    @Test
+    public void testOpenDirectoryStream() throws Exception {
+        VFSPath newDir = createRemoteDir(nextFilename("testDirStream"), false);
+        newDir.resolve("file1").createFile(false);
+        newDir.resolve("file2").createFile(false);
+        newDir.resolve("file3").createFile(false);
+
+        VFSDirectoryStream stream = newDir.openDirectoryStream(2);
+        int total = 0;
+
+        try {
+            List<? extends VFSPath> page;
+            while ((page = stream.nextPage()) != null) {
+                Assert.assertTrue("Page may not exceed page size, size=" + page.size(), page.size() <= 2);
+                total += page.size();
+            }
+        } finally {
+            stream.close();
+        }
+
+        Assert.assertEquals("Directory stream must return all entries", 3, total);
+        newDir.delete(true);
+    }
+
     private Attribute getFileAttribute(VFSPath file, String name) throws VrsException {
         List<Attribute> attrs = file.getAttributes(new String[]{name});
 
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2012-2014 Netherlands eScience Center.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the following location:
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For the full license, see: LICENSE.txt (located in the root folder of this distribution).
+ * ---
+ */
+// source:
+
+package nl.esciencecenter.vbrowser.vrs.sftp;
+
+import nl.esciencecenter.vbrowser.vrs.exceptions.VrsException;
+import nl.esciencecenter.vbrowser.vrs.io.VFSDirectoryStream;
+import nl.esciencecenter.vbrowser.vrs.sftp.jsch.SftpChannel;
+import nl.esciencecenter.vbrowser.vrs.sftp.jsch.SftpEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Incremental SFTP directory listing. A reader thread performs the listing on a pooled channel and passes the entries
+ * through a bounded queue while the READDIR responses arrive. When the consumer doesn't keep up, the reader blocks,
+ * so at most a few pages are read ahead. Closing the stream stops the listing.
+ */
+public class SftpDirectoryStream implements VFSDirectoryStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(SftpDirectoryStream.class);
+
+    /**
+     * Page size if no page size is specified.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    /**
+     * Number of pages read ahead by the reader thread.
+     */
+    public static final int READ_AHEAD_PAGES = 4;
+
+    /**
+     * End of listing marker.
+     */
+    private static final Object END = new Object();
+
+    private final SftpFileSystem sftpfs;
+
+    private final String remotePath;
+
+    private final int pageSize;
+
+    private final BlockingQueue<Object> entries;
+
+    private final Thread reader;
+
+    private volatile boolean closed = false;
+
+    private volatile Throwable listException = null;
+
+    private volatile boolean finished = false;
+
+    protected SftpDirectoryStream(SftpFileSystem sftpfs, String remotePath, int pageSize) {
+        this.sftpfs = sftpfs;
+        this.remotePath = remotePath;
+        this.pageSize = (pageSize > 0) ? pageSize : Integer.MAX_VALUE;
+        this.entries = new ArrayBlockingQueue<Object>(((pageSize > 0) ? pageSize : DEFAULT_PAGE_SIZE)
+                * READ_AHEAD_PAGES);
+
+        this.reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                readEntries();
+            }
+        }, "SftpDirectoryStream:" + remotePath);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    protected void readEntries() {
+        SftpChannel channel = null;
+        try {
+            channel = sftpfs.getChannelPool().borrowChannel();
+            channel.list(remotePath, new SftpChannel.ListHandler() {
+                @Override
+                public boolean handleEntry(SftpEntry entry) {
+                    return put(entry);
+                }
+            });
+        } catch (Throwable t) {
+            logger.debug("readEntries(): listing failed:{}", t.getMessage());
+            this.listException = t;
+        } finally {
+            sftpfs.getChannelPool().returnChannel(channel);
+            put(END);
+        }
+    }
+
+    /**
+     * @return false if the stream has been closed.
+     */
+    private boolean put(Object entry) {
+        try {
+            while (closed == false) {
+                if (entries.offer(entry, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.debug("put(): interrupted");
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized List<SftpPathNode> nextPage() throws VrsException {
+        if (finished) {
+            return null;
+        }
+
+        List<SftpPathNode> page = new ArrayList<SftpPathNode>();
+        long time = System.currentTimeMillis();
+
+        try {
+            while (page.size() < pageSize) {
+                Object entry = entries.poll(100, TimeUnit.MILLISECONDS);
+                if (entry == null) {
+                    if (closed) {
+                        break;
+                    }
+                    continue;
+                }
+                if (entry == END) {
+                    finished = true;
+                    break;
+                }
+                page.add(sftpfs.createNode(remotePath, (SftpEntry) entry, time));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new VrsException("Interrupted while listing:" + remotePath, e);
+        }
+
+        if (listException != null) {
+            close();
+            throw new VrsException(listException.getMessage(), listException);
+        }
+
+        if ((page.size() == 0) || (closed)) {
+            close();
+            return null;
+        }
+        return page;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        finished = true;
+        entries.clear();
+    }
+
+}
@@ -32,8 +32,11 @@ import nl.esciencecenter.vbrowser.vrs.io.VStreamCreator;
 import nl.esciencecenter.vbrowser.vrs.node.VFileSystemNode;
 import nl.esciencecenter.vbrowser.vrs.registry.ResourceConfigInfo;
 import nl.esciencecenter.vbrowser.vrs.sftp.jsch.SftpChannel;
+import nl.esciencecenter.vbrowser.vrs.sftp.jsch.SftpChannelPool;
 import nl.esciencecenter.vbrowser.vrs.sftp.jsch.SftpConfig;
 import nl.esciencecenter.vbrowser.vrs.sftp.jsch.SftpEntry;
+import nl.esciencecenter.vbrowser.vrs.sftp.jsch.SftpRandomReader;
+import nl.esciencecenter.vbrowser.vrs.sftp.jsch.SftpRandomWriter;
 import nl.esciencecenter.vbrowser.vrs.sftp.jsch.SshSession;
 import nl.esciencecenter.vbrowser.vrs.vrl.VRL;
 import nl.esciencecenter.vbrowser.vrs.vrl.VRLUtil;
@@ -69,9 +72,33 @@ public class SftpFileSystem extends VFileSystemNode implements VStreamCreator,
      */
     public static final String SSH_USER_IDENTITY_FILES = ResourceConfigInfo.ATTR_USER_KEY_FILES;
 
+    /**
+     * Maximum age in milliseconds of cached file attributes before they are fetched again.
+     */
+    public static final String SFTP_ATTRIBUTES_MAX_AGE_PROPERTY = "sftpAttributesMaxAge";
+
+    public static final int DEFAULT_ATTRIBUTES_MAX_AGE = 60 * 1000;
+
+    /**
+     * Maximum number of pooled SftpChannels used for concurrent (metadata) operations.
+     */
+    public static final String SFTP_MAX_CHANNELS_PROPERTY = "sftpMaxChannels";
+
+    /**
+     * Number of read requests in flight per SFTP InputStream.
+     */
+    public static final String SFTP_BULK_REQUESTS_PROPERTY = "sftpBulkRequests";
+
+    /**
+     * Maximum size in bytes of a write request of an SFTP OutputStream.
+     */
+    public static final String SFTP_WRITE_REQUEST_SIZE_PROPERTY = "sftpWriteRequestSize";
+
     private final SshSession sftpSession;
 
-    private final SftpChannel sftpChannel;
+    private final long attributesMaxAge;
+
+    private final SftpChannelPool channelPool;
 
     public SftpFileSystem(JSch jsch, VRSContext context, ResourceConfigInfo info, VRL vrl)
             throws VrsException {
@@ -92,12 +119,17 @@ public class SftpFileSystem extends VFileSystemNode implements VStreamCreator,
                 this.sftpSession.setUserUI(userUI);
             }
             this.sftpSession.connect();
-            // one SftpChannel per FileSystem
-            this.sftpChannel = sftpSession.createSftpChannel();
-            this.sftpChannel.connect();
+            // pooled SftpChannels per FileSystem, check connection with first channel.
+            this.channelPool = new SftpChannelPool(sftpSession, info.getProperties().getIntegerProperty(
+                    SFTP_MAX_CHANNELS_PROPERTY, SftpChannelPool.DEFAULT_MAX_CHANNELS),
+                    SftpChannelPool.DEFAULT_MAX_IDLE_TIME);
+            this.channelPool.returnChannel(channelPool.borrowChannel());
         } catch (Exception e) {
             throw new VrsException(e.getMessage(), e);
         }
+
+        this.attributesMaxAge = info.getProperties().getLongProperty(SFTP_ATTRIBUTES_MAX_AGE_PROPERTY,
+                DEFAULT_ATTRIBUTES_MAX_AGE);
     }
 
     protected SftpConfig createSftpConfig(VRSContext context, ResourceConfigInfo info) {
@@ -130,6 +162,11 @@ public class SftpFileSystem extends VFileSystemNode implements VStreamCreator,
         }
         config.privateKeys = new String[]{"id_rsa", "id_dsa"};
 
+        config.bulkRequests = info.getProperties().getIntegerProperty(SFTP_BULK_REQUESTS_PROPERTY,
+                SftpConfig.DEFAULT_BULK_REQUESTS);
+        config.writeRequestSize = info.getProperties().getIntegerProperty(SFTP_WRITE_REQUEST_SIZE_PROPERTY,
+                SftpConfig.DEFAULT_WRITE_REQUEST_SIZE);
+
         config.sshKnowHostFile = SftpConfig.SSH_USER_KNOWN_HOSTS;
         logger.debug("updateSftpConfig(): config:{}", config);
 
@@ -140,8 +177,15 @@ public class SftpFileSystem extends VFileSystemNode implements VStreamCreator,
         return sftpSession;
     }
 
-    public SftpChannel getSftpChannel() {
-        return this.sftpChannel;
+    public SftpChannelPool getChannelPool() {
+        return this.channelPool;
+    }
+
+    /**
+     * @return maximum age in milliseconds of cached file attributes.
+     */
+    public long getAttributesMaxAge() {
+        return attributesMaxAge;
     }
 
     @Override
@@ -157,19 +201,48 @@ public class SftpFileSystem extends VFileSystemNode implements VStreamCreator,
         //
         logger.debug("listNodes():remotePath='{}'", remotePath);
 
+        SftpChannel channel = null;
         try {
-            List<SftpEntry> entries = sftpChannel.list(remotePath);
+            channel = channelPool.borrowChannel();
+            List<SftpEntry> entries = channel.list(remotePath);
+            channelPool.returnChannel(channel);
+            channel = null;
+
             List<SftpPathNode> nodes = new ArrayList<SftpPathNode>();
 
+            long time = System.currentTimeMillis();
+
             for (SftpEntry entry : entries) {
-                nodes.add(this.createNode(resolveVRL(remotePath, entry.getFilename())));
+                nodes.add(createNode(remotePath, entry, time));
             }
             return nodes;
         } catch (Exception e) {
             throw new VrsException(e.getMessage(), e);
+        } finally {
+            channelPool.returnChannel(channel);
         }
     }
 
+    /**
+     * Open incremental directory listing.
+     */
+    public SftpDirectoryStream openDirectoryStream(String remotePath, int pageSize) throws VrsException {
+        logger.debug("openDirectoryStream():remotePath='{}'", remotePath);
+        return new SftpDirectoryStream(this, remotePath, pageSize);
+    }
+
+    /**
+     * Create node for listed entry. Listed attributes are not resolved: symbolic links are stat-ed when needed.
+     */
+    protected SftpPathNode createNode(String dirname, SftpEntry entry, long time) throws VrsException {
+        SftpPathNode node = this.createNode(resolveVRL(dirname, entry.getFilename()));
+        SftpATTRS attrs = entry.getAttrs();
+        if ((attrs != null) && (attrs.isLink() == false)) {
+            node.setSftpAttrs(attrs, time);
+        }
+        return node;
+    }
+
     protected VRL resolveVRL(String dirname, String filename) {
         return new VRL(this.getServerVRL().replacePath(dirname + "/" + filename));
     }
@@ -178,21 +251,29 @@ public class SftpFileSystem extends VFileSystemNode implements VStreamCreator,
         logger.debug("fetchSftpAttrs():resolveLink,remotePath='{}'",
                 resolveLink ? "true" : "false", remotePath);
 
+        SftpChannel channel = null;
         try {
-            return sftpChannel.statSftpAttrs(remotePath, resolveLink);
+            channel = channelPool.borrowChannel();
+            return channel.statSftpAttrs(remotePath, resolveLink);
         } catch (SftpException e) {
             logger.error("fetchSftpAttrs():remotePath='{}' => SftpException:{}", remotePath,
                     e.getMessage());
             throw convertSftpException(e, "Fetching attributes from:" + remotePath);
+        } finally {
+            channelPool.returnChannel(channel);
         }
     }
 
     public boolean exists(String remotePath) throws VrsException {
+        SftpChannel channel = null;
         try {
-            return sftpChannel.exists(remotePath);
+            channel = channelPool.borrowChannel();
+            return channel.exists(remotePath);
         } catch (SftpException e) {
             logger.error("exists():remotePath='{}' => SftpException:{}", remotePath, e.getMessage());
             throw new VrsException(e.getMessage(), e);
+        } finally {
+            channelPool.returnChannel(channel);
         }
     }
 
@@ -204,6 +285,7 @@ public class SftpFileSystem extends VFileSystemNode implements VStreamCreator,
         logger.debug("mkdir(),ignoreExisting={},remotePath={}", ignoreExisting, remotePath);
         boolean exists = exists(remotePath);
 
+        SftpChannel channel = null;
         try {
             if (ignoreExisting == true) {
                 if (exists) {
@@ -218,34 +300,45 @@ public class SftpFileSystem extends VFileSystemNode implements VStreamCreator,
                 }
             }
 
-            return sftpChannel.mkdir(remotePath);
+            channel = channelPool.borrowChannel();
+            return channel.mkdir(remotePath);
 
         } catch (SftpException e) {
             logger.error("mkdir():remotePath='{}' => SftpException:{}", remotePath, e.getMessage());
             throw convertSftpException(e, "Performing mkdir():exists=" + exists
                     + ",ignoreExisting=" + ignoreExisting + ",remotePath='" + remotePath + "'");
+        } finally {
+            channelPool.returnChannel(channel);
         }
     }
 
     public boolean delete(String remotePath, boolean isDir, LinkOption[] options)
             throws VrsException {
+        SftpChannel channel = null;
         try {
-            return sftpChannel.delete(remotePath, isDir);
+            channel = channelPool.borrowChannel();
+            return channel.delete(remotePath, isDir);
         } catch (SftpException e) {
             logger.error("mkdir():delete='{}' => SftpException:{}", remotePath, e.getMessage());
             throw new VrsException(e.getMessage(), e);
+        } finally {
+            channelPool.returnChannel(channel);
         }
     }
 
     public VFSPath renameTo(VFSPath sourcePath, VFSPath otherPath) throws VrsException {
+        SftpChannel channel = null;
         try {
             String otherPathStr = otherPath.getVRL().getPath();
-            sftpChannel.rename(sourcePath.getVRL().getPath(), otherPathStr);
+            channel = channelPool.borrowChannel();
+            channel.rename(sourcePath.getVRL().getPath(), otherPathStr);
             return otherPath;
         } catch (SftpException e) {
             logger.error("mkdir():renameTo='{}' => '{}' => SftpException:{}", sourcePath,
                     otherPath, e.getMessage());
             throw new VrsException(e.getMessage(), e);
+        } finally {
+            channelPool.returnChannel(channel);
         }
     }
 
@@ -284,6 +377,28 @@ public class SftpFileSystem extends VFileSystemNode implements VStreamCreator,
 
     }
 
+    public SftpRandomReader createRandomReader(String remotePath) throws VrsException {
+        try {
+            return SftpRandomReader.open(this.sftpSession, remotePath);
+        } catch (SftpException e) {
+            logger.error("createRandomReader():remotePath='{}' => SftpException:{}", remotePath, e.getMessage());
+            throw convertSftpException(e, "Performing createRandomReader() on remotePath:" + remotePath);
+        } catch (JSchException e) {
+            logger.error("createRandomReader():remotePath='{}' => Exception:{}", remotePath, e.getMessage());
+            throw new VrsException("Performing createRandomReader() on remotePath:" + remotePath, e);
+        }
+    }
+
+    public SftpRandomWriter createRandomWriter(String remotePath) throws VrsException {
+        try {
+            return SftpRandomWriter.open(this.sftpSession, remotePath,
+                    sftpSession.getConfig().writeRequestSize);
+        } catch (JSchException | SftpException e) {
+            logger.error("createRandomWriter():remotePath='{}' => Exception:{}", remotePath, e.getMessage());
+            throw new VrsException("Performing createRandomWriter() on remotePath:" + remotePath, e);
+        }
+    }
+
     // =========================
     // Misc.
     // =========================
@@ -318,7 +433,7 @@ public class SftpFileSystem extends VFileSystemNode implements VStreamCreator,
     @Override
     public boolean close() throws IOException {
         logger.debug("SftpFileSystem closing:" + this);
-        this.sftpChannel.close();
+        this.channelPool.close();
         this.sftpSession.close();
         return true;
     }
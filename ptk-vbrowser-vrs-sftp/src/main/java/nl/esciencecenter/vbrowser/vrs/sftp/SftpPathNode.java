@@ -25,7 +25,10 @@ import lombok.extern.slf4j.Slf4j;
 import nl.esciencecenter.ptk.io.RandomReadable;
 import nl.esciencecenter.ptk.io.RandomWritable;
 import nl.esciencecenter.vbrowser.vrs.VFSPath;
+import nl.esciencecenter.vbrowser.vrs.VPath;
+import nl.esciencecenter.vbrowser.vrs.data.Attribute;
 import nl.esciencecenter.vbrowser.vrs.exceptions.VrsException;
+import nl.esciencecenter.vbrowser.vrs.io.VFSDirectoryStream;
 import nl.esciencecenter.vbrowser.vrs.io.VRandomAccessable;
 import nl.esciencecenter.vbrowser.vrs.io.VStreamAccessable;
 import nl.esciencecenter.vbrowser.vrs.node.VFSPathNode;
@@ -34,11 +37,19 @@ import nl.esciencecenter.vbrowser.vrs.vrl.VRL;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.LinkOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 public class SftpPathNode extends VFSPathNode implements VStreamAccessable, VRandomAccessable {
 
+    /**
+     * Minimum number of child VRLs for which a bulk attribute query uses a directory listing.
+     */
+    public static final int BULK_LISTING_THRESHOLD = 16;
+
     private final SftpFileSystem sftpfs;
 
     /**
@@ -48,6 +59,11 @@ public class SftpPathNode extends VFSPathNode implements VStreamAccessable, VRan
 
     private SftpATTRS attrs;
 
+    /**
+     * Time in milliseconds when the attributes were fetched.
+     */
+    private long attrsTime;
+
     protected SftpPathNode(SftpFileSystem sftpfs, VRL vrl) {
         super(sftpfs, vrl);
         this.sftpfs = sftpfs;
@@ -64,15 +80,37 @@ public class SftpPathNode extends VFSPathNode implements VStreamAccessable, VRan
     }
 
     public SftpATTRS getSftpAttrs() throws VrsException {
-        if (this.attrs == null) {
+        SftpATTRS current = getCachedSftpAttrs();
+        if (current == null) {
             // boolean resolveLink=(linkOptions!=null) && (linkOptions.length>0)
             // && (linkOptions[0]==LinkOption.NOFOLLOW_LINKS);
             boolean resolveLink = false;
-            this.attrs = this.sftpfs.fetchSftpAttrs(path, resolveLink);
+            current = this.sftpfs.fetchSftpAttrs(path, resolveLink);
+            setSftpAttrs(current, System.currentTimeMillis());
+        }
+        return current;
+    }
+
+    /**
+     * @return cached attributes if they are not older than the maximum attributes age, or null.
+     */
+    protected synchronized SftpATTRS getCachedSftpAttrs() {
+        if ((attrs != null) && (System.currentTimeMillis() - attrsTime > sftpfs.getAttributesMaxAge())) {
+            this.attrs = null;
         }
         return attrs;
     }
 
+    /**
+     * Set already fetched attributes, for example from a directory listing.
+     *
+     * @param time - time in milliseconds when the attributes were fetched.
+     */
+    protected synchronized void setSftpAttrs(SftpATTRS attrs, long time) {
+        this.attrs = attrs;
+        this.attrsTime = time;
+    }
+
     @Override
     public boolean isDir(LinkOption... linkOptions) throws VrsException {
         return (getSftpAttrs().isDir());
@@ -85,6 +123,9 @@ public class SftpPathNode extends VFSPathNode implements VStreamAccessable, VRan
 
     @Override
     public boolean exists(LinkOption... linkOptions) throws VrsException {
+        if (getCachedSftpAttrs() != null) {
+            return true;
+        }
         return sftpfs.exists(path);
     }
 
@@ -93,12 +134,52 @@ public class SftpPathNode extends VFSPathNode implements VStreamAccessable, VRan
         return sftpfs.listNodes(path);
     }
 
+    @Override
+    public VFSDirectoryStream openDirectoryStream(int pageSize) throws VrsException {
+        return sftpfs.openDirectoryStream(path, pageSize);
+    }
+
+    /**
+     * Bulk attribute query. If enough of the given VRLs are children of this directory, the attributes are taken
+     * from a single directory listing instead of a stat request per child.
+     */
+    @Override
+    public Map<VRL, List<Attribute>> getAttributes(List<VRL> vrls, String[] names) throws VrsException {
+        int numChilds = 0;
+        for (VRL vrl : vrls) {
+            if (getVRL().equals(vrl.getParent())) {
+                numChilds++;
+            }
+        }
+
+        if ((numChilds < BULK_LISTING_THRESHOLD) || (isDir() == false)) {
+            return super.getAttributes(vrls, names);
+        }
+
+        Map<VRL, SftpPathNode> childs = new HashMap<VRL, SftpPathNode>();
+        for (SftpPathNode node : sftpfs.listNodes(path)) {
+            childs.put(node.getVRL(), node);
+        }
+
+        Map<VRL, List<Attribute>> attrsMap = new LinkedHashMap<VRL, List<Attribute>>();
+        for (VRL vrl : vrls) {
+            VPath node = childs.get(vrl);
+            if (node == null) {
+                node = sftpfs.resolve(vrl);
+            }
+            attrsMap.put(vrl, node.getAttributes(names));
+        }
+        return attrsMap;
+    }
+
     @Override
     public SftpFileAttributes getFileAttributes(LinkOption... linkOptions) throws VrsException {
         return new SftpFileAttributes(getSftpAttrs());
     }
 
     public OutputStream createOutputStream(boolean append) throws VrsException {
+        // size and modification time will change.
+        sync();
         return this.sftpfs.createOutputStream(path, append);
     }
 
@@ -108,6 +189,7 @@ public class SftpPathNode extends VFSPathNode implements VStreamAccessable, VRan
 
     @Override
     public boolean mkdir(boolean ignoreExisting) throws VrsException {
+        sync();
         return this.sftpfs.mkdir(this.getPathAsString(), ignoreExisting);
     }
 
@@ -117,17 +199,21 @@ public class SftpPathNode extends VFSPathNode implements VStreamAccessable, VRan
 
     @Override
     public boolean delete(LinkOption... linkOptions) throws VrsException {
-        return this.sftpfs.delete(this.getPathAsString(), this.isDir(linkOptions), linkOptions);
+        boolean isDir = this.isDir(linkOptions);
+        sync();
+        return this.sftpfs.delete(this.getPathAsString(), isDir, linkOptions);
     }
 
     @Override
     public VFSPath renameTo(VFSPath other) throws VrsException {
+        sync();
         return sftpfs.renameTo(this, other);
     }
 
     @Override
     public boolean sync() {
-        this.attrs = null;
+        setSftpAttrs(null, 0);
+        clearAttributesSnapshot();
         return true;
     }
 
@@ -138,16 +224,19 @@ public class SftpPathNode extends VFSPathNode implements VStreamAccessable, VRan
 
     @Override
     public RandomReadable createRandomReadable() throws VrsException {
-        throw new VrsException("Not Implemented: createRandomReadable()");
+        return this.sftpfs.createRandomReader(path);
     }
 
     @Override
     public RandomWritable createRandomWritable() throws VrsException {
-        throw new VrsException("Not Implemented: createRandomWritable()");
+        // size and modification time will change.
+        sync();
+        return this.sftpfs.createRandomWriter(path);
     }
 
     @Override
     public boolean createFile(boolean ignoreExisting) throws VrsException {
+        sync();
         this.createEmptyFile(this);
         return true;
     }
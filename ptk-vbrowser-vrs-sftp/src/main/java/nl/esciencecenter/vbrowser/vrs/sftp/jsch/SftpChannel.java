@@ -82,6 +82,41 @@ public class SftpChannel implements AutoCloseable {
         return this.userHome;
     }
 
+    /**
+     * Handler for incremental directory listings.
+     */
+    public interface ListHandler {
+
+        /**
+         * @return false to stop the listing.
+         */
+        boolean handleEntry(SftpEntry entry);
+    }
+
+    /**
+     * Incremental listing of relative or absolute path. Entries are passed to the handler while the READDIR
+     * responses arrive, instead of collecting the complete listing first.
+     */
+    public void list(String remotePath, final ListHandler handler) throws SftpException {
+        logger.debug("list():'{}' (incremental)", remotePath);
+        check();
+
+        ChannelSftp.LsEntrySelector selector = new ChannelSftp.LsEntrySelector() {
+            @Override
+            public int select(LsEntry entry) {
+                String name = entry.getFilename();
+                if (".".equals(name) || ("..".equals(name))) {
+                    return CONTINUE;
+                }
+                return handler.handleEntry(new SftpEntry(entry)) ? CONTINUE : BREAK;
+            }
+        };
+
+        synchronized (channelMutex) {
+            channel.ls(remotePath, selector);
+        }
+    }
+
     /**
      * List relative or absolute path. Both are allowed.
      *
@@ -218,6 +253,43 @@ public class SftpChannel implements AutoCloseable {
         return this.channel.put(remotePath, mode);
     }
 
+    /**
+     * Set the number of read requests which are kept in flight by InputStreams from get(). More requests in flight
+     * increase the throughput over high latency connections.
+     */
+    public void setBulkRequests(int numRequests) throws JSchException {
+        synchronized (channelMutex) {
+            this.channel.setBulkRequests(numRequests);
+        }
+    }
+
+    /**
+     * Performs 'get()' starting at the specified file offset. This blocks the current channel until the InputStream is
+     * closed.
+     */
+    protected InputStream get(String path, long offset) throws SftpException {
+        check();
+        return channel.get(path, null, offset);
+    }
+
+    /**
+     * Performs 'put()' starting at the specified file offset without truncating the file. This blocks the current
+     * channel until the OutputStream is closed.<br>
+     * JSch only supports an offset relative to the current file size (RESUME mode), so the file size is fetched first.
+     */
+    protected OutputStream put(String remotePath, long offset) throws SftpException {
+        check();
+        long size = 0;
+        try {
+            size = statSftpAttrs(remotePath, false).getSize();
+        } catch (SftpException e) {
+            if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                throw e;
+            }
+        }
+        return this.channel.put(remotePath, null, ChannelSftp.RESUME, offset - size);
+    }
+
     // =========
     // LifeCycle 
     // =========
@@ -25,7 +25,9 @@ import java.io.IOException;
 import java.io.OutputStream;
 
 /**
- * Private SftpChannel+ SftpOutputStream combination. Autocloses both OutputStream and SftpChannel.
+ * Private SftpChannel+ SftpOutputStream combination. Autocloses both OutputStream and SftpChannel.<br>
+ * Big writes are split into write requests of at most writeRequestSize bytes. JSch sends the write requests without
+ * waiting for each acknowledgement, so multiple requests are in flight.
  */
 public class SftpChannelOutputStream extends OutputStream implements AutoCloseable {
 
@@ -33,9 +35,16 @@ public class SftpChannelOutputStream extends OutputStream implements AutoCloseab
 
     private final SftpChannel channel;
 
+    private final int writeRequestSize;
+
     public SftpChannelOutputStream(OutputStream outps, SftpChannel outputChannel) {
+        this(outps, outputChannel, SftpConfig.DEFAULT_WRITE_REQUEST_SIZE);
+    }
+
+    public SftpChannelOutputStream(OutputStream outps, SftpChannel outputChannel, int writeRequestSize) {
         this.outps = outps;
         this.channel = outputChannel;
+        this.writeRequestSize = (writeRequestSize > 0) ? writeRequestSize : SftpConfig.DEFAULT_WRITE_REQUEST_SIZE;
     }
 
     @Override
@@ -45,12 +54,17 @@ public class SftpChannelOutputStream extends OutputStream implements AutoCloseab
 
     @Override
     public void write(byte[] bytes) throws IOException {
-        outps.write(bytes);
+        write(bytes, 0, bytes.length);
     }
 
     @Override
     public void write(byte[] bytes, int offset, int len) throws IOException {
-        outps.write(bytes, offset, len);
+        while (len > 0) {
+            int chunk = Math.min(len, writeRequestSize);
+            outps.write(bytes, offset, chunk);
+            offset += chunk;
+            len -= chunk;
+        }
     }
 
     public void close() throws IOException {
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2006-2010 Virtual Laboratory for e-Science (www.vl-e.nl)
+ * Copyright 2012-2013 Netherlands eScience Center.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the following location:
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For the full license, see: LICENSE.txt (located in the root folder of this distribution).
+ * ---
+ */
+// source:
+
+package nl.esciencecenter.vbrowser.vrs.sftp.jsch;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Bounded pool of SftpChannels which are multiplexed over one SshSession. A channel is used by one thread at a time:
+ * borrow it with {@link #borrowChannel()} and always give it back with {@link #returnChannel(SftpChannel)}.
+ * <p>
+ * Disconnected channels are discarded when borrowed or returned. Channels which have been idle for longer than the
+ * maximum idle time are closed. If the SshSession has been disconnected it is reconnected when a new channel is
+ * needed.
+ */
+public class SftpChannelPool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SftpChannelPool.class);
+
+    /**
+     * Default maximum number of channels. OpenSSH allows 10 sessions (channels) per connection by default, which are
+     * shared with the private stream channels and shell channels.
+     */
+    public static final int DEFAULT_MAX_CHANNELS = 4;
+
+    /**
+     * Default maximum time in milliseconds an unused channel stays open.
+     */
+    public static final long DEFAULT_MAX_IDLE_TIME = 60 * 1000;
+
+    protected static class IdleChannel {
+
+        protected final SftpChannel channel;
+
+        protected final long idleSince;
+
+        protected IdleChannel(SftpChannel channel, long idleSince) {
+            this.channel = channel;
+            this.idleSince = idleSince;
+        }
+    }
+
+    // === instance ===
+
+    private final SshSession sshSession;
+
+    private final int maxChannels;
+
+    private final long maxIdleTime;
+
+    /**
+     * Idle channels, most recently returned first. Also used as mutex.
+     */
+    private final Deque<IdleChannel> idleChannels = new ArrayDeque<IdleChannel>();
+
+    /**
+     * Number of idle plus borrowed channels.
+     */
+    private int numChannels = 0;
+
+    private boolean closed = false;
+
+    public SftpChannelPool(SshSession sshSession) {
+        this(sshSession, DEFAULT_MAX_CHANNELS, DEFAULT_MAX_IDLE_TIME);
+    }
+
+    public SftpChannelPool(SshSession sshSession, int maxChannels, long maxIdleTime) {
+        if (maxChannels <= 0) {
+            throw new IllegalArgumentException("Maximum number of channels must be > 0:" + maxChannels);
+        }
+        this.sshSession = sshSession;
+        this.maxChannels = maxChannels;
+        this.maxIdleTime = maxIdleTime;
+    }
+
+    /**
+     * Returns connected channel from the pool, or creates a new one if all channels are in use and the maximum hasn't
+     * been reached yet. Otherwise waits until a channel has been returned.
+     */
+    public SftpChannel borrowChannel() throws SftpException {
+        evictIdleChannels();
+
+        synchronized (idleChannels) {
+            while (true) {
+                if (closed) {
+                    throw new SftpException(ChannelSftp.SSH_FX_NO_CONNECTION, "Channel pool has been closed.");
+                }
+
+                IdleChannel idle = idleChannels.pollFirst();
+                if (idle != null) {
+                    if (idle.channel.isConnected()) {
+                        return idle.channel;
+                    }
+                    logger.debug("borrowChannel(): discarding disconnected channel:{}", idle.channel);
+                    numChannels--;
+                    continue;
+                }
+
+                if (numChannels < maxChannels) {
+                    // reserve slot and create channel outside the lock.
+                    numChannels++;
+                    break;
+                }
+
+                try {
+                    idleChannels.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SftpException(ChannelSftp.SSH_FX_FAILURE, "Interrupted while waiting for channel.",
+                            e);
+                }
+            }
+        }
+
+        try {
+            return createChannel();
+        } catch (JSchException | SftpException | RuntimeException e) {
+            releaseSlot();
+            if (e instanceof SftpException) {
+                throw (SftpException) e;
+            }
+            throw new SftpException(ChannelSftp.SSH_FX_NO_CONNECTION, "Couldn't create SftpChannel to:"
+                    + sshSession.getServerString() + ":" + e.getMessage(), e);
+        }
+    }
+
+    protected SftpChannel createChannel() throws JSchException, SftpException {
+        sshSession.reconnectIfDisconnected();
+        SftpChannel channel = sshSession.createSftpChannel();
+        channel.connect();
+        logger.debug("createChannel(): new channel:{}", channel);
+        return channel;
+    }
+
+    /**
+     * Returns borrowed channel to the pool. Disconnected channels are discarded.
+     */
+    public void returnChannel(SftpChannel channel) {
+        if (channel == null) {
+            return;
+        }
+
+        boolean discard;
+        synchronized (idleChannels) {
+            discard = closed || (channel.isConnected() == false);
+            if (discard) {
+                numChannels--;
+            } else {
+                idleChannels.addFirst(new IdleChannel(channel, System.currentTimeMillis()));
+            }
+            idleChannels.notify();
+        }
+
+        if (discard) {
+            channel.close();
+        }
+    }
+
+    private void releaseSlot() {
+        synchronized (idleChannels) {
+            numChannels--;
+            idleChannels.notify();
+        }
+    }
+
+    /**
+     * Close channels which have been idle for longer than the maximum idle time.
+     */
+    public void evictIdleChannels() {
+        List<SftpChannel> evicted = new ArrayList<SftpChannel>();
+        long now = System.currentTimeMillis();
+
+        synchronized (idleChannels) {
+            // oldest idle channels are at the end.
+            Iterator<IdleChannel> iterator = idleChannels.descendingIterator();
+            while (iterator.hasNext()) {
+                IdleChannel idle = iterator.next();
+                if (now - idle.idleSince <= maxIdleTime) {
+                    break;
+                }
+                iterator.remove();
+                numChannels--;
+                evicted.add(idle.channel);
+            }
+        }
+
+        for (SftpChannel channel : evicted) {
+            logger.debug("evictIdleChannels(): closing idle channel:{}", channel);
+            channel.close();
+        }
+    }
+
+    public int getMaxChannels() {
+        return maxChannels;
+    }
+
+    /**
+     * @return number of idle and borrowed channels.
+     */
+    public int getNumChannels() {
+        synchronized (idleChannels) {
+            return numChannels;
+        }
+    }
+
+    /**
+     * Close idle channels. Borrowed channels are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        List<IdleChannel> idle;
+        synchronized (idleChannels) {
+            closed = true;
+            idle = new ArrayList<IdleChannel>(idleChannels);
+            numChannels -= idleChannels.size();
+            idleChannels.clear();
+            idleChannels.notifyAll();
+        }
+
+        for (IdleChannel idleChannel : idle) {
+            idleChannel.channel.close();
+        }
+    }
+
+    public String toString() {
+        return "SftpChannelPool:[sshSession:'" + sshSession + "',maxChannels:" + maxChannels + "]";
+    }
+
+}
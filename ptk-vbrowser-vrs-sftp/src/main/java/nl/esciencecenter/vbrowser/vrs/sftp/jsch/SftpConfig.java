@@ -15,6 +15,18 @@ public class SftpConfig {
 
     public static final String SSH_USER_DEFAULT_ID_RSA = "id_rsa";
 
+    /**
+     * Default number of outstanding read requests per SFTP stream. JSch's default is 16, which limits a download to
+     * about 16 x 32KB per round trip.
+     */
+    public static final int DEFAULT_BULK_REQUESTS = 64;
+
+    /**
+     * Default maximum size of a single SFTP write request.<br>
+     * SFTP-WRITE-OUTPUTSTREAM-32000: JSch has problems with writes bigger than 32000 bytes.
+     */
+    public static final int DEFAULT_WRITE_REQUEST_SIZE = 32000;
+
     // === instance ===
 
     public String host;
@@ -33,6 +45,16 @@ public class SftpConfig {
 
     public String[] publicKeys;
 
+    /**
+     * Number of read requests kept in flight by SFTP InputStreams.
+     */
+    public int bulkRequests = DEFAULT_BULK_REQUESTS;
+
+    /**
+     * Maximum size of a write request sent by SFTP OutputStreams.
+     */
+    public int writeRequestSize = DEFAULT_WRITE_REQUEST_SIZE;
+
     protected Properties properties = new Properties();
 
     public Properties getProperties() {
@@ -65,6 +87,7 @@ public class SftpConfig {
                 + "',userConfigDir:'" + userConfigDir + "', passwd="
                 + ((passwd != null) ? "<PWD>" : "<NO PWD") + ",sshKnowHostFile:'" + sshKnowHostFile
                 + "',privateKeys:'[" + Arrays.toString(privateKeys) + "],publicKeys:["
-                + Arrays.toString(publicKeys) + "]]";
+                + Arrays.toString(publicKeys) + "],bulkRequests:" + bulkRequests + ",writeRequestSize:"
+                + writeRequestSize + "]";
     }
 }
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2006-2010 Virtual Laboratory for e-Science (www.vl-e.nl)
+ * Copyright 2012-2013 Netherlands eScience Center.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the following location:
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For the full license, see: LICENSE.txt (located in the root folder of this distribution).
+ * ---
+ */
+// source:
+
+package nl.esciencecenter.vbrowser.vrs.sftp.jsch;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
+import nl.esciencecenter.ptk.io.RandomReadable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * RandomReadable for a remote file which uses a private SftpChannel for the lifetime of the reader. <br>
+ * Data is read in pages which are kept in a small LRU page cache. A cache miss reads the missing page plus a number of
+ * read-ahead pages. The remote file stays open while reads are sequential, a non sequential read reopens the file at
+ * the new offset.
+ */
+public class SftpRandomReader implements RandomReadable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SftpRandomReader.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 64 * 1024;
+
+    public static final int DEFAULT_MAX_PAGES = 64;
+
+    public static final int DEFAULT_READ_AHEAD_PAGES = 4;
+
+    // === instance ===
+
+    private final SftpChannel channel;
+
+    private final String remotePath;
+
+    private final int pageSize;
+
+    private final int readAheadPages;
+
+    private final LinkedHashMap<Long, byte[]> pages;
+
+    /**
+     * Remote file size when opened or when last checked. Limits the read-ahead.
+     */
+    private long length;
+
+    /**
+     * Open remote InputStream, kept open for sequential reads.
+     */
+    private InputStream inputStream;
+
+    private long streamPosition = -1;
+
+    public SftpRandomReader(SftpChannel channel, String remotePath) throws SftpException {
+        this(channel, remotePath, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES, DEFAULT_READ_AHEAD_PAGES);
+    }
+
+    public SftpRandomReader(SftpChannel channel, String remotePath, int pageSize, final int maxPages,
+                            int readAheadPages) throws SftpException {
+        this.channel = channel;
+        this.remotePath = remotePath;
+        this.pageSize = pageSize;
+        this.readAheadPages = Math.max(0, readAheadPages);
+        this.pages = new LinkedHashMap<Long, byte[]>(maxPages + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                return size() > maxPages;
+            }
+        };
+        this.length = channel.statSftpAttrs(remotePath, false).getSize();
+    }
+
+    /**
+     * Open reader on private SftpChannel of the SshSession. The channel is closed when the reader is closed.
+     */
+    public static SftpRandomReader open(SshSession session, String remotePath) throws SftpException,
+            JSchException {
+        SftpChannel channel = session.createSftpChannel();
+        channel.connect();
+        try {
+            return new SftpRandomReader(channel, remotePath);
+        } catch (SftpException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized int readBytes(long fileOffset, byte[] buffer, int bufferOffset, int nrBytes)
+            throws IOException {
+        int total = 0;
+
+        while (total < nrBytes) {
+            long offset = fileOffset + total;
+            long pageIndex = offset / pageSize;
+            int pageOffset = (int) (offset % pageSize);
+
+            byte[] page = getPage(pageIndex);
+            if ((page == null) || (pageOffset >= page.length)) {
+                // EOF
+                break;
+            }
+
+            int num = Math.min(nrBytes - total, page.length - pageOffset);
+            System.arraycopy(page, pageOffset, buffer, bufferOffset + total, num);
+            total += num;
+
+            if (page.length < pageSize) {
+                // last page
+                break;
+            }
+        }
+
+        return ((total == 0) && (nrBytes > 0)) ? -1 : total;
+    }
+
+    protected byte[] getPage(long pageIndex) throws IOException {
+        byte[] page = pages.get(pageIndex);
+        if (page != null) {
+            return page;
+        }
+
+        long pageStart = pageIndex * pageSize;
+        if (pageStart >= length) {
+            // file might have grown since opened.
+            this.length = getLength();
+            if (pageStart >= length) {
+                return null;
+            }
+        }
+
+        fetchPages(pageIndex);
+        return pages.get(pageIndex);
+    }
+
+    /**
+     * Read page and read-ahead pages which are not cached yet, using one remote read stream.
+     */
+    protected void fetchPages(long pageIndex) throws IOException {
+        long lastPage = (length - 1) / pageSize;
+        long endPage = Math.min(pageIndex + readAheadPages, lastPage);
+
+        for (long index = pageIndex; index <= endPage; index++) {
+            if ((index > pageIndex) && (pages.containsKey(index))) {
+                // rest is already cached.
+                break;
+            }
+            long pageStart = index * pageSize;
+            byte[] page = new byte[(int) Math.min(pageSize, length - pageStart)];
+            int num = readFully(pageStart, page);
+            if (num <= 0) {
+                break;
+            }
+            if (num < page.length) {
+                byte[] partial = new byte[num];
+                System.arraycopy(page, 0, partial, 0, num);
+                page = partial;
+            }
+            pages.put(index, page);
+            if (num < pageSize) {
+                break;
+            }
+        }
+    }
+
+    private int readFully(long offset, byte[] page) throws IOException {
+        if ((inputStream == null) || (streamPosition != offset)) {
+            closeStream();
+            try {
+                logger.debug("readFully(): opening remote file '{}' at offset:{}", remotePath, offset);
+                inputStream = channel.get(remotePath, offset);
+                streamPosition = offset;
+            } catch (SftpException e) {
+                throw new IOException("Failed to read from:" + remotePath + " at offset:" + offset, e);
+            }
+        }
+
+        int total = 0;
+        while (total < page.length) {
+            int num = inputStream.read(page, total, page.length - total);
+            if (num < 0) {
+                break;
+            }
+            total += num;
+        }
+        streamPosition += total;
+        return total;
+    }
+
+    private void closeStream() {
+        if (inputStream != null) {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close InputStream of:{}:{}", remotePath, e.getMessage());
+            }
+        }
+        inputStream = null;
+        streamPosition = -1;
+    }
+
+    /**
+     * Drop cached pages, for example after the remote file has been modified.
+     */
+    public synchronized void clearCache() {
+        pages.clear();
+    }
+
+    @Override
+    public synchronized long getLength() throws IOException {
+        // the channel is blocked while the read stream is open.
+        closeStream();
+        try {
+            this.length = channel.statSftpAttrs(remotePath, false).getSize();
+            return length;
+        } catch (SftpException e) {
+            throw new IOException("Failed to get length of:" + remotePath, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closeStream();
+        pages.clear();
+        channel.close();
+    }
+
+}
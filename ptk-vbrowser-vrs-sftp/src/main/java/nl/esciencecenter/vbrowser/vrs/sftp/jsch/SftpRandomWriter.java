@@ -0,0 +1,131 @@
+/*
+ * Copyright 2006-2010 Virtual Laboratory for e-Science (www.vl-e.nl)
+ * Copyright 2012-2013 Netherlands eScience Center.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the following location:
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For the full license, see: LICENSE.txt (located in the root folder of this distribution).
+ * ---
+ */
+// source:
+
+package nl.esciencecenter.vbrowser.vrs.sftp.jsch;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
+import nl.esciencecenter.ptk.io.RandomWritable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * RandomWritable for a remote file which uses a private SftpChannel for the lifetime of the writer.<br>
+ * The remote file stays open while writes are sequential, so consecutive writes are sent as pipelined write requests.
+ * A non sequential write reopens the file at the new offset. The file is not truncated.
+ */
+public class SftpRandomWriter implements RandomWritable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SftpRandomWriter.class);
+
+    private final SftpChannel channel;
+
+    private final String remotePath;
+
+    private final int writeRequestSize;
+
+    private OutputStream outputStream;
+
+    private long streamPosition = -1;
+
+    public SftpRandomWriter(SftpChannel channel, String remotePath, int writeRequestSize) {
+        this.channel = channel;
+        this.remotePath = remotePath;
+        this.writeRequestSize = (writeRequestSize > 0) ? writeRequestSize : SftpConfig.DEFAULT_WRITE_REQUEST_SIZE;
+    }
+
+    /**
+     * Open writer on private SftpChannel of the SshSession. The channel is closed when the writer is closed.
+     */
+    public static SftpRandomWriter open(SshSession session, String remotePath, int writeRequestSize)
+            throws SftpException, JSchException {
+        SftpChannel channel = session.createSftpChannel();
+        channel.connect();
+        return new SftpRandomWriter(channel, remotePath, writeRequestSize);
+    }
+
+    @Override
+    public synchronized void writeBytes(long fileOffset, byte[] buffer, int bufferOffset, int nrBytes)
+            throws IOException {
+        if ((outputStream == null) || (streamPosition != fileOffset)) {
+            closeStream();
+            try {
+                logger.debug("writeBytes(): opening remote file '{}' at offset:{}", remotePath, fileOffset);
+                outputStream = channel.put(remotePath, fileOffset);
+                streamPosition = fileOffset;
+            } catch (SftpException e) {
+                throw new IOException("Failed to write to:" + remotePath + " at offset:" + fileOffset, e);
+            }
+        }
+
+        int offset = bufferOffset;
+        int todo = nrBytes;
+        while (todo > 0) {
+            int chunk = Math.min(todo, writeRequestSize);
+            outputStream.write(buffer, offset, chunk);
+            offset += chunk;
+            todo -= chunk;
+        }
+        streamPosition += nrBytes;
+    }
+
+    private void closeStream() throws IOException {
+        if (outputStream != null) {
+            try {
+                outputStream.close();
+            } finally {
+                outputStream = null;
+                streamPosition = -1;
+            }
+        }
+    }
+
+    /**
+     * Flushes pending writes by closing the remote file. The file is reopened at the next write.
+     */
+    public synchronized void flush() throws IOException {
+        closeStream();
+    }
+
+    @Override
+    public synchronized long getLength() throws IOException {
+        // pending writes must be acknowledged first.
+        closeStream();
+        try {
+            return channel.statSftpAttrs(remotePath, false).getSize();
+        } catch (SftpException e) {
+            throw new IOException("Failed to get length of:" + remotePath, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            closeStream();
+        } finally {
+            channel.close();
+        }
+    }
+
+}
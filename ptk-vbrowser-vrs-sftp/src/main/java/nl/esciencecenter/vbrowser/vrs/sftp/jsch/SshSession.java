@@ -61,7 +61,11 @@ public class SshSession implements AutoCloseable {
 
     // ===
 
-    private Session session;
+    private volatile Session session;
+
+    private UserInfo userInfo;
+
+    private volatile boolean closed = false;
 
     private final JSch jsch;
 
@@ -82,6 +86,10 @@ public class SshSession implements AutoCloseable {
         session.connect();
     }
 
+    public SftpConfig getConfig() {
+        return this.config;
+    }
+
     public boolean isConnected() {
         return this.session.isConnected();
     }
@@ -89,12 +97,15 @@ public class SshSession implements AutoCloseable {
     protected void initSession() throws JSchException {
         logger.debug("initSession():{}", this);
 
+        addKnownHosts();
+        addUserIDFiles();
+        createJschSession();
+    }
+
+    protected void createJschSession() throws JSchException {
         try {
             this.session = jsch.getSession(config.user, config.host, config.port);
-            this.session.setUserInfo(new DummyRobot());
-
-            addKnownHosts();
-            addUserIDFiles();
+            this.session.setUserInfo((userInfo != null) ? userInfo : new DummyRobot());
 
             if (config.passwd != null) {
                 session.setPassword(new String(config.passwd));
@@ -115,12 +126,29 @@ public class SshSession implements AutoCloseable {
         }
     }
 
+    /**
+     * Reconnect if the session has been disconnected, for example after a network failure. A disconnected JSch
+     * Session can not be reused, so a new one is created. Channels of the old session are not valid anymore.
+     */
+    public synchronized void reconnectIfDisconnected() throws JSchException {
+        if (this.session.isConnected()) {
+            return;
+        }
+        if (closed) {
+            throw new JSchException("Session has been closed:" + this);
+        }
+        logger.info("reconnectIfDisconnected(): reconnecting:{}", this);
+        createJschSession();
+        connect();
+    }
+
     /**
      * User Robot can be a automated responder or an actual UI interface.
      *
      * @param userRobot
      */
     public void setUserUI(UserInfo userRobot) {
+        this.userInfo = userRobot;
         this.session.setUserInfo(userRobot);
     }
 
@@ -142,6 +170,9 @@ public class SshSession implements AutoCloseable {
         logger.debug("createSftpInputStream() to:{}", this);
         SftpChannel newChannel = this.createSftpChannel();
         newChannel.connect();
+        if (config.bulkRequests > 0) {
+            newChannel.setBulkRequests(config.bulkRequests);
+        }
         InputStream inps = newChannel.get(remotePath);
         return new SftpChannelInputStream(newChannel, inps);
     }
@@ -158,7 +189,7 @@ public class SshSession implements AutoCloseable {
         }
 
         OutputStream outps = outputChannel.put(remotePath, mode);
-        return new SftpChannelOutputStream(outps, outputChannel);
+        return new SftpChannelOutputStream(outps, outputChannel, config.writeRequestSize);
     }
 
     protected void disconnect() {
@@ -168,11 +199,12 @@ public class SshSession implements AutoCloseable {
     }
 
     public void dispose() {
-        disconnect();
+        close();
     }
 
     @Override
     public void close() {
+        this.closed = true;
         this.disconnect();
     }
 
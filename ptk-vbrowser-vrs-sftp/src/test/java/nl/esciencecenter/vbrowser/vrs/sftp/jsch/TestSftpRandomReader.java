@@ -0,0 +1,91 @@
+package nl.esciencecenter.vbrowser.vrs.sftp.jsch;
+
+import com.jcraft.jsch.SftpATTRS;
+import com.jcraft.jsch.SftpException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+
+public class TestSftpRandomReader {
+
+    /**
+     * In memory remote file. Like a real channel, the channel can't be used for other requests while a get() stream
+     * is open.
+     */
+    private static class MemoryChannel extends SftpChannel {
+
+        private byte[] content;
+
+        private boolean streamOpen = false;
+
+        MemoryChannel(byte[] content) {
+            super(null, null);
+            this.content = content;
+        }
+
+        @Override
+        public SftpATTRS statSftpAttrs(String remotePath, boolean resolveLink) throws SftpException {
+            Assert.assertFalse("stat() while get() stream is still open", streamOpen);
+            try {
+                Constructor<SftpATTRS> constructor = SftpATTRS.class.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                SftpATTRS attrs = constructor.newInstance();
+                attrs.setSIZE(content.length);
+                return attrs;
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        protected InputStream get(String path, long offset) throws SftpException {
+            Assert.assertFalse("get() while get() stream is still open", streamOpen);
+            streamOpen = true;
+            byte[] data = content;
+            int start = (int) Math.min(offset, data.length);
+            return new ByteArrayInputStream(data, start, data.length - start) {
+                @Override
+                public void close() throws IOException {
+                    streamOpen = false;
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static byte[] createContent(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    @Test
+    public void testReadPastLengthAfterGrow() throws Exception {
+        MemoryChannel channel = new MemoryChannel(createContent(100));
+        SftpRandomReader reader = new SftpRandomReader(channel, "/file", 16, 64, 0);
+
+        byte[] buffer = new byte[16];
+        Assert.assertEquals(16, reader.readBytes(0, buffer, 0, 16));
+        Assert.assertEquals(0, buffer[0]);
+
+        // file grows while the read stream is still open:
+        channel.content = createContent(200);
+
+        Assert.assertEquals(16, reader.readBytes(112, buffer, 0, 16));
+        Assert.assertEquals((byte) 112, buffer[0]);
+        Assert.assertEquals((byte) 127, buffer[15]);
+        Assert.assertEquals(200, reader.getLength());
+
+        reader.close();
+    }
+
+}
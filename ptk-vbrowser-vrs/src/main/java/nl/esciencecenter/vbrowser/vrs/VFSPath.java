@@ -22,6 +22,7 @@ package nl.esciencecenter.vbrowser.vrs;
 
 import nl.esciencecenter.vbrowser.vrs.exceptions.VrsException;
 import nl.esciencecenter.vbrowser.vrs.io.VDeletable;
+import nl.esciencecenter.vbrowser.vrs.io.VFSDirectoryStream;
 import nl.esciencecenter.vbrowser.vrs.io.VFSDeletable;
 import nl.esciencecenter.vbrowser.vrs.io.VPathRenamable;
 import nl.esciencecenter.vbrowser.vrs.io.VRenamable;
@@ -69,6 +70,14 @@ public interface VFSPath extends VPath, VRenamable, VPathRenamable, VFSDeletable
     // Downcast to VFSPath List. 
     List<? extends VFSPath> list() throws VrsException;
 
+    /**
+     * Open streaming directory listing. Pages are returned while the directory is being read.
+     *
+     * @param pageSize - maximum number of entries per page, &lt;=0 means no maximum.
+     * @return directory stream, which must be closed after use.
+     */
+    VFSDirectoryStream openDirectoryStream(int pageSize) throws VrsException;
+
     /**
      * Create last part of this path as directory.
      *
@@ -122,6 +122,18 @@ public interface VPath {
      */
     List<Attribute> getAttributes(String[] attributeNames) throws VrsException;
 
+    /**
+     * Bulk attribute query for multiple resources, typically the child resources of this path.
+     * Resource systems which can fetch the attributes of multiple resources at once can
+     * implement this more efficiently than querying each resource separately.
+     *
+     * @param vrls           - locations of the resources.
+     * @param attributeNames - names of the attributes
+     * @return Attribute Lists per VRL, in the same order as the given VRLs.
+     * @throws VrsException
+     */
+    Map<VRL, List<Attribute>> getAttributes(List<VRL> vrls, String[] attributeNames) throws VrsException;
+
     /**
      * @return list of attribute names this resource supports.
      * @throws VrsException
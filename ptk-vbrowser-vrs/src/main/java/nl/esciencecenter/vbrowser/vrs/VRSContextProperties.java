@@ -16,4 +16,11 @@ public class VRSContextProperties {
 
     public static final String VBROWSER_INSTALL_SYSCONFDIR_PROP_ = "vbrowser.install.sysconfdir";
 
+    // === VRS transfer properties === //
+
+    /**
+     * Default maximum number of parallel file transfers used when copying directories.
+     */
+    public static final String VRS_COPY_MAX_PARALLEL_TRANSFERS_PROP = "vbrowser.vrs.copy.maxParallelTransfers";
+
 }
@@ -24,6 +24,11 @@ import nl.esciencecenter.ptk.events.IEvent;
 import nl.esciencecenter.vbrowser.vrs.vrl.VRL;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
 
 public class VRSEvent implements IEvent<VRSEventType>, Serializable {
 
@@ -73,6 +78,55 @@ public class VRSEvent implements IEvent<VRSEventType>, Serializable {
         return event;
     }
 
+    /**
+     * Merge events, in order of occurrence, into one event. All events must be mergeable with the first one, see
+     * isMergeableWith(). Resources of update events are only included once.
+     */
+    public static VRSEvent createMergedEvent(List<VRSEvent> events) {
+        VRSEvent first = events.get(0);
+        VRSEvent event = new VRSEvent(first.parentSource, first.type);
+        boolean isUpdate = first.isUpdateEvent();
+
+        if (first.resources != null) {
+            Collection<VRL> vrls = isUpdate ? new LinkedHashSet<VRL>() : new ArrayList<VRL>();
+            for (VRSEvent other : events) {
+                addAll(vrls, other.resources);
+            }
+            event.resources = vrls.toArray(new VRL[0]);
+        }
+
+        if (first.otherResources != null) {
+            List<VRL> vrls = new ArrayList<VRL>();
+            for (VRSEvent other : events) {
+                addAll(vrls, other.otherResources);
+            }
+            event.otherResources = vrls.toArray(new VRL[0]);
+        }
+
+        LinkedHashSet<String> names = new LinkedHashSet<String>();
+        for (VRSEvent other : events) {
+            // no attribute names means any attribute.
+            if (other.attributeNames == null) {
+                names = null;
+                break;
+            }
+            for (String name : other.attributeNames) {
+                names.add(name);
+            }
+        }
+        if (names != null) {
+            event.attributeNames = names.toArray(new String[0]);
+        }
+
+        return event;
+    }
+
+    private static void addAll(Collection<VRL> vrls, VRL[] values) {
+        for (VRL vrl : values) {
+            vrls.add(vrl);
+        }
+    }
+
     // ========================================================================
     //
     // ========================================================================
@@ -144,6 +198,39 @@ public class VRSEvent implements IEvent<VRSEventType>, Serializable {
         return this.attributeNames;
     }
 
+    /**
+     * Whether this event is a RESOURCES_UPDATED or ATTRIBUTES_UPDATED event.
+     */
+    public boolean isUpdateEvent() {
+        return (type == VRSEventType.RESOURCES_UPDATED) || (type == VRSEventType.ATTRIBUTES_UPDATED);
+    }
+
+    /**
+     * Whether the (later) other event can be merged with this event by createMergedEvent(). Events can be merged if
+     * they have the same type and parent and both specify their resources.
+     */
+    public boolean isMergeableWith(VRSEvent other) {
+        if ((type != other.type) || (Objects.equals(parentSource, other.parentSource) == false)) {
+            return false;
+        }
+
+        if ((resources == null) || (other.resources == null)) {
+            return false;
+        }
+
+        if ((otherResources == null) != (other.otherResources == null)) {
+            return false;
+        }
+
+        // otherResources[i] must stay the new VRL of resources[i].
+        if ((otherResources != null) && ((otherResources.length != resources.length)
+                || (other.otherResources.length != other.resources.length))) {
+            return false;
+        }
+
+        return true;
+    }
+
     @Override
     public String toString() {
         return "DataSourceEvent:" + this.type + ":(parentSource=" + parentSource + ", resources={" + flattenStr(resources) + "})";
@@ -3,9 +3,22 @@ package nl.esciencecenter.vbrowser.vrs.event;
 import lombok.extern.slf4j.Slf4j;
 import nl.esciencecenter.ptk.events.EventDispatcher;
 
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Dispatcher for all VRSEvents. Bursts of events, like the deletion of many resources, are combined into a few
+ * events: subsequent events of the same type and parent are merged, and updates for the same parent within the
+ * coalesce window are merged into the last update before a delete or rename in that parent.
+ */
 @Slf4j
 public class VRSEventNotifier extends EventDispatcher<VRSEventType, VRSEvent, VRSEventListener> {
 
+    /**
+     * Default time in milliseconds to collect a burst of events before dispatching them.
+     */
+    public static final int DEFAULT_COALESCE_WINDOW = 50;
+
     private static final VRSEventNotifier instance;
 
     static {
@@ -23,6 +36,7 @@ public class VRSEventNotifier extends EventDispatcher<VRSEventType, VRSEvent, VR
 
     public VRSEventNotifier(boolean autoStart) {
         super(autoStart);
+        this.coalesceWindow = DEFAULT_COALESCE_WINDOW;
     }
 
     @Override
@@ -32,6 +46,40 @@ public class VRSEventNotifier extends EventDispatcher<VRSEventType, VRSEvent, VR
         return super.matchEventSource(listener, wantedEventSource, event);
     }
 
+    @Override
+    protected boolean canMergeEvents(VRSEvent first, VRSEvent second) {
+        return first.isMergeableWith(second);
+    }
+
+    @Override
+    protected VRSEvent mergeEvents(List<VRSEvent> events) {
+        return VRSEvent.createMergedEvent(events);
+    }
+
+    /**
+     * Updates with the same type and parent are merged.
+     */
+    @Override
+    protected Object getCoalesceKey(VRSEvent event) {
+        if (event.isUpdateEvent() && (event.getResources() != null)) {
+            return Arrays.asList(event.getType(), event.getParent());
+        }
+        return null;
+    }
+
+    /**
+     * Updates are not moved past a delete or rename in the same parent, since the update might be for the deleted
+     * or renamed resource. Events without parent end all update groups.
+     */
+    @Override
+    protected boolean isCoalesceBarrier(VRSEvent event, Object coalesceKey) {
+        VRSEventType type = event.getType();
+        if ((type != VRSEventType.RESOURCES_DELETED) && (type != VRSEventType.RESOURCES_RENAMED)) {
+            return false;
+        }
+        return (event.getParent() == null) || event.getParent().equals(((List<?>) coalesceKey).get(1));
+    }
+
     public void scheduleEvent(VRSEvent newEvent) {
         this.fireEvent(newEvent);
     }
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012-2014 Netherlands eScience Center.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the following location:
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For the full license, see: LICENSE.txt (located in the root folder of this distribution).
+ * ---
+ */
+// source:
+
+package nl.esciencecenter.vbrowser.vrs.io;
+
+import nl.esciencecenter.vbrowser.vrs.VFSPath;
+import nl.esciencecenter.vbrowser.vrs.exceptions.VrsException;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * Streaming directory listing. Pages are returned while the directory is being read, so large directories don't
+ * need to be listed completely before the first entries can be shown. The stream must be closed after use.
+ */
+public interface VFSDirectoryStream extends Closeable {
+
+    /**
+     * @return next page of directory entries, or null if there are no more entries.
+     */
+    List<? extends VFSPath> nextPage() throws VrsException;
+
+    /**
+     * Stop listing and release resources. Does not throw an exception.
+     */
+    @Override
+    void close();
+
+}
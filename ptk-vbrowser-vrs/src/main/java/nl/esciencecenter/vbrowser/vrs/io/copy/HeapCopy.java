@@ -3,9 +3,11 @@ package nl.esciencecenter.vbrowser.vrs.io.copy;
 import lombok.extern.slf4j.Slf4j;
 import nl.esciencecenter.ptk.data.ExtendedList;
 import nl.esciencecenter.ptk.presentation.Presentation;
+import nl.esciencecenter.ptk.task.ActionTask;
 import nl.esciencecenter.ptk.task.ITaskMonitor;
 import nl.esciencecenter.ptk.task.MonitorStats;
 import nl.esciencecenter.ptk.task.TaskMonitorAdaptor;
+import nl.esciencecenter.ptk.task.TaskStats;
 import nl.esciencecenter.vbrowser.vrs.VFSPath;
 import nl.esciencecenter.vbrowser.vrs.VPath;
 import nl.esciencecenter.vbrowser.vrs.exceptions.ResourceNotFoundException;
@@ -14,7 +16,15 @@ import nl.esciencecenter.vbrowser.vrs.exceptions.VrsException;
 
 import java.util.ArrayList;
 import java.util.List;
-
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Recursive copy or move of a list of resources to a target directory.<br>
+ * First all sources are scanned into a heap, composites (directories) before their contents. Then the heap is
+ * processed in order. When more then one parallel transfer is allowed, directories are still created in heap order
+ * by the calling thread, but file transfers are handed over to a bounded pool of transfer workers.
+ */
 @Slf4j
 public class HeapCopy {
 
@@ -23,6 +33,7 @@ public class HeapCopy {
         protected String sourceType;
         protected VFSPath destDirPath;
         protected long size;
+        protected boolean isComposite;
         protected boolean isDeleted = false;
         public boolean isDone = false;
         public VFSPath resolvedDestPath;
@@ -61,6 +72,26 @@ public class HeapCopy {
 
     Object mutex = new Object();
 
+    /**
+     * Maximum number of file transfers performed in parallel. A value of 1 means a sequential copy.
+     */
+    private int maxParallelTransfers = 1;
+
+    /**
+     * Queue of file transfers waiting for a transfer worker.
+     */
+    private BlockingQueue<HeapCopyElement> transferQueue;
+
+    /**
+     * Element put into the transfer queue to signal there are no more transfers.
+     */
+    private final HeapCopyElement endOfTransfers = new HeapCopyElement(null, null);
+
+    /**
+     * First exception thrown by a transfer worker.
+     */
+    private Throwable transferException = null;
+
     public HeapCopy(VRSCopyManager copyManager, List<? extends VPath> sources, VFSPath targetDirPath, boolean isMove,
                     ITaskMonitor optMonitor) {
         //
@@ -74,6 +105,20 @@ public class HeapCopy {
         this.stopped = false;
     }
 
+    /**
+     * Set the maximum number of file transfers which may be performed in parallel. Must be set before copy() is
+     * called.
+     *
+     * @param numTransfers maximum number of parallel file transfers. Values smaller then 1 are treated as 1.
+     */
+    public void setMaxParallelTransfers(int numTransfers) {
+        this.maxParallelTransfers = Math.max(1, numTransfers);
+    }
+
+    public int getMaxParallelTransfers() {
+        return this.maxParallelTransfers;
+    }
+
     public void copy() throws VrsException {
         //
         synchronized (mutex) {
@@ -163,7 +208,7 @@ public class HeapCopy {
                 VFSPath subTargetDir = targetDir.resolve(node.getVRL().getBasename());
 
                 logPrintf(" - scanning directory:%s", node.getVRL());
-                heapAddPath(targetDir, node, node.getResourceType());
+                heapAddPath(targetDir, node, node.getResourceType(), true);
                 // recursive add, depth first!
 
                 if ((isMove) && isSameFileSystem(targetDirPath, node)) {
@@ -177,7 +222,7 @@ public class HeapCopy {
         // add leaf nodes:
         for (VPath node : nodes) {
             if (!node.isComposite()) {
-                heapAddPath(targetDir, node, node.getResourceType());
+                heapAddPath(targetDir, node, node.getResourceType(), false);
             }
         }
     }
@@ -186,9 +231,11 @@ public class HeapCopy {
         return (vfsPath.getFileSystem().equals(node.getResourceSystem()));
     }
 
-    private void heapAddPath(VFSPath targetDirPath, VPath vpath, String type) throws VrsException {
+    private void heapAddPath(VFSPath targetDirPath, VPath vpath, String type, boolean isComposite)
+            throws VrsException {
         log.debug(" - adding path:{}", vpath);
         HeapCopyElement el = new HeapCopyElement(vpath, type);
+        el.isComposite = isComposite;
         if (vpath instanceof VFSPath) {
             el.size = ((VFSPath) vpath).fileLength();
             totalBytesTodo += el.size;
@@ -209,69 +256,178 @@ public class HeapCopy {
     protected void doCopy() throws VrsException, InterruptedException {
         monitorStartCopy(totalBytesTodo);
 
+        if (maxParallelTransfers > 1) {
+            doParallelCopy();
+            return;
+        }
+
         for (int i = 0; i < pathHeap.size(); i++) {
             if (mustStop()) {
                 throw new InterruptedException("Got cancelled");
             }
 
             HeapCopyElement heapEl = pathHeap.get(i);
-            VPath sourcePath = heapEl.sourcePath;
-            boolean copyAll = true;
+            copyElement(heapEl, monitor);
 
-            if (sourcePath instanceof VFSPath) {
-                boolean status = false;
-
-                VFSPath resolvedTargetPath = heapEl.destDirPath.resolve(sourcePath.getVRL().getBasename());
-                heapEl.resolvedDestPath = resolvedTargetPath;
+            // update total done:
+            if (heapEl.size > 0) {
+                addBytesCopied(heapEl.size);
+            }
+        }
+    }
 
-                log.debug("Resolved targetFile: '{}' + '{}' => '{}'", targetDirPath.getVRL(), sourcePath
-                        .getVRL().getBasename(), resolvedTargetPath.getVRL());
+    /**
+     * Create directories in heap order in the current thread and hand over file transfers to the transfer workers.
+     * Since a directory always precedes its contents in the heap, a file is only queued after its target directory
+     * has been created.
+     */
+    protected void doParallelCopy() throws VrsException, InterruptedException {
+        transferQueue = new LinkedBlockingQueue<HeapCopyElement>();
+        int numWorkers = maxParallelTransfers;
+        TransferWorker[] workers = new TransferWorker[numWorkers];
+
+        logPrintf(" - using %d parallel transfers\n", numWorkers);
+
+        for (int i = 0; i < numWorkers; i++) {
+            workers[i] = new TransferWorker(i);
+            workers[i].startTask();
+        }
 
-                VFSPath vfsPath = (VFSPath) sourcePath;
+        try {
+            for (int i = 0; i < pathHeap.size(); i++) {
+                if (mustStop() || hasTransferException()) {
+                    break;
+                }
 
-                if (vfsPath.exists() == false) {
-                    // can happen if directory changed since last scan.
-                    throw new ResourceNotFoundException("Source path doesn't exists!. Has it been moved ?:" + vfsPath,
-                            null);
-                } else if (vfsPath.isDir()) {
-                    logPrintf(" - %s directory:%s => %s\n", actionStr, sourcePath.getVRL(),
-                            resolvedTargetPath.getVRL());
+                HeapCopyElement heapEl = pathHeap.get(i);
 
-                    if ((isMove) && (isSameFileSystem(vfsPath, resolvedTargetPath))) {
-                        // sourcePath must be VFSPath:
-                        status = copyManager.fileSystemRename((VFSPath) sourcePath, resolvedTargetPath, monitor);
-                    } else {
-                        status = resolvedTargetPath.mkdir(true);
+                if (heapEl.isComposite) {
+                    copyElement(heapEl, monitor);
+                    if (heapEl.size > 0) {
+                        addBytesCopied(heapEl.size);
                     }
-                } else if (copyAll || vfsPath.isFile()) {
-                    logPrintf(" - %s file:%s => %s\n", actionStr, sourcePath.getVRL(),
-                            resolvedTargetPath.getVRL());
-                    status = copyManager.doCopyMoveResourceToFile(vfsPath, resolvedTargetPath, isMove, monitor);
                 } else {
-                    logPrintf(" - Error: Unknown VFS resource:%s\n", vfsPath);
-                    throw new ResourceTypeMismatchException("Can not copy VFSPath:" + vfsPath, null);
+                    transferQueue.put(heapEl);
+                }
+            }
+        } catch (VrsException | InterruptedException | RuntimeException e) {
+            stopWorkers(workers);
+            throw e;
+        } finally {
+            for (int i = 0; i < numWorkers; i++) {
+                transferQueue.offer(endOfTransfers);
+            }
+        }
+
+        try {
+            for (TransferWorker worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            stopWorkers(workers);
+            throw e;
+        }
+
+        if (hasTransferException()) {
+            Throwable t = transferException;
+            if (t instanceof VrsException) {
+                throw (VrsException) t;
+            }
+            throw new VrsException("Transfer failed:" + t.getMessage(), t);
+        }
+
+        if (mustStop()) {
+            throw new InterruptedException("Got cancelled");
+        }
+    }
+
+    private void stopWorkers(TransferWorker[] workers) {
+        for (TransferWorker worker : workers) {
+            worker.signalTerminate();
+        }
+    }
+
+    private boolean hasTransferException() {
+        synchronized (mutex) {
+            return (transferException != null);
+        }
+    }
+
+    private void setTransferException(Throwable t) {
+        synchronized (mutex) {
+            if (transferException == null) {
+                transferException = t;
+            }
+        }
+    }
+
+    /**
+     * Copy or move a single heap element. Directories are created (or renamed), files are copied using the copy
+     * manager.
+     *
+     * @param heapEl    the heap element to copy or move.
+     * @param elMonitor monitor to use for the actual transfer.
+     */
+    protected void copyElement(HeapCopyElement heapEl, ITaskMonitor elMonitor) throws VrsException {
+        VPath sourcePath = heapEl.sourcePath;
+        boolean copyAll = true;
+
+        if (sourcePath instanceof VFSPath) {
+            boolean status = false;
+
+            VFSPath resolvedTargetPath = heapEl.destDirPath.resolve(sourcePath.getVRL().getBasename());
+            heapEl.resolvedDestPath = resolvedTargetPath;
+
+            log.debug("Resolved targetFile: '{}' + '{}' => '{}'", targetDirPath.getVRL(), sourcePath
+                    .getVRL().getBasename(), resolvedTargetPath.getVRL());
+
+            VFSPath vfsPath = (VFSPath) sourcePath;
+
+            if (vfsPath.exists() == false) {
+                // can happen if directory changed since last scan.
+                throw new ResourceNotFoundException("Source path doesn't exists!. Has it been moved ?:" + vfsPath,
+                        null);
+            } else if (vfsPath.isDir()) {
+                logPrintf(" - %s directory:%s => %s\n", actionStr, sourcePath.getVRL(),
+                        resolvedTargetPath.getVRL());
+
+                if ((isMove) && (isSameFileSystem(vfsPath, resolvedTargetPath))) {
+                    // sourcePath must be VFSPath:
+                    status = copyManager.fileSystemRename((VFSPath) sourcePath, resolvedTargetPath, elMonitor);
+                } else {
+                    status = resolvedTargetPath.mkdir(true);
                 }
+            } else if (copyAll || vfsPath.isFile()) {
+                logPrintf(" - %s file:%s => %s\n", actionStr, sourcePath.getVRL(),
+                        resolvedTargetPath.getVRL());
+                status = copyManager.doCopyMoveResourceToFile(vfsPath, resolvedTargetPath, isMove, elMonitor);
+            } else {
+                logPrintf(" - Error: Unknown VFS resource:%s\n", vfsPath);
+                throw new ResourceTypeMismatchException("Can not copy VFSPath:" + vfsPath, null);
+            }
 
-                if (status) {
+            if (status) {
+                synchronized (mutex) {
                     resultPaths.add(resolvedTargetPath);
                     if (isMove) {
                         deletedPaths.add(sourcePath);
                         heapEl.isDeleted = true;
                     }
                     heapEl.isDone = true;
-                } else {
-                    throw new VrsException("Invalid state, copy or move went wrong for:" + sourcePath);
                 }
             } else {
-                logPrintf(" - Error: non VFS Path:%s\n", sourcePath);
-                throw new ResourceTypeMismatchException("Can not copy:" + sourcePath, null);
+                throw new VrsException("Invalid state, copy or move went wrong for:" + sourcePath);
             }
+        } else {
+            logPrintf(" - Error: non VFS Path:%s\n", sourcePath);
+            throw new ResourceTypeMismatchException("Can not copy:" + sourcePath, null);
+        }
+    }
 
-            // update total done:
-            if (heapEl.size > 0) {
-                totalBytesCopied += heapEl.size;
-                monitorUpdateBytesCopied(totalBytesCopied);
-            }
+    private void addBytesCopied(long numBytes) {
+        synchronized (mutex) {
+            totalBytesCopied += numBytes;
+            monitorUpdateBytesCopied(totalBytesCopied);
         }
     }
 
@@ -291,7 +447,96 @@ public class HeapCopy {
 
     private void logPrintf(String format, Object... args) {
         if (monitor != null) {
-            monitor.logPrintf(format, args);
+            // the log buffer of the monitor is shared between transfer workers.
+            synchronized (mutex) {
+                monitor.logPrintf(format, args);
+            }
         }
     }
+
+    // ===
+    // Parallel transfers
+    // ===
+
+    /**
+     * Transfer worker which takes file elements from the transfer queue until the end of the transfers has been
+     * signalled or the copy must stop.
+     */
+    protected class TransferWorker extends ActionTask {
+
+        public TransferWorker(int index) {
+            super(copyManager.taskWatcher, actionStr + ".transferWorker#" + index);
+        }
+
+        @Override
+        protected void doTask() throws Exception {
+            while (true) {
+                HeapCopyElement heapEl = transferQueue.take();
+
+                if ((heapEl == endOfTransfers) || mustStop() || hasTransferException()) {
+                    return;
+                }
+
+                FileTransferMonitor fileMonitor = new FileTransferMonitor(heapEl);
+
+                try {
+                    copyElement(heapEl, fileMonitor);
+                    fileMonitor.transferDone();
+                } catch (Throwable t) {
+                    log.error("Transfer failed for:" + heapEl.sourcePath, t);
+                    setTransferException(t);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        protected void stopTask() {
+            // Interrupt will wake up the worker, it will then check mustStop().
+        }
+    }
+
+    /**
+     * Private monitor of a single file transfer. Forwards cancellation from the main monitor and adds the bytes
+     * transferred by this file to the total number of bytes copied.
+     */
+    protected class FileTransferMonitor extends TaskMonitorAdaptor {
+
+        private final HeapCopyElement heapEl;
+
+        private long bytesReported = 0;
+
+        public FileTransferMonitor(HeapCopyElement heapEl) {
+            super(actionStr + ":" + heapEl.sourcePath.getVRL().getBasename(), heapEl.size);
+            this.heapEl = heapEl;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return super.isCancelled() || ((monitor != null) && monitor.isCancelled()) || hasTransferException();
+        }
+
+        @Override
+        public void updateSubTaskDone(String taskName, long done) {
+            super.updateSubTaskDone(taskName, done);
+            // Only the (stream) transfers of this file have the file size as amount of work to do.
+            TaskStats stats = getSubTaskStats(taskName);
+            if ((stats != null) && (stats.todo == heapEl.size) && (done > bytesReported) && (done <= heapEl.size)) {
+                addBytesCopied(done - bytesReported);
+                bytesReported = done;
+            }
+        }
+
+        /**
+         * Account for the bytes of this file which haven't been reported during the transfer.
+         */
+        protected void transferDone() {
+            if (heapEl.size > bytesReported) {
+                addBytesCopied(heapEl.size - bytesReported);
+                bytesReported = heapEl.size;
+            }
+            endTask(getTaskName());
+        }
+    }
+
 }
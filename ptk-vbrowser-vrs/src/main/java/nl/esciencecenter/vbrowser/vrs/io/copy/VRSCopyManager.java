@@ -34,6 +34,8 @@ import nl.esciencecenter.vbrowser.vrs.infors.VInfoResourcePath;
 import nl.esciencecenter.vbrowser.vrs.io.VFSDeletable;
 import nl.esciencecenter.vbrowser.vrs.io.VStreamReadable;
 import nl.esciencecenter.vbrowser.vrs.io.VStreamWritable;
+import nl.esciencecenter.vbrowser.vrs.localfs.LocalFSPathNode;
+import nl.esciencecenter.vbrowser.vrs.registry.ResourceConfigInfo;
 import nl.esciencecenter.vbrowser.vrs.task.VRSTaskWatcher;
 import nl.esciencecenter.vbrowser.vrs.vrl.VRL;
 
@@ -49,6 +51,16 @@ import java.util.List;
 @Slf4j
 public class VRSCopyManager implements VRSTransferManager {
 
+    /**
+     * Default maximum number of parallel file transfers when copying directories. Default is a sequential copy.
+     */
+    public static final int DEFAULT_MAX_PARALLEL_TRANSFERS = 1;
+
+    /**
+     * Maximum write size when the target is a local file.
+     */
+    public static final int LOCAL_WRITE_CHUNK_SIZE = 1024 * 1024;
+
     protected VRSClient vrsClient;
 
     protected VRSTaskWatcher taskWatcher;
@@ -328,6 +340,7 @@ public class VRSCopyManager implements VRSTransferManager {
         }
 
         HeapCopy heapCopy = new HeapCopy(this, sources, targetDirPath, isMove, monitor);
+        heapCopy.setMaxParallelTransfers(getMaxParallelTransfers(sources, targetDirPath));
         heapCopy.copy();
 
         if (resultPathsH != null) {
@@ -345,6 +358,42 @@ public class VRSCopyManager implements VRSTransferManager {
         return true;
     }
 
+    /**
+     * Returns the maximum number of parallel file transfers allowed between the resource systems of the sources and
+     * the target directory. The VRSContext property {@link VRSContextProperties#VRS_COPY_MAX_PARALLEL_TRANSFERS_PROP}
+     * specifies the default, each resource system may lower or raise this with the resource property
+     * {@link ResourceConfigInfo#ATTR_MAX_PARALLEL_TRANSFERS}. The lowest value of all involved resource systems is
+     * used.
+     */
+    public int getMaxParallelTransfers(List<? extends VPath> sources, VFSPath targetDirPath) {
+        int defaultValue = vrsClient.getVRSContext().getProperties().getIntegerProperty(
+                VRSContextProperties.VRS_COPY_MAX_PARALLEL_TRANSFERS_PROP, DEFAULT_MAX_PARALLEL_TRANSFERS);
+
+        int maxTransfers = getMaxParallelTransfers(targetDirPath, defaultValue);
+
+        if (sources != null) {
+            for (VPath source : sources) {
+                maxTransfers = Math.min(maxTransfers, getMaxParallelTransfers(source, defaultValue));
+            }
+        }
+
+        return Math.max(1, maxTransfers);
+    }
+
+    protected int getMaxParallelTransfers(VPath path, int defaultValue) {
+        try {
+            ResourceConfigInfo info = vrsClient.getVRSContext().getResourceSystemInfoFor(path.getResourceSystem());
+            if (info == null) {
+                return defaultValue;
+            }
+            return info.getProperties().getIntegerProperty(ResourceConfigInfo.ATTR_MAX_PARALLEL_TRANSFERS,
+                    defaultValue);
+        } catch (VrsException | NumberFormatException e) {
+            log.warn("Couldn't get maximum number of parallel transfers for:{} => {}", path, e.getMessage());
+            return defaultValue;
+        }
+    }
+
     public void streamCopyFile(VPath sourcePath, VFSPath targetFile, ITaskMonitor monitor) throws VrsException {
 
         if ((sourcePath instanceof VStreamReadable) == false) {
@@ -355,6 +404,12 @@ public class VRSCopyManager implements VRSTransferManager {
             throw new VrsException("Can not write to target file (not stream writable):" + targetFile);
         }
 
+        // local to local: let the filesystem transfer the data without the heap ring buffer and reader thread.
+        if ((sourcePath instanceof LocalFSPathNode) && (targetFile instanceof LocalFSPathNode)) {
+            ((LocalFSPathNode) sourcePath).copyFileTo((LocalFSPathNode) targetFile, monitor);
+            return;
+        }
+
         // actual copy:
 
         try {
@@ -369,7 +424,8 @@ public class VRSCopyManager implements VRSTransferManager {
             InputStream inps = ((VStreamReadable) sourcePath).createInputStream();
             OutputStream outps = ((VStreamWritable) targetFile).createOutputStream(false);
 
-            IOUtil.circularStreamCopy(inps, outps, len, 1024 * 1024, false, monitor);
+            IOUtil.circularStreamCopy(inps, outps, len, 1024 * 1024, IOUtil.DEFAULT_READ_CHUNK_SIZE,
+                    getWriteChunkSize(targetFile), false, monitor);
 
             IOUtil.autoClose(inps);
             IOUtil.autoClose(outps);
@@ -379,6 +435,17 @@ public class VRSCopyManager implements VRSTransferManager {
         }
     }
 
+    /**
+     * Returns maximum write size for the OutputStream of the target file. Local files can be written in big chunks,
+     * other transports use the safe default.
+     */
+    protected int getWriteChunkSize(VFSPath targetFile) {
+        if (targetFile instanceof LocalFSPathNode) {
+            return LOCAL_WRITE_CHUNK_SIZE;
+        }
+        return IOUtil.DEFAULT_WRITE_CHUNK_SIZE;
+    }
+
     public void dispose() {
         // TODO: check running tranfers
         this.vrsClient = null;
@@ -21,29 +21,52 @@
 package nl.esciencecenter.vbrowser.vrs.localfs;
 
 import lombok.extern.slf4j.Slf4j;
+import nl.esciencecenter.ptk.GlobalProperties;
+import nl.esciencecenter.ptk.io.FSMappedReader;
 import nl.esciencecenter.ptk.io.FSPath;
 import nl.esciencecenter.ptk.io.RandomReadable;
 import nl.esciencecenter.ptk.io.RandomWritable;
+import nl.esciencecenter.ptk.task.ITaskMonitor;
+import nl.esciencecenter.ptk.util.StringUtil;
 import nl.esciencecenter.vbrowser.vrs.VFSPath;
+import nl.esciencecenter.vbrowser.vrs.data.Attribute;
 import nl.esciencecenter.vbrowser.vrs.exceptions.*;
+import nl.esciencecenter.vbrowser.vrs.io.VFSDirectoryStream;
 import nl.esciencecenter.vbrowser.vrs.io.VFSFileAttributes;
 import nl.esciencecenter.vbrowser.vrs.io.VRandomAccessable;
 import nl.esciencecenter.vbrowser.vrs.io.VStreamAccessable;
+import nl.esciencecenter.vbrowser.vrs.node.IteratorDirectoryStream;
 import nl.esciencecenter.vbrowser.vrs.node.VFSPathNode;
 import nl.esciencecenter.vbrowser.vrs.vrl.VRL;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
 import java.nio.file.LinkOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import static nl.esciencecenter.ptk.io.FSUtil.fsutil;
 
 @Slf4j
 public class LocalFSPathNode extends VFSPathNode implements VStreamAccessable, VRandomAccessable {
 
+    /**
+     * Minimum number of paths for which the attributes are fetched in parallel.
+     */
+    public static final int PARALLEL_STAT_THRESHOLD = 64;
+
     protected LocalFileSystem localfs;
 
     protected FSPath fsNode;
@@ -95,6 +118,37 @@ public class LocalFSPathNode extends VFSPathNode implements VStreamAccessable, V
         }
     }
 
+    /**
+     * Streaming listing using a {@link java.nio.file.DirectoryStream}.
+     */
+    @Override
+    public VFSDirectoryStream openDirectoryStream(int pageSize) throws VrsException {
+        log.debug("openDirectoryStream():{}", this);
+
+        try {
+            final DirectoryStream<FSPath> dirStream = fsNode.newDirectoryStream();
+            final Iterator<FSPath> dirIterator = dirStream.iterator();
+
+            Iterator<LocalFSPathNode> nodeIterator = new Iterator<LocalFSPathNode>() {
+                @Override
+                public boolean hasNext() {
+                    return dirIterator.hasNext();
+                }
+
+                @Override
+                public LocalFSPathNode next() {
+                    return new LocalFSPathNode(localfs, dirIterator.next());
+                }
+            };
+
+            return new IteratorDirectoryStream(nodeIterator, pageSize, dirStream);
+        } catch (java.nio.file.AccessDeniedException e) {
+            throw new ResourceAccessDeniedException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw LocalFileSystem.convertException(this, "Failed to list path:" + getVRL(), e);
+        }
+    }
+
     @Override
     public VFSFileAttributes getFileAttributes(LinkOption... linkOptions) throws VrsException {
         try {
@@ -104,7 +158,76 @@ public class LocalFSPathNode extends VFSPathNode implements VStreamAccessable, V
         }
     }
 
+    /**
+     * Fetch all attributes with a single stat. Only for symbolic links the link target is stat-ed as well.
+     */
+    @Override
+    protected LocalFileAttributes fetchAttributesSnapshot() throws VrsException {
+        try {
+            BasicFileAttributes attrs = readAttributes(LinkOption.NOFOLLOW_LINKS);
+            boolean isLink = attrs.isSymbolicLink();
+            if (isLink) {
+                // Broken links are auto dereferenced by the FSInterface.
+                attrs = readAttributes();
+            }
+            return new LocalFileAttributes(attrs, isLink);
+        } catch (IOException e) {
+            throw LocalFileSystem.convertException(this, "Failed to get FileAttributes from:" + getVRL(), e);
+        }
+    }
+
+    /**
+     * Bulk attribute query. For larger sets the paths are stat-ed in parallel, one stat per path.
+     */
+    @Override
+    public Map<VRL, List<Attribute>> getAttributes(List<VRL> vrls, final String[] names) throws VrsException {
+        if (vrls.size() < PARALLEL_STAT_THRESHOLD) {
+            return super.getAttributes(vrls, names);
+        }
+
+        List<Callable<List<Attribute>>> tasks = new ArrayList<Callable<List<Attribute>>>(vrls.size());
+        for (VRL vrl : vrls) {
+            final LocalFSPathNode path = localfs.createVFSNode(vrl);
+            tasks.add(new Callable<List<Attribute>>() {
+                public List<Attribute> call() throws VrsException {
+                    return path.getAttributes(names);
+                }
+            });
+        }
+
+        Map<VRL, List<Attribute>> attrsMap = new LinkedHashMap<VRL, List<Attribute>>();
+        try {
+            List<Future<List<Attribute>>> results = ForkJoinPool.commonPool().invokeAll(tasks);
+            for (int i = 0; i < results.size(); i++) {
+                attrsMap.put(vrls.get(i), results.get(i).get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VrsException("Interrupted while fetching attributes of:" + getVRL(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof VrsException) {
+                throw (VrsException) cause;
+            }
+            throw new VrsException("Failed to fetch attributes:" + cause.getMessage(), cause);
+        }
+        return attrsMap;
+    }
+
+    private BasicFileAttributes readAttributes(LinkOption... linkOptions) throws IOException {
+        BasicFileAttributes attrs = null;
+        if (localfs.hasPosixAttributes()) {
+            attrs = fsNode.getFSInterface().getPosixAttributes(fsNode, linkOptions);
+        }
+        if (attrs == null) {
+            attrs = fsNode.getFSInterface().getBasicAttributes(fsNode, linkOptions);
+        }
+        return attrs;
+    }
+
     public OutputStream createOutputStream(boolean append) throws VrsException {
+        // size and modification time will change.
+        sync();
         try {
             return fsutil().createOutputStream(fsNode, append);
         } catch (IOException e) {
@@ -127,6 +250,7 @@ public class LocalFSPathNode extends VFSPathNode implements VStreamAccessable, V
             if ((ignoreExisting == false) && exists()) {
                 throw new ResourceCreationException("File already exists:" + getVRL(), null);
             }
+            sync();
 
             fsNode = fsNode.create();
         } catch (IOException e) {
@@ -148,6 +272,7 @@ public class LocalFSPathNode extends VFSPathNode implements VStreamAccessable, V
                 }
 
             }
+            sync();
             fsNode.getFSInterface().mkdir(fsNode);
         } catch (IOException e) {
             throw LocalFileSystem.convertException(this, "Failed to create directory:" + getVRL(), e);
@@ -170,6 +295,7 @@ public class LocalFSPathNode extends VFSPathNode implements VStreamAccessable, V
                 }
             }
 
+            sync();
             fsNode.delete(options);
         } catch (IOException e) {
             throw LocalFileSystem.convertException(this, "Couldn't delete:" + getVRL(), e);
@@ -179,6 +305,7 @@ public class LocalFSPathNode extends VFSPathNode implements VStreamAccessable, V
 
     @Override
     public VFSPath renameTo(VFSPath other) throws VrsException {
+        sync();
         try {
             String newPath = fsNode.renameTo(other.getVRL().getPath()).getPathname();
             return this.resolve(newPath);
@@ -189,6 +316,7 @@ public class LocalFSPathNode extends VFSPathNode implements VStreamAccessable, V
 
     @Override
     public boolean sync() {
+        clearAttributesSnapshot();
         return fsNode.sync();
     }
 
@@ -201,6 +329,21 @@ public class LocalFSPathNode extends VFSPathNode implements VStreamAccessable, V
         }
     }
 
+    /**
+     * Copy file contents to other local file using a FileChannel transfer, bypassing the stream copy buffers.
+     *
+     * @return number of bytes copied.
+     */
+    public long copyFileTo(LocalFSPathNode targetFile, ITaskMonitor monitor) throws VrsException {
+        targetFile.sync();
+        try {
+            return fsutil().copyFile(fsNode, targetFile.fsNode, monitor);
+        } catch (IOException e) {
+            throw LocalFileSystem.convertException(this, "Couldn't copy:" + getVRL() + " to:" + targetFile.getVRL(),
+                    e);
+        }
+    }
+
     @Override
     public RandomReadable createRandomReadable() throws VrsException {
         try {
@@ -211,8 +354,22 @@ public class LocalFSPathNode extends VFSPathNode implements VStreamAccessable, V
 
     }
 
+    /**
+     * Create memory mapped RandomReadable. Reads can be done directly from the mapped file using
+     * {@link FSMappedReader#readBuffer(long, int)} without copying the data into the heap.
+     */
+    public FSMappedReader createMappedReadable() throws VrsException {
+        try {
+            return fsutil().createMappedReader(fsNode);
+        } catch (IOException e) {
+            throw LocalFileSystem.convertException(this, "Couldn't create mapped RandomReadable from:" + getVRL(), e);
+        }
+    }
+
     @Override
     public RandomWritable createRandomWritable() throws VrsException {
+        // size and modification time will change.
+        sync();
         try {
             return fsutil().createRandomWriter(fsNode);
         } catch (IOException e) {
@@ -220,13 +377,42 @@ public class LocalFSPathNode extends VFSPathNode implements VStreamAccessable, V
         }
     }
 
+    /**
+     * Create permissions string from the Posix permissions in the attribute snapshot. The owner permissions are only
+     * used if the current user owns the file. For other users, including root, the group and others classes depend
+     * on group membership and privileges, so the actual access checks are done instead.
+     */
+    @Override
+    protected String createPermissionsString(VFSFileAttributes attrs) {
+        Set<PosixFilePermission> perms = null;
+        if (attrs instanceof LocalFileAttributes) {
+            perms = ((LocalFileAttributes) attrs).permissions();
+        }
+        if (perms == null) {
+            return createPermissionsString();
+        }
+        String user = GlobalProperties.getGlobalUserName();
+        if ((StringUtil.equals(((LocalFileAttributes) attrs).ownerName(), user) == false)
+                || StringUtil.equals(user, "root")) {
+            return createPermissionsString();
+        }
+        boolean d = attrs.isDirectory() && (attrs.isSymbolicLink() == false);
+        boolean r = perms.contains(PosixFilePermission.OWNER_READ);
+        boolean w = perms.contains(PosixFilePermission.OWNER_WRITE);
+        boolean x = perms.contains(PosixFilePermission.OWNER_EXECUTE);
+        return createPermissionsString(d, attrs.isSymbolicLink(), r, w, x);
+    }
+
     public String createPermissionsString() {
         boolean d = this.isDir(LinkOption.NOFOLLOW_LINKS);
         boolean r = this.fsNode.isReadable();
         boolean w = this.fsNode.isWritable();
         boolean x = this.fsNode.isExecutable();
         boolean l = fsNode.isSymbolicLink();
+        return createPermissionsString(d, l, r, w, x);
+    }
 
+    private static String createPermissionsString(boolean d, boolean l, boolean r, boolean w, boolean x) {
         char[] drwx = new char[4];
 
         drwx[0] = d ? 'd' : '-';
@@ -24,17 +24,52 @@ import nl.esciencecenter.vbrowser.vrs.io.VFSFileAttributes;
 
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Set;
 
 public class LocalFileAttributes implements VFSFileAttributes {
 
     protected BasicFileAttributes attrs;
 
+    protected boolean isSymbolicLink;
+
     public LocalFileAttributes(BasicFileAttributes attrs) {
         this.attrs = attrs;
+        this.isSymbolicLink = attrs.isSymbolicLink();
+    }
+
+    /**
+     * @param attrs          - (resolved) attributes of the file or link target.
+     * @param isSymbolicLink - whether the path itself is a symbolic link.
+     */
+    public LocalFileAttributes(BasicFileAttributes attrs, boolean isSymbolicLink) {
+        this.attrs = attrs;
+        this.isSymbolicLink = isSymbolicLink;
     }
 
     public boolean isSymbolicLink() {
-        return attrs.isSymbolicLink();
+        return isSymbolicLink;
+    }
+
+    /**
+     * @return Posix permissions or null if the attributes where not fetched as Posix attributes.
+     */
+    public Set<PosixFilePermission> permissions() {
+        if (attrs instanceof PosixFileAttributes) {
+            return ((PosixFileAttributes) attrs).permissions();
+        }
+        return null;
+    }
+
+    /**
+     * @return owner name or null if the attributes where not fetched as Posix attributes.
+     */
+    public String ownerName() {
+        if (attrs instanceof PosixFileAttributes) {
+            return ((PosixFileAttributes) attrs).owner().getName();
+        }
+        return null;
     }
 
     public boolean isHidden() {
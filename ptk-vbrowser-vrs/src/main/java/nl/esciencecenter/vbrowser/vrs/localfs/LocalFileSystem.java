@@ -33,14 +33,24 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.FileSystemException;
+import java.nio.file.FileSystems;
 
 import static nl.esciencecenter.ptk.io.FSUtil.fsutil;
 
 public class LocalFileSystem extends VFileSystemNode implements VStreamCreator, VCloseable {
 
+    private final boolean hasPosixAttributes;
 
     public LocalFileSystem(VRSContext context) throws VrsException {
         super(context, new VRL("file:/"));
+        this.hasPosixAttributes = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    }
+
+    /**
+     * @return whether the local file system supports Posix file attributes.
+     */
+    public boolean hasPosixAttributes() {
+        return hasPosixAttributes;
     }
 
     @Override
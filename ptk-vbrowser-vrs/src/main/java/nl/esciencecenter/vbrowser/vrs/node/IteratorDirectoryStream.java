@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012-2014 Netherlands eScience Center.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the following location:
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For the full license, see: LICENSE.txt (located in the root folder of this distribution).
+ * ---
+ */
+// source:
+
+package nl.esciencecenter.vbrowser.vrs.node;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.esciencecenter.vbrowser.vrs.VFSPath;
+import nl.esciencecenter.vbrowser.vrs.exceptions.VrsException;
+import nl.esciencecenter.vbrowser.vrs.exceptions.VrsIOException;
+import nl.esciencecenter.vbrowser.vrs.io.VFSDirectoryStream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Directory stream which returns pages from an Iterator.
+ */
+@Slf4j
+public class IteratorDirectoryStream implements VFSDirectoryStream {
+
+    private final Iterator<? extends VFSPath> iterator;
+
+    private final int pageSize;
+
+    private final Closeable optResource;
+
+    private boolean closed = false;
+
+    /**
+     * @param iterator    - directory entries
+     * @param pageSize    - maximum number of entries per page.
+     * @param optResource - optional resource which will be closed when this stream is closed.
+     */
+    public IteratorDirectoryStream(Iterator<? extends VFSPath> iterator, int pageSize, Closeable optResource) {
+        this.iterator = iterator;
+        this.pageSize = (pageSize > 0) ? pageSize : Integer.MAX_VALUE;
+        this.optResource = optResource;
+    }
+
+    @Override
+    public synchronized List<VFSPath> nextPage() throws VrsException {
+        if (closed) {
+            return null;
+        }
+
+        List<VFSPath> page = new ArrayList<VFSPath>();
+        try {
+            while ((page.size() < pageSize) && iterator.hasNext()) {
+                page.add(iterator.next());
+            }
+        } catch (DirectoryIteratorException e) {
+            close();
+            throw new VrsIOException("Failed to read directory.\n" + e.getCause().getMessage(), e.getCause());
+        }
+
+        if (page.size() == 0) {
+            close();
+            return null;
+        }
+        return page;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (optResource != null) {
+            try {
+                optResource.close();
+            } catch (IOException e) {
+                log.warn("Failed to close directory stream:{}", e.getMessage());
+            }
+        }
+    }
+
+}
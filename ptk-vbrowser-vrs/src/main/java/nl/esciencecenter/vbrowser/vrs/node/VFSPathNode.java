@@ -33,7 +33,9 @@ import nl.esciencecenter.vbrowser.vrs.VRSTypes;
 import nl.esciencecenter.vbrowser.vrs.data.Attribute;
 import nl.esciencecenter.vbrowser.vrs.data.AttributeDescription;
 import nl.esciencecenter.vbrowser.vrs.data.AttributeType;
+import nl.esciencecenter.vbrowser.vrs.exceptions.ResourceNotFoundException;
 import nl.esciencecenter.vbrowser.vrs.exceptions.VrsException;
+import nl.esciencecenter.vbrowser.vrs.io.VFSDirectoryStream;
 import nl.esciencecenter.vbrowser.vrs.io.VFSFileAttributes;
 import nl.esciencecenter.vbrowser.vrs.io.VStreamWritable;
 import nl.esciencecenter.vbrowser.vrs.vrl.VRL;
@@ -69,6 +71,16 @@ public abstract class VFSPathNode extends VPathNode implements VFSPath {
             // implementation specific permissions string
     };
 
+    /**
+     * File attributes snapshot used for attribute queries.
+     */
+    private VFSFileAttributes attributesSnapshot;
+
+    /**
+     * Time in milliseconds when the snapshot was fetched.
+     */
+    private long attributesSnapshotTime;
+
     protected VFSPathNode(VFileSystem fileSystem, VRL vrl) {
         super(fileSystem, vrl);
     }
@@ -163,41 +175,125 @@ public abstract class VFSPathNode extends VPathNode implements VFSPath {
         // --------
         // mutable
         // --------
+        // File attributes are served from one snapshot.
         if (name.compareTo(ATTR_RESOURCE_EXISTS) == 0) {
-            return new Attribute(name, exists());
+            return new Attribute(name, (getCachedAttributesSnapshot() != null) || exists());
         } else if (name.compareTo(ATTR_ISDIR) == 0) {
-            return new Attribute(name, isDir());
+            VFSFileAttributes attrs = getExistingAttributesSnapshot();
+            return new Attribute(name, (attrs != null) && attrs.isDirectory());
         } else if (name.compareTo(ATTR_ISFILE) == 0) {
-            return new Attribute(name, isFile());
+            VFSFileAttributes attrs = getExistingAttributesSnapshot();
+            return new Attribute(name, (attrs != null) && attrs.isRegularFile());
         } else if (name.compareTo(ATTR_ISSYMBOLIC_LINK) == 0) {
-            return new Attribute(name, getFileAttributes().isSymbolicLink());
+            return new Attribute(name, getAttributesSnapshot().isSymbolicLink());
         } else if (name.compareTo(ATTR_FILE_SIZE) == 0) {
-            return new Attribute(name, getFileAttributes().size());
+            return new Attribute(name, getAttributesSnapshot().size());
         } else if (name.compareTo(ATTR_ISHIDDEN) == 0) {
             return new Attribute(name, isHidden());
         } else if (name.compareTo(ATTR_MODIFICATION_TIME) == 0) {
-            FileTime time = getFileAttributes().lastModifiedTime();
+            FileTime time = getAttributesSnapshot().lastModifiedTime();
             if (time != null) {
                 return new Attribute(name, Presentation.createDate(time));
             }
         } else if (name.compareTo(ATTR_LASTACCESS_TIME) == 0) {
-            FileTime time = getFileAttributes().lastAccessTime();
+            FileTime time = getAttributesSnapshot().lastAccessTime();
             if (time != null) {
                 return new Attribute(name, Presentation.createDate(time));
             }
         } else if (name.compareTo(ATTR_CREATION_TIME) == 0) {
-            FileTime time = getFileAttributes().creationTime();
+            FileTime time = getAttributesSnapshot().creationTime();
             if (time != null) {
                 return new Attribute(name, Presentation.createDate(time));
             }
         } else if (name.compareTo(ATTR_PERMISSIONSTRING) == 0) {
-            return new Attribute(name, createPermissionsString());
+            return new Attribute(name, createPermissionsString(getAttributesSnapshot()));
         }
 
         return null;
     }
 
 
+    // ===================
+    // Attribute Snapshot
+    // ===================
+
+    /**
+     * Returns file attributes which are fetched once and reused for all attribute queries until they are older than
+     * the maximum attributes age or until {@link #sync()} is called.
+     */
+    public VFSFileAttributes getAttributesSnapshot() throws VrsException {
+        VFSFileAttributes attrs = getCachedAttributesSnapshot();
+        if (attrs == null) {
+            long time = System.currentTimeMillis();
+            attrs = fetchAttributesSnapshot();
+            setAttributesSnapshot(attrs, time);
+        }
+        return attrs;
+    }
+
+    /**
+     * Returns the attribute snapshot, or null if the path doesn't exist. A missing path is neither a directory nor a
+     * file.
+     */
+    protected VFSFileAttributes getExistingAttributesSnapshot() throws VrsException {
+        try {
+            return getAttributesSnapshot();
+        } catch (ResourceNotFoundException e) {
+            log.debug("No attributes, path doesn't exist:{}", getVRL());
+            return null;
+        }
+    }
+
+    /**
+     * @return snapshot if it is not older than the maximum attributes age, or null.
+     */
+    protected synchronized VFSFileAttributes getCachedAttributesSnapshot() {
+        if ((attributesSnapshot != null)
+                && (System.currentTimeMillis() - attributesSnapshotTime > getAttributesMaxAge())) {
+            attributesSnapshot = null;
+        }
+        return attributesSnapshot;
+    }
+
+    /**
+     * Set already fetched attributes, for example from a directory listing.
+     *
+     * @param time - time in milliseconds when the attributes were fetched.
+     */
+    protected synchronized void setAttributesSnapshot(VFSFileAttributes attrs, long time) {
+        this.attributesSnapshot = attrs;
+        this.attributesSnapshotTime = time;
+    }
+
+    protected void clearAttributesSnapshot() {
+        setAttributesSnapshot(null, 0);
+    }
+
+    /**
+     * Fetch all file attributes in one call. Override this method if the implementation can fetch more attributes
+     * at once than {@link #getFileAttributes(LinkOption...)}.
+     */
+    protected VFSFileAttributes fetchAttributesSnapshot() throws VrsException {
+        return getFileAttributes();
+    }
+
+    protected long getAttributesMaxAge() {
+        VFileSystem fs = getFileSystem();
+        if (fs instanceof VFileSystemNode) {
+            return ((VFileSystemNode) fs).getAttributesMaxAge();
+        }
+        return VFileSystemNode.DEFAULT_ATTRIBUTES_MAX_AGE;
+    }
+
+    /**
+     * Invalidates the attribute snapshot. Subclasses which cache more meta-data must call super.sync().
+     */
+    @Override
+    public boolean sync() throws VrsException {
+        clearAttributesSnapshot();
+        return true;
+    }
+
     public long getLength() throws VrsException {
         return getFileAttributes().size();
     }
@@ -216,6 +312,19 @@ public abstract class VFSPathNode extends VPathNode implements VFSPath {
         return false;
     }
 
+    /**
+     * Default implementation which pages the complete listing from {@link #list()}. Override this method if the
+     * implementation can read directories incrementally.
+     */
+    @Override
+    public VFSDirectoryStream openDirectoryStream(int pageSize) throws VrsException {
+        List<? extends VFSPath> nodes = list();
+        if (nodes == null) {
+            nodes = new ArrayList<VFSPath>();
+        }
+        return new IteratorDirectoryStream(nodes.iterator(), pageSize, null);
+    }
+
     public boolean create() throws VrsException {
         if (isFile()) {
             createFile(false);
@@ -386,6 +495,14 @@ public abstract class VFSPathNode extends VPathNode implements VFSPath {
         return "";
     }
 
+    /**
+     * Create permissions String from already fetched attributes. Default implementation calls
+     * {@link #createPermissionsString()}.
+     */
+    protected String createPermissionsString(VFSFileAttributes attrs) {
+        return createPermissionsString();
+    }
+
     // ===================
     // Abstract Interface
     // ===================
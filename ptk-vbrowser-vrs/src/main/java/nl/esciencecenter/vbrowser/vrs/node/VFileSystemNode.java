@@ -32,8 +32,26 @@ import nl.esciencecenter.vbrowser.vrs.vrl.VRL;
  */
 public abstract class VFileSystemNode extends VResourceSystemNode implements VFileSystem //, VFSPath
 {
+    /**
+     * Maximum age in milliseconds of the file attribute snapshot of a VFSPathNode.
+     */
+    public static final String VFS_ATTRIBUTES_MAX_AGE_PROPERTY = "vfs.attributes.maxAge";
+
+    public static final int DEFAULT_ATTRIBUTES_MAX_AGE = 10 * 1000;
+
+    protected long attributesMaxAge;
+
     protected VFileSystemNode(VRSContext context, VRL serverVrl) {
         super(context, serverVrl);
+        this.attributesMaxAge = context.getProperties().getLongProperty(VFS_ATTRIBUTES_MAX_AGE_PROPERTY,
+                DEFAULT_ATTRIBUTES_MAX_AGE);
+    }
+
+    /**
+     * @return maximum age in milliseconds of cached file attributes.
+     */
+    public long getAttributesMaxAge() {
+        return attributesMaxAge;
     }
 
     public VRL resolveVRL(String relativePath) throws VRLSyntaxException {
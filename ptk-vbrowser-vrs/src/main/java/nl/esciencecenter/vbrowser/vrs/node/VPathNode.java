@@ -168,6 +168,19 @@ public class VPathNode implements VPath {
         return list;
     }
 
+    /**
+     * Default implementation which resolves and queries each resource separately.
+     */
+    @Override
+    public Map<VRL, List<Attribute>> getAttributes(List<VRL> vrls, String[] names) throws VrsException {
+        Map<VRL, List<Attribute>> attrsMap = new LinkedHashMap<VRL, List<Attribute>>();
+        for (VRL vrl : vrls) {
+            VPath path = vrl.equals(getVRL()) ? this : resourceSystem.resolve(vrl);
+            attrsMap.put(vrl, path.getAttributes(names));
+        }
+        return attrsMap;
+    }
+
     final public Attribute getAttribute(String name) throws VrsException {
         Attribute attr = getImmutableAttribute(name);
 
@@ -63,6 +63,11 @@ public class ResourceConfigInfo implements Duplicatable<ResourceConfigInfo> {
 
     public static final String ATTR_AUTH_SCHEME = "authScheme";
 
+    /**
+     * Maximum number of parallel file transfers to or from this resource.
+     */
+    public static final String ATTR_MAX_PARALLEL_TRANSFERS = "maxParallelTransfers";
+
     public static final String[] defaultConfigAttributes = {RESOURCE_SCHEME, RESOURCE_USERINFO, RESOURCE_HOSTNAME,
             RESOURCE_PORT, RESOURCE_PATH};
 
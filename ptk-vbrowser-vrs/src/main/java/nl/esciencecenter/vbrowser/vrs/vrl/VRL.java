@@ -33,13 +33,19 @@ import java.net.URL;
 
 /**
  * Virtual Resource Locator Class. URI compatible Class. See URIFactory.
+ * <p>
+ * A VRL is immutable: methods which return a modified VRL create a new VRL. The normalized URI string and its hash
+ * code are therefore computed only once.
+ * <p>
+ * A child VRL created with appendPath() or resolvePath() with a single path element keeps a pointer to its parent
+ * VRL and its name. Parent, child, path element and isParentOf() operations on these VRLs don't parse strings.
  */
 public final class VRL implements Cloneable, Comparable<VRL>, Duplicatable<VRL>, Serializable {
 
     public static VRL createVRL(URIFactory factory, boolean duplicateFactory) {
         if (duplicateFactory)
             factory = factory.duplicate();
-        return new VRL(factory.duplicate());
+        return new VRL(factory);
     }
 
     public static VRL createDosVRL(String vrlstr) throws VRLSyntaxException {
@@ -64,6 +70,26 @@ public final class VRL implements Cloneable, Comparable<VRL>, Duplicatable<VRL>,
 
     protected URIFactory uriFactory;
 
+    /**
+     * Cached normalized URI string, computed on first use.
+     */
+    private transient String normalizedString;
+
+    /**
+     * Cached hash code of normalizedString, 0 if not computed yet.
+     */
+    private transient int hash;
+
+    /**
+     * Parent VRL if known. Set for child VRLs and after the first getParent().
+     */
+    private transient VRL parentVrl;
+
+    /**
+     * Last path element if this VRL has been created as child of parentVrl, otherwise null.
+     */
+    private transient String childName;
+
     protected VRL() {
     }
 
@@ -71,6 +97,15 @@ public final class VRL implements Cloneable, Comparable<VRL>, Duplicatable<VRL>,
         uriFactory = factory;
     }
 
+    /**
+     * Child VRL, the childName must be a single path element, see isPathElement().
+     */
+    private VRL(VRL parent, String childName) {
+        this.uriFactory = parent.uriFactory.getChild(childName);
+        this.parentVrl = parent;
+        this.childName = childName;
+    }
+
     public VRL(String uristr) throws VRLSyntaxException {
         init(uristr);
     }
@@ -102,6 +137,10 @@ public final class VRL implements Cloneable, Comparable<VRL>, Duplicatable<VRL>,
 
     public VRL(VRL other) {
         this.uriFactory = other.uriFactory.duplicate();
+        this.normalizedString = other.normalizedString;
+        this.hash = other.hash;
+        this.parentVrl = other.parentVrl;
+        this.childName = other.childName;
     }
 
     public VRL duplicate() {
@@ -178,18 +217,31 @@ public final class VRL implements Cloneable, Comparable<VRL>, Duplicatable<VRL>,
      */
     @Override
     public int hashCode() {
-        return toNormalizedString().hashCode();
+        int h = hash;
+        if (h == 0) {
+            h = toNormalizedString().hashCode();
+            hash = h;
+        }
+        return h;
     }
 
+    /**
+     * Compares the normalized URI Strings. VRLs with different hash codes are never equal.
+     */
     @Override
     public boolean equals(Object other) {
-        if (other == null)
-            return false;
+        if (other == this)
+            return true;
 
         if ((other instanceof VRL) == false)
             return false;
 
-        return (compareTo((VRL) other) == 0);
+        VRL otherVrl = (VRL) other;
+
+        if (hashCode() != otherVrl.hashCode())
+            return false;
+
+        return toNormalizedString().equals(otherVrl.toNormalizedString());
     }
 
     // ========================================================================
@@ -197,7 +249,8 @@ public final class VRL implements Cloneable, Comparable<VRL>, Duplicatable<VRL>,
     // ========================================================================
 
     public String toString() {
-        return uriFactory.toString();
+        // URIFactory.toString() returns the normalized string.
+        return toNormalizedString();
     }
 
     public java.net.URI toURI() throws URISyntaxException {
@@ -205,7 +258,12 @@ public final class VRL implements Cloneable, Comparable<VRL>, Duplicatable<VRL>,
     }
 
     public String toNormalizedString() {
-        return uriFactory.toNormalizedString();
+        String str = normalizedString;
+        if (str == null) {
+            str = uriFactory.toNormalizedString();
+            normalizedString = str;
+        }
+        return str;
     }
 
     /**
@@ -215,7 +273,7 @@ public final class VRL implements Cloneable, Comparable<VRL>, Duplicatable<VRL>,
         try {
             return uriFactory.toURI().toURL();
         } catch (URISyntaxException e) {
-            throw new MalformedURLException("Bad URI:" + uriFactory.toNormalizedString());
+            throw new MalformedURLException("Bad URI:" + toNormalizedString());
         }
     }
 
@@ -249,6 +307,9 @@ public final class VRL implements Cloneable, Comparable<VRL>, Duplicatable<VRL>,
     }
 
     public String getBasename() {
+        if (childName != null) {
+            return childName;
+        }
         return uriFactory.getBasename();
     }
 
@@ -277,7 +338,12 @@ public final class VRL implements Cloneable, Comparable<VRL>, Duplicatable<VRL>,
     }
 
     public VRL getParent() {
-        return createVRL(uriFactory.getParent(), true);
+        VRL parent = parentVrl;
+        if (parent == null) {
+            parent = createVRL(uriFactory.getParent(), false);
+            parentVrl = parent;
+        }
+        return parent;
     }
 
     public boolean isVLink() {
@@ -320,6 +386,10 @@ public final class VRL implements Cloneable, Comparable<VRL>, Duplicatable<VRL>,
     }
 
     public VRL resolvePath(String path) throws VRLSyntaxException {
+        if (isPathElement(path) && hasChildSupport()) {
+            return new VRL(this, path);
+        }
+
         try {
             String newPath = uriFactory.resolvePath(path);
             return createVRL(uriFactory.duplicate().setPath(newPath), false);
@@ -332,10 +402,54 @@ public final class VRL implements Cloneable, Comparable<VRL>, Duplicatable<VRL>,
      * Append path to this VRL and return new VRL
      */
     public VRL appendPath(String path) {
+        if (isPathElement(path) && hasChildSupport()) {
+            return new VRL(this, path);
+        }
         // Use URI factory here. 
         return createVRL(uriFactory.duplicate().appendPath(path), false);
     }
 
+    /**
+     * Whether the name is a single path element which needs no normalization or resolving: not empty, no path
+     * separators, not "." or ".." and no characters which are special in a URI or in a DOS path.
+     */
+    private static boolean isPathElement(String name) {
+        if ((name == null) || (name.length() == 0) || name.equals(".") || name.equals("..")) {
+            return false;
+        }
+
+        for (int i = 0; i < name.length(); i++) {
+            switch (name.charAt(i)) {
+                case URIFactory.URI_SEP_CHAR:
+                case URIFactory.DOS_SEP_CHAR:
+                case ':':
+                case '?':
+                case '#':
+                case '%':
+                    return false;
+                default:
+                    break;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Whether child VRLs can be created from the normalized path: the path must be absolute, or empty if the VRL has
+     * an authority part.
+     */
+    private boolean hasChildSupport() {
+        if (uriFactory.isOpaque()) {
+            return false;
+        }
+        String path = uriFactory.getPath();
+        if ((path == null) || (path.length() == 0)) {
+            return uriFactory.hasAuthority();
+        }
+        return (path.charAt(0) == URIFactory.URI_SEP_CHAR);
+    }
+
     public VRL replacePath(String path) {
         // note: a reference path must be not made absolute when the uri has Authority!
         return new VRL(getScheme(), getUserinfo(), getHostname(), getPort(), URIFactory.uripath(path, hasAuthority()),
@@ -349,6 +463,16 @@ public final class VRL implements Cloneable, Comparable<VRL>, Duplicatable<VRL>,
      * @return true if the subLocation is a child location of this VRL.
      */
     public boolean isParentOf(VRL subLocation) {
+        // Fast check whether subLocation has been derived from this VRL. 
+        // Child VRLs do not have the query or fragment of their parent in their path. 
+        if ((getQuery() == null) && (getFragment() == null)) {
+            for (VRL parent = subLocation.parentVrl; parent != null; parent = parent.parentVrl) {
+                if (parent == this) {
+                    return true;
+                }
+            }
+        }
+
         String pathStr = toString();
         String subPath = subLocation.toString();
         // Current implementation is based on simple string comparison.
@@ -357,7 +481,10 @@ public final class VRL implements Cloneable, Comparable<VRL>, Duplicatable<VRL>,
             // To prevent that paths like '<..>/dir123' appear to be subdirs of '<..>/dir' 
             // last part of subpath after '<..>/dir' must be '/' 
             // Debug("subPath.charAt="+subPath.charAt(pathStr.length()));
-            return (subPath.length() > pathStr.length()) && (subPath.charAt(pathStr.length()) == URIFactory.URI_SEP_CHAR);
+            // Root paths already end with a '/'.
+            return (subPath.length() > pathStr.length())
+                    && ((subPath.charAt(pathStr.length()) == URIFactory.URI_SEP_CHAR)
+                    || (pathStr.charAt(pathStr.length() - 1) == URIFactory.URI_SEP_CHAR));
         }
         return false;
     }
@@ -406,7 +533,39 @@ public final class VRL implements Cloneable, Comparable<VRL>, Duplicatable<VRL>,
     }
 
     public String[] getPathElements() {
-        return uriFactory.getPathElements();
+        if (childName == null) {
+            return uriFactory.getPathElements();
+        }
+
+        int depth = 0;
+        VRL vrl = this;
+
+        while (vrl.childName != null) {
+            depth++;
+            vrl = vrl.parentVrl;
+        }
+
+        // Path elements of first VRL which isn't a child: "" and "/" have one empty path element.
+        String[] baseElements = vrl.uriFactory.getPathElements();
+        int numBase = 0;
+
+        if ((baseElements != null) && ((baseElements.length != 1) || (baseElements[0].length() > 0))) {
+            numBase = baseElements.length;
+        }
+
+        String[] elements = new String[numBase + depth];
+
+        if (numBase > 0) {
+            System.arraycopy(baseElements, 0, elements, 0, numBase);
+        }
+
+        vrl = this;
+        for (int i = elements.length - 1; i >= numBase; i--) {
+            elements[i] = vrl.childName;
+            vrl = vrl.parentVrl;
+        }
+
+        return elements;
     }
 
     public boolean hasExtension(String ext, boolean matchCase) {
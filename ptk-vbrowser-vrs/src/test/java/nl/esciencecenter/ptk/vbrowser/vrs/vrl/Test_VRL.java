@@ -748,4 +748,64 @@ public class Test_VRL {
                 resolvedVrl.getPath());
 
     }
+
+    @Test
+    public void testEqualsAndHashCodeOfDerivedVRLs() throws Exception {
+        VRL base = new VRL("sftp://user@host.domain:22/home/user");
+        VRL child = base.appendPath("file.txt");
+        VRL expected = new VRL("sftp", "user", "host.domain", 22, "/home/user/file.txt");
+
+        // compute cached hash codes before deriving new VRLs:
+        Assert.assertEquals("Hashcode Failure !", expected.hashCode(), child.hashCode());
+        Assert.assertEquals(expected, child);
+        Assert.assertEquals(base, child.getParent());
+        Assert.assertEquals(base.hashCode(), child.getParent().hashCode());
+        Assert.assertEquals(child, new VRL(child));
+        Assert.assertFalse("Parent may not equal child", base.equals(child));
+        Assert.assertFalse(base.equals(base.toString()));
+
+        // cached fields are transient:
+        java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+        java.io.ObjectOutputStream out = new java.io.ObjectOutputStream(bytes);
+        out.writeObject(child);
+        out.close();
+        VRL copy = (VRL) new java.io.ObjectInputStream(new java.io.ByteArrayInputStream(bytes.toByteArray()))
+                .readObject();
+        Assert.assertEquals(child, copy);
+        Assert.assertEquals(child.hashCode(), copy.hashCode());
+        Assert.assertEquals(child.toString(), copy.toString());
+    }
+
+    @Test
+    public void testChildVRLs() throws Exception {
+        VRL root = new VRL("sftp://user@host.domain:22/");
+        VRL dir = root.appendPath("dir");
+        VRL file = dir.resolvePath("file.txt");
+        VRL expected = new VRL("sftp://user@host.domain:22/dir/file.txt");
+
+        Assert.assertEquals(expected, file);
+        Assert.assertEquals(expected.toString(), file.toString());
+        Assert.assertEquals(expected.getPath(), file.getPath());
+        Assert.assertEquals("file.txt", file.getBasename());
+        Assert.assertSame("Parent of child must be original VRL", dir, file.getParent());
+        Assert.assertEquals(expected.getParent(), file.getParent());
+        Assert.assertArrayEquals(expected.getPathElements(), file.getPathElements());
+        Assert.assertArrayEquals(new String[]{"dir", "file.txt"}, file.getPathElements());
+
+        Assert.assertTrue(dir.isParentOf(file));
+        Assert.assertTrue(root.isParentOf(file));
+        Assert.assertTrue("Root must be parent of parsed VRL", root.isParentOf(expected));
+        Assert.assertTrue(new VRL("sftp://user@host.domain:22/dir").isParentOf(file));
+        Assert.assertFalse(file.isParentOf(dir));
+        Assert.assertFalse(file.isParentOf(file));
+        Assert.assertFalse(new VRL("sftp://user@host.domain:22/di").isParentOf(file));
+
+        // path elements which must be resolved or normalized:
+        Assert.assertEquals(new VRL("file:/home/user"), new VRL("file:/home/user/dir").resolvePath(".."));
+        Assert.assertEquals(new VRL("file:/home/user/dir/sub"), new VRL("file:/home/user").appendPath("dir/sub"));
+        Assert.assertEquals(new VRL("file:/C:/dir"), new VRL("file:/C:/").appendPath("dir"));
+        Assert.assertArrayEquals(new String[]{"C:", "dir"}, new VRL("file:/C:/").appendPath("dir").getPathElements());
+        Assert.assertEquals(new VRL("file:/C:/dir").getParent(), new VRL("file:/C:/").appendPath("dir").getParent());
+        Assert.assertEquals(new VRL("file:/C:/"), new VRL("file:/C:/dir").getParent());
+    }
 }
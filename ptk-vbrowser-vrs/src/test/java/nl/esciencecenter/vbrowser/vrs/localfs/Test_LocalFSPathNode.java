@@ -0,0 +1,37 @@
+package nl.esciencecenter.vbrowser.vrs.localfs;
+
+import nl.esciencecenter.vbrowser.vrs.VRSContext;
+import nl.esciencecenter.vbrowser.vrs.data.AttributeNames;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+public class Test_LocalFSPathNode {
+
+    @Test
+    public void missingPathIsNotDirOrFile() throws Exception {
+        File dir = Files.createTempDirectory("test_localfs").toFile();
+        try {
+            LocalFileSystem localFs = new LocalFileSystem(new VRSContext());
+            LocalFSPathNode node = localFs.createNode(new File(dir, "missing.txt").getAbsolutePath());
+
+            Assert.assertFalse(node.getResourceAttribute(AttributeNames.ATTR_RESOURCE_EXISTS).getBooleanValue());
+            Assert.assertFalse(node.getResourceAttribute(AttributeNames.ATTR_ISDIR).getBooleanValue());
+            Assert.assertFalse(node.getResourceAttribute(AttributeNames.ATTR_ISFILE).getBooleanValue());
+
+            // creating the file must not use a stale snapshot.
+            try (OutputStream outps = node.createOutputStream(false)) {
+                outps.write(new byte[]{1, 2, 3});
+            }
+            Assert.assertTrue(node.getResourceAttribute(AttributeNames.ATTR_ISFILE).getBooleanValue());
+            Assert.assertEquals(3L, node.getResourceAttribute(AttributeNames.ATTR_FILE_SIZE).getLongValue());
+        } finally {
+            new File(dir, "missing.txt").delete();
+            dir.delete();
+        }
+    }
+
+}